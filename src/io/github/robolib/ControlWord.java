@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2015-2020 noriah <vix@noriah.dev>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ */
+
+package io.github.robolib;
+
+import io.github.robolib.modes.GameMode;
+
+/**
+ * The robot control word from a single Driver Station packet.
+ *
+ * Control words are immutable, and there is only one instance for each
+ * possible word, so the {@link DriverStation} thread can publish a new one for
+ * every packet without allocating.
+ *
+ * @author noriah <vix@noriah.dev>
+ * @see RobotState#get()
+ */
+public final class ControlWord {
+
+    private static final int ENABLED = 1;
+    private static final int AUTONOMOUS = 2;
+    private static final int TEST = 4;
+    private static final int ESTOP = 8;
+    private static final int FMS_ATTACHED = 16;
+    private static final int DS_ATTACHED = 32;
+
+    private static final int MASK = 63;
+
+    private static final ControlWord[] m_words = new ControlWord[MASK + 1];
+
+    static {
+        for (int i = 0; i <= MASK; i++) {
+            m_words[i] = new ControlWord(i);
+        }
+    }
+
+    private final int m_word;
+    private final GameMode m_mode;
+
+    private ControlWord(int word) {
+        m_word = word;
+        if ((word & ENABLED) == 0)
+            m_mode = GameMode.DISABLED;
+        else if ((word & TEST) != 0)
+            m_mode = GameMode.TEST;
+        else if ((word & AUTONOMOUS) != 0)
+            m_mode = GameMode.AUTON;
+        else
+            m_mode = GameMode.TELEOP;
+    }
+
+    /**
+     * Get the ControlWord for a raw robot status word.
+     *
+     * @param word the status word from the HAL
+     * @return the matching ControlWord
+     */
+    static ControlWord of(int word) {
+        return m_words[word & MASK];
+    }
+
+    /**
+     * @return the raw status word
+     */
+    public int getWord() {
+        return m_word;
+    }
+
+    /**
+     * @return True if the Robot is disabled
+     */
+    public boolean isDisabled() {
+        return (m_word & ENABLED) == 0;
+    }
+
+    /**
+     * @return True if the Robot is enabled
+     */
+    public boolean isEnabled() {
+        return (m_word & ENABLED) != 0;
+    }
+
+    /**
+     * @return True if the Robot is in Autonomous mode
+     */
+    public boolean isAutonomous() {
+        return (m_word & AUTONOMOUS) != 0;
+    }
+
+    /**
+     * @return True if the Robot is in Test mode
+     */
+    public boolean isTest() {
+        return (m_word & TEST) != 0;
+    }
+
+    /**
+     * @return True if the Robot is enabled in Operator Control mode
+     */
+    public boolean isOperatorControl() {
+        return ((m_word & (AUTONOMOUS | TEST)) == 0) && ((m_word & ENABLED) != 0);
+    }
+
+    /**
+     * @return True if the Robot is emergency stopped
+     */
+    public boolean isEStopped() {
+        return (m_word & ESTOP) != 0;
+    }
+
+    /**
+     * @return True if the FMS is attached
+     */
+    public boolean isFMSAttached() {
+        return (m_word & FMS_ATTACHED) != 0;
+    }
+
+    /**
+     * @return True if a Driver Station is attached
+     */
+    public boolean isDSAttached() {
+        return (m_word & DS_ATTACHED) != 0;
+    }
+
+    /**
+     * @return the {@link GameMode} this word selects
+     */
+    public GameMode getGameMode() {
+        return m_mode;
+    }
+
+    @Override
+    public String toString() {
+        return "ControlWord[" + m_mode.getName() + (isEStopped() ? ", EStopped" : "")
+                + (isFMSAttached() ? ", FMS" : "") + (isDSAttached() ? ", DS" : "") + "]";
+    }
+}
@@ -18,12 +18,12 @@ package io.github.robolib;
 import java.nio.ByteBuffer;
 import java.nio.IntBuffer;
 
+import io.github.robolib.hal.HAL;
+import io.github.robolib.hal.HALBuffers;
 import io.github.robolib.jni.HALUtil;
-import io.github.robolib.jni.NetworkCommunications;
 import io.github.robolib.modes.GameMode;
 import io.github.robolib.module.RoboRIO;
 import io.github.robolib.module.hid.Joystick;
-import io.github.robolib.util.Common;
 import io.github.robolib.util.TableSender;
 import io.github.robolib.util.log.ILogger;
 import io.github.robolib.util.log.Logger;
@@ -37,28 +37,39 @@ public final class DriverStation implements Runnable {
 
     private final Thread m_thread;
     private final Object m_dataSem;
-    private static final Object m_jsSem = new Object();
     private volatile boolean m_thread_keepAlive;
     private volatile boolean m_thread_exit_error;
-    private boolean m_newControlData;
+    private volatile boolean m_newControlData;
+    private volatile boolean m_runFramework = true;
     private final ByteBuffer m_packetDataAvailableMutex;
     private final ByteBuffer m_packetDataAvailableSem;
     private final ILogger m_log;
 
+    /**
+     * How long to wait for a packet before reading the robot status again, in
+     * milliseconds. Without a packet the FPGA can still disable the robot.
+     */
+    private static final int PACKET_TIMEOUT = 100;
+
     /** The Constant COUNT_JOYSTICKS. */
     public static final int COUNT_JOYSTICKS = 6;
 
-    /** The m_joystick axes. */
-    private static final short m_joystickAxes[][] = new short[COUNT_JOYSTICKS][NetworkCommunications.MAX_JS_AXES];
+    /**
+     * The joystick data from the latest packet. The DS thread replaces the whole
+     * array once per packet, so readers only need a single volatile read.
+     */
+    private static volatile JoystickSnapshot[] m_joysticks = new JoystickSnapshot[COUNT_JOYSTICKS];
 
-    /** The m_joystick po vs. */
-    private static final short m_joystickPOVs[][] = new short[COUNT_JOYSTICKS][NetworkCommunications.MAX_JS_POVS];
+    static {
+        for (int i = 0; i < COUNT_JOYSTICKS; i++) {
+            m_joysticks[i] = JoystickSnapshot.EMPTY;
+        }
+    }
 
-    /** The m_joystick buttons. */
-    private static final int m_joystickBtns[] = new int[COUNT_JOYSTICKS];
+    private static long m_packetSequence = 0;
 
-    /** The m_joystick buttons count. */
-    private static final byte m_joystickNBtn[] = new byte[COUNT_JOYSTICKS];
+    /** The control word from the latest packet. */
+    private static volatile ControlWord m_controlWord = ControlWord.of(0);
 
     private static DriverStation m_instance;
 
@@ -79,9 +90,10 @@ public final class DriverStation implements Runnable {
         m_log = Logger.get(DriverStation.class);
         m_log.info("Interface initializing");
         m_dataSem = new Object();
-        m_packetDataAvailableMutex = HALUtil.initializeMutexNormal();
-        m_packetDataAvailableSem = HALUtil.initializeMultiWait();
-        NetworkCommunications.setNewDataSem(m_packetDataAvailableSem);
+        m_packetDataAvailableMutex = HAL.FPGA.initializeMutexNormal();
+        m_packetDataAvailableSem = HAL.FPGA.initializeMultiWait();
+        HAL.NET.setNewDataSem(m_packetDataAvailableSem);
+        m_controlWord = ControlWord.of(HAL.NET.getRobotStatus());
 
         // WOO lookie here. Lambda functions ^_^
         m_thread = new Thread(this, "DriverStation JSThread");
@@ -102,52 +114,30 @@ public final class DriverStation implements Runnable {
         }
 
         while (m_thread_keepAlive) {
-            HALUtil.takeMultiWait(m_packetDataAvailableSem, m_packetDataAvailableMutex, 0);
-            synchronized (m_jsSem) {
-
-                m_joystickAxes[0] = NetworkCommunications.HALGetJoystickAxes((byte) 0x00);
-                m_joystickPOVs[0] = NetworkCommunications.HALGetJoystickPOVs((byte) 0x00);
-                m_joystickBtns[0] = NetworkCommunications.HALGetJoystickButtons((byte) 0x00, countBuffer);
-                m_joystickNBtn[0] = countBuffer.get();
-                countBuffer.clear();
-
-                m_joystickAxes[1] = NetworkCommunications.HALGetJoystickAxes((byte) 0x01);
-                m_joystickPOVs[1] = NetworkCommunications.HALGetJoystickPOVs((byte) 0x01);
-                m_joystickBtns[1] = NetworkCommunications.HALGetJoystickButtons((byte) 0x01, countBuffer);
-                m_joystickNBtn[1] = countBuffer.get();
-                countBuffer.clear();
-
-                m_joystickAxes[2] = NetworkCommunications.HALGetJoystickAxes((byte) 0x02);
-                m_joystickPOVs[2] = NetworkCommunications.HALGetJoystickPOVs((byte) 0x02);
-                m_joystickBtns[2] = NetworkCommunications.HALGetJoystickButtons((byte) 0x02, countBuffer);
-                m_joystickNBtn[2] = countBuffer.get();
+            byte timedOut = HAL.FPGA.takeMultiWait(m_packetDataAvailableSem, m_packetDataAvailableMutex,
+                    PACKET_TIMEOUT);
+            m_controlWord = ControlWord.of(HAL.NET.getRobotStatus());
+            if (timedOut != 0)
+                continue;
+            JoystickSnapshot[] sticks = new JoystickSnapshot[COUNT_JOYSTICKS];
+            long sequence = ++m_packetSequence;
+            for (byte i = 0; i < COUNT_JOYSTICKS; i++) {
+                short[] axes = HAL.NET.getJoystickAxes(i);
+                short[] povs = HAL.NET.getJoystickPOVs(i);
+                int buttons = HAL.NET.getJoystickButtons(i, countBuffer);
+                sticks[i] = new JoystickSnapshot(sequence, axes, povs, buttons, countBuffer.get());
                 countBuffer.clear();
-
-                m_joystickAxes[3] = NetworkCommunications.HALGetJoystickAxes((byte) 0x03);
-                m_joystickPOVs[3] = NetworkCommunications.HALGetJoystickPOVs((byte) 0x03);
-                m_joystickBtns[3] = NetworkCommunications.HALGetJoystickButtons((byte) 0x03, countBuffer);
-                m_joystickNBtn[3] = countBuffer.get();
-                countBuffer.clear();
-
-                m_joystickAxes[4] = NetworkCommunications.HALGetJoystickAxes((byte) 0x04);
-                m_joystickPOVs[4] = NetworkCommunications.HALGetJoystickPOVs((byte) 0x04);
-                m_joystickBtns[4] = NetworkCommunications.HALGetJoystickButtons((byte) 0x04, countBuffer);
-                m_joystickNBtn[4] = countBuffer.get();
-                countBuffer.clear();
-
-                m_joystickAxes[5] = NetworkCommunications.HALGetJoystickAxes((byte) 0x05);
-                m_joystickPOVs[5] = NetworkCommunications.HALGetJoystickPOVs((byte) 0x05);
-                m_joystickBtns[5] = NetworkCommunications.HALGetJoystickButtons((byte) 0x05, countBuffer);
-                m_joystickNBtn[5] = countBuffer.get();
-                countBuffer.clear();
-
-                m_newControlData = true;
             }
+            m_joysticks = sticks;
+            m_newControlData = true;
 
             synchronized (m_dataSem) {
                 m_dataSem.notifyAll();
             }
 
+            if (!m_runFramework)
+                continue;
+
             if (++tableCounter >= 2) {
                 TableSender.getInstance().runFramework();
                 tableCounter = 0;
@@ -175,6 +165,17 @@ public final class DriverStation implements Runnable {
 
     }
 
+    /**
+     * Get the data from the latest packet for a joystick. Every value in the
+     * snapshot comes from the same packet.
+     *
+     * @param stick the stick
+     * @return the latest {@link JoystickSnapshot} for the stick
+     */
+    public static JoystickSnapshot getJoystickSnapshot(Joystick.JSID stick) {
+        return m_joysticks[stick.ordinal()];
+    }
+
     /**
      * Gets the stick axis.
      *
@@ -183,19 +184,13 @@ public final class DriverStation implements Runnable {
      * @return the stick axis
      */
     public static double getStickAxis(Joystick.JSID stick, int axis) {
-        synchronized (m_jsSem) {
-            if (m_joystickAxes[stick.ordinal()].length <= axis) {
-                complainJoystickMissing("Axis '" + axis + "' on stick '" + stick + "' is invalid. Is it plugged in?");
-                return 0.0;
-            }
-
-            double value = m_joystickAxes[stick.ordinal()][axis];
-            if (value < 0) {
-                return value / 128.0;
-            } else {
-                return value / 127.0;
-            }
+        JoystickSnapshot js = m_joysticks[stick.ordinal()];
+        if (js.getAxisCount() <= axis) {
+            complainJoystickMissing("Axis '" + axis + "' on stick '" + stick + "' is invalid. Is it plugged in?");
+            return 0.0;
         }
+
+        return js.getAxis(axis);
     }
 
     /**
@@ -206,15 +201,13 @@ public final class DriverStation implements Runnable {
      * @return the stick button
      */
     public static boolean getStickButton(Joystick.JSID stick, int button) {
-        synchronized (m_jsSem) {
-            if (m_joystickNBtn[stick.ordinal()] <= button) {
-                complainJoystickMissing(
-                        "Button '" + button + "' on stick '" + stick + "' is invalid. Is it plugged in?");
-                return false;
-            }
-
-            return ((1 << button) & m_joystickBtns[stick.ordinal()]) != 0;
+        JoystickSnapshot js = m_joysticks[stick.ordinal()];
+        if (js.getButtonCount() <= button) {
+            complainJoystickMissing("Button '" + button + "' on stick '" + stick + "' is invalid. Is it plugged in?");
+            return false;
         }
+
+        return js.getButton(button);
     }
 
     /**
@@ -225,14 +218,13 @@ public final class DriverStation implements Runnable {
      * @return the stick pov
      */
     public static int getStickPOV(Joystick.JSID stick, int pov) {
-        synchronized (m_jsSem) {
-            if (m_joystickPOVs[stick.ordinal()].length <= pov) {
-                complainJoystickMissing("Button '" + pov + "' on stick '" + stick + "' is invalid. Is it plugged in?");
-                return 0;
-            }
-
-            return m_joystickPOVs[stick.ordinal()][pov];
+        JoystickSnapshot js = m_joysticks[stick.ordinal()];
+        if (js.getPOVCount() <= pov) {
+            complainJoystickMissing("Button '" + pov + "' on stick '" + stick + "' is invalid. Is it plugged in?");
+            return 0;
         }
+
+        return js.getPOV(pov);
     }
 
     protected void startThread() {
@@ -243,6 +235,17 @@ public final class DriverStation implements Runnable {
         }
     }
 
+    /**
+     * Set whether the communications thread sends table data and checks motor
+     * safety after each packet. The fixed period main loop turns this off and
+     * runs them itself.
+     *
+     * @param run true to run them on the communications thread
+     */
+    void setRunFramework(boolean run) {
+        m_runFramework = run;
+    }
+
     public void exitNoError() {
         m_thread_keepAlive = false;
         m_thread_exit_error = false;
@@ -292,7 +295,7 @@ public final class DriverStation implements Runnable {
     private int m_modeNewInt = 0;
 
     protected boolean hasModeChanged() {
-        m_modeNewInt = NetworkCommunications.HALGetRobotStatus();
+        m_modeNewInt = m_controlWord.getWord();
         if (m_modeNewInt != m_modeInt) {
             m_modeInt = m_modeNewInt;
             return true;
@@ -306,7 +309,7 @@ public final class DriverStation implements Runnable {
      * @return True if the Robot is currently disabled by the field controls.
      */
     public static boolean isDisabled() {
-        return (NetworkCommunications.HALGetRobotStatus() & 1) == 0;
+        return m_controlWord.isDisabled();
     }
 
     /**
@@ -315,7 +318,7 @@ public final class DriverStation implements Runnable {
      * @return True if the Robot is currently enabled by the field controls.
      */
     public static boolean isEnabled() {
-        return (NetworkCommunications.HALGetRobotStatus() & 1) != 0;
+        return m_controlWord.isEnabled();
     }
 
     /**
@@ -325,7 +328,7 @@ public final class DriverStation implements Runnable {
      *         by the field controls.
      */
     public static boolean isAutonomous() {
-        return (NetworkCommunications.HALGetRobotStatus() & 2) != 0;
+        return m_controlWord.isAutonomous();
     }
 
     /**
@@ -335,7 +338,7 @@ public final class DriverStation implements Runnable {
      *         by the driver station.
      */
     public static boolean isTest() {
-        return (NetworkCommunications.HALGetRobotStatus() & 4) != 0;
+        return m_controlWord.isTest();
     }
 
     /**
@@ -344,7 +347,7 @@ public final class DriverStation implements Runnable {
      * @return True if the robot is currently emergency stopped.
      */
     public static boolean isEStopped() {
-        return (NetworkCommunications.HALGetRobotStatus() & 8) != 0;
+        return m_controlWord.isEStopped();
     }
 
     /**
@@ -353,7 +356,7 @@ public final class DriverStation implements Runnable {
      * @return True if the FMS is attached
      */
     public static boolean isFMSAttached() {
-        return (NetworkCommunications.HALGetRobotStatus() & 16) != 0;
+        return m_controlWord.isFMSAttached();
     }
 
     /**
@@ -362,7 +365,7 @@ public final class DriverStation implements Runnable {
      * @return True if we have a driver station
      */
     public static boolean isDSAttached() {
-        return (NetworkCommunications.HALGetRobotStatus() & 32) != 0;
+        return m_controlWord.isDSAttached();
     }
 
     /**
@@ -372,8 +375,7 @@ public final class DriverStation implements Runnable {
      *         determined by the field controls.
      */
     public static boolean isOperatorControl() {
-        int word = NetworkCommunications.HALGetRobotStatus();
-        return ((word & 6) == 0) && ((word & 1) != 0);
+        return m_controlWord.isOperatorControl();
     }
 
     /**
@@ -382,8 +384,8 @@ public final class DriverStation implements Runnable {
      * @return Is the system active (i.e. PWM motor outputs, etc. enabled)?
      */
     public static boolean isSysActive() {
-        IntBuffer status = Common.allocateInt();
-        boolean retVal = NetworkCommunications.HALGetSystemActive(status);
+        IntBuffer status = HALBuffers.intBuffer();
+        boolean retVal = HAL.NET.getSystemActive(status);
         HALUtil.checkStatus(status);
         return retVal;
     }
@@ -394,8 +396,8 @@ public final class DriverStation implements Runnable {
      * @return True if the system is browned out
      */
     public static boolean isBrownedOut() {
-        IntBuffer status = Common.allocateInt();
-        boolean retVal = NetworkCommunications.HALGetBrownedOut(status);
+        IntBuffer status = HALBuffers.intBuffer();
+        boolean retVal = HAL.NET.getBrownedOut(status);
         HALUtil.checkStatus(status);
         return retVal;
     }
@@ -406,14 +408,17 @@ public final class DriverStation implements Runnable {
      * @return the driver station mode as a {@link GameMode}
      */
     public static GameMode getGameMode() {
-        if (isDisabled())
-            return GameMode.DISABLED;
-        else if (isTest())
-            return GameMode.TEST;
-        else if (isAutonomous())
-            return GameMode.AUTON;
-        else
-            return GameMode.TELEOP;
+        return m_controlWord.getGameMode();
+    }
+
+    /**
+     * Get the control word from the latest Driver Station packet. This does not
+     * call into the HAL, so it is cheap enough to call as often as needed.
+     *
+     * @return the latest {@link ControlWord}
+     */
+    public static ControlWord getControlWord() {
+        return m_controlWord;
     }
 
     /**
@@ -423,6 +428,6 @@ public final class DriverStation implements Runnable {
      */
     public static void reportError(String err) {
         if (isDSAttached())
-            NetworkCommunications.HALSetErrorData(err);
+            HAL.NET.setErrorData(err);
     }
 }
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2015-2020 noriah <vix@noriah.dev>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ */
+
+package io.github.robolib;
+
+/**
+ * The state of one joystick as of a single Driver Station packet.
+ *
+ * Snapshots are immutable. The {@link DriverStation} thread builds a new set
+ * for every packet and publishes them all at once, so every value read from
+ * one snapshot came from the same packet, and reading never blocks the
+ * communications thread.
+ *
+ * @author noriah <vix@noriah.dev>
+ * @see DriverStation#getJoystickSnapshot(io.github.robolib.module.hid.Joystick.JSID)
+ */
+public final class JoystickSnapshot {
+
+    static final JoystickSnapshot EMPTY = new JoystickSnapshot(0, new short[0], new short[0], 0, (byte) 0);
+
+    private final long m_sequence;
+    private final short[] m_axes;
+    private final short[] m_povs;
+    private final int m_buttons;
+    private final byte m_buttonCount;
+
+    /**
+     * The arrays are taken as-is and must not be modified afterwards.
+     */
+    JoystickSnapshot(long sequence, short[] axes, short[] povs, int buttons, byte buttonCount) {
+        m_sequence = sequence;
+        m_axes = axes;
+        m_povs = povs;
+        m_buttons = buttons;
+        m_buttonCount = buttonCount;
+    }
+
+    /**
+     * Get the number of the packet this snapshot came from. The number goes up
+     * by one for every packet, starting at 1.
+     *
+     * @return the packet sequence number, or 0 if no packet has arrived
+     */
+    public long getSequence() {
+        return m_sequence;
+    }
+
+    /**
+     * @return the number of axes on this joystick
+     */
+    public int getAxisCount() {
+        return m_axes.length;
+    }
+
+    /**
+     * Get an axis value.
+     *
+     * @param axis the axis index
+     * @return the axis value from -1.0 to 1.0, or 0.0 if there is no such axis
+     */
+    public double getAxis(int axis) {
+        if (axis < 0 || axis >= m_axes.length)
+            return 0.0;
+        double value = m_axes[axis];
+        if (value < 0)
+            return value / 128.0;
+        else
+            return value / 127.0;
+    }
+
+    /**
+     * Get an axis value as sent by the Driver Station.
+     *
+     * @param axis the axis index
+     * @return the raw axis value, or 0 if there is no such axis
+     */
+    public short getRawAxis(int axis) {
+        if (axis < 0 || axis >= m_axes.length)
+            return 0;
+        return m_axes[axis];
+    }
+
+    /**
+     * @return the number of buttons on this joystick
+     */
+    public int getButtonCount() {
+        return m_buttonCount;
+    }
+
+    /**
+     * Get a button state.
+     *
+     * @param button the button index
+     * @return true if the button is pressed, false if not or if there is no
+     *         such button
+     */
+    public boolean getButton(int button) {
+        if (button < 0 || button >= m_buttonCount)
+            return false;
+        return ((1 << button) & m_buttons) != 0;
+    }
+
+    /**
+     * @return all button states, one bit per button
+     */
+    public int getButtons() {
+        return m_buttons;
+    }
+
+    /**
+     * @return the number of POVs on this joystick
+     */
+    public int getPOVCount() {
+        return m_povs.length;
+    }
+
+    /**
+     * Get a POV angle.
+     *
+     * @param pov the POV index
+     * @return the angle in degrees, -1 if not pressed, or 0 if there is no such
+     *         POV
+     */
+    public int getPOV(int pov) {
+        if (pov < 0 || pov >= m_povs.length)
+            return 0;
+        return m_povs[pov];
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2015-2020 noriah <vix@noriah.dev>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ */
+
+package io.github.robolib;
+
+import io.github.robolib.identifier.UpdatingSendable;
+import io.github.robolib.nettable.ITable;
+import io.github.robolib.util.Histogram;
+
+/**
+ * Timing for the fixed period main loop.
+ *
+ * Each phase of the loop is timed separately against the FPGA clock, so it is
+ * easy to see where the loop time goes and how often the loop runs over its
+ * period.
+ *
+ * @author noriah <vix@noriah.dev>
+ * @see RoboLib#setLoopPeriod(int)
+ */
+public final class LoopTiming implements UpdatingSendable {
+
+    /**
+     * The timed phases of the main loop.
+     *
+     * @author noriah <vix@noriah.dev>
+     */
+    public static enum Phase {
+        /** The RobotMode run code. */
+        MODE("Mode"),
+
+        /** The command Scheduler. */
+        SCHEDULER("Scheduler"),
+
+        /** Sending framework data to the network tables. */
+        TABLES("Tables"),
+
+        /** Checking motor safety. */
+        SAFETY("Safety"),
+
+        /** The whole loop, from the start of one cycle to the end of its work. */
+        CYCLE("Cycle");
+
+        private final String m_name;
+
+        private Phase(String name) {
+            m_name = name;
+        }
+
+        public String getName() {
+            return m_name;
+        }
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private final Histogram[] m_histograms = new Histogram[PHASES.length];
+    private final long m_periodMicros;
+    private volatile long m_overruns = 0;
+    private volatile long m_worstLateness = 0;
+    private ITable m_table;
+
+    LoopTiming(long periodMicros) {
+        m_periodMicros = periodMicros;
+        for (int i = 0; i < PHASES.length; i++) {
+            m_histograms[i] = new Histogram();
+        }
+    }
+
+    void record(Phase phase, long micros) {
+        m_histograms[phase.ordinal()].record(micros);
+    }
+
+    void overrun(long lateness) {
+        m_overruns++;
+        if (lateness > m_worstLateness)
+            m_worstLateness = lateness;
+    }
+
+    /**
+     * @return the loop period in microseconds
+     */
+    public long getPeriod() {
+        return m_periodMicros;
+    }
+
+    /**
+     * Get the recorded durations for a phase.
+     *
+     * @param phase the phase
+     * @return the {@link Histogram} for that phase, in microseconds
+     */
+    public Histogram getHistogram(Phase phase) {
+        return m_histograms[phase.ordinal()];
+    }
+
+    /**
+     * @return the number of cycles that took longer than the period
+     */
+    public long getOverrunCount() {
+        return m_overruns;
+    }
+
+    /**
+     * @return the furthest any cycle has run past its deadline, in microseconds
+     */
+    public long getWorstOverrun() {
+        return m_worstLateness;
+    }
+
+    /**
+     * Clear all timing data.
+     */
+    public void reset() {
+        for (Histogram h : m_histograms) {
+            h.reset();
+        }
+        m_overruns = 0;
+        m_worstLateness = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void initTable(ITable subtable) {
+        m_table = subtable;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ITable getTable() {
+        return m_table;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getSmartDashboardType() {
+        return "LoopTiming";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void updateTable() {
+        if (m_table == null)
+            return;
+        m_table.putNumber("Period", m_periodMicros);
+        m_table.putNumber("Overruns", m_overruns);
+        m_table.putNumber("Worst Overrun", m_worstLateness);
+        for (Phase p : PHASES) {
+            Histogram h = m_histograms[p.ordinal()];
+            ITable t = m_table.getSubTable(p.getName());
+            t.putNumber("Last", h.getLast());
+            t.putNumber("Mean", h.getMean());
+            t.putNumber("Max", h.getMax());
+            t.putNumber("99th", h.getPercentile(0.99));
+        }
+    }
+}
@@ -20,10 +20,11 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.concurrent.locks.LockSupport;
 import java.util.jar.Manifest;
 
 import io.github.robolib.command.Scheduler;
-import io.github.robolib.jni.NetworkCommunications;
+import io.github.robolib.hal.HAL;
 import io.github.robolib.jni.UsageReporting;
 import io.github.robolib.modes.AutonMode;
 import io.github.robolib.modes.DisabledMode;
@@ -33,6 +34,7 @@ import io.github.robolib.modes.TestMode;
 import io.github.robolib.module.Compressor;
 import io.github.robolib.module.PDP;
 import io.github.robolib.module.RoboRIO;
+import io.github.robolib.module.iface.CANBus;
 import io.github.robolib.nettable.ITable;
 import io.github.robolib.nettable.NetworkTable;
 import io.github.robolib.util.MathUtils;
@@ -97,6 +99,16 @@ public class RoboLib {
     /** The m_table. */
     private static ITable m_table;
 
+    /** Microseconds between table updates in the fixed period loop. */
+    private static final long TABLE_PERIOD = 40000;
+
+    /** Microseconds between motor safety checks in the fixed period loop. */
+    private static final long SAFETY_PERIOD = 80000;
+
+    private static int m_loopPeriod = 0;
+    private static LoopTiming m_loopTiming = null;
+    private static volatile boolean m_loopStarted = false;
+
     /**
      * Robot Class Method.
      */
@@ -274,7 +286,7 @@ public class RoboLib {
     public static final void main(String args[]) {
         Thread.currentThread().setName("Framework Thread");
 
-        NetworkCommunications.NetworkCommunicationReserve();
+        HAL.NET.networkCommunicationReserve();
         ILogger log = Logger.get(RoboLib.class, "Framework");
 
         log.info(FRC_JAVA_VERSION);
@@ -305,6 +317,7 @@ public class RoboLib {
             TableSender.addFramework(PDP.getInstance(), "Power/PDP");
             TableSender.addFramework(RoboRIO.getInstance(), "Power/RIO");
             TableSender.addFramework(Compressor.getInstance(), "Compressor");
+            TableSender.addFramework(CANBus.getInstance(), "CAN");
         } catch (Throwable t) {
             log.fatal("Failure creating framework", t);
         }
@@ -437,7 +450,7 @@ public class RoboLib {
         }
 
         log.debug("Sending 'program running' signal to Driver Station");
-        NetworkCommunications.ObserveUserProgramStarting();
+        HAL.NET.observeUserProgramStarting();
 
         DriverStation ds = DriverStation.getInstance();
         log.debug("Starting DriverStation thread");
@@ -446,40 +459,13 @@ public class RoboLib {
         log.info(m_name + ", Version " + m_version + " Running");
 
         log.info("Starting Main Loop");
+        m_loopStarted = true;
 
-        GameMode gMode;
         try {
-            while (m_thread_keepAlive) {
-                ds.waitForData();
-                if (ds.hasModeChanged()) {
-                    gMode = DriverStation.getGameMode();
-                    if (m_currentMode != gMode) {
-                        log.info("Switching to " + gMode.getName());
-
-                        try {
-                            m_currentRobotMode.modeEnd();
-                        } catch (Throwable e) {
-                            Logger.get(m_currentRobotMode).fatal("Fatal error in RobotMode end method", e);
-                        }
-
-                        m_currentMode = gMode;
-                        m_currentRobotMode = m_modesArr[m_currentMode.value];
-                        // m_table.putNumber("mode", gMode.value);
-                        // m_table.putString("mode-string", m_currentRobotMode.getName());
-                        System.gc();
-
-                        try {
-                            m_currentRobotMode.modeInit();
-                        } catch (Throwable e) {
-                            Logger.get(m_currentRobotMode).fatal("Fatal error in RobotMode init method", e);
-                        }
-                    }
-                }
-
-                if (ds.isNewControlData()) {
-                    m_currentRobotMode.modeRun();
-                }
-            }
+            if (m_loopPeriod > 0)
+                runFixedLoop(ds, log);
+            else
+                runPacketLoop(ds, log);
         } catch (Throwable t) {
             log.fatal("Error in Main Loop. Something should have caught this!!!", t);
         } finally {
@@ -488,6 +474,170 @@ public class RoboLib {
         }
     }
 
+    /**
+     * Run the current RobotMode once for every Driver Station packet.
+     */
+    private static void runPacketLoop(DriverStation ds, ILogger log) {
+        while (m_thread_keepAlive) {
+            ds.waitForData();
+            checkModeChange(ds, log);
+
+            if (ds.isNewControlData()) {
+                m_currentRobotMode.modeRun();
+                m_currentRobotMode.modeSchedule();
+            }
+        }
+    }
+
+    /**
+     * Run the current RobotMode at a fixed period, timing each phase of the loop.
+     */
+    private static void runFixedLoop(DriverStation ds, ILogger log) {
+        final long period = m_loopPeriod * 1000L;
+        final LoopTiming timing = m_loopTiming;
+        final int tableDivisor = (int) Math.max(1, TABLE_PERIOD / period);
+        final int safetyDivisor = (int) Math.max(1, SAFETY_PERIOD / period);
+        int tableCounter = 0;
+        int safetyCounter = 0;
+        long nextComplain = 0;
+
+        ds.setRunFramework(false);
+        TableSender.addFramework(timing, "Loop");
+        log.info("Running at a fixed period of " + m_loopPeriod + "ms");
+
+        long start, mark, now;
+        long deadline = RoboRIO.getFPGATime();
+        while (m_thread_keepAlive) {
+            waitUntil(deadline);
+            start = RoboRIO.getFPGATime();
+            deadline += period;
+
+            checkModeChange(ds, log);
+            ds.isNewControlData();
+
+            mark = RoboRIO.getFPGATime();
+            m_currentRobotMode.modeRun();
+            now = RoboRIO.getFPGATime();
+            timing.record(LoopTiming.Phase.MODE, now - mark);
+
+            mark = now;
+            m_currentRobotMode.modeSchedule();
+            now = RoboRIO.getFPGATime();
+            timing.record(LoopTiming.Phase.SCHEDULER, now - mark);
+
+            if (++tableCounter >= tableDivisor) {
+                mark = now;
+                TableSender.getInstance().runFramework();
+                now = RoboRIO.getFPGATime();
+                timing.record(LoopTiming.Phase.TABLES, now - mark);
+                tableCounter = 0;
+            }
+
+            if (++safetyCounter >= safetyDivisor) {
+                mark = now;
+                SafetyManager.check();
+                now = RoboRIO.getFPGATime();
+                timing.record(LoopTiming.Phase.SAFETY, now - mark);
+                safetyCounter = 0;
+            }
+
+            timing.record(LoopTiming.Phase.CYCLE, now - start);
+
+            if (now > deadline) {
+                timing.overrun(now - deadline);
+                if (now > nextComplain) {
+                    log.warn("Loop overran its " + m_loopPeriod + "ms period by " + (now - deadline) + "us");
+                    nextComplain = now + 5000000L;
+                }
+                // Don't try to catch up on missed cycles, just start the next one now.
+                deadline = now;
+            }
+        }
+    }
+
+    /**
+     * Sleep until the FPGA clock reaches the given time.
+     */
+    private static void waitUntil(long fpgaTime) {
+        long remaining;
+        while ((remaining = fpgaTime - RoboRIO.getFPGATime()) > 0) {
+            LockSupport.parkNanos(remaining * 1000L);
+            if (Thread.interrupted())
+                return;
+        }
+    }
+
+    /**
+     * Switch RobotModes if the Driver Station mode has changed.
+     */
+    private static void checkModeChange(DriverStation ds, ILogger log) {
+        if (!ds.hasModeChanged())
+            return;
+
+        GameMode gMode = DriverStation.getGameMode();
+        if (m_currentMode != gMode) {
+            log.info("Switching to " + gMode.getName());
+
+            try {
+                m_currentRobotMode.modeEnd();
+            } catch (Throwable e) {
+                Logger.get(m_currentRobotMode).fatal("Fatal error in RobotMode end method", e);
+            }
+
+            m_currentMode = gMode;
+            m_currentRobotMode = m_modesArr[m_currentMode.value];
+            // m_table.putNumber("mode", gMode.value);
+            // m_table.putString("mode-string", m_currentRobotMode.getName());
+            System.gc();
+
+            try {
+                m_currentRobotMode.modeInit();
+            } catch (Throwable e) {
+                Logger.get(m_currentRobotMode).fatal("Fatal error in RobotMode init method", e);
+            }
+        }
+    }
+
+    /**
+     * Run the main loop at a fixed period instead of once per Driver Station
+     * packet. The loop is timed against the FPGA clock and runs the RobotMode,
+     * the Scheduler, table updates and motor safety as separately timed phases.
+     *
+     * This must be called before the main loop starts, usually in
+     * {@link #robotInit()}.
+     *
+     * @param periodMs the loop period in milliseconds, or 0 to run once per
+     *                 packet
+     * @see #getLoopTiming()
+     */
+    protected static final void setLoopPeriod(int periodMs) {
+        if (periodMs < 0)
+            throw new IllegalArgumentException("Loop period must not be negative.");
+        if (m_loopStarted)
+            throw new IllegalStateException("The loop period must be set before the main loop starts.");
+        m_loopPeriod = periodMs;
+        m_loopTiming = periodMs > 0 ? new LoopTiming(periodMs * 1000L) : null;
+    }
+
+    /**
+     * Get the loop period.
+     *
+     * @return the loop period in milliseconds, or 0 if the loop runs once per
+     *         packet
+     */
+    public static final int getLoopPeriod() {
+        return m_loopPeriod;
+    }
+
+    /**
+     * Get the timing data for the fixed period main loop.
+     *
+     * @return the {@link LoopTiming}, or null if the loop runs once per packet
+     */
+    public static final LoopTiming getLoopTiming() {
+        return m_loopTiming;
+    }
+
     /**
      * Free the resources for a RoboLibBot class.
      */
@@ -564,11 +714,11 @@ public class RoboLib {
      * @return Time remaining in current match period (auto or teleop) in seconds
      */
     public static final double getMatchTime() {
-        return NetworkCommunications.HALGetMatchTime();
+        return HAL.NET.getMatchTime();
     }
 
     public static final Alliance getAlliance() {
-        int sID = NetworkCommunications.HALGetAllianceStation();
+        int sID = HAL.NET.getAllianceStation();
         if (!MathUtils.inBounds(sID, 0, 5)) {
             return Alliance.NONE;
         }
@@ -576,7 +726,7 @@ public class RoboLib {
     }
 
     public static final StationID getStation() {
-        int sID = NetworkCommunications.HALGetAllianceStation();
+        int sID = HAL.NET.getAllianceStation();
         if (!MathUtils.inBounds(sID, 0, 5)) {
             return StationID.NONE;
         }
@@ -15,7 +15,7 @@
 
 package io.github.robolib;
 
-import io.github.robolib.jni.NetworkCommunications;
+import io.github.robolib.hal.HAL;
 import io.github.robolib.modes.GameMode;
 import io.github.robolib.util.log.Logger;
 
@@ -132,10 +132,19 @@ public abstract class RobotMode {
      * This calls the {@code run()} method once every period.
      */
     protected void modeRun() {
-        NetworkCommunications.ObserveUserProgramDisabled();
+        HAL.NET.observeUserProgramDisabled();
         run();
     }
 
+    /**
+     * GameMode Specific scheduling code.
+     *
+     * This is called once every period, right after {@code modeRun()}.
+     */
+    protected void modeSchedule() {
+
+    }
+
     /**
      * The user run code for this mode.
      *
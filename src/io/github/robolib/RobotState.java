@@ -16,6 +16,9 @@
 package io.github.robolib;
 
 /**
+ * Quick access to the robot state from the latest Driver Station packet.
+ *
+ * None of these methods call into the HAL.
  *
  * @author noriah <vix@noriah.dev>
  *
@@ -25,23 +28,33 @@ public final class RobotState {
     private RobotState() {
     }
 
+    /**
+     * Get the state from the latest packet. Use this to check several values
+     * that must all come from the same packet.
+     *
+     * @return the latest {@link ControlWord}
+     */
+    public static ControlWord get() {
+        return DriverStation.getControlWord();
+    }
+
     public static boolean isEnabled() {
-        return DriverStation.isEnabled();
+        return DriverStation.getControlWord().isEnabled();
     }
 
     public static boolean isDisabled() {
-        return DriverStation.isDisabled();
+        return DriverStation.getControlWord().isDisabled();
     }
 
     public static boolean isAutonomous() {
-        return DriverStation.isAutonomous();
+        return DriverStation.getControlWord().isAutonomous();
     }
 
     public static boolean isTest() {
-        return DriverStation.isTest();
+        return DriverStation.getControlWord().isTest();
     }
 
     public static boolean isOperatorControl() {
-        return DriverStation.isOperatorControl();
+        return DriverStation.getControlWord().isOperatorControl();
     }
 }
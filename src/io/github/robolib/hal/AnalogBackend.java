@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2015-2020 noriah <vix@noriah.dev>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ */
+
+package io.github.robolib.hal;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * Analog input, output, accumulator and trigger access.
+ *
+ * @author noriah <vix@noriah.dev>
+ */
+public interface AnalogBackend {
+
+    ByteBuffer getPort(byte pin);
+
+    ByteBuffer initializeAnalogInputPort(ByteBuffer port_pointer, IntBuffer status);
+
+    ByteBuffer initializeAnalogOutputPort(ByteBuffer port_pointer, IntBuffer status);
+
+    void setAnalogOutput(ByteBuffer port_pointer, double voltage, IntBuffer status);
+
+    double getAnalogOutput(ByteBuffer port_pointer, IntBuffer status);
+
+    void setAnalogSampleRate(double samplesPerSecond, IntBuffer status);
+
+    double getAnalogSampleRate(IntBuffer status);
+
+    void setAnalogAverageBits(ByteBuffer analog_port_pointer, int bits, IntBuffer status);
+
+    int getAnalogAverageBits(ByteBuffer analog_port_pointer, IntBuffer status);
+
+    void setAnalogOversampleBits(ByteBuffer analog_port_pointer, int bits, IntBuffer status);
+
+    int getAnalogOversampleBits(ByteBuffer analog_port_pointer, IntBuffer status);
+
+    short getAnalogValue(ByteBuffer analog_port_pointer, IntBuffer status);
+
+    int getAnalogAverageValue(ByteBuffer analog_port_pointer, IntBuffer status);
+
+    double getAnalogVoltage(ByteBuffer analog_port_pointer, IntBuffer status);
+
+    double getAnalogAverageVoltage(ByteBuffer analog_port_pointer, IntBuffer status);
+
+    int getAnalogLSBWeight(ByteBuffer analog_port_pointer, IntBuffer status);
+
+    int getAnalogOffset(ByteBuffer analog_port_pointer, IntBuffer status);
+
+    void initAccumulator(ByteBuffer analog_port_pointer, IntBuffer status);
+
+    void resetAccumulator(ByteBuffer analog_port_pointer, IntBuffer status);
+
+    void setAccumulatorCenter(ByteBuffer analog_port_pointer, int center, IntBuffer status);
+
+    void setAccumulatorDeadband(ByteBuffer analog_port_pointer, int deadband, IntBuffer status);
+
+    long getAccumulatorValue(ByteBuffer analog_port_pointer, IntBuffer status);
+
+    int getAccumulatorCount(ByteBuffer analog_port_pointer, IntBuffer status);
+
+    void getAccumulatorOutput(ByteBuffer analog_port_pointer, LongBuffer value, IntBuffer count, IntBuffer status);
+
+    ByteBuffer initializeAnalogTrigger(ByteBuffer port_pointer, IntBuffer index, IntBuffer status);
+
+    void cleanAnalogTrigger(ByteBuffer analog_trigger_pointer, IntBuffer status);
+
+    void setAnalogTriggerLimitsRaw(ByteBuffer analog_trigger_pointer, int lower, int upper, IntBuffer status);
+
+    void setAnalogTriggerLimitsVoltage(ByteBuffer analog_trigger_pointer, double lower, double upper,
+            IntBuffer status);
+
+    void setAnalogTriggerAveraged(ByteBuffer analog_trigger_pointer, byte useAveragedValue, IntBuffer status);
+
+    void setAnalogTriggerFiltered(ByteBuffer analog_trigger_pointer, byte useFilteredValue, IntBuffer status);
+
+    byte getAnalogTriggerInWindow(ByteBuffer analog_trigger_pointer, IntBuffer status);
+
+    byte getAnalogTriggerTriggerState(ByteBuffer analog_trigger_pointer, IntBuffer status);
+
+    byte getAnalogTriggerOutput(ByteBuffer analog_trigger_pointer, int type, IntBuffer status);
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2015-2020 noriah <vix@noriah.dev>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ */
+
+package io.github.robolib.hal;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * CAN session mux access.
+ *
+ * @author noriah <vix@noriah.dev>
+ */
+public interface CANBackend {
+
+    /**
+     * Send a frame on the CAN bus.
+     *
+     * @param messageID the arbitration id and frame flags
+     * @param data      the payload, or null for an empty frame
+     * @param periodMs  the repeat period, or one of the CAN_SEND_PERIOD constants
+     * @param status    status out-parameter
+     */
+    void sendMessage(int messageID, ByteBuffer data, int periodMs, IntBuffer status);
+
+    /**
+     * Get the latest frame that matches messageID under messageIDMask.
+     *
+     * @param messageID     the id to match, rewritten with the received id
+     * @param messageIDMask the mask applied to both ids before matching
+     * @param timeStamp     out-parameter for the receive time in milliseconds
+     * @param status        status out-parameter
+     * @return the frame payload
+     */
+    ByteBuffer receiveMessage(IntBuffer messageID, int messageIDMask, ByteBuffer timeStamp, IntBuffer status);
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2015-2020 noriah <vix@noriah.dev>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ */
+
+package io.github.robolib.hal;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Digital IO access.
+ *
+ * @author noriah <vix@noriah.dev>
+ */
+public interface DIOBackend {
+
+    ByteBuffer getPort(byte pin);
+
+    ByteBuffer initializeDigitalPort(ByteBuffer port_pointer, IntBuffer status);
+
+    byte allocateDIO(ByteBuffer digital_port_pointer, byte input, IntBuffer status);
+
+    void freeDIO(ByteBuffer digital_port_pointer, IntBuffer status);
+
+    void setDIO(ByteBuffer digital_port_pointer, short value, IntBuffer status);
+
+    byte getDIO(ByteBuffer digital_port_pointer, IntBuffer status);
+
+    byte getDIODirection(ByteBuffer digital_port_pointer, IntBuffer status);
+
+    void pulse(ByteBuffer digital_port_pointer, double pulseLength, IntBuffer status);
+
+    byte isPulsing(ByteBuffer digital_port_pointer, IntBuffer status);
+
+    byte isAnyPulsing(IntBuffer status);
+
+    short getLoopTiming(IntBuffer status);
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2015-2020 noriah <vix@noriah.dev>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ */
+
+package io.github.robolib.hal;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * FPGA clock, user button and HAL synchronization primitives.
+ *
+ * @author noriah <vix@noriah.dev>
+ */
+public interface FPGABackend {
+
+    short getFPGAVersion(IntBuffer status);
+
+    int getFPGARevision(IntBuffer status);
+
+    /**
+     * Read the FPGA clock.
+     *
+     * @param status status out-parameter
+     * @return the time since the FPGA was reset, in microseconds
+     */
+    long getFPGATime(IntBuffer status);
+
+    boolean getFPGAButton(IntBuffer status);
+
+    ByteBuffer initializeMutexNormal();
+
+    void deleteMutex(ByteBuffer sem);
+
+    ByteBuffer initializeMultiWait();
+
+    void deleteMultiWait(ByteBuffer sem);
+
+    /**
+     * Block until the multi wait is signaled.
+     *
+     * @param sem     the multi wait handle
+     * @param mutex   the mutex guarding the multi wait
+     * @param timeout the time to wait in milliseconds, or 0 to wait forever
+     * @return 0 on success
+     */
+    byte takeMultiWait(ByteBuffer sem, ByteBuffer mutex, int timeout);
+}
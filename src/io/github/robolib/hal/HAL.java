@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2015-2020 noriah <vix@noriah.dev>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ */
+
+package io.github.robolib.hal;
+
+import io.github.robolib.hal.sim.SimHAL;
+
+/**
+ * Selects the HAL backend used by the framework.
+ *
+ * The backend is chosen once, the first time this class is touched, from the
+ * <code>robolib.hal</code> system property. <code>rio</code> (the default) uses
+ * the JNI bindings and must be run on a roboRIO. <code>sim</code> uses a pure
+ * Java stand-in with a virtual FPGA clock and a scriptable Driver Station, so
+ * the framework can be run and measured on any JVM.
+ *
+ * <pre>
+ * java -Drobolib.hal=sim -cp robot.jar io.github.robolib.RoboLib
+ * </pre>
+ *
+ * @author noriah <vix@noriah.dev>
+ */
+public final class HAL {
+
+    /** The system property used to pick the backend. */
+    public static final String BACKEND_PROPERTY = "robolib.hal";
+
+    /** Name of the roboRIO JNI backend. */
+    public static final String BACKEND_RIO = "rio";
+
+    /** Name of the simulated backend. */
+    public static final String BACKEND_SIM = "sim";
+
+    private static final HALBackend m_backend;
+
+    static {
+        String name = System.getProperty(BACKEND_PROPERTY, BACKEND_RIO).trim().toLowerCase();
+        switch (name) {
+            case BACKEND_RIO:
+                m_backend = new NativeHAL();
+                break;
+            case BACKEND_SIM:
+                m_backend = SimHAL.getInstance();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown HAL backend '" + name + "'");
+        }
+    }
+
+    /** Driver Station and Network Communications. */
+    public static final NetCommBackend NET = m_backend;
+
+    /** FPGA clock and HAL semaphores. */
+    public static final FPGABackend FPGA = m_backend;
+
+    /** Digital IO. */
+    public static final DIOBackend DIO = m_backend;
+
+    /** PWM outputs and generators. */
+    public static final PWMBackend PWM = m_backend;
+
+    /** Analog IO. */
+    public static final AnalogBackend ANALOG = m_backend;
+
+    /** CAN session mux. */
+    public static final CANBackend CAN = m_backend;
+
+    /** Power Distribution Panel. */
+    public static final PDPBackend PDP = m_backend;
+
+    /** roboRIO power rails. */
+    public static final PowerBackend POWER = m_backend;
+
+    /** Pneumatics Control Module. */
+    public static final PCMBackend PCM = m_backend;
+
+    private HAL() {
+    }
+
+    /**
+     * Get the backend in use.
+     *
+     * @return the active {@link HALBackend}
+     */
+    public static HALBackend getBackend() {
+        return m_backend;
+    }
+
+    /**
+     * Is the framework running on the simulated backend?
+     *
+     * @return true if the simulated backend is in use
+     */
+    public static boolean isSimulation() {
+        return m_backend instanceof SimHAL;
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2015-2020 noriah <vix@noriah.dev>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ */
+
+package io.github.robolib.hal;
+
+/**
+ * A complete HAL implementation.
+ *
+ * @author noriah <vix@noriah.dev>
+ */
+public interface HALBackend extends NetCommBackend, FPGABackend, DIOBackend, PWMBackend, AnalogBackend, CANBackend,
+        PDPBackend, PowerBackend, PCMBackend {
+
+    /**
+     * Get the name of this backend, as it would be given to the
+     * <code>robolib.hal</code> property.
+     *
+     * @return the backend name
+     */
+    String getName();
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2015-2020 noriah <vix@noriah.dev>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ */
+
+package io.github.robolib.hal;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * Reusable direct buffers for HAL status codes and out parameters.
+ *
+ * Each thread gets its own small ring of buffers, allocated the first time it
+ * asks for one. Every call hands out the next buffer in the ring, zeroed, so
+ * HAL calls no longer allocate a direct buffer each time.
+ *
+ * A buffer is only good until the same thread has asked for
+ * {@value #RING_SIZE} more of the same kind. Use it for the HAL call and the
+ * status check right after it, and do not keep it around.
+ *
+ * @author noriah <vix@noriah.dev>
+ */
+public final class HALBuffers {
+
+    /** The number of buffers of each kind that each thread gets. */
+    public static final int RING_SIZE = 16;
+
+    private static final class Ring {
+        private final IntBuffer[] m_ints = new IntBuffer[RING_SIZE];
+        private final LongBuffer[] m_longs = new LongBuffer[RING_SIZE];
+        private final ByteBuffer[] m_bytes = new ByteBuffer[RING_SIZE];
+        private int m_nextInt = 0;
+        private int m_nextLong = 0;
+        private int m_nextByte = 0;
+
+        private Ring() {
+            ByteBuffer block = ByteBuffer.allocateDirect(RING_SIZE * 20);
+            block.order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < RING_SIZE; i++) {
+                m_ints[i] = slice(block, i * 4, 4).asIntBuffer();
+                m_longs[i] = slice(block, RING_SIZE * 4 + i * 8, 8).asLongBuffer();
+                m_bytes[i] = slice(block, RING_SIZE * 12 + i * 8, 8);
+            }
+        }
+
+        private static ByteBuffer slice(ByteBuffer block, int offset, int size) {
+            ByteBuffer dup = block.duplicate();
+            dup.position(offset);
+            dup.limit(offset + size);
+            return dup.slice().order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    private static final ThreadLocal<Ring> m_rings = ThreadLocal.withInitial(Ring::new);
+
+    private HALBuffers() {
+    }
+
+    /**
+     * Get a zeroed, little endian IntBuffer of size 1.
+     *
+     * @return a reused IntBuffer for a status code or int out parameter
+     */
+    public static IntBuffer intBuffer() {
+        Ring r = m_rings.get();
+        IntBuffer b = r.m_ints[r.m_nextInt];
+        r.m_nextInt = (r.m_nextInt + 1) % RING_SIZE;
+        b.clear();
+        b.put(0, 0);
+        return b;
+    }
+
+    /**
+     * Get a zeroed, little endian LongBuffer of size 1.
+     *
+     * @return a reused LongBuffer for a long out parameter
+     */
+    public static LongBuffer longBuffer() {
+        Ring r = m_rings.get();
+        LongBuffer b = r.m_longs[r.m_nextLong];
+        r.m_nextLong = (r.m_nextLong + 1) % RING_SIZE;
+        b.clear();
+        b.put(0, 0);
+        return b;
+    }
+
+    /**
+     * Get a zeroed, little endian ByteBuffer of 8 bytes.
+     *
+     * @return a reused ByteBuffer for a small out parameter
+     */
+    public static ByteBuffer byteBuffer() {
+        Ring r = m_rings.get();
+        ByteBuffer b = r.m_bytes[r.m_nextByte];
+        r.m_nextByte = (r.m_nextByte + 1) % RING_SIZE;
+        b.clear();
+        b.putLong(0, 0);
+        return b;
+    }
+}
@@ -0,0 +1,636 @@
+/*
+ * Copyright (c) 2015-2020 noriah <vix@noriah.dev>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ */
+
+package io.github.robolib.hal;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+import io.github.robolib.jni.AnalogJNI;
+import io.github.robolib.jni.CANJNI;
+import io.github.robolib.jni.CompressorJNI;
+import io.github.robolib.jni.DIOJNI;
+import io.github.robolib.jni.HALUtil;
+import io.github.robolib.jni.NetworkCommunications;
+import io.github.robolib.jni.PDPJNI;
+import io.github.robolib.jni.PWMJNI;
+import io.github.robolib.jni.PowerJNI;
+import io.github.robolib.jni.UsageReporting;
+
+/**
+ * The roboRIO backend. Every call is handed straight to the JNI bindings.
+ *
+ * @author noriah <vix@noriah.dev>
+ */
+final class NativeHAL implements HALBackend {
+
+    @Override
+    public String getName() {
+        return HAL.BACKEND_RIO;
+    }
+
+    @Override
+    public void networkCommunicationReserve() {
+        NetworkCommunications.NetworkCommunicationReserve();
+    }
+
+    @Override
+    public void observeUserProgramStarting() {
+        NetworkCommunications.ObserveUserProgramStarting();
+    }
+
+    @Override
+    public void observeUserProgramDisabled() {
+        NetworkCommunications.ObserveUserProgramDisabled();
+    }
+
+    @Override
+    public void observeUserProgramAutonomous() {
+        NetworkCommunications.ObserveUserProgramAutonomous();
+    }
+
+    @Override
+    public void observeUserProgramTeleop() {
+        NetworkCommunications.ObserveUserProgramTeleop();
+    }
+
+    @Override
+    public void observeUserProgramTest() {
+        NetworkCommunications.ObserveUserProgramTest();
+    }
+
+    @Override
+    public void setNewDataSem(ByteBuffer sem) {
+        NetworkCommunications.setNewDataSem(sem);
+    }
+
+    @Override
+    public int getRobotStatus() {
+        return NetworkCommunications.HALGetRobotStatus();
+    }
+
+    @Override
+    public int getAllianceStation() {
+        return NetworkCommunications.HALGetAllianceStation();
+    }
+
+    @Override
+    public float getMatchTime() {
+        return NetworkCommunications.HALGetMatchTime();
+    }
+
+    @Override
+    public short[] getJoystickAxes(byte joystickNum) {
+        return NetworkCommunications.HALGetJoystickAxes(joystickNum);
+    }
+
+    @Override
+    public short[] getJoystickPOVs(byte joystickNum) {
+        return NetworkCommunications.HALGetJoystickPOVs(joystickNum);
+    }
+
+    @Override
+    public int getJoystickButtons(byte joystickNum, ByteBuffer count) {
+        return NetworkCommunications.HALGetJoystickButtons(joystickNum, count);
+    }
+
+    @Override
+    public int setJoystickOutputs(byte joystickNum, int outputs, short leftRumble, short rightRumble) {
+        return NetworkCommunications.HALSetJoystickOutputs(joystickNum, outputs, leftRumble, rightRumble);
+    }
+
+    @Override
+    public boolean getSystemActive(IntBuffer status) {
+        return NetworkCommunications.HALGetSystemActive(status);
+    }
+
+    @Override
+    public boolean getBrownedOut(IntBuffer status) {
+        return NetworkCommunications.HALGetBrownedOut(status);
+    }
+
+    @Override
+    public int setErrorData(String error) {
+        return NetworkCommunications.HALSetErrorData(error);
+    }
+
+    @Override
+    public void report(byte resource, byte instanceNumber, byte context, String feature) {
+        UsageReporting.UsageReportingReport(resource, instanceNumber, context, feature);
+    }
+
+    @Override
+    public short getFPGAVersion(IntBuffer status) {
+        return HALUtil.getFPGAVersion(status);
+    }
+
+    @Override
+    public int getFPGARevision(IntBuffer status) {
+        return HALUtil.getFPGARevision(status);
+    }
+
+    @Override
+    public long getFPGATime(IntBuffer status) {
+        return HALUtil.getFPGATime(status);
+    }
+
+    @Override
+    public boolean getFPGAButton(IntBuffer status) {
+        return HALUtil.getFPGAButton(status);
+    }
+
+    @Override
+    public ByteBuffer initializeMutexNormal() {
+        return HALUtil.initializeMutexNormal();
+    }
+
+    @Override
+    public void deleteMutex(ByteBuffer sem) {
+        HALUtil.deleteMutex(sem);
+    }
+
+    @Override
+    public ByteBuffer initializeMultiWait() {
+        return HALUtil.initializeMultiWait();
+    }
+
+    @Override
+    public void deleteMultiWait(ByteBuffer sem) {
+        HALUtil.deleteMultiWait(sem);
+    }
+
+    @Override
+    public byte takeMultiWait(ByteBuffer sem, ByteBuffer mutex, int timeout) {
+        return HALUtil.takeMultiWait(sem, mutex, timeout);
+    }
+
+    @Override
+    public ByteBuffer getPort(byte pin) {
+        return DIOJNI.getPort(pin);
+    }
+
+    @Override
+    public ByteBuffer initializeDigitalPort(ByteBuffer port_pointer, IntBuffer status) {
+        return DIOJNI.initializeDigitalPort(port_pointer, status);
+    }
+
+    @Override
+    public byte allocateDIO(ByteBuffer digital_port_pointer, byte input, IntBuffer status) {
+        return DIOJNI.allocateDIO(digital_port_pointer, input, status);
+    }
+
+    @Override
+    public void freeDIO(ByteBuffer digital_port_pointer, IntBuffer status) {
+        DIOJNI.freeDIO(digital_port_pointer, status);
+    }
+
+    @Override
+    public void setDIO(ByteBuffer digital_port_pointer, short value, IntBuffer status) {
+        DIOJNI.setDIO(digital_port_pointer, value, status);
+    }
+
+    @Override
+    public byte getDIO(ByteBuffer digital_port_pointer, IntBuffer status) {
+        return DIOJNI.getDIO(digital_port_pointer, status);
+    }
+
+    @Override
+    public byte getDIODirection(ByteBuffer digital_port_pointer, IntBuffer status) {
+        return DIOJNI.getDIODirection(digital_port_pointer, status);
+    }
+
+    @Override
+    public void pulse(ByteBuffer digital_port_pointer, double pulseLength, IntBuffer status) {
+        DIOJNI.pulse(digital_port_pointer, pulseLength, status);
+    }
+
+    @Override
+    public byte isPulsing(ByteBuffer digital_port_pointer, IntBuffer status) {
+        return DIOJNI.isPulsing(digital_port_pointer, status);
+    }
+
+    @Override
+    public byte isAnyPulsing(IntBuffer status) {
+        return DIOJNI.isAnyPulsing(status);
+    }
+
+    @Override
+    public short getLoopTiming(IntBuffer status) {
+        return DIOJNI.getLoopTiming(status);
+    }
+
+    @Override
+    public boolean allocatePWMChannel(ByteBuffer digital_port_pointer, IntBuffer status) {
+        return PWMJNI.allocatePWMChannel(digital_port_pointer, status);
+    }
+
+    @Override
+    public void freePWMChannel(ByteBuffer digital_port_pointer, IntBuffer status) {
+        PWMJNI.freePWMChannel(digital_port_pointer, status);
+    }
+
+    @Override
+    public void setPWM(ByteBuffer digital_port_pointer, short value, IntBuffer status) {
+        PWMJNI.setPWM(digital_port_pointer, value, status);
+    }
+
+    @Override
+    public short getPWM(ByteBuffer digital_port_pointer, IntBuffer status) {
+        return PWMJNI.getPWM(digital_port_pointer, status);
+    }
+
+    @Override
+    public void latchPWMZero(ByteBuffer digital_port_pointer, IntBuffer status) {
+        PWMJNI.latchPWMZero(digital_port_pointer, status);
+    }
+
+    @Override
+    public void setPWMPeriodScale(ByteBuffer digital_port_pointer, int squelchMask, IntBuffer status) {
+        PWMJNI.setPWMPeriodScale(digital_port_pointer, squelchMask, status);
+    }
+
+    @Override
+    public ByteBuffer allocatePWM(IntBuffer status) {
+        return PWMJNI.allocatePWM(status);
+    }
+
+    @Override
+    public void freePWM(ByteBuffer pwmGenerator, IntBuffer status) {
+        PWMJNI.freePWM(pwmGenerator, status);
+    }
+
+    @Override
+    public void setPWMRate(double rate, IntBuffer status) {
+        PWMJNI.setPWMRate(rate, status);
+    }
+
+    @Override
+    public void setPWMDutyCycle(ByteBuffer pwmGenerator, double dutyCycle, IntBuffer status) {
+        PWMJNI.setPWMDutyCycle(pwmGenerator, dutyCycle, status);
+    }
+
+    @Override
+    public void setPWMOutputChannel(ByteBuffer pwmGenerator, int pin, IntBuffer status) {
+        PWMJNI.setPWMOutputChannel(pwmGenerator, pin, status);
+    }
+
+    @Override
+    public ByteBuffer initializeAnalogInputPort(ByteBuffer port_pointer, IntBuffer status) {
+        return AnalogJNI.initializeAnalogInputPort(port_pointer, status);
+    }
+
+    @Override
+    public ByteBuffer initializeAnalogOutputPort(ByteBuffer port_pointer, IntBuffer status) {
+        return AnalogJNI.initializeAnalogOutputPort(port_pointer, status);
+    }
+
+    @Override
+    public void setAnalogOutput(ByteBuffer port_pointer, double voltage, IntBuffer status) {
+        AnalogJNI.setAnalogOutput(port_pointer, voltage, status);
+    }
+
+    @Override
+    public double getAnalogOutput(ByteBuffer port_pointer, IntBuffer status) {
+        return AnalogJNI.getAnalogOutput(port_pointer, status);
+    }
+
+    @Override
+    public void setAnalogSampleRate(double samplesPerSecond, IntBuffer status) {
+        AnalogJNI.setAnalogSampleRate(samplesPerSecond, status);
+    }
+
+    @Override
+    public double getAnalogSampleRate(IntBuffer status) {
+        return AnalogJNI.getAnalogSampleRate(status);
+    }
+
+    @Override
+    public void setAnalogAverageBits(ByteBuffer analog_port_pointer, int bits, IntBuffer status) {
+        AnalogJNI.setAnalogAverageBits(analog_port_pointer, bits, status);
+    }
+
+    @Override
+    public int getAnalogAverageBits(ByteBuffer analog_port_pointer, IntBuffer status) {
+        return AnalogJNI.getAnalogAverageBits(analog_port_pointer, status);
+    }
+
+    @Override
+    public void setAnalogOversampleBits(ByteBuffer analog_port_pointer, int bits, IntBuffer status) {
+        AnalogJNI.setAnalogOversampleBits(analog_port_pointer, bits, status);
+    }
+
+    @Override
+    public int getAnalogOversampleBits(ByteBuffer analog_port_pointer, IntBuffer status) {
+        return AnalogJNI.getAnalogOversampleBits(analog_port_pointer, status);
+    }
+
+    @Override
+    public short getAnalogValue(ByteBuffer analog_port_pointer, IntBuffer status) {
+        return AnalogJNI.getAnalogValue(analog_port_pointer, status);
+    }
+
+    @Override
+    public int getAnalogAverageValue(ByteBuffer analog_port_pointer, IntBuffer status) {
+        return AnalogJNI.getAnalogAverageValue(analog_port_pointer, status);
+    }
+
+    @Override
+    public double getAnalogVoltage(ByteBuffer analog_port_pointer, IntBuffer status) {
+        return AnalogJNI.getAnalogVoltage(analog_port_pointer, status);
+    }
+
+    @Override
+    public double getAnalogAverageVoltage(ByteBuffer analog_port_pointer, IntBuffer status) {
+        return AnalogJNI.getAnalogAverageVoltage(analog_port_pointer, status);
+    }
+
+    @Override
+    public int getAnalogLSBWeight(ByteBuffer analog_port_pointer, IntBuffer status) {
+        return AnalogJNI.getAnalogLSBWeight(analog_port_pointer, status);
+    }
+
+    @Override
+    public int getAnalogOffset(ByteBuffer analog_port_pointer, IntBuffer status) {
+        return AnalogJNI.getAnalogOffset(analog_port_pointer, status);
+    }
+
+    @Override
+    public void initAccumulator(ByteBuffer analog_port_pointer, IntBuffer status) {
+        AnalogJNI.initAccumulator(analog_port_pointer, status);
+    }
+
+    @Override
+    public void resetAccumulator(ByteBuffer analog_port_pointer, IntBuffer status) {
+        AnalogJNI.resetAccumulator(analog_port_pointer, status);
+    }
+
+    @Override
+    public void setAccumulatorCenter(ByteBuffer analog_port_pointer, int center, IntBuffer status) {
+        AnalogJNI.setAccumulatorCenter(analog_port_pointer, center, status);
+    }
+
+    @Override
+    public void setAccumulatorDeadband(ByteBuffer analog_port_pointer, int deadband, IntBuffer status) {
+        AnalogJNI.setAccumulatorDeadband(analog_port_pointer, deadband, status);
+    }
+
+    @Override
+    public long getAccumulatorValue(ByteBuffer analog_port_pointer, IntBuffer status) {
+        return AnalogJNI.getAccumulatorValue(analog_port_pointer, status);
+    }
+
+    @Override
+    public int getAccumulatorCount(ByteBuffer analog_port_pointer, IntBuffer status) {
+        return AnalogJNI.getAccumulatorCount(analog_port_pointer, status);
+    }
+
+    @Override
+    public void getAccumulatorOutput(ByteBuffer analog_port_pointer, LongBuffer value, IntBuffer count,
+            IntBuffer status) {
+        AnalogJNI.getAccumulatorOutput(analog_port_pointer, value, count, status);
+    }
+
+    @Override
+    public ByteBuffer initializeAnalogTrigger(ByteBuffer port_pointer, IntBuffer index, IntBuffer status) {
+        return AnalogJNI.initializeAnalogTrigger(port_pointer, index, status);
+    }
+
+    @Override
+    public void cleanAnalogTrigger(ByteBuffer analog_trigger_pointer, IntBuffer status) {
+        AnalogJNI.cleanAnalogTrigger(analog_trigger_pointer, status);
+    }
+
+    @Override
+    public void setAnalogTriggerLimitsRaw(ByteBuffer analog_trigger_pointer, int lower, int upper, IntBuffer status) {
+        AnalogJNI.setAnalogTriggerLimitsRaw(analog_trigger_pointer, lower, upper, status);
+    }
+
+    @Override
+    public void setAnalogTriggerLimitsVoltage(ByteBuffer analog_trigger_pointer, double lower, double upper,
+            IntBuffer status) {
+        AnalogJNI.setAnalogTriggerLimitsVoltage(analog_trigger_pointer, lower, upper, status);
+    }
+
+    @Override
+    public void setAnalogTriggerAveraged(ByteBuffer analog_trigger_pointer, byte useAveragedValue, IntBuffer status) {
+        AnalogJNI.setAnalogTriggerAveraged(analog_trigger_pointer, useAveragedValue, status);
+    }
+
+    @Override
+    public void setAnalogTriggerFiltered(ByteBuffer analog_trigger_pointer, byte useFilteredValue, IntBuffer status) {
+        AnalogJNI.setAnalogTriggerFiltered(analog_trigger_pointer, useFilteredValue, status);
+    }
+
+    @Override
+    public byte getAnalogTriggerInWindow(ByteBuffer analog_trigger_pointer, IntBuffer status) {
+        return AnalogJNI.getAnalogTriggerInWindow(analog_trigger_pointer, status);
+    }
+
+    @Override
+    public byte getAnalogTriggerTriggerState(ByteBuffer analog_trigger_pointer, IntBuffer status) {
+        return AnalogJNI.getAnalogTriggerTriggerState(analog_trigger_pointer, status);
+    }
+
+    @Override
+    public byte getAnalogTriggerOutput(ByteBuffer analog_trigger_pointer, int type, IntBuffer status) {
+        return AnalogJNI.getAnalogTriggerOutput(analog_trigger_pointer, type, status);
+    }
+
+    @Override
+    public void sendMessage(int messageID, ByteBuffer data, int periodMs, IntBuffer status) {
+        CANJNI.CANSessionMuxSendMessage(messageID, data, periodMs, status);
+    }
+
+    @Override
+    public ByteBuffer receiveMessage(IntBuffer messageID, int messageIDMask, ByteBuffer timeStamp, IntBuffer status) {
+        return CANJNI.CANSessionMuxReceiveMessage(messageID, messageIDMask, timeStamp, status);
+    }
+
+    @Override
+    public double getPDPTemperature(IntBuffer status) {
+        return PDPJNI.getPDPTemperature(status);
+    }
+
+    @Override
+    public double getPDPVoltage(IntBuffer status) {
+        return PDPJNI.getPDPVoltage(status);
+    }
+
+    @Override
+    public double getPDPChannelCurrent(byte channel, IntBuffer status) {
+        return PDPJNI.getPDPChannelCurrent(channel, status);
+    }
+
+    @Override
+    public double getPDPTotalCurrent(IntBuffer status) {
+        return PDPJNI.getPDPTotalCurrent(status);
+    }
+
+    @Override
+    public double getPDPTotalPower(IntBuffer status) {
+        return PDPJNI.getPDPTotalPower(status);
+    }
+
+    @Override
+    public double getPDPTotalEnergy(IntBuffer status) {
+        return PDPJNI.getPDPTotalEnergy(status);
+    }
+
+    @Override
+    public void resetPDPTotalEnergy(IntBuffer status) {
+        PDPJNI.resetPDPTotalEnergy(status);
+    }
+
+    @Override
+    public void clearPDPStickyFaults(IntBuffer status) {
+        PDPJNI.clearPDPStickyFaults(status);
+    }
+
+    @Override
+    public float getVinVoltage(IntBuffer status) {
+        return PowerJNI.getVinVoltage(status);
+    }
+
+    @Override
+    public float getVinCurrent(IntBuffer status) {
+        return PowerJNI.getVinCurrent(status);
+    }
+
+    @Override
+    public float getUserVoltage6V(IntBuffer status) {
+        return PowerJNI.getUserVoltage6V(status);
+    }
+
+    @Override
+    public float getUserCurrent6V(IntBuffer status) {
+        return PowerJNI.getUserCurrent6V(status);
+    }
+
+    @Override
+    public boolean getUserActive6V(IntBuffer status) {
+        return PowerJNI.getUserActive6V(status);
+    }
+
+    @Override
+    public int getUserCurrentFaults6V(IntBuffer status) {
+        return PowerJNI.getUserCurrentFaults6V(status);
+    }
+
+    @Override
+    public float getUserVoltage5V(IntBuffer status) {
+        return PowerJNI.getUserVoltage5V(status);
+    }
+
+    @Override
+    public float getUserCurrent5V(IntBuffer status) {
+        return PowerJNI.getUserCurrent5V(status);
+    }
+
+    @Override
+    public boolean getUserActive5V(IntBuffer status) {
+        return PowerJNI.getUserActive5V(status);
+    }
+
+    @Override
+    public int getUserCurrentFaults5V(IntBuffer status) {
+        return PowerJNI.getUserCurrentFaults5V(status);
+    }
+
+    @Override
+    public float getUserVoltage3V3(IntBuffer status) {
+        return PowerJNI.getUserVoltage3V3(status);
+    }
+
+    @Override
+    public float getUserCurrent3V3(IntBuffer status) {
+        return PowerJNI.getUserCurrent3V3(status);
+    }
+
+    @Override
+    public boolean getUserActive3V3(IntBuffer status) {
+        return PowerJNI.getUserActive3V3(status);
+    }
+
+    @Override
+    public int getUserCurrentFaults3V3(IntBuffer status) {
+        return PowerJNI.getUserCurrentFaults3V3(status);
+    }
+
+    @Override
+    public ByteBuffer initializeCompressor(byte module) {
+        return CompressorJNI.initializeCompressor(module);
+    }
+
+    @Override
+    public boolean getCompressor(ByteBuffer pcm_pointer, IntBuffer status) {
+        return CompressorJNI.getCompressor(pcm_pointer, status);
+    }
+
+    @Override
+    public void setClosedLoopControl(ByteBuffer pcm_pointer, boolean value, IntBuffer status) {
+        CompressorJNI.setClosedLoopControl(pcm_pointer, value, status);
+    }
+
+    @Override
+    public boolean getClosedLoopControl(ByteBuffer pcm_pointer, IntBuffer status) {
+        return CompressorJNI.getClosedLoopControl(pcm_pointer, status);
+    }
+
+    @Override
+    public boolean getPressureSwitch(ByteBuffer pcm_pointer, IntBuffer status) {
+        return CompressorJNI.getPressureSwitch(pcm_pointer, status);
+    }
+
+    @Override
+    public float getCompressorCurrent(ByteBuffer pcm_pointer, IntBuffer status) {
+        return CompressorJNI.getCompressorCurrent(pcm_pointer, status);
+    }
+
+    @Override
+    public boolean getCompressorCurrentTooHighFault(ByteBuffer pcm_pointer, IntBuffer status) {
+        return CompressorJNI.getCompressorCurrentTooHighFault(pcm_pointer, status);
+    }
+
+    @Override
+    public boolean getCompressorCurrentTooHighStickyFault(ByteBuffer pcm_pointer, IntBuffer status) {
+        return CompressorJNI.getCompressorCurrentTooHighStickyFault(pcm_pointer, status);
+    }
+
+    @Override
+    public boolean getCompressorShortedStickyFault(ByteBuffer pcm_pointer, IntBuffer status) {
+        return CompressorJNI.getCompressorShortedStickyFault(pcm_pointer, status);
+    }
+
+    @Override
+    public boolean getCompressorShortedFault(ByteBuffer pcm_pointer, IntBuffer status) {
+        return CompressorJNI.getCompressorShortedFault(pcm_pointer, status);
+    }
+
+    @Override
+    public boolean getCompressorNotConnectedStickyFault(ByteBuffer pcm_pointer, IntBuffer status) {
+        return CompressorJNI.getCompressorNotConnectedStickyFault(pcm_pointer, status);
+    }
+
+    @Override
+    public boolean getCompressorNotConnectedFault(ByteBuffer pcm_pointer, IntBuffer status) {
+        return CompressorJNI.getCompressorNotConnectedFault(pcm_pointer, status);
+    }
+
+    @Override
+    public void clearAllPCMStickyFaults(ByteBuffer pcm_pointer, IntBuffer status) {
+        CompressorJNI.clearAllPCMStickyFaults(pcm_pointer, status);
+    }
+}
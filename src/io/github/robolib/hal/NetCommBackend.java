@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2015-2020 noriah <vix@noriah.dev>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ */
+
+package io.github.robolib.hal;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Driver Station and Network Communications access.
+ *
+ * @author noriah <vix@noriah.dev>
+ */
+public interface NetCommBackend {
+
+    void networkCommunicationReserve();
+
+    void observeUserProgramStarting();
+
+    void observeUserProgramDisabled();
+
+    void observeUserProgramAutonomous();
+
+    void observeUserProgramTeleop();
+
+    void observeUserProgramTest();
+
+    /**
+     * Register the semaphore that is signaled every time a new Driver Station
+     * packet arrives.
+     *
+     * @param sem a multi wait handle from {@link FPGABackend#initializeMultiWait()}
+     */
+    void setNewDataSem(ByteBuffer sem);
+
+    int getRobotStatus();
+
+    int getAllianceStation();
+
+    float getMatchTime();
+
+    short[] getJoystickAxes(byte joystickNum);
+
+    short[] getJoystickPOVs(byte joystickNum);
+
+    int getJoystickButtons(byte joystickNum, ByteBuffer count);
+
+    int setJoystickOutputs(byte joystickNum, int outputs, short leftRumble, short rightRumble);
+
+    boolean getSystemActive(IntBuffer status);
+
+    boolean getBrownedOut(IntBuffer status);
+
+    int setErrorData(String error);
+
+    void report(byte resource, byte instanceNumber, byte context, String feature);
+}
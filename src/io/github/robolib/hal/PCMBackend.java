@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2015-2020 noriah <vix@noriah.dev>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ */
+
+package io.github.robolib.hal;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Pneumatics Control Module compressor access.
+ *
+ * @author noriah <vix@noriah.dev>
+ */
+public interface PCMBackend {
+
+    ByteBuffer initializeCompressor(byte module);
+
+    boolean getCompressor(ByteBuffer pcm_pointer, IntBuffer status);
+
+    void setClosedLoopControl(ByteBuffer pcm_pointer, boolean value, IntBuffer status);
+
+    boolean getClosedLoopControl(ByteBuffer pcm_pointer, IntBuffer status);
+
+    boolean getPressureSwitch(ByteBuffer pcm_pointer, IntBuffer status);
+
+    float getCompressorCurrent(ByteBuffer pcm_pointer, IntBuffer status);
+
+    boolean getCompressorCurrentTooHighFault(ByteBuffer pcm_pointer, IntBuffer status);
+
+    boolean getCompressorCurrentTooHighStickyFault(ByteBuffer pcm_pointer, IntBuffer status);
+
+    boolean getCompressorShortedStickyFault(ByteBuffer pcm_pointer, IntBuffer status);
+
+    boolean getCompressorShortedFault(ByteBuffer pcm_pointer, IntBuffer status);
+
+    boolean getCompressorNotConnectedStickyFault(ByteBuffer pcm_pointer, IntBuffer status);
+
+    boolean getCompressorNotConnectedFault(ByteBuffer pcm_pointer, IntBuffer status);
+
+    void clearAllPCMStickyFaults(ByteBuffer pcm_pointer, IntBuffer status);
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2015-2020 noriah <vix@noriah.dev>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ */
+
+package io.github.robolib.hal;
+
+import java.nio.IntBuffer;
+
+/**
+ * Power Distribution Panel access.
+ *
+ * @author noriah <vix@noriah.dev>
+ */
+public interface PDPBackend {
+
+    double getPDPTemperature(IntBuffer status);
+
+    double getPDPVoltage(IntBuffer status);
+
+    double getPDPChannelCurrent(byte channel, IntBuffer status);
+
+    double getPDPTotalCurrent(IntBuffer status);
+
+    double getPDPTotalPower(IntBuffer status);
+
+    double getPDPTotalEnergy(IntBuffer status);
+
+    void resetPDPTotalEnergy(IntBuffer status);
+
+    void clearPDPStickyFaults(IntBuffer status);
+}
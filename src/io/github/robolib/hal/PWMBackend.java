@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2015-2020 noriah <vix@noriah.dev>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ */
+
+package io.github.robolib.hal;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * PWM output and PWM generator access.
+ *
+ * @author noriah <vix@noriah.dev>
+ */
+public interface PWMBackend {
+
+    boolean allocatePWMChannel(ByteBuffer digital_port_pointer, IntBuffer status);
+
+    void freePWMChannel(ByteBuffer digital_port_pointer, IntBuffer status);
+
+    void setPWM(ByteBuffer digital_port_pointer, short value, IntBuffer status);
+
+    short getPWM(ByteBuffer digital_port_pointer, IntBuffer status);
+
+    void latchPWMZero(ByteBuffer digital_port_pointer, IntBuffer status);
+
+    void setPWMPeriodScale(ByteBuffer digital_port_pointer, int squelchMask, IntBuffer status);
+
+    ByteBuffer allocatePWM(IntBuffer status);
+
+    void freePWM(ByteBuffer pwmGenerator, IntBuffer status);
+
+    void setPWMRate(double rate, IntBuffer status);
+
+    void setPWMDutyCycle(ByteBuffer pwmGenerator, double dutyCycle, IntBuffer status);
+
+    void setPWMOutputChannel(ByteBuffer pwmGenerator, int pin, IntBuffer status);
+}
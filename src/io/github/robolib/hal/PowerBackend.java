@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2015-2020 noriah <vix@noriah.dev>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ */
+
+package io.github.robolib.hal;
+
+import java.nio.IntBuffer;
+
+/**
+ * roboRIO power rail access.
+ *
+ * @author noriah <vix@noriah.dev>
+ */
+public interface PowerBackend {
+
+    float getVinVoltage(IntBuffer status);
+
+    float getVinCurrent(IntBuffer status);
+
+    float getUserVoltage6V(IntBuffer status);
+
+    float getUserCurrent6V(IntBuffer status);
+
+    boolean getUserActive6V(IntBuffer status);
+
+    int getUserCurrentFaults6V(IntBuffer status);
+
+    float getUserVoltage5V(IntBuffer status);
+
+    float getUserCurrent5V(IntBuffer status);
+
+    boolean getUserActive5V(IntBuffer status);
+
+    int getUserCurrentFaults5V(IntBuffer status);
+
+    float getUserVoltage3V3(IntBuffer status);
+
+    float getUserCurrent3V3(IntBuffer status);
+
+    boolean getUserActive3V3(IntBuffer status);
+
+    int getUserCurrentFaults3V3(IntBuffer status);
+}
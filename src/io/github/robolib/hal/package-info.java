@@ -0,0 +1,27 @@
+/*
+ * Copyright (c) 2015-2020 noriah <vix@noriah.dev>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ */
+
+/**
+ * Hardware abstraction backends.
+ *
+ * Every framework call that reaches the roboRIO HAL goes through one of the
+ * backend interfaces found here. The {@link io.github.robolib.hal.HAL} class
+ * picks the implementation at startup from the <code>robolib.hal</code> system
+ * property, so the same robot code can run against the real JNI bindings or
+ * against the in-process simulation found in {@link io.github.robolib.hal.sim}.
+ *
+ * @author noriah <vix@noriah.dev>
+ */
+package io.github.robolib.hal;
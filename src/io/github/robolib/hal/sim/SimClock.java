@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2015-2020 noriah <vix@noriah.dev>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ */
+
+package io.github.robolib.hal.sim;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The virtual FPGA clock of the simulated HAL.
+ *
+ * By default the clock follows {@link System#nanoTime()}, starting at zero when
+ * this class is loaded. In stepped mode the clock only moves when
+ * {@link #step(long)} or {@link #setTimeMicros(long)} is called, which makes
+ * timing dependent code repeatable.
+ *
+ * @author noriah <vix@noriah.dev>
+ */
+public final class SimClock {
+
+    private static final long m_startNanos = System.nanoTime();
+
+    private static final AtomicLong m_steppedMicros = new AtomicLong();
+
+    private static volatile boolean m_stepped = false;
+
+    private SimClock() {
+    }
+
+    /**
+     * Get the current clock value.
+     *
+     * @return microseconds since the clock started
+     */
+    public static long getTimeMicros() {
+        if (m_stepped)
+            return m_steppedMicros.get();
+        return (System.nanoTime() - m_startNanos) / 1000;
+    }
+
+    /**
+     * Get the current clock value.
+     *
+     * @return seconds since the clock started
+     */
+    public static double getTimeSeconds() {
+        return getTimeMicros() / 1e6;
+    }
+
+    /**
+     * Switch between real time and stepped mode. When entering stepped mode the
+     * clock holds at its current value.
+     *
+     * @param stepped true to only advance the clock by hand
+     */
+    public static synchronized void setStepped(boolean stepped) {
+        if (stepped && !m_stepped)
+            m_steppedMicros.set(getTimeMicros());
+        m_stepped = stepped;
+    }
+
+    /**
+     * Is the clock in stepped mode?
+     *
+     * @return true if the clock only advances by hand
+     */
+    public static boolean isStepped() {
+        return m_stepped;
+    }
+
+    /**
+     * Advance the clock. Only valid in stepped mode.
+     *
+     * @param micros microseconds to add
+     * @return the new clock value
+     */
+    public static long step(long micros) {
+        if (!m_stepped)
+            throw new IllegalStateException("SimClock is not in stepped mode");
+        return m_steppedMicros.addAndGet(micros);
+    }
+
+    /**
+     * Set the clock. Only valid in stepped mode.
+     *
+     * @param micros the new clock value in microseconds
+     */
+    public static void setTimeMicros(long micros) {
+        if (!m_stepped)
+            throw new IllegalStateException("SimClock is not in stepped mode");
+        m_steppedMicros.set(micros);
+    }
+}
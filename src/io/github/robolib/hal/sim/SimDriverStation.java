@@ -0,0 +1,410 @@
+/*
+ * Copyright (c) 2015-2020 noriah <vix@noriah.dev>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ */
+
+package io.github.robolib.hal.sim;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A scriptable Driver Station for the simulated HAL.
+ *
+ * Changes made through the setters are staged, and only become visible to the
+ * robot when a packet is sent, just like a real Driver Station. Packets can be
+ * sent by hand with {@link #sendPacket()} or at a fixed rate with
+ * {@link #start(int)}. A {@link PacketScript} can be installed to change the
+ * staged state before every packet.
+ *
+ * @author noriah <vix@noriah.dev>
+ */
+public final class SimDriverStation {
+
+    /** Number of joystick ports on the Driver Station. */
+    public static final int COUNT_JOYSTICKS = 6;
+
+    /** Maximum number of axes per joystick. */
+    public static final int MAX_AXES = 12;
+
+    /** Maximum number of POVs per joystick. */
+    public static final int MAX_POVS = 12;
+
+    /** Maximum number of buttons per joystick. */
+    public static final int MAX_BUTTONS = 32;
+
+    /** Control word bit for the robot being enabled. */
+    public static final int CONTROL_ENABLED = 1;
+
+    /** Control word bit for autonomous mode. */
+    public static final int CONTROL_AUTONOMOUS = 2;
+
+    /** Control word bit for test mode. */
+    public static final int CONTROL_TEST = 4;
+
+    /** Control word bit for an emergency stop. */
+    public static final int CONTROL_ESTOP = 8;
+
+    /** Control word bit for an attached FMS. */
+    public static final int CONTROL_FMS_ATTACHED = 16;
+
+    /** Control word bit for an attached Driver Station. */
+    public static final int CONTROL_DS_ATTACHED = 32;
+
+    /**
+     * Called before every packet is published.
+     *
+     * @author noriah <vix@noriah.dev>
+     */
+    @FunctionalInterface
+    public static interface PacketScript {
+
+        /**
+         * Update the staged Driver Station state.
+         *
+         * @param packet the number of the packet about to be sent
+         * @param time   the simulated FPGA time in seconds
+         */
+        void update(long packet, double time);
+    }
+
+    private static final class StickData {
+        short[] axes = new short[0];
+        short[] povs = new short[0];
+        int buttons;
+        byte buttonCount;
+
+        void copyFrom(StickData o) {
+            axes = o.axes.clone();
+            povs = o.povs.clone();
+            buttons = o.buttons;
+            buttonCount = o.buttonCount;
+        }
+    }
+
+    private static final Object m_lock = new Object();
+
+    private static final StickData[] m_staged = new StickData[COUNT_JOYSTICKS];
+    private static final StickData[] m_published = new StickData[COUNT_JOYSTICKS];
+
+    private static final int[] m_outputs = new int[COUNT_JOYSTICKS];
+    private static final short[] m_leftRumble = new short[COUNT_JOYSTICKS];
+    private static final short[] m_rightRumble = new short[COUNT_JOYSTICKS];
+
+    static {
+        for (int i = 0; i < COUNT_JOYSTICKS; i++) {
+            m_staged[i] = new StickData();
+            m_published[i] = new StickData();
+        }
+    }
+
+    private static int m_stagedControl = CONTROL_DS_ATTACHED;
+    private static int m_stagedAlliance = 0;
+    private static float m_stagedMatchTime = -1.0f;
+
+    private static volatile int m_controlWord = 0;
+    private static volatile int m_alliance = 0;
+    private static volatile float m_matchTime = -1.0f;
+
+    private static volatile boolean m_systemActive = true;
+    private static volatile boolean m_brownedOut = false;
+
+    private static volatile String m_lastError = null;
+
+    private static volatile PacketScript m_script = null;
+
+    private static volatile long m_packetCount = 0;
+
+    private static Thread m_thread = null;
+    private static volatile boolean m_running = false;
+
+    private SimDriverStation() {
+    }
+
+    /**
+     * Publish the staged state and wake up the robot, as if a packet had just
+     * arrived.
+     */
+    public static void sendPacket() {
+        synchronized (m_lock) {
+            PacketScript script = m_script;
+            if (script != null) {
+                script.update(m_packetCount, SimClock.getTimeSeconds());
+            }
+            for (int i = 0; i < COUNT_JOYSTICKS; i++) {
+                m_published[i].copyFrom(m_staged[i]);
+            }
+            m_alliance = m_stagedAlliance;
+            m_matchTime = m_stagedMatchTime;
+            m_controlWord = m_stagedControl;
+            m_packetCount++;
+        }
+        SimHAL.getInstance().signalNewData();
+    }
+
+    /**
+     * Send packets from a background thread at a fixed rate.
+     *
+     * @param periodMs the time between packets in milliseconds
+     */
+    public static synchronized void start(final int periodMs) {
+        if (m_running)
+            return;
+        m_running = true;
+        m_thread = new Thread(() -> {
+            long next = System.nanoTime();
+            while (m_running) {
+                sendPacket();
+                next += periodMs * 1000000L;
+                long wait = next - System.nanoTime();
+                if (wait > 0) {
+                    try {
+                        Thread.sleep(wait / 1000000L, (int) (wait % 1000000L));
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+        }, "SimDriverStation Packet Thread");
+        m_thread.setDaemon(true);
+        m_thread.start();
+    }
+
+    /**
+     * Stop the background packet thread.
+     */
+    public static synchronized void stop() {
+        m_running = false;
+        if (m_thread != null) {
+            m_thread.interrupt();
+            m_thread = null;
+        }
+    }
+
+    /**
+     * Install a script to run before every packet.
+     *
+     * @param script the script, or null to remove it
+     */
+    public static void setScript(PacketScript script) {
+        m_script = script;
+    }
+
+    /**
+     * Get the number of packets sent so far.
+     *
+     * @return the packet count
+     */
+    public static long getPacketCount() {
+        return m_packetCount;
+    }
+
+    private static void setControlBit(int bit, boolean value) {
+        synchronized (m_lock) {
+            if (value)
+                m_stagedControl |= bit;
+            else
+                m_stagedControl &= ~bit;
+        }
+    }
+
+    public static void setControlWord(int word) {
+        synchronized (m_lock) {
+            m_stagedControl = word;
+        }
+    }
+
+    public static void setEnabled(boolean enabled) {
+        setControlBit(CONTROL_ENABLED, enabled);
+    }
+
+    public static void setAutonomous(boolean autonomous) {
+        setControlBit(CONTROL_AUTONOMOUS, autonomous);
+    }
+
+    public static void setTest(boolean test) {
+        setControlBit(CONTROL_TEST, test);
+    }
+
+    public static void setEStopped(boolean estop) {
+        setControlBit(CONTROL_ESTOP, estop);
+    }
+
+    public static void setFMSAttached(boolean attached) {
+        setControlBit(CONTROL_FMS_ATTACHED, attached);
+    }
+
+    public static void setDSAttached(boolean attached) {
+        setControlBit(CONTROL_DS_ATTACHED, attached);
+    }
+
+    /**
+     * Set the alliance station.
+     *
+     * @param station 0 - 2 for red 1 - 3, 3 - 5 for blue 1 - 3
+     */
+    public static void setAllianceStation(int station) {
+        synchronized (m_lock) {
+            m_stagedAlliance = station;
+        }
+    }
+
+    public static void setMatchTime(float seconds) {
+        synchronized (m_lock) {
+            m_stagedMatchTime = seconds;
+        }
+    }
+
+    /**
+     * Plug in a joystick with the given layout.
+     *
+     * @param stick   the joystick port
+     * @param axes    number of axes
+     * @param buttons number of buttons
+     * @param povs    number of POVs
+     */
+    public static void setStickLayout(int stick, int axes, int buttons, int povs) {
+        if (axes > MAX_AXES || buttons > MAX_BUTTONS || povs > MAX_POVS)
+            throw new IllegalArgumentException("Joystick layout too large");
+        synchronized (m_lock) {
+            StickData s = m_staged[stick];
+            s.axes = new short[axes];
+            s.povs = new short[povs];
+            for (int i = 0; i < povs; i++) {
+                s.povs[i] = -1;
+            }
+            s.buttonCount = (byte) buttons;
+            s.buttons = 0;
+        }
+    }
+
+    /**
+     * Set an axis value.
+     *
+     * @param stick the joystick port
+     * @param axis  the axis index
+     * @param value the value, from -1.0 to 1.0
+     */
+    public static void setAxis(int stick, int axis, double value) {
+        short raw;
+        if (value < 0)
+            raw = (short) Math.max(-128, Math.round(value * 128.0));
+        else
+            raw = (short) Math.min(127, Math.round(value * 127.0));
+        synchronized (m_lock) {
+            m_staged[stick].axes[axis] = raw;
+        }
+    }
+
+    public static void setButton(int stick, int button, boolean pressed) {
+        synchronized (m_lock) {
+            if (pressed)
+                m_staged[stick].buttons |= 1 << button;
+            else
+                m_staged[stick].buttons &= ~(1 << button);
+        }
+    }
+
+    public static void setPOV(int stick, int pov, int angle) {
+        synchronized (m_lock) {
+            m_staged[stick].povs[pov] = (short) angle;
+        }
+    }
+
+    public static void setSystemActive(boolean active) {
+        m_systemActive = active;
+    }
+
+    public static void setBrownedOut(boolean brownedOut) {
+        m_brownedOut = brownedOut;
+    }
+
+    /**
+     * Get the outputs last set on a joystick.
+     *
+     * @param stick the joystick port
+     * @return the output bits
+     */
+    public static int getOutputs(int stick) {
+        return m_outputs[stick];
+    }
+
+    public static short getLeftRumble(int stick) {
+        return m_leftRumble[stick];
+    }
+
+    public static short getRightRumble(int stick) {
+        return m_rightRumble[stick];
+    }
+
+    /**
+     * Get the last error message the robot sent to the Driver Station.
+     *
+     * @return the error message, or null
+     */
+    public static String getLastError() {
+        return m_lastError;
+    }
+
+    /*
+     * HAL side, used by SimHAL
+     */
+
+    static int getControlWord() {
+        return m_controlWord;
+    }
+
+    static int getAllianceStation() {
+        return m_alliance;
+    }
+
+    static float getMatchTime() {
+        return m_matchTime;
+    }
+
+    static boolean getSystemActive() {
+        return m_systemActive;
+    }
+
+    static boolean getBrownedOut() {
+        return m_brownedOut;
+    }
+
+    static short[] getAxes(int stick) {
+        synchronized (m_lock) {
+            return m_published[stick].axes.clone();
+        }
+    }
+
+    static short[] getPOVs(int stick) {
+        synchronized (m_lock) {
+            return m_published[stick].povs.clone();
+        }
+    }
+
+    static int getButtons(int stick, ByteBuffer count) {
+        synchronized (m_lock) {
+            count.put(0, m_published[stick].buttonCount);
+            return m_published[stick].buttons;
+        }
+    }
+
+    static void setOutputs(int stick, int outputs, short leftRumble, short rightRumble) {
+        m_outputs[stick] = outputs;
+        m_leftRumble[stick] = leftRumble;
+        m_rightRumble[stick] = rightRumble;
+    }
+
+    static void setError(String error) {
+        m_lastError = error;
+    }
+}
@@ -0,0 +1,1173 @@
+/*
+ * Copyright (c) 2015-2020 noriah <vix@noriah.dev>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ */
+
+package io.github.robolib.hal.sim;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import io.github.robolib.hal.HAL;
+import io.github.robolib.hal.HALBackend;
+import io.github.robolib.jni.CANJNI;
+import io.github.robolib.jni.CANUtil;
+
+/**
+ * The simulated HAL.
+ *
+ * All IO is kept in plain Java arrays. Outputs written by the robot can be
+ * read back, and inputs can be set, through the public methods of this class.
+ * Handles passed back to the framework are small direct buffers holding the
+ * handle type and index, so the framework code runs unchanged.
+ *
+ * @author noriah <vix@noriah.dev>
+ */
+public final class SimHAL implements HALBackend {
+
+    /** Number of simulated digital pins, including the MXP. */
+    public static final int NUM_DIGITAL = 32;
+
+    /** Number of simulated analog inputs. */
+    public static final int NUM_ANALOG_INPUTS = 8;
+
+    /** Number of simulated analog outputs. */
+    public static final int NUM_ANALOG_OUTPUTS = 2;
+
+    /** Number of PWM generators. */
+    public static final int NUM_PWM_GENERATORS = 6;
+
+    /** Number of Power Distribution Panel channels. */
+    public static final int NUM_PDP_CHANNELS = 16;
+
+    /** Number of analog triggers. */
+    public static final int NUM_ANALOG_TRIGGERS = 8;
+
+    /** Analog LSB weight in nanovolts, 12 bits over 5 volts. */
+    public static final int ANALOG_LSB_WEIGHT = 1220703;
+
+    /** Nominal FPGA PWM loop time in 40MHz ticks. */
+    public static final short LOOP_TIMING = 261;
+
+    private static final int HANDLE_PORT = 1;
+    private static final int HANDLE_DIGITAL = 2;
+    private static final int HANDLE_ANALOG_IN = 3;
+    private static final int HANDLE_ANALOG_OUT = 4;
+    private static final int HANDLE_PWM_GEN = 5;
+    private static final int HANDLE_TRIGGER = 6;
+    private static final int HANDLE_PCM = 7;
+    private static final int HANDLE_MUTEX = 8;
+    private static final int HANDLE_MULTIWAIT = 9;
+
+    private static final SimHAL m_instance = new SimHAL();
+
+    private static final class MultiWait {
+        long generation = 0;
+    }
+
+    private static final class CANFrame {
+        final byte[] data;
+        final int timeStamp;
+
+        CANFrame(byte[] data, int timeStamp) {
+            this.data = data;
+            this.timeStamp = timeStamp;
+        }
+    }
+
+    private final List<MultiWait> m_multiWaits = new ArrayList<>();
+    private volatile MultiWait m_newDataWait = null;
+
+    private volatile String m_programState = "None";
+
+    private volatile boolean m_userButton = false;
+
+    private final boolean[] m_dio = new boolean[NUM_DIGITAL];
+    private final boolean[] m_dioInput = new boolean[NUM_DIGITAL];
+    private final boolean[] m_dioAllocated = new boolean[NUM_DIGITAL];
+    private final long[] m_pulseEnd = new long[NUM_DIGITAL];
+
+    private final short[] m_pwm = new short[NUM_DIGITAL];
+    private final boolean[] m_pwmAllocated = new boolean[NUM_DIGITAL];
+    private final int[] m_pwmPeriodScale = new int[NUM_DIGITAL];
+    private final boolean[] m_pwmGenAllocated = new boolean[NUM_PWM_GENERATORS];
+    private final double[] m_pwmGenDutyCycle = new double[NUM_PWM_GENERATORS];
+    private final int[] m_pwmGenChannel = new int[NUM_PWM_GENERATORS];
+    private volatile double m_pwmRate = 0.0;
+
+    private final double[] m_analogIn = new double[NUM_ANALOG_INPUTS];
+    private final double[] m_analogOut = new double[NUM_ANALOG_OUTPUTS];
+    private final int[] m_analogAverageBits = new int[NUM_ANALOG_INPUTS];
+    private final int[] m_analogOversampleBits = new int[NUM_ANALOG_INPUTS];
+    private final long[] m_accumulatorValue = new long[NUM_ANALOG_INPUTS];
+    private final int[] m_accumulatorCount = new int[NUM_ANALOG_INPUTS];
+    private final int[] m_accumulatorCenter = new int[NUM_ANALOG_INPUTS];
+    private final int[] m_accumulatorDeadband = new int[NUM_ANALOG_INPUTS];
+    private volatile double m_analogSampleRate = 50000.0;
+
+    private final boolean[] m_triggerAllocated = new boolean[NUM_ANALOG_TRIGGERS];
+    private final int[] m_triggerChannel = new int[NUM_ANALOG_TRIGGERS];
+    private final double[] m_triggerLower = new double[NUM_ANALOG_TRIGGERS];
+    private final double[] m_triggerUpper = new double[NUM_ANALOG_TRIGGERS];
+    private final boolean[] m_triggerState = new boolean[NUM_ANALOG_TRIGGERS];
+
+    private final Map<Integer, CANFrame> m_canReceive = new HashMap<>();
+    private final Map<Integer, byte[]> m_canSent = new HashMap<>();
+    private volatile long m_canSendCount = 0;
+
+    private final double[] m_pdpCurrent = new double[NUM_PDP_CHANNELS];
+    private volatile double m_pdpVoltage = 12.5;
+    private volatile double m_pdpTemperature = 25.0;
+    private volatile double m_pdpEnergy = 0.0;
+
+    private volatile float m_vinVoltage = 12.5f;
+    private volatile float m_vinCurrent = 1.0f;
+
+    private volatile boolean m_closedLoop = false;
+    private volatile boolean m_pressureSwitch = false;
+    private volatile float m_compressorCurrent = 0.0f;
+
+    private SimHAL() {
+    }
+
+    /**
+     * Get the simulated HAL.
+     *
+     * @return the single SimHAL instance
+     */
+    public static SimHAL getInstance() {
+        return m_instance;
+    }
+
+    private static void ok(IntBuffer status) {
+        status.put(0, 0);
+    }
+
+    private static ByteBuffer handle(int type, int index) {
+        ByteBuffer b = ByteBuffer.allocateDirect(8);
+        b.putInt(0, type);
+        b.putInt(4, index);
+        return b;
+    }
+
+    private static int index(ByteBuffer handle) {
+        return handle.getInt(4);
+    }
+
+    /**
+     * Wake up anything waiting on the new data semaphore.
+     */
+    void signalNewData() {
+        MultiWait mw = m_newDataWait;
+        if (mw != null) {
+            synchronized (mw) {
+                mw.generation++;
+                mw.notifyAll();
+            }
+        }
+    }
+
+    @Override
+    public String getName() {
+        return HAL.BACKEND_SIM;
+    }
+
+    /*
+     * Simulation control
+     */
+
+    /**
+     * Get the last program state the robot reported to the Driver Station.
+     *
+     * @return one of Starting, Disabled, Autonomous, Teleop or Test
+     */
+    public String getProgramState() {
+        return m_programState;
+    }
+
+    public void setUserButton(boolean pressed) {
+        m_userButton = pressed;
+    }
+
+    /**
+     * Drive a digital input.
+     *
+     * @param channel the digital channel
+     * @param value   the value the robot will read
+     */
+    public void setDigitalInput(int channel, boolean value) {
+        m_dio[channel] = value;
+    }
+
+    /**
+     * Read a digital output.
+     *
+     * @param channel the digital channel
+     * @return the value last written by the robot
+     */
+    public boolean getDigitalOutput(int channel) {
+        return m_dio[channel];
+    }
+
+    /**
+     * Read a PWM output.
+     *
+     * @param channel the PWM channel
+     * @return the raw value last written by the robot
+     */
+    public short getPWMRaw(int channel) {
+        return m_pwm[channel];
+    }
+
+    public double getPWMGeneratorDutyCycle(int generator) {
+        return m_pwmGenDutyCycle[generator];
+    }
+
+    public void setAnalogInputVoltage(int channel, double voltage) {
+        m_analogIn[channel] = voltage;
+    }
+
+    public double getAnalogOutputVoltage(int channel) {
+        return m_analogOut[channel];
+    }
+
+    /**
+     * Set the value of an analog accumulator.
+     *
+     * @param channel the analog channel
+     * @param value   the accumulated value
+     * @param count   the number of accumulated samples
+     */
+    public void setAccumulator(int channel, long value, int count) {
+        synchronized (m_accumulatorValue) {
+            m_accumulatorValue[channel] = value;
+            m_accumulatorCount[channel] = count;
+        }
+    }
+
+    public void setPDPCurrent(int channel, double current) {
+        m_pdpCurrent[channel] = current;
+    }
+
+    public void setPDPVoltage(double voltage) {
+        m_pdpVoltage = voltage;
+    }
+
+    public void setPDPTemperature(double temperature) {
+        m_pdpTemperature = temperature;
+    }
+
+    public void setVinVoltage(float voltage) {
+        m_vinVoltage = voltage;
+    }
+
+    public void setVinCurrent(float current) {
+        m_vinCurrent = current;
+    }
+
+    public void setPressureSwitch(boolean full) {
+        m_pressureSwitch = full;
+    }
+
+    public void setCompressorCurrent(float current) {
+        m_compressorCurrent = current;
+    }
+
+    /**
+     * Queue a frame for the robot to receive. A newer frame with the same id
+     * replaces an older one, as in the CAN session mux.
+     *
+     * @param messageID the arbitration id
+     * @param data      the payload
+     */
+    public void injectCANFrame(int messageID, byte[] data) {
+        synchronized (m_canReceive) {
+            m_canReceive.put(messageID & CANJNI.CAN_MSGID_FULL_M,
+                    new CANFrame(data.clone(), (int) (SimClock.getTimeMicros() / 1000)));
+        }
+    }
+
+    /**
+     * Get the last frame the robot sent with the given id.
+     *
+     * @param messageID the arbitration id
+     * @return a copy of the payload, or null if no frame was sent
+     */
+    public byte[] getLastCANFrame(int messageID) {
+        synchronized (m_canSent) {
+            byte[] d = m_canSent.get(messageID & CANJNI.CAN_MSGID_FULL_M);
+            return d == null ? null : d.clone();
+        }
+    }
+
+    /**
+     * Get the number of frames the robot has sent.
+     *
+     * @return the frame count
+     */
+    public long getCANFrameCount() {
+        return m_canSendCount;
+    }
+
+    /*
+     * NetCommBackend
+     */
+
+    @Override
+    public void networkCommunicationReserve() {
+    }
+
+    @Override
+    public void observeUserProgramStarting() {
+        m_programState = "Starting";
+    }
+
+    @Override
+    public void observeUserProgramDisabled() {
+        m_programState = "Disabled";
+    }
+
+    @Override
+    public void observeUserProgramAutonomous() {
+        m_programState = "Autonomous";
+    }
+
+    @Override
+    public void observeUserProgramTeleop() {
+        m_programState = "Teleop";
+    }
+
+    @Override
+    public void observeUserProgramTest() {
+        m_programState = "Test";
+    }
+
+    @Override
+    public void setNewDataSem(ByteBuffer sem) {
+        synchronized (m_multiWaits) {
+            m_newDataWait = m_multiWaits.get(index(sem));
+        }
+    }
+
+    @Override
+    public int getRobotStatus() {
+        return SimDriverStation.getControlWord();
+    }
+
+    @Override
+    public int getAllianceStation() {
+        return SimDriverStation.getAllianceStation();
+    }
+
+    @Override
+    public float getMatchTime() {
+        return SimDriverStation.getMatchTime();
+    }
+
+    @Override
+    public short[] getJoystickAxes(byte joystickNum) {
+        return SimDriverStation.getAxes(joystickNum);
+    }
+
+    @Override
+    public short[] getJoystickPOVs(byte joystickNum) {
+        return SimDriverStation.getPOVs(joystickNum);
+    }
+
+    @Override
+    public int getJoystickButtons(byte joystickNum, ByteBuffer count) {
+        return SimDriverStation.getButtons(joystickNum, count);
+    }
+
+    @Override
+    public int setJoystickOutputs(byte joystickNum, int outputs, short leftRumble, short rightRumble) {
+        SimDriverStation.setOutputs(joystickNum, outputs, leftRumble, rightRumble);
+        return 0;
+    }
+
+    @Override
+    public boolean getSystemActive(IntBuffer status) {
+        ok(status);
+        return SimDriverStation.getSystemActive()
+                && (SimDriverStation.getControlWord() & SimDriverStation.CONTROL_ENABLED) != 0;
+    }
+
+    @Override
+    public boolean getBrownedOut(IntBuffer status) {
+        ok(status);
+        return SimDriverStation.getBrownedOut();
+    }
+
+    @Override
+    public int setErrorData(String error) {
+        SimDriverStation.setError(error);
+        return 0;
+    }
+
+    @Override
+    public void report(byte resource, byte instanceNumber, byte context, String feature) {
+    }
+
+    /*
+     * FPGABackend
+     */
+
+    @Override
+    public short getFPGAVersion(IntBuffer status) {
+        ok(status);
+        return 2015;
+    }
+
+    @Override
+    public int getFPGARevision(IntBuffer status) {
+        ok(status);
+        return 0;
+    }
+
+    @Override
+    public long getFPGATime(IntBuffer status) {
+        ok(status);
+        return SimClock.getTimeMicros();
+    }
+
+    @Override
+    public boolean getFPGAButton(IntBuffer status) {
+        ok(status);
+        return m_userButton;
+    }
+
+    @Override
+    public ByteBuffer initializeMutexNormal() {
+        return handle(HANDLE_MUTEX, 0);
+    }
+
+    @Override
+    public void deleteMutex(ByteBuffer sem) {
+    }
+
+    @Override
+    public ByteBuffer initializeMultiWait() {
+        synchronized (m_multiWaits) {
+            m_multiWaits.add(new MultiWait());
+            return handle(HANDLE_MULTIWAIT, m_multiWaits.size() - 1);
+        }
+    }
+
+    @Override
+    public void deleteMultiWait(ByteBuffer sem) {
+    }
+
+    @Override
+    public byte takeMultiWait(ByteBuffer sem, ByteBuffer mutex, int timeout) {
+        MultiWait mw;
+        synchronized (m_multiWaits) {
+            mw = m_multiWaits.get(index(sem));
+        }
+        synchronized (mw) {
+            long gen = mw.generation;
+            long deadline = System.currentTimeMillis() + timeout;
+            try {
+                while (mw.generation == gen) {
+                    if (timeout <= 0) {
+                        mw.wait();
+                    } else {
+                        long left = deadline - System.currentTimeMillis();
+                        if (left <= 0)
+                            return -1;
+                        mw.wait(left);
+                    }
+                }
+            } catch (InterruptedException e) {
+                return -1;
+            }
+        }
+        return 0;
+    }
+
+    /*
+     * DIOBackend
+     */
+
+    @Override
+    public ByteBuffer getPort(byte pin) {
+        return handle(HANDLE_PORT, pin);
+    }
+
+    @Override
+    public ByteBuffer initializeDigitalPort(ByteBuffer port_pointer, IntBuffer status) {
+        ok(status);
+        return handle(HANDLE_DIGITAL, index(port_pointer));
+    }
+
+    @Override
+    public byte allocateDIO(ByteBuffer digital_port_pointer, byte input, IntBuffer status) {
+        ok(status);
+        int pin = index(digital_port_pointer);
+        m_dioAllocated[pin] = true;
+        m_dioInput[pin] = input != 0;
+        return 1;
+    }
+
+    @Override
+    public void freeDIO(ByteBuffer digital_port_pointer, IntBuffer status) {
+        ok(status);
+        m_dioAllocated[index(digital_port_pointer)] = false;
+    }
+
+    @Override
+    public void setDIO(ByteBuffer digital_port_pointer, short value, IntBuffer status) {
+        ok(status);
+        m_dio[index(digital_port_pointer)] = value != 0;
+    }
+
+    @Override
+    public byte getDIO(ByteBuffer digital_port_pointer, IntBuffer status) {
+        ok(status);
+        return (byte) (m_dio[index(digital_port_pointer)] ? 1 : 0);
+    }
+
+    @Override
+    public byte getDIODirection(ByteBuffer digital_port_pointer, IntBuffer status) {
+        ok(status);
+        return (byte) (m_dioInput[index(digital_port_pointer)] ? 1 : 0);
+    }
+
+    @Override
+    public void pulse(ByteBuffer digital_port_pointer, double pulseLength, IntBuffer status) {
+        ok(status);
+        m_pulseEnd[index(digital_port_pointer)] = SimClock.getTimeMicros() + (long) (pulseLength * 1e6);
+    }
+
+    @Override
+    public byte isPulsing(ByteBuffer digital_port_pointer, IntBuffer status) {
+        ok(status);
+        return (byte) (m_pulseEnd[index(digital_port_pointer)] > SimClock.getTimeMicros() ? 1 : 0);
+    }
+
+    @Override
+    public byte isAnyPulsing(IntBuffer status) {
+        ok(status);
+        long now = SimClock.getTimeMicros();
+        for (long end : m_pulseEnd) {
+            if (end > now)
+                return 1;
+        }
+        return 0;
+    }
+
+    @Override
+    public short getLoopTiming(IntBuffer status) {
+        ok(status);
+        return LOOP_TIMING;
+    }
+
+    /*
+     * PWMBackend
+     */
+
+    @Override
+    public boolean allocatePWMChannel(ByteBuffer digital_port_pointer, IntBuffer status) {
+        ok(status);
+        int pin = index(digital_port_pointer);
+        if (m_pwmAllocated[pin])
+            return false;
+        m_pwmAllocated[pin] = true;
+        return true;
+    }
+
+    @Override
+    public void freePWMChannel(ByteBuffer digital_port_pointer, IntBuffer status) {
+        ok(status);
+        m_pwmAllocated[index(digital_port_pointer)] = false;
+    }
+
+    @Override
+    public void setPWM(ByteBuffer digital_port_pointer, short value, IntBuffer status) {
+        ok(status);
+        m_pwm[index(digital_port_pointer)] = value;
+    }
+
+    @Override
+    public short getPWM(ByteBuffer digital_port_pointer, IntBuffer status) {
+        ok(status);
+        return m_pwm[index(digital_port_pointer)];
+    }
+
+    @Override
+    public void latchPWMZero(ByteBuffer digital_port_pointer, IntBuffer status) {
+        ok(status);
+        m_pwm[index(digital_port_pointer)] = 0;
+    }
+
+    @Override
+    public void setPWMPeriodScale(ByteBuffer digital_port_pointer, int squelchMask, IntBuffer status) {
+        ok(status);
+        m_pwmPeriodScale[index(digital_port_pointer)] = squelchMask;
+    }
+
+    @Override
+    public ByteBuffer allocatePWM(IntBuffer status) {
+        ok(status);
+        synchronized (m_pwmGenAllocated) {
+            for (int i = 0; i < NUM_PWM_GENERATORS; i++) {
+                if (!m_pwmGenAllocated[i]) {
+                    m_pwmGenAllocated[i] = true;
+                    return handle(HANDLE_PWM_GEN, i);
+                }
+            }
+        }
+        status.put(0, -1);
+        return null;
+    }
+
+    @Override
+    public void freePWM(ByteBuffer pwmGenerator, IntBuffer status) {
+        ok(status);
+        synchronized (m_pwmGenAllocated) {
+            m_pwmGenAllocated[index(pwmGenerator)] = false;
+        }
+    }
+
+    @Override
+    public void setPWMRate(double rate, IntBuffer status) {
+        ok(status);
+        m_pwmRate = rate;
+    }
+
+    @Override
+    public void setPWMDutyCycle(ByteBuffer pwmGenerator, double dutyCycle, IntBuffer status) {
+        ok(status);
+        m_pwmGenDutyCycle[index(pwmGenerator)] = dutyCycle;
+    }
+
+    @Override
+    public void setPWMOutputChannel(ByteBuffer pwmGenerator, int pin, IntBuffer status) {
+        ok(status);
+        m_pwmGenChannel[index(pwmGenerator)] = pin;
+    }
+
+    /*
+     * AnalogBackend
+     */
+
+    @Override
+    public ByteBuffer initializeAnalogInputPort(ByteBuffer port_pointer, IntBuffer status) {
+        ok(status);
+        return handle(HANDLE_ANALOG_IN, index(port_pointer));
+    }
+
+    @Override
+    public ByteBuffer initializeAnalogOutputPort(ByteBuffer port_pointer, IntBuffer status) {
+        ok(status);
+        return handle(HANDLE_ANALOG_OUT, index(port_pointer));
+    }
+
+    @Override
+    public void setAnalogOutput(ByteBuffer port_pointer, double voltage, IntBuffer status) {
+        ok(status);
+        m_analogOut[index(port_pointer)] = voltage;
+    }
+
+    @Override
+    public double getAnalogOutput(ByteBuffer port_pointer, IntBuffer status) {
+        ok(status);
+        return m_analogOut[index(port_pointer)];
+    }
+
+    @Override
+    public void setAnalogSampleRate(double samplesPerSecond, IntBuffer status) {
+        ok(status);
+        m_analogSampleRate = samplesPerSecond;
+    }
+
+    @Override
+    public double getAnalogSampleRate(IntBuffer status) {
+        ok(status);
+        return m_analogSampleRate;
+    }
+
+    @Override
+    public void setAnalogAverageBits(ByteBuffer analog_port_pointer, int bits, IntBuffer status) {
+        ok(status);
+        m_analogAverageBits[index(analog_port_pointer)] = bits;
+    }
+
+    @Override
+    public int getAnalogAverageBits(ByteBuffer analog_port_pointer, IntBuffer status) {
+        ok(status);
+        return m_analogAverageBits[index(analog_port_pointer)];
+    }
+
+    @Override
+    public void setAnalogOversampleBits(ByteBuffer analog_port_pointer, int bits, IntBuffer status) {
+        ok(status);
+        m_analogOversampleBits[index(analog_port_pointer)] = bits;
+    }
+
+    @Override
+    public int getAnalogOversampleBits(ByteBuffer analog_port_pointer, IntBuffer status) {
+        ok(status);
+        return m_analogOversampleBits[index(analog_port_pointer)];
+    }
+
+    private static short toRaw(double voltage) {
+        return (short) Math.max(0, Math.min(4095, Math.round(voltage * 1e9 / ANALOG_LSB_WEIGHT)));
+    }
+
+    @Override
+    public short getAnalogValue(ByteBuffer analog_port_pointer, IntBuffer status) {
+        ok(status);
+        return toRaw(m_analogIn[index(analog_port_pointer)]);
+    }
+
+    @Override
+    public int getAnalogAverageValue(ByteBuffer analog_port_pointer, IntBuffer status) {
+        ok(status);
+        int ch = index(analog_port_pointer);
+        return toRaw(m_analogIn[ch]) << m_analogOversampleBits[ch];
+    }
+
+    @Override
+    public double getAnalogVoltage(ByteBuffer analog_port_pointer, IntBuffer status) {
+        ok(status);
+        return toRaw(m_analogIn[index(analog_port_pointer)]) * ANALOG_LSB_WEIGHT * 1e-9;
+    }
+
+    @Override
+    public double getAnalogAverageVoltage(ByteBuffer analog_port_pointer, IntBuffer status) {
+        ok(status);
+        return m_analogIn[index(analog_port_pointer)];
+    }
+
+    @Override
+    public int getAnalogLSBWeight(ByteBuffer analog_port_pointer, IntBuffer status) {
+        ok(status);
+        return ANALOG_LSB_WEIGHT;
+    }
+
+    @Override
+    public int getAnalogOffset(ByteBuffer analog_port_pointer, IntBuffer status) {
+        ok(status);
+        return 0;
+    }
+
+    @Override
+    public void initAccumulator(ByteBuffer analog_port_pointer, IntBuffer status) {
+        resetAccumulator(analog_port_pointer, status);
+    }
+
+    @Override
+    public void resetAccumulator(ByteBuffer analog_port_pointer, IntBuffer status) {
+        ok(status);
+        setAccumulator(index(analog_port_pointer), 0, 0);
+    }
+
+    @Override
+    public void setAccumulatorCenter(ByteBuffer analog_port_pointer, int center, IntBuffer status) {
+        ok(status);
+        m_accumulatorCenter[index(analog_port_pointer)] = center;
+    }
+
+    @Override
+    public void setAccumulatorDeadband(ByteBuffer analog_port_pointer, int deadband, IntBuffer status) {
+        ok(status);
+        m_accumulatorDeadband[index(analog_port_pointer)] = deadband;
+    }
+
+    @Override
+    public long getAccumulatorValue(ByteBuffer analog_port_pointer, IntBuffer status) {
+        ok(status);
+        synchronized (m_accumulatorValue) {
+            return m_accumulatorValue[index(analog_port_pointer)];
+        }
+    }
+
+    @Override
+    public int getAccumulatorCount(ByteBuffer analog_port_pointer, IntBuffer status) {
+        ok(status);
+        synchronized (m_accumulatorValue) {
+            return m_accumulatorCount[index(analog_port_pointer)];
+        }
+    }
+
+    @Override
+    public void getAccumulatorOutput(ByteBuffer analog_port_pointer, LongBuffer value, IntBuffer count,
+            IntBuffer status) {
+        ok(status);
+        int ch = index(analog_port_pointer);
+        synchronized (m_accumulatorValue) {
+            value.put(0, m_accumulatorValue[ch]);
+            count.put(0, m_accumulatorCount[ch]);
+        }
+    }
+
+    @Override
+    public ByteBuffer initializeAnalogTrigger(ByteBuffer port_pointer, IntBuffer index, IntBuffer status) {
+        ok(status);
+        synchronized (m_triggerAllocated) {
+            for (int i = 0; i < NUM_ANALOG_TRIGGERS; i++) {
+                if (!m_triggerAllocated[i]) {
+                    m_triggerAllocated[i] = true;
+                    m_triggerChannel[i] = index(port_pointer);
+                    index.put(0, i);
+                    return handle(HANDLE_TRIGGER, i);
+                }
+            }
+        }
+        status.put(0, -1);
+        return null;
+    }
+
+    @Override
+    public void cleanAnalogTrigger(ByteBuffer analog_trigger_pointer, IntBuffer status) {
+        ok(status);
+        synchronized (m_triggerAllocated) {
+            m_triggerAllocated[index(analog_trigger_pointer)] = false;
+        }
+    }
+
+    @Override
+    public void setAnalogTriggerLimitsRaw(ByteBuffer analog_trigger_pointer, int lower, int upper,
+            IntBuffer status) {
+        setAnalogTriggerLimitsVoltage(analog_trigger_pointer, lower * ANALOG_LSB_WEIGHT * 1e-9,
+                upper * ANALOG_LSB_WEIGHT * 1e-9, status);
+    }
+
+    @Override
+    public void setAnalogTriggerLimitsVoltage(ByteBuffer analog_trigger_pointer, double lower, double upper,
+            IntBuffer status) {
+        ok(status);
+        int t = index(analog_trigger_pointer);
+        m_triggerLower[t] = lower;
+        m_triggerUpper[t] = upper;
+    }
+
+    @Override
+    public void setAnalogTriggerAveraged(ByteBuffer analog_trigger_pointer, byte useAveragedValue,
+            IntBuffer status) {
+        ok(status);
+    }
+
+    @Override
+    public void setAnalogTriggerFiltered(ByteBuffer analog_trigger_pointer, byte useFilteredValue,
+            IntBuffer status) {
+        ok(status);
+    }
+
+    @Override
+    public byte getAnalogTriggerInWindow(ByteBuffer analog_trigger_pointer, IntBuffer status) {
+        ok(status);
+        int t = index(analog_trigger_pointer);
+        double v = m_analogIn[m_triggerChannel[t]];
+        return (byte) (v >= m_triggerLower[t] && v <= m_triggerUpper[t] ? 1 : 0);
+    }
+
+    @Override
+    public byte getAnalogTriggerTriggerState(ByteBuffer analog_trigger_pointer, IntBuffer status) {
+        ok(status);
+        int t = index(analog_trigger_pointer);
+        double v = m_analogIn[m_triggerChannel[t]];
+        if (v > m_triggerUpper[t])
+            m_triggerState[t] = true;
+        else if (v < m_triggerLower[t])
+            m_triggerState[t] = false;
+        return (byte) (m_triggerState[t] ? 1 : 0);
+    }
+
+    @Override
+    public byte getAnalogTriggerOutput(ByteBuffer analog_trigger_pointer, int type, IntBuffer status) {
+        switch (type) {
+            case 0:
+                return getAnalogTriggerInWindow(analog_trigger_pointer, status);
+            case 1:
+                return getAnalogTriggerTriggerState(analog_trigger_pointer, status);
+            default:
+                ok(status);
+                return 0;
+        }
+    }
+
+    /*
+     * CANBackend
+     */
+
+    @Override
+    public void sendMessage(int messageID, ByteBuffer data, int periodMs, IntBuffer status) {
+        ok(status);
+        byte[] payload;
+        if (data == null) {
+            payload = new byte[0];
+        } else {
+            payload = new byte[data.capacity()];
+            for (int i = 0; i < payload.length; i++) {
+                payload[i] = data.get(i);
+            }
+        }
+        synchronized (m_canSent) {
+            m_canSent.put(messageID & CANJNI.CAN_MSGID_FULL_M, payload);
+            m_canSendCount++;
+        }
+    }
+
+    @Override
+    public ByteBuffer receiveMessage(IntBuffer messageID, int messageIDMask, ByteBuffer timeStamp,
+            IntBuffer status) {
+        ok(status);
+        int target = messageID.get(0) & messageIDMask;
+        synchronized (m_canReceive) {
+            Iterator<Map.Entry<Integer, CANFrame>> it = m_canReceive.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Integer, CANFrame> e = it.next();
+                if ((e.getKey() & messageIDMask) == target) {
+                    it.remove();
+                    CANFrame f = e.getValue();
+                    messageID.put(0, e.getKey());
+                    timeStamp.putInt(0, f.timeStamp);
+                    ByteBuffer out = ByteBuffer.allocateDirect(f.data.length);
+                    out.put(f.data);
+                    return out;
+                }
+            }
+        }
+        status.put(0, CANUtil.ERR_CANSessionMux_MessageNotFound);
+        return ByteBuffer.allocateDirect(0);
+    }
+
+    /*
+     * PDPBackend
+     */
+
+    @Override
+    public double getPDPTemperature(IntBuffer status) {
+        ok(status);
+        return m_pdpTemperature;
+    }
+
+    @Override
+    public double getPDPVoltage(IntBuffer status) {
+        ok(status);
+        return m_pdpVoltage;
+    }
+
+    @Override
+    public double getPDPChannelCurrent(byte channel, IntBuffer status) {
+        ok(status);
+        return m_pdpCurrent[channel];
+    }
+
+    @Override
+    public double getPDPTotalCurrent(IntBuffer status) {
+        ok(status);
+        double total = 0.0;
+        for (double c : m_pdpCurrent) {
+            total += c;
+        }
+        return total;
+    }
+
+    @Override
+    public double getPDPTotalPower(IntBuffer status) {
+        return getPDPTotalCurrent(status) * m_pdpVoltage;
+    }
+
+    @Override
+    public double getPDPTotalEnergy(IntBuffer status) {
+        ok(status);
+        return m_pdpEnergy;
+    }
+
+    @Override
+    public void resetPDPTotalEnergy(IntBuffer status) {
+        ok(status);
+        m_pdpEnergy = 0.0;
+    }
+
+    @Override
+    public void clearPDPStickyFaults(IntBuffer status) {
+        ok(status);
+    }
+
+    /*
+     * PowerBackend
+     */
+
+    @Override
+    public float getVinVoltage(IntBuffer status) {
+        ok(status);
+        return m_vinVoltage;
+    }
+
+    @Override
+    public float getVinCurrent(IntBuffer status) {
+        ok(status);
+        return m_vinCurrent;
+    }
+
+    @Override
+    public float getUserVoltage6V(IntBuffer status) {
+        ok(status);
+        return 6.0f;
+    }
+
+    @Override
+    public float getUserCurrent6V(IntBuffer status) {
+        ok(status);
+        return 0.0f;
+    }
+
+    @Override
+    public boolean getUserActive6V(IntBuffer status) {
+        ok(status);
+        return true;
+    }
+
+    @Override
+    public int getUserCurrentFaults6V(IntBuffer status) {
+        ok(status);
+        return 0;
+    }
+
+    @Override
+    public float getUserVoltage5V(IntBuffer status) {
+        ok(status);
+        return 5.0f;
+    }
+
+    @Override
+    public float getUserCurrent5V(IntBuffer status) {
+        ok(status);
+        return 0.0f;
+    }
+
+    @Override
+    public boolean getUserActive5V(IntBuffer status) {
+        ok(status);
+        return true;
+    }
+
+    @Override
+    public int getUserCurrentFaults5V(IntBuffer status) {
+        ok(status);
+        return 0;
+    }
+
+    @Override
+    public float getUserVoltage3V3(IntBuffer status) {
+        ok(status);
+        return 3.3f;
+    }
+
+    @Override
+    public float getUserCurrent3V3(IntBuffer status) {
+        ok(status);
+        return 0.0f;
+    }
+
+    @Override
+    public boolean getUserActive3V3(IntBuffer status) {
+        ok(status);
+        return true;
+    }
+
+    @Override
+    public int getUserCurrentFaults3V3(IntBuffer status) {
+        ok(status);
+        return 0;
+    }
+
+    /*
+     * PCMBackend
+     */
+
+    @Override
+    public ByteBuffer initializeCompressor(byte module) {
+        return handle(HANDLE_PCM, module);
+    }
+
+    @Override
+    public boolean getCompressor(ByteBuffer pcm_pointer, IntBuffer status) {
+        ok(status);
+        return m_closedLoop && !m_pressureSwitch;
+    }
+
+    @Override
+    public void setClosedLoopControl(ByteBuffer pcm_pointer, boolean value, IntBuffer status) {
+        ok(status);
+        m_closedLoop = value;
+    }
+
+    @Override
+    public boolean getClosedLoopControl(ByteBuffer pcm_pointer, IntBuffer status) {
+        ok(status);
+        return m_closedLoop;
+    }
+
+    @Override
+    public boolean getPressureSwitch(ByteBuffer pcm_pointer, IntBuffer status) {
+        ok(status);
+        return m_pressureSwitch;
+    }
+
+    @Override
+    public float getCompressorCurrent(ByteBuffer pcm_pointer, IntBuffer status) {
+        ok(status);
+        return m_compressorCurrent;
+    }
+
+    @Override
+    public boolean getCompressorCurrentTooHighFault(ByteBuffer pcm_pointer, IntBuffer status) {
+        ok(status);
+        return false;
+    }
+
+    @Override
+    public boolean getCompressorCurrentTooHighStickyFault(ByteBuffer pcm_pointer, IntBuffer status) {
+        ok(status);
+        return false;
+    }
+
+    @Override
+    public boolean getCompressorShortedStickyFault(ByteBuffer pcm_pointer, IntBuffer status) {
+        ok(status);
+        return false;
+    }
+
+    @Override
+    public boolean getCompressorShortedFault(ByteBuffer pcm_pointer, IntBuffer status) {
+        ok(status);
+        return false;
+    }
+
+    @Override
+    public boolean getCompressorNotConnectedStickyFault(ByteBuffer pcm_pointer, IntBuffer status) {
+        ok(status);
+        return false;
+    }
+
+    @Override
+    public boolean getCompressorNotConnectedFault(ByteBuffer pcm_pointer, IntBuffer status) {
+        ok(status);
+        return false;
+    }
+
+    @Override
+    public void clearAllPCMStickyFaults(ByteBuffer pcm_pointer, IntBuffer status) {
+        ok(status);
+    }
+}
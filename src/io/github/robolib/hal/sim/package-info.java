@@ -0,0 +1,25 @@
+/*
+ * Copyright (c) 2015-2020 noriah <vix@noriah.dev>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ */
+
+/**
+ * A pure Java HAL for running the framework off the roboRIO.
+ *
+ * Selected with <code>-Drobolib.hal=sim</code>. {@link SimClock} stands in for
+ * the FPGA clock, {@link SimDriverStation} produces Driver Station packets and
+ * {@link SimHAL} holds the state of the simulated IO.
+ *
+ * @author noriah <vix@noriah.dev>
+ */
+package io.github.robolib.hal.sim;
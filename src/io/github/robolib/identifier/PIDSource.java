@@ -32,4 +32,15 @@ public interface PIDSource {
 
     double pidGet();
 
+    /**
+     * Start recording this source in the background with timestamps.
+     *
+     * @param capacity the number of samples to keep
+     * @param period   the time between samples in seconds
+     * @return a {@link SampledSource} reading this source
+     */
+    default SampledSource sampled(int capacity, double period) {
+        return new SampledSource(this, capacity, period);
+    }
+
 }
@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2015-2020 noriah <vix@noriah.dev>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ */
+
+package io.github.robolib.identifier;
+
+/**
+ * A fixed size ring of timestamped samples.
+ *
+ * Times and values are kept in primitive arrays, so adding a sample and every
+ * query below runs without allocating. Times are FPGA times in microseconds.
+ * When the ring is full the oldest sample is dropped.
+ *
+ * @author noriah <vix@noriah.dev>
+ */
+public class SampleBuffer {
+
+    private final long[] m_times;
+    private final double[] m_values;
+    private int m_head = 0;
+    private int m_size = 0;
+
+    /**
+     * @param capacity the number of samples to keep
+     */
+    public SampleBuffer(int capacity) {
+        if (capacity < 2)
+            throw new IllegalArgumentException("Capacity must be at least 2.");
+        m_times = new long[capacity];
+        m_values = new double[capacity];
+    }
+
+    /**
+     * Add a sample. Samples must be added in time order.
+     *
+     * @param time  the FPGA time of the sample in microseconds
+     * @param value the value
+     */
+    public synchronized void add(long time, double value) {
+        m_times[m_head] = time;
+        m_values[m_head] = value;
+        m_head = (m_head + 1) % m_times.length;
+        if (m_size < m_times.length)
+            m_size++;
+    }
+
+    /**
+     * Remove all samples.
+     */
+    public synchronized void clear() {
+        m_head = 0;
+        m_size = 0;
+    }
+
+    /**
+     * @return the number of samples held
+     */
+    public synchronized int size() {
+        return m_size;
+    }
+
+    /**
+     * @return the most samples this buffer can hold
+     */
+    public int capacity() {
+        return m_times.length;
+    }
+
+    /** Index of the n-th newest sample, 0 being the newest. */
+    private int index(int n) {
+        return (m_head - 1 - n + 2 * m_times.length) % m_times.length;
+    }
+
+    /**
+     * @return the newest value, or 0 if there are no samples
+     */
+    public synchronized double getLatestValue() {
+        return m_size == 0 ? 0.0 : m_values[index(0)];
+    }
+
+    /**
+     * @return the time of the newest sample, or 0 if there are no samples
+     */
+    public synchronized long getLatestTime() {
+        return m_size == 0 ? 0 : m_times[index(0)];
+    }
+
+    /**
+     * Get the age of the newest sample.
+     *
+     * @param now the current FPGA time in microseconds
+     * @return how old the newest sample is in microseconds, or
+     *         {@link Long#MAX_VALUE} if there are no samples
+     */
+    public synchronized long getAge(long now) {
+        return m_size == 0 ? Long.MAX_VALUE : now - m_times[index(0)];
+    }
+
+    /**
+     * Get the value at a time, interpolated between the two nearest samples.
+     * Times outside the buffer are clamped to the oldest or newest sample.
+     *
+     * @param time the FPGA time in microseconds
+     * @return the value at that time, or 0 if there are no samples
+     */
+    public synchronized double getValueAt(long time) {
+        if (m_size == 0)
+            return 0.0;
+        int after = index(0);
+        if (time >= m_times[after])
+            return m_values[after];
+        for (int n = 1; n < m_size; n++) {
+            int before = index(n);
+            if (m_times[before] <= time) {
+                long span = m_times[after] - m_times[before];
+                if (span <= 0)
+                    return m_values[after];
+                double f = (double) (time - m_times[before]) / span;
+                return m_values[before] + (m_values[after] - m_values[before]) * f;
+            }
+            after = before;
+        }
+        return m_values[after];
+    }
+
+    /**
+     * Get the mean of the samples taken within a window before the newest one.
+     *
+     * @param window the window length in microseconds
+     * @return the mean value, or 0 if there are no samples
+     */
+    public synchronized double getMean(long window) {
+        checkWindow(window);
+        if (m_size == 0)
+            return 0.0;
+        long start = m_times[index(0)] - window;
+        double total = 0.0;
+        int count = 0;
+        for (int n = 0; n < m_size; n++) {
+            int i = index(n);
+            if (m_times[i] < start)
+                break;
+            total += m_values[i];
+            count++;
+        }
+        return count == 0 ? 0.0 : total / count;
+    }
+
+    private static void checkWindow(long window) {
+        if (window < 0)
+            throw new IllegalArgumentException("Window must not be negative.");
+    }
+
+    /**
+     * Get the smallest sample within a window before the newest one.
+     *
+     * @param window the window length in microseconds
+     * @return the minimum value, or 0 if there are no samples
+     */
+    public synchronized double getMin(long window) {
+        checkWindow(window);
+        if (m_size == 0)
+            return 0.0;
+        long start = m_times[index(0)] - window;
+        double min = Double.POSITIVE_INFINITY;
+        for (int n = 0; n < m_size; n++) {
+            int i = index(n);
+            if (m_times[i] < start)
+                break;
+            if (m_values[i] < min)
+                min = m_values[i];
+        }
+        return min;
+    }
+
+    /**
+     * Get the largest sample within a window before the newest one.
+     *
+     * @param window the window length in microseconds
+     * @return the maximum value, or 0 if there are no samples
+     */
+    public synchronized double getMax(long window) {
+        checkWindow(window);
+        if (m_size == 0)
+            return 0.0;
+        long start = m_times[index(0)] - window;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int n = 0; n < m_size; n++) {
+            int i = index(n);
+            if (m_times[i] < start)
+                break;
+            if (m_values[i] > max)
+                max = m_values[i];
+        }
+        return max;
+    }
+
+    /**
+     * Get the average rate of change across a window before the newest sample.
+     *
+     * @param window the window length in microseconds
+     * @return the change in value per second, or 0 if there are fewer than two
+     *         samples in the window
+     */
+    public synchronized double getRate(long window) {
+        checkWindow(window);
+        if (m_size < 2)
+            return 0.0;
+        int newest = index(0);
+        long start = m_times[newest] - window;
+        int oldest = newest;
+        for (int n = 1; n < m_size; n++) {
+            int i = index(n);
+            if (m_times[i] < start)
+                break;
+            oldest = i;
+        }
+        if (oldest == newest)
+            return 0.0;
+        return (m_values[newest] - m_values[oldest]) * 1e6 / (m_times[newest] - m_times[oldest]);
+    }
+}
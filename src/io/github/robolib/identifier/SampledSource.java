@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2015-2020 noriah <vix@noriah.dev>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ */
+
+package io.github.robolib.identifier;
+
+import io.github.robolib.module.RoboRIO;
+import io.github.robolib.util.LoopScheduler;
+
+/**
+ * A PIDSource that is read in the background and recorded into a
+ * {@link SampleBuffer}.
+ *
+ * The wrapped source is read on the {@link LoopScheduler} thread at a fixed
+ * period, and every reading is stored with its FPGA time. Reading this source
+ * returns the latest sample without touching the hardware. Any source can be
+ * sampled, for example {@code encoder.sampled(256, 0.005)} or
+ * {@code SampledSource.of(talon::getPosition, 256, 0.01)}.
+ *
+ * @author noriah <vix@noriah.dev>
+ */
+public class SampledSource implements PIDSource {
+
+    private final PIDSource m_source;
+    private final SampleBuffer m_buffer;
+    private LoopScheduler.Loop m_loop;
+
+    /**
+     * Start sampling a source.
+     *
+     * @param source   the source to read
+     * @param capacity the number of samples to keep
+     * @param period   the time between samples in seconds
+     */
+    public SampledSource(PIDSource source, int capacity, double period) {
+        m_source = source;
+        m_buffer = new SampleBuffer(capacity);
+        m_loop = LoopScheduler.schedule(this::sample, period);
+    }
+
+    /**
+     * Start sampling a source.
+     *
+     * @param source   the source to read
+     * @param capacity the number of samples to keep
+     * @param period   the time between samples in seconds
+     * @return the running SampledSource
+     */
+    public static SampledSource of(PIDSource source, int capacity, double period) {
+        return new SampledSource(source, capacity, period);
+    }
+
+    private void sample() {
+        double value = m_source.pidGet();
+        m_buffer.add(RoboRIO.getFPGATime(), value);
+    }
+
+    /**
+     * @return the buffer the samples are recorded in
+     */
+    public SampleBuffer getBuffer() {
+        return m_buffer;
+    }
+
+    /**
+     * Get the latest sample.
+     *
+     * @return the newest recorded value
+     */
+    @Override
+    public double pidGet() {
+        return m_buffer.getLatestValue();
+    }
+
+    /**
+     * Stop sampling. The recorded samples are kept.
+     */
+    public void free() {
+        LoopScheduler.Loop loop = m_loop;
+        if (loop != null)
+            loop.cancel();
+        m_loop = null;
+    }
+}
@@ -28,10 +28,18 @@ import io.github.robolib.lang.CANNotInitializedException;
 public class CANUtil {
 
     // FRC Error codes
-    static final int ERR_CANSessionMux_InvalidBuffer = -44086;
-    static final int ERR_CANSessionMux_MessageNotFound = -44087;
-    static final int ERR_CANSessionMux_NotAllowed = -44088;
-    static final int ERR_CANSessionMux_NotInitialized = -44089;
+    public static final int ERR_CANSessionMux_InvalidBuffer = -44086;
+    public static final int ERR_CANSessionMux_MessageNotFound = -44087;
+    public static final int ERR_CANSessionMux_NotAllowed = -44088;
+    public static final int ERR_CANSessionMux_NotInitialized = -44089;
+
+    /**
+     * @param status a receive status code
+     * @return true if the status only means no new message was available
+     */
+    public static boolean isMessageNotFound(int status) {
+        return status == ERR_CANSessionMux_MessageNotFound || status == NIRioStatus.kRIOStatusOperationTimedOut;
+    }
 
     public static void checkStatus(int status, int messageID)
             throws CANInvalidBufferException, CANMessageNotAllowedException, CANNotInitializedException {
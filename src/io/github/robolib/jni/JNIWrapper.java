@@ -6,6 +6,8 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
 
+import io.github.robolib.hal.HAL;
+
 //
 // base class for all JNI wrappers
 //
@@ -13,6 +15,13 @@ public class JNIWrapper {
 	static boolean libraryLoaded = false;
 	static File jniLibrary = null;
 	static {
+		// The simulated HAL never calls into the native library
+		if (!HAL.isSimulation()) {
+			loadLibrary();
+		}
+	}
+
+	private static void loadLibrary() {
 		try {
 			if (!libraryLoaded) {
 				// create temporary file
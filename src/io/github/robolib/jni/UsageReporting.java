@@ -1,5 +1,7 @@
 package io.github.robolib.jni;
 
+import io.github.robolib.hal.HAL;
+
 public class UsageReporting extends JNIWrapper {
 
     public static final byte ResourceType_Controller = 0;
@@ -93,8 +95,7 @@ public class UsageReporting extends JNIWrapper {
     }
 
     public static void report(byte resource, int instanceNumber, int i, String string) {
-
-        UsageReportingReport(resource, (byte) instanceNumber, (byte) i, string);
+        HAL.NET.report(resource, (byte) instanceNumber, (byte) i, string);
     }
 
     /**
@@ -17,7 +17,7 @@ package io.github.robolib.modes;
 
 import io.github.robolib.RobotMode;
 import io.github.robolib.command.Scheduler;
-import io.github.robolib.jni.NetworkCommunications;
+import io.github.robolib.hal.HAL;
 
 /**
  * The Class AutonMode.
@@ -57,8 +57,15 @@ public abstract class AutonMode extends RobotMode {
      */
     @Override
     protected final void modeRun() {
-        NetworkCommunications.ObserveUserProgramAutonomous();
+        HAL.NET.observeUserProgramAutonomous();
         run();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected final void modeSchedule() {
         Scheduler.run();
     }
 }
@@ -17,7 +17,7 @@ package io.github.robolib.modes;
 
 import io.github.robolib.RobotMode;
 import io.github.robolib.command.Scheduler;
-import io.github.robolib.jni.NetworkCommunications;
+import io.github.robolib.hal.HAL;
 
 /**
  * The Class DisabledMode.
@@ -60,8 +60,15 @@ public abstract class DisabledMode extends RobotMode {
      */
     @Override
     protected final void modeRun() {
-        NetworkCommunications.ObserveUserProgramDisabled();
+        HAL.NET.observeUserProgramDisabled();
         run();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected final void modeSchedule() {
         Scheduler.run();
     }
 }
@@ -17,7 +17,7 @@ package io.github.robolib.modes;
 
 import io.github.robolib.RobotMode;
 import io.github.robolib.command.Scheduler;
-import io.github.robolib.jni.NetworkCommunications;
+import io.github.robolib.hal.HAL;
 
 /**
  * The Class TeleopMode.
@@ -57,8 +57,15 @@ public abstract class TeleopMode extends RobotMode {
      */
     @Override
     protected final void modeRun() {
-        NetworkCommunications.ObserveUserProgramTeleop();
+        HAL.NET.observeUserProgramTeleop();
         run();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected final void modeSchedule() {
         Scheduler.run();
     }
 }
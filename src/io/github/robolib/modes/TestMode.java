@@ -17,7 +17,7 @@ package io.github.robolib.modes;
 
 import io.github.robolib.LiveWindow;
 import io.github.robolib.RobotMode;
-import io.github.robolib.jni.NetworkCommunications;
+import io.github.robolib.hal.HAL;
 
 /**
  * The Class TestMode.
@@ -66,7 +66,7 @@ public abstract class TestMode extends RobotMode {
      */
     @Override
     protected final void modeRun() {
-        NetworkCommunications.ObserveUserProgramTest();
+        HAL.NET.observeUserProgramTest();
         run();
     }
 
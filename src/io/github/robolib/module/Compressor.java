@@ -15,13 +15,13 @@
 
 package io.github.robolib.module;
 
-import static io.github.robolib.util.Common.allocateInt;
+import static io.github.robolib.hal.HALBuffers.intBuffer;
 
 import java.nio.ByteBuffer;
 import java.nio.IntBuffer;
 
+import io.github.robolib.hal.HAL;
 import io.github.robolib.identifier.UpdatingSendable;
-import io.github.robolib.jni.CompressorJNI;
 import io.github.robolib.jni.HALUtil;
 import io.github.robolib.nettable.ITable;
 import io.github.robolib.util.StringUtils;
@@ -37,7 +37,7 @@ public final class Compressor implements Module, UpdatingSendable {
     private ITable m_table;
 
     /** The m_pcm_compressor. */
-    private static final ByteBuffer COMPRESSOR = CompressorJNI.initializeCompressor((byte) 0);
+    private static final ByteBuffer COMPRESSOR = HAL.PCM.initializeCompressor((byte) 0);
 
     /** The Constant m_instance. */
     private static Compressor m_instance;
@@ -73,8 +73,8 @@ public final class Compressor implements Module, UpdatingSendable {
      * @return the compressor current
      */
     public static double getCompressorCurrent() {
-        IntBuffer status = allocateInt();
-        float current = CompressorJNI.getCompressorCurrent(COMPRESSOR, status);
+        IntBuffer status = intBuffer();
+        float current = HAL.PCM.getCompressorCurrent(COMPRESSOR, status);
         HALUtil.checkStatus(status);
         return current;
     }
@@ -85,8 +85,8 @@ public final class Compressor implements Module, UpdatingSendable {
      * @param on the on
      */
     public static void enableCompressor(boolean on) {
-        IntBuffer status = allocateInt();
-        CompressorJNI.setClosedLoopControl(COMPRESSOR, on, status);
+        IntBuffer status = intBuffer();
+        HAL.PCM.setClosedLoopControl(COMPRESSOR, on, status);
         HALUtil.checkStatus(status);
     }
 
@@ -96,8 +96,8 @@ public final class Compressor implements Module, UpdatingSendable {
      * @return the compressor enabled
      */
     public static boolean getCompressorEnabled() {
-        IntBuffer status = allocateInt();
-        boolean on = CompressorJNI.getClosedLoopControl(COMPRESSOR, status);
+        IntBuffer status = intBuffer();
+        boolean on = HAL.PCM.getClosedLoopControl(COMPRESSOR, status);
         HALUtil.checkStatus(status);
         return on;
     }
@@ -108,8 +108,8 @@ public final class Compressor implements Module, UpdatingSendable {
      * @return the pressure switch
      */
     public static boolean getPressureSwitch() {
-        IntBuffer status = allocateInt();
-        boolean on = CompressorJNI.getPressureSwitch(COMPRESSOR, status);
+        IntBuffer status = intBuffer();
+        boolean on = HAL.PCM.getPressureSwitch(COMPRESSOR, status);
         HALUtil.checkStatus(status);
         return on;
     }
@@ -120,8 +120,8 @@ public final class Compressor implements Module, UpdatingSendable {
      * @return the current fault
      */
     public static boolean getCurrentFault() {
-        IntBuffer status = allocateInt();
-        boolean retval = CompressorJNI.getCompressorCurrentTooHighFault(COMPRESSOR, status);
+        IntBuffer status = intBuffer();
+        boolean retval = HAL.PCM.getCompressorCurrentTooHighFault(COMPRESSOR, status);
         HALUtil.checkStatus(status);
         return retval;
     }
@@ -132,8 +132,8 @@ public final class Compressor implements Module, UpdatingSendable {
      * @return the current sticky fault
      */
     public static boolean getCurrentStickyFault() {
-        IntBuffer status = allocateInt();
-        boolean retval = CompressorJNI.getCompressorCurrentTooHighStickyFault(COMPRESSOR, status);
+        IntBuffer status = intBuffer();
+        boolean retval = HAL.PCM.getCompressorCurrentTooHighStickyFault(COMPRESSOR, status);
         HALUtil.checkStatus(status);
         return retval;
     }
@@ -144,8 +144,8 @@ public final class Compressor implements Module, UpdatingSendable {
      * @return the short fault
      */
     public static boolean getShortFault() {
-        IntBuffer status = allocateInt();
-        boolean retval = CompressorJNI.getCompressorShortedFault(COMPRESSOR, status);
+        IntBuffer status = intBuffer();
+        boolean retval = HAL.PCM.getCompressorShortedFault(COMPRESSOR, status);
         HALUtil.checkStatus(status);
         return retval;
     }
@@ -156,8 +156,8 @@ public final class Compressor implements Module, UpdatingSendable {
      * @return the short sticky fault
      */
     public static boolean getShortStickyFault() {
-        IntBuffer status = allocateInt();
-        boolean retval = CompressorJNI.getCompressorShortedStickyFault(COMPRESSOR, status);
+        IntBuffer status = intBuffer();
+        boolean retval = HAL.PCM.getCompressorShortedStickyFault(COMPRESSOR, status);
         HALUtil.checkStatus(status);
         return retval;
     }
@@ -168,8 +168,8 @@ public final class Compressor implements Module, UpdatingSendable {
      * @return the no connection fault
      */
     public static boolean getNoConnectionFault() {
-        IntBuffer status = allocateInt();
-        boolean retval = CompressorJNI.getCompressorNotConnectedFault(COMPRESSOR, status);
+        IntBuffer status = intBuffer();
+        boolean retval = HAL.PCM.getCompressorNotConnectedFault(COMPRESSOR, status);
         HALUtil.checkStatus(status);
         return retval;
     }
@@ -180,8 +180,8 @@ public final class Compressor implements Module, UpdatingSendable {
      * @return the no connection sticky fault
      */
     public static boolean getNoConnectionStickyFault() {
-        IntBuffer status = allocateInt();
-        boolean retval = CompressorJNI.getCompressorNotConnectedStickyFault(COMPRESSOR, status);
+        IntBuffer status = intBuffer();
+        boolean retval = HAL.PCM.getCompressorNotConnectedStickyFault(COMPRESSOR, status);
         HALUtil.checkStatus(status);
         return retval;
     }
@@ -190,8 +190,8 @@ public final class Compressor implements Module, UpdatingSendable {
      * Clear compressor sticky faults.
      */
     public static void clearCompressorStickyFaults() {
-        IntBuffer status = allocateInt();
-        CompressorJNI.clearAllPCMStickyFaults(COMPRESSOR, status);
+        IntBuffer status = intBuffer();
+        HAL.PCM.clearAllPCMStickyFaults(COMPRESSOR, status);
         HALUtil.checkStatus(status);
     }
 
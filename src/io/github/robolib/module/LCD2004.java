@@ -18,6 +18,7 @@ package io.github.robolib.module;
 import java.util.HashMap;
 import java.util.Map;
 
+import io.github.robolib.module.iface.BusManager;
 import io.github.robolib.module.iface.I2C;
 import io.github.robolib.util.Timer;
 
@@ -98,6 +99,7 @@ public class LCD2004 extends I2C {
 
     public LCD2004(Port port) {
         super(port, I2C_ADDR);
+        setBusPriority(BusManager.Priority.BULK);
 
         Timer.delay(0.041);
 
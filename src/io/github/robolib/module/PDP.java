@@ -15,11 +15,11 @@
 
 package io.github.robolib.module;
 
+import io.github.robolib.hal.HAL;
+import io.github.robolib.hal.HALBuffers;
 import io.github.robolib.identifier.UpdatingSendable;
-import io.github.robolib.jni.PDPJNI;
 import io.github.robolib.lang.ResourceAllocationException;
 import io.github.robolib.nettable.ITable;
-import io.github.robolib.util.Common;
 
 /**
  * A class for accessing the Power Distribution Panel.
@@ -150,7 +150,7 @@ public final class PDP implements UpdatingSendable {
      * @return the voltage
      */
     public static double getVoltage() {
-        return PDPJNI.getPDPVoltage(Common.allocateInt());
+        return HAL.PDP.getPDPVoltage(HALBuffers.intBuffer());
     }
 
     /**
@@ -159,7 +159,7 @@ public final class PDP implements UpdatingSendable {
      * @return the temperature
      */
     public static double getTemperature() {
-        return PDPJNI.getPDPTemperature(Common.allocateInt());
+        return HAL.PDP.getPDPTemperature(HALBuffers.intBuffer());
     }
 
     /**
@@ -169,7 +169,7 @@ public final class PDP implements UpdatingSendable {
      * @return the current
      */
     public static double getCurrent(PowerChannel channel) {
-        return PDPJNI.getPDPChannelCurrent((byte) channel.ordinal(), Common.allocateInt());
+        return HAL.PDP.getPDPChannelCurrent((byte) channel.ordinal(), HALBuffers.intBuffer());
     }
 
     /**
@@ -179,7 +179,7 @@ public final class PDP implements UpdatingSendable {
      * @return the current
      */
     private double getChannelCurrent(int channel) {
-        return PDPJNI.getPDPChannelCurrent((byte) channel, Common.allocateInt());
+        return HAL.PDP.getPDPChannelCurrent((byte) channel, HALBuffers.intBuffer());
     }
 
     /**
@@ -188,7 +188,7 @@ public final class PDP implements UpdatingSendable {
      * @return the total current
      */
     public static double getTotalCurrent() {
-        return PDPJNI.getPDPTotalCurrent(Common.allocateInt());
+        return HAL.PDP.getPDPTotalCurrent(HALBuffers.intBuffer());
     }
 
     /**
@@ -197,7 +197,7 @@ public final class PDP implements UpdatingSendable {
      * @return the total power
      */
     public static double getTotalPower() {
-        return PDPJNI.getPDPTotalPower(Common.allocateInt());
+        return HAL.PDP.getPDPTotalPower(HALBuffers.intBuffer());
     }
 
     /**
@@ -206,21 +206,21 @@ public final class PDP implements UpdatingSendable {
      * @return the total energy
      */
     public static double getTotalEnergy() {
-        return PDPJNI.getPDPTotalEnergy(Common.allocateInt());
+        return HAL.PDP.getPDPTotalEnergy(HALBuffers.intBuffer());
     }
 
     /**
      * Reset total energy.
      */
     public static void resetTotalEnergy() {
-        PDPJNI.resetPDPTotalEnergy(Common.allocateInt());
+        HAL.PDP.resetPDPTotalEnergy(HALBuffers.intBuffer());
     }
 
     /**
      * Reset faults.
      */
     public static void resetFaults() {
-        PDPJNI.clearPDPStickyFaults(Common.allocateInt());
+        HAL.PDP.clearPDPStickyFaults(HALBuffers.intBuffer());
     }
 
     /*
@@ -253,7 +253,8 @@ public final class PDP implements UpdatingSendable {
     @Override
     public void updateTable() {
         for (int i = 0; i < MAX_POWER_CHANNELS; i++) {
-            m_table.putNumber(m_channelMap[i], getChannelCurrent(i));
+            if (m_channelMap[i] != null)
+                m_table.putNumber(m_channelMap[i], getChannelCurrent(i));
         }
 
         m_table.putNumber("Voltage", getVoltage());
@@ -15,14 +15,14 @@
 
 package io.github.robolib.module;
 
-import static io.github.robolib.util.Common.allocateInt;
+import static io.github.robolib.hal.HALBuffers.intBuffer;
 
 import java.nio.IntBuffer;
 
+import io.github.robolib.hal.HAL;
 import io.github.robolib.identifier.ButtonTrigger;
 import io.github.robolib.identifier.UpdatingSendable;
 import io.github.robolib.jni.HALUtil;
-import io.github.robolib.jni.PowerJNI;
 import io.github.robolib.nettable.ITable;
 import io.github.robolib.util.StringUtils;
 
@@ -56,22 +56,22 @@ public final class RoboRIO implements UpdatingSendable {
     }
 
     public static int getFPGAVersion() {
-        IntBuffer status = allocateInt();
-        int value = HALUtil.getFPGAVersion(status);
+        IntBuffer status = intBuffer();
+        int value = HAL.FPGA.getFPGAVersion(status);
         HALUtil.checkStatus(status);
         return value;
     }
 
     public static long getFPGARevision() {
-        IntBuffer status = allocateInt();
-        int value = HALUtil.getFPGARevision(status);
+        IntBuffer status = intBuffer();
+        int value = HAL.FPGA.getFPGARevision(status);
         HALUtil.checkStatus(status);
         return value;
     }
 
     public static long getFPGATime() {
-        IntBuffer status = allocateInt();
-        long value = HALUtil.getFPGATime(status);
+        IntBuffer status = intBuffer();
+        long value = HAL.FPGA.getFPGATime(status);
         HALUtil.checkStatus(status);
         return value;
     }
@@ -86,8 +86,8 @@ public final class RoboRIO implements UpdatingSendable {
      * @return The User Button status
      */
     public static boolean getUserButton() {
-        IntBuffer status = allocateInt();
-        boolean value = HALUtil.getFPGAButton(status);
+        IntBuffer status = intBuffer();
+        boolean value = HAL.FPGA.getFPGAButton(status);
         HALUtil.checkStatus(status);
         return value;
     }
@@ -102,8 +102,8 @@ public final class RoboRIO implements UpdatingSendable {
      * @return The Vin Voltage
      */
     public static double getVoltage() {
-        IntBuffer status = allocateInt();
-        double retVal = PowerJNI.getVinVoltage(status);
+        IntBuffer status = intBuffer();
+        double retVal = HAL.POWER.getVinVoltage(status);
         HALUtil.checkStatus(status);
         return retVal;
     }
@@ -114,8 +114,8 @@ public final class RoboRIO implements UpdatingSendable {
      * @return The Vin Current
      */
     public static double getCurrent() {
-        IntBuffer status = allocateInt();
-        double retVal = PowerJNI.getVinCurrent(status);
+        IntBuffer status = intBuffer();
+        double retVal = HAL.POWER.getVinCurrent(status);
         HALUtil.checkStatus(status);
         return retVal;
     }
@@ -127,8 +127,8 @@ public final class RoboRIO implements UpdatingSendable {
      * @return The 3.3 rail voltage
      */
     public static double get3V3Voltage() {
-        IntBuffer status = allocateInt();
-        double retVal = PowerJNI.getUserCurrent3V3(status);
+        IntBuffer status = intBuffer();
+        double retVal = HAL.POWER.getUserCurrent3V3(status);
         HALUtil.checkStatus(status);
         return retVal;
     }
@@ -140,8 +140,8 @@ public final class RoboRIO implements UpdatingSendable {
      * @return The 3.3 rail current
      */
     public static double get3V3Current() {
-        IntBuffer status = allocateInt();
-        double retVal = PowerJNI.getUserCurrent3V3(status);
+        IntBuffer status = intBuffer();
+        double retVal = HAL.POWER.getUserCurrent3V3(status);
         HALUtil.checkStatus(status);
         return retVal;
     }
@@ -152,8 +152,8 @@ public final class RoboRIO implements UpdatingSendable {
      * @return the comms power enabled
      */
     public static boolean get3V3PowerEnabled() {
-        IntBuffer status = allocateInt();
-        boolean retVal = PowerJNI.getUserActive3V3(status);
+        IntBuffer status = intBuffer();
+        boolean retVal = HAL.POWER.getUserActive3V3(status);
         HALUtil.checkStatus(status);
         return retVal;
     }
@@ -164,8 +164,8 @@ public final class RoboRIO implements UpdatingSendable {
      * @return the comms fault count
      */
     public static int get3V3FaultCount() {
-        IntBuffer status = allocateInt();
-        int retVal = PowerJNI.getUserCurrentFaults3V3(status);
+        IntBuffer status = intBuffer();
+        int retVal = HAL.POWER.getUserCurrentFaults3V3(status);
         HALUtil.checkStatus(status);
         return retVal;
     }
@@ -176,8 +176,8 @@ public final class RoboRIO implements UpdatingSendable {
      * @return the IO voltage
      */
     public static double get5VVoltage() {
-        IntBuffer status = allocateInt();
-        double retVal = PowerJNI.getUserVoltage5V(status);
+        IntBuffer status = intBuffer();
+        double retVal = HAL.POWER.getUserVoltage5V(status);
         HALUtil.checkStatus(status);
         return retVal;
     }
@@ -188,8 +188,8 @@ public final class RoboRIO implements UpdatingSendable {
      * @return the IO current
      */
     public static double get5VCurrent() {
-        IntBuffer status = allocateInt();
-        double retVal = PowerJNI.getUserCurrent5V(status);
+        IntBuffer status = intBuffer();
+        double retVal = HAL.POWER.getUserCurrent5V(status);
         HALUtil.checkStatus(status);
         return retVal;
     }
@@ -200,8 +200,8 @@ public final class RoboRIO implements UpdatingSendable {
      * @return the IO power enabled
      */
     public static boolean get5VPowerEnabled() {
-        IntBuffer status = allocateInt();
-        boolean retVal = PowerJNI.getUserActive5V(status);
+        IntBuffer status = intBuffer();
+        boolean retVal = HAL.POWER.getUserActive5V(status);
         HALUtil.checkStatus(status);
         return retVal;
     }
@@ -212,8 +212,8 @@ public final class RoboRIO implements UpdatingSendable {
      * @return the IO fault count
      */
     public static int get5VFaultCount() {
-        IntBuffer status = allocateInt();
-        int retVal = PowerJNI.getUserCurrentFaults5V(status);
+        IntBuffer status = intBuffer();
+        int retVal = HAL.POWER.getUserCurrentFaults5V(status);
         HALUtil.checkStatus(status);
         return retVal;
     }
@@ -224,8 +224,8 @@ public final class RoboRIO implements UpdatingSendable {
      * @return the servo voltage
      */
     public static double get6VVoltage() {
-        IntBuffer status = allocateInt();
-        double retVal = PowerJNI.getUserVoltage6V(status);
+        IntBuffer status = intBuffer();
+        double retVal = HAL.POWER.getUserVoltage6V(status);
         HALUtil.checkStatus(status);
         return retVal;
     }
@@ -236,8 +236,8 @@ public final class RoboRIO implements UpdatingSendable {
      * @return the servo current
      */
     public static double get6VCurrent() {
-        IntBuffer status = allocateInt();
-        double retVal = PowerJNI.getUserCurrent6V(status);
+        IntBuffer status = intBuffer();
+        double retVal = HAL.POWER.getUserCurrent6V(status);
         HALUtil.checkStatus(status);
         return retVal;
     }
@@ -248,8 +248,8 @@ public final class RoboRIO implements UpdatingSendable {
      * @return the servo power enabled
      */
     public static boolean get6VPowerEnabled() {
-        IntBuffer status = allocateInt();
-        boolean retVal = PowerJNI.getUserActive6V(status);
+        IntBuffer status = intBuffer();
+        boolean retVal = HAL.POWER.getUserActive6V(status);
         HALUtil.checkStatus(status);
         return retVal;
     }
@@ -260,8 +260,8 @@ public final class RoboRIO implements UpdatingSendable {
      * @return the servo fault count
      */
     public static int get6VFaultCount() {
-        IntBuffer status = allocateInt();
-        int retVal = PowerJNI.getUserCurrentFaults6V(status);
+        IntBuffer status = intBuffer();
+        int retVal = HAL.POWER.getUserCurrentFaults6V(status);
         HALUtil.checkStatus(status);
         return retVal;
     }
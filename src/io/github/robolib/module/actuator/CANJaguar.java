@@ -1,11 +1,14 @@
 package io.github.robolib.module.actuator;
 
-import static io.github.robolib.util.Common.allocateInt;
+import static io.github.robolib.hal.HALBuffers.byteBuffer;
+import static io.github.robolib.hal.HALBuffers.intBuffer;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.IntBuffer;
 import java.util.BitSet;
 
+import io.github.robolib.hal.HAL;
 import io.github.robolib.identifier.LiveWindowSendable;
 import io.github.robolib.identifier.RateSource;
 import io.github.robolib.jni.CANJNI;
@@ -18,6 +21,8 @@ import io.github.robolib.module.PDP;
 import io.github.robolib.module.PDP.PowerChannel;
 import io.github.robolib.module.controller.ControllerModule;
 import io.github.robolib.module.controller.SpeedController;
+import io.github.robolib.module.iface.CANBus;
+import io.github.robolib.module.iface.CANReceiver;
 import io.github.robolib.nettable.ITable;
 import io.github.robolib.nettable.ITableListener;
 import io.github.robolib.util.Timer;
@@ -42,6 +47,7 @@ public final class CANJaguar
     private static final int kFullMessageIDMask = CANJNI.CAN_MSGID_API_M | CANJNI.CAN_MSGID_MFR_M
             | CANJNI.CAN_MSGID_DTYPE_M;
     private static final int kSendMessagePeriod = 20;
+    private static final int kTrustedTokenSize = 2;
 
     private static BitSet m_allocated = new BitSet(64);
 
@@ -168,23 +174,29 @@ public final class CANJaguar
     private boolean m_voltageRampRateVerified = true;
     private boolean m_faultTimeVerified = true;
 
-    // Status data
-    private double m_busVoltage = 0.0f;
-    private double m_outputVoltage = 0.0f;
-    private double m_outputCurrent = 0.0f;
-    private double m_temperature = 0.0f;
-    private double m_position = 0.0;
-    private double m_speed = 0.0;
-    private byte m_limits = (byte) 0;
-    private short m_faults = (short) 0;
+    // Status data, written by the CANReceiver loop
+    private volatile double m_busVoltage = 0.0f;
+    private volatile double m_outputVoltage = 0.0f;
+    private volatile double m_outputCurrent = 0.0f;
+    private volatile double m_temperature = 0.0f;
+    private volatile double m_position = 0.0;
+    private volatile double m_speed = 0.0;
+    private volatile byte m_limits = (byte) 0;
+    private volatile short m_faults = (short) 0;
     private int m_firmwareVersion = 0;
     private byte m_hardwareVersion = (byte) 0;
     private boolean m_inverted;
 
     // Which periodic status messages have we received at least once?
-    private boolean m_receivedStatusMessage0 = false;
-    private boolean m_receivedStatusMessage1 = false;
-    private boolean m_receivedStatusMessage2 = false;
+    private volatile boolean m_receivedStatusMessage0 = false;
+    private volatile boolean m_receivedStatusMessage1 = false;
+    private volatile boolean m_receivedStatusMessage2 = false;
+
+    private final CANReceiver.Registration[] m_statusFrames = new CANReceiver.Registration[3];
+
+    private final FrameBuffers m_frames = new FrameBuffers();
+    private final CANBus.Output m_output = m_bus.createOutput();
+    private final byte[] m_verifyData = new byte[8];
 
     private ITable m_table = null;
     private ITableListener m_listener = null;
@@ -282,6 +294,10 @@ public final class CANJaguar
 
         m_safetyHelper = new MotorSafetyHelper(this);
 
+        m_statusFrames[0] = CANReceiver.register(CANJNI.LM_API_PSTAT_DATA_S0 | m_deviceNumber, this::decodeStatus0);
+        m_statusFrames[1] = CANReceiver.register(CANJNI.LM_API_PSTAT_DATA_S1 | m_deviceNumber, this::decodeStatus1);
+        m_statusFrames[2] = CANReceiver.register(CANJNI.LM_API_PSTAT_DATA_S2 | m_deviceNumber, this::decodeStatus2);
+
         boolean receivedFirmwareVersion = false;
         byte[] data = new byte[8];
 
@@ -369,7 +385,12 @@ public final class CANJaguar
     public void free() {
         m_safetyHelper = null;
 
-        IntBuffer status = allocateInt();
+        for (CANReceiver.Registration r : m_statusFrames) {
+            if (r != null)
+                r.cancel();
+        }
+
+        IntBuffer status = intBuffer();
         status.put(0, 0);
 
         int messageID;
@@ -400,7 +421,8 @@ public final class CANJaguar
                 return;
         }
 
-        CANJNI.CANSessionMuxSendMessage(messageID, null, CANJNI.CAN_SEND_PERIOD_STOP_REPEATING, status);
+        HAL.CAN.sendMessage(messageID, null, CANJNI.CAN_SEND_PERIOD_STOP_REPEATING, status);
+        m_bus.recordFrame(messageID, 0, CANJNI.CAN_SEND_PERIOD_STOP_REPEATING);
 
         configMaxOutputVoltage(kApproxBusVoltage);
     }
@@ -465,52 +487,69 @@ public final class CANJaguar
     @Override
     public void set(double outputValue, byte syncGroup) {
         int messageID;
-        byte[] data = new byte[8];
-        byte dataSize;
+        boolean sent = true;
 
         if (m_controlEnabled) {
-            switch (m_controlMode) {
-                case PercentVbus:
-                    messageID = CANJNI.LM_API_VOLT_T_SET;
-                    dataSize = packPercentage(data, m_inverted ? -outputValue : outputValue);
-                    break;
-
-                case Speed:
-                    messageID = CANJNI.LM_API_SPD_T_SET;
-                    dataSize = packFXP16_16(data, outputValue);
-                    break;
-
-                case Position:
-                    messageID = CANJNI.LM_API_POS_T_SET;
-                    dataSize = packFXP16_16(data, outputValue);
-                    break;
-
-                case Current:
-                    messageID = CANJNI.LM_API_ICTRL_T_SET;
-                    dataSize = packFXP8_8(data, outputValue);
-                    break;
+            sent = m_output.update((m_controlMode.ordinal() << 8) | (syncGroup & 0xFF), outputValue);
+        }
 
-                case Voltage:
-                    messageID = CANJNI.LM_API_VCOMP_T_SET;
-                    dataSize = packFXP8_8(data, outputValue);
-                    break;
+        if (m_controlEnabled && sent) {
+            // Setpoints are trusted messages, so the payload follows the token.
+            int extra = kTrustedTokenSize + (syncGroup != 0 ? 1 : 0);
+            synchronized (m_frames) {
+                ByteBuffer frame;
+                switch (m_controlMode) {
+                    case PercentVbus:
+                        messageID = CANJNI.LM_API_VOLT_T_SET;
+                        frame = m_frames.get(2 + extra);
+                        packPercentage(frame, kTrustedTokenSize, m_inverted ? -outputValue : outputValue);
+                        break;
+
+                    case Speed:
+                        messageID = CANJNI.LM_API_SPD_T_SET;
+                        frame = m_frames.get(4 + extra);
+                        packFXP16_16(frame, kTrustedTokenSize, outputValue);
+                        break;
+
+                    case Position:
+                        messageID = CANJNI.LM_API_POS_T_SET;
+                        frame = m_frames.get(4 + extra);
+                        packFXP16_16(frame, kTrustedTokenSize, outputValue);
+                        break;
+
+                    case Current:
+                        messageID = CANJNI.LM_API_ICTRL_T_SET;
+                        frame = m_frames.get(2 + extra);
+                        packFXP8_8(frame, kTrustedTokenSize, outputValue);
+                        break;
+
+                    case Voltage:
+                        messageID = CANJNI.LM_API_VCOMP_T_SET;
+                        frame = m_frames.get(2 + extra);
+                        packFXP8_8(frame, kTrustedTokenSize, outputValue);
+                        break;
+
+                    default:
+                        return;
+                }
 
-                default:
-                    return;
-            }
+                if (syncGroup != 0) {
+                    frame.put(frame.capacity() - 1, syncGroup);
+                }
 
-            if (syncGroup != 0) {
-                data[dataSize++] = syncGroup;
+                sendFrame(messageID | m_deviceNumber, frame, kSendMessagePeriod);
             }
+        }
 
-            sendMessage(messageID, data, dataSize, kSendMessagePeriod);
-
+        if (m_controlEnabled)
             feed();
-        }
 
         m_value = outputValue;
 
-        verify();
+        // An unchanged setpoint is still repeated by the HAL, so checking the
+        // Jaguar can wait for the next frame we actually send.
+        if (sent)
+            verify();
     }
 
     /**
@@ -554,6 +593,7 @@ public final class CANJaguar
     @Override
     public void setInverted(boolean inverted) {
         m_inverted = inverted;
+        m_output.invalidate();
     }
 
     /**
@@ -562,11 +602,10 @@ public final class CANJaguar
      * match up, it gets set again.
      */
     protected void verify() {
-        byte[] data = new byte[8];
+        byte[] data = m_verifyData;
 
         // If the Jaguar lost power, everything should be considered unverified
-        try {
-            getMessage(CANJNI.LM_API_STATUS_POWER, CANJNI.CAN_MSGID_FULL_M, data);
+        if (tryGetMessage(CANJNI.LM_API_STATUS_POWER, CANJNI.CAN_MSGID_FULL_M, data)) {
             boolean powerCycled = data[0] != 0;
 
             if (powerCycled) {
@@ -611,13 +650,10 @@ public final class CANJaguar
                         CANJNI.LM_API_CFG_LIMIT_FWD };
 
                 for (int message : messages) {
-                    try {
-                        getMessage(message, CANJNI.CAN_MSGID_FULL_M, data);
-                    } catch (CANMessageNotFoundException e) {
-                    }
+                    tryGetMessage(message, CANJNI.CAN_MSGID_FULL_M, data);
                 }
             }
-        } catch (CANMessageNotFoundException e) {
+        } else {
             requestMessage(CANJNI.LM_API_STATUS_POWER);
         }
 
@@ -978,9 +1014,7 @@ public final class CANJaguar
             // request periodic status messages again and attempt to unpack any
             // available ones.
             setupPeriodicStatus();
-            getTemperature();
-            getPosition();
-            getFaults();
+            updatePeriodicStatus();
         }
     }
 
@@ -1209,6 +1243,7 @@ public final class CANJaguar
                 break;
         }
 
+        m_output.invalidate();
         m_controlEnabled = true;
     }
 
@@ -1244,6 +1279,7 @@ public final class CANJaguar
         sendMessage(CANJNI.LM_API_ICTRL_T_SET, new byte[0], 0, CANJNI.CAN_SEND_PERIOD_STOP_REPEATING);
         sendMessage(CANJNI.LM_API_VCOMP_T_SET, new byte[0], 0, CANJNI.CAN_SEND_PERIOD_STOP_REPEATING);
 
+        m_output.invalidate();
         m_controlEnabled = false;
     }
 
@@ -1567,8 +1603,6 @@ public final class CANJaguar
      * @return The bus voltage in Volts.
      */
     public double getBusVoltage() {
-        updatePeriodicStatus();
-
         return m_busVoltage;
     }
 
@@ -1578,8 +1612,6 @@ public final class CANJaguar
      * @return The output voltage in Volts.
      */
     public double getOutputVoltage() {
-        updatePeriodicStatus();
-
         return m_outputVoltage;
     }
 
@@ -1589,8 +1621,6 @@ public final class CANJaguar
      * @return The output current in Amps.
      */
     public double getOutputCurrent() {
-        updatePeriodicStatus();
-
         return m_outputCurrent;
     }
 
@@ -1600,8 +1630,6 @@ public final class CANJaguar
      * @return The temperature of the Jaguar in degrees Celsius.
      */
     public double getTemperature() {
-        updatePeriodicStatus();
-
         return m_temperature;
     }
 
@@ -1614,8 +1642,6 @@ public final class CANJaguar
      * @see CANJaguar#configEncoderCodesPerRev(int)
      */
     public double getPosition() {
-        updatePeriodicStatus();
-
         return m_position;
     }
 
@@ -1626,8 +1652,6 @@ public final class CANJaguar
      */
     @Override
     public double getRate() {
-        updatePeriodicStatus();
-
         return m_speed;
     }
 
@@ -1637,8 +1661,6 @@ public final class CANJaguar
      * @return true if the motor is allowed to turn in the forward direction.
      */
     public boolean getForwardLimitOK() {
-        updatePeriodicStatus();
-
         return (m_limits & kForwardLimit) != 0;
     }
 
@@ -1648,8 +1670,6 @@ public final class CANJaguar
      * @return true if the motor is allowed to turn in the reverse direction.
      */
     public boolean getReverseLimitOK() {
-        updatePeriodicStatus();
-
         return (m_limits & kReverseLimit) != 0;
     }
 
@@ -1663,8 +1683,6 @@ public final class CANJaguar
      * @see #kGateDriverFault
      */
     public short getFaults() {
-        updatePeriodicStatus();
-
         return m_faults;
     }
 
@@ -1893,56 +1911,103 @@ public final class CANJaguar
 
     boolean m_controlEnabled = true;
 
-    static void sendMessageHelper(int messageID, byte[] data, int dataSize, int period)
-            throws CANMessageNotFoundException {
-        final int[] kTrustedMessages = { CANJNI.LM_API_VOLT_T_EN, CANJNI.LM_API_VOLT_T_SET, CANJNI.LM_API_SPD_T_EN,
-                CANJNI.LM_API_SPD_T_SET, CANJNI.LM_API_VCOMP_T_EN, CANJNI.LM_API_VCOMP_T_SET, CANJNI.LM_API_POS_T_EN,
-                CANJNI.LM_API_POS_T_SET, CANJNI.LM_API_ICTRL_T_EN, CANJNI.LM_API_ICTRL_T_SET };
+    /**
+     * Direct buffers for outgoing frames, one for each payload size, so sending
+     * does not allocate. The HAL copies the frame before the send returns.
+     *
+     * @author noriah <vix@noriah.dev>
+     */
+    private static final class FrameBuffers {
 
-        IntBuffer status = allocateInt();
-        status.put(0, 0);
+        private final ByteBuffer[] m_sized = new ByteBuffer[kMaxMessageDataSize + 1];
 
-        for (byte i = 0; i < kTrustedMessages.length; i++) {
-            if ((kFullMessageIDMask & messageID) == kTrustedMessages[i]) {
-                // Make sure the data will still fit after adjusting for the token.
-                if (dataSize > kMaxMessageDataSize - 2) {
-                    throw new RuntimeException("CAN message has too much data.");
-                }
+        private FrameBuffers() {
+            ByteBuffer block = ByteBuffer.allocateDirect((kMaxMessageDataSize + 1) * kMaxMessageDataSize / 2);
+            int offset = 0;
+            for (int size = 0; size <= kMaxMessageDataSize; size++) {
+                block.clear();
+                block.position(offset);
+                block.limit(offset + size);
+                m_sized[size] = block.slice().order(ByteOrder.LITTLE_ENDIAN);
+                offset += size;
+            }
+        }
 
-                ByteBuffer trustedBuffer = ByteBuffer.allocateDirect(dataSize + 2);
-                trustedBuffer.put(0, (byte) 0);
-                trustedBuffer.put(1, (byte) 0);
+        /**
+         * Get the zeroed buffer with a capacity of exactly size.
+         */
+        private ByteBuffer get(int size) {
+            ByteBuffer buffer = m_sized[size];
+            for (int i = 0; i < size; i++)
+                buffer.put(i, (byte) 0);
+            return buffer;
+        }
+    }
 
-                for (byte j = 0; j < dataSize; j++) {
-                    trustedBuffer.put(j + 2, data[j]);
-                }
+    private static final FrameBuffers m_sharedFrames = new FrameBuffers();
 
-                CANJNI.CANSessionMuxSendMessage(messageID, trustedBuffer, period, status);
-                int statusCode = status.get(0);
-                if (statusCode < 0) {
-                    CANUtil.checkStatus(statusCode, messageID);
-                }
+    private static final CANBus m_bus = CANBus.getInstance();
 
-                return;
-            }
+    /**
+     * Messages that must start with the two byte trust token.
+     */
+    private static boolean isTrustedMessage(int messageID) {
+        switch (kFullMessageIDMask & messageID) {
+            case CANJNI.LM_API_VOLT_T_EN:
+            case CANJNI.LM_API_VOLT_T_SET:
+            case CANJNI.LM_API_SPD_T_EN:
+            case CANJNI.LM_API_SPD_T_SET:
+            case CANJNI.LM_API_VCOMP_T_EN:
+            case CANJNI.LM_API_VCOMP_T_SET:
+            case CANJNI.LM_API_POS_T_EN:
+            case CANJNI.LM_API_POS_T_SET:
+            case CANJNI.LM_API_ICTRL_T_EN:
+            case CANJNI.LM_API_ICTRL_T_SET:
+                return true;
+            default:
+                return false;
         }
+    }
 
-        // Use a null pointer for the data buffer if the given array is null
+    static void sendMessageHelper(int messageID, byte[] data, int dataSize, int period)
+            throws CANMessageNotFoundException {
+        synchronized (m_sharedFrames) {
+            sendMessageHelper(m_sharedFrames, messageID, data, dataSize, period);
+        }
+    }
+
+    private static void sendMessageHelper(FrameBuffers frames, int messageID, byte[] data, int dataSize,
+            int period) {
         ByteBuffer buffer;
-        if (data != null) {
-            buffer = ByteBuffer.allocateDirect(dataSize);
-            if (data.length == dataSize) {
-                buffer.put(data);
-            } else {
-                for (byte i = 0; i < dataSize; i++) {
-                    buffer.put(i, data[i]);
-                }
+        int offset = 0;
+
+        if (isTrustedMessage(messageID)) {
+            // Make sure the data will still fit after adjusting for the token.
+            if (dataSize > kMaxMessageDataSize - kTrustedTokenSize) {
+                throw new RuntimeException("CAN message has too much data.");
             }
+            offset = kTrustedTokenSize;
+            buffer = frames.get(dataSize + kTrustedTokenSize);
+        } else if (data != null) {
+            buffer = frames.get(dataSize);
         } else {
+            // Use a null pointer for the data buffer if the given array is null
             buffer = null;
         }
 
-        CANJNI.CANSessionMuxSendMessage(messageID, buffer, period, status);
+        if (data != null) {
+            for (int i = 0; i < dataSize; i++) {
+                buffer.put(offset + i, data[i]);
+            }
+        }
+
+        sendFrame(messageID, buffer, period);
+    }
+
+    private static void sendFrame(int messageID, ByteBuffer frame, int period) {
+        IntBuffer status = intBuffer();
+        HAL.CAN.sendMessage(messageID, frame, period, status);
+        m_bus.recordFrame(messageID, frame == null ? 0 : frame.capacity(), period);
 
         int statusCode = status.get(0);
         if (statusCode < 0) {
@@ -1961,7 +2026,9 @@ public final class CANJaguar
      *                  every "period" milliseconds.
      */
     protected void sendMessage(int messageID, byte[] data, int dataSize, int period) {
-        sendMessageHelper(messageID | m_deviceNumber, data, dataSize, period);
+        synchronized (m_frames) {
+            sendMessageHelper(m_frames, messageID | m_deviceNumber, data, dataSize, period);
+        }
     }
 
     /**
@@ -1984,7 +2051,7 @@ public final class CANJaguar
      *                  message every "period" milliseconds.
      */
     protected void requestMessage(int messageID, int period) {
-        sendMessageHelper(messageID | m_deviceNumber, null, 0, period);
+        sendMessage(messageID, null, 0, period);
     }
 
     /**
@@ -2008,30 +2075,45 @@ public final class CANJaguar
      * @throws CANMessageNotFoundException if there's not new message available
      */
     protected void getMessage(int messageID, int messageMask, byte[] data) throws CANMessageNotFoundException {
+        if (!tryGetMessage(messageID, messageMask, data))
+            throw new CANMessageNotFoundException();
+    }
+
+    /**
+     * Get a previously requested message without throwing if there is none.
+     *
+     * @param messageID The messageID to read from the CAN bus (device number is
+     *                  added internally)
+     * @param data      The up to 8 bytes of data that was received with the message
+     * @return false if there's no new message available
+     */
+    protected boolean tryGetMessage(int messageID, int messageMask, byte[] data) {
         messageID |= m_deviceNumber;
         messageID &= CANJNI.CAN_MSGID_FULL_M;
 
-        IntBuffer targetedMessageID = allocateInt();
+        IntBuffer targetedMessageID = intBuffer();
         targetedMessageID.put(0, messageID);
 
-        ByteBuffer timeStamp = ByteBuffer.allocateDirect(4);
+        ByteBuffer timeStamp = byteBuffer();
 
-        IntBuffer status = allocateInt();
-        status.put(0, 0);
+        IntBuffer status = intBuffer();
 
         // Get the data.
-        ByteBuffer dataBuffer = CANJNI.CANSessionMuxReceiveMessage(targetedMessageID, messageMask, timeStamp, status);
+        ByteBuffer dataBuffer = HAL.CAN.receiveMessage(targetedMessageID, messageMask, timeStamp, status);
+
+        int statusCode = status.get(0);
+
+        if (CANUtil.isMessageNotFound(statusCode))
+            return false;
+        if (statusCode < 0)
+            CANUtil.checkStatus(statusCode, messageID);
 
         if (data != null) {
             for (int i = 0; i < dataBuffer.capacity(); i++) {
                 data[i] = dataBuffer.get(i);
             }
         }
-
-        int statusCode = status.get(0);
-
-        if (statusCode < 0)
-            CANUtil.checkStatus(statusCode, messageID);
+        return true;
     }
 
     /**
@@ -2065,62 +2147,75 @@ public final class CANJaguar
         sendMessage(CANJNI.LM_API_PSTAT_CFG_S0, kMessage0Data, dataSize);
         sendMessage(CANJNI.LM_API_PSTAT_CFG_S1, kMessage1Data, dataSize);
         sendMessage(CANJNI.LM_API_PSTAT_CFG_S2, kMessage2Data, dataSize);
+
+        m_bus.recordPeriodic(CANJNI.LM_API_PSTAT_DATA_S0 | m_deviceNumber, 8, kSendMessagePeriod);
+        m_bus.recordPeriodic(CANJNI.LM_API_PSTAT_DATA_S1 | m_deviceNumber, 8, kSendMessagePeriod);
+        m_bus.recordPeriodic(CANJNI.LM_API_PSTAT_DATA_S2 | m_deviceNumber, 8, kSendMessagePeriod);
     }
 
     /**
-     * Check for new periodic status updates and unpack them into local variables.
+     * Check for new periodic status messages now instead of waiting for the
+     * {@link CANReceiver} loop.
      */
     protected void updatePeriodicStatus() {
-        byte[] data = new byte[8];
-        // int dataSize;
-
-        // Check if a new bus voltage/output voltage/current/temperature message
-        // has arrived and unpack the values into the cached member variables
-        try {
-            getMessage(CANJNI.LM_API_PSTAT_DATA_S0, CANJNI.CAN_MSGID_FULL_M, data);
-
-            m_busVoltage = unpackFXP8_8(new byte[] { data[0], data[1] });
-            m_outputVoltage = unpackPercentage(new byte[] { data[2], data[3] }) * m_busVoltage;
-            m_outputCurrent = unpackFXP8_8(new byte[] { data[4], data[5] });
-            m_temperature = unpackFXP8_8(new byte[] { data[6], data[7] });
-
-            m_receivedStatusMessage0 = true;
-        } catch (CANMessageNotFoundException e) {
-        }
-
-        // Check if a new position/speed message has arrived and do the same
-        try {
-            getMessage(CANJNI.LM_API_PSTAT_DATA_S1, CANJNI.CAN_MSGID_FULL_M, data);
+        for (CANReceiver.Registration r : m_statusFrames)
+            r.poll();
+    }
 
-            m_position = unpackFXP16_16(new byte[] { data[0], data[1], data[2], data[3] });
-            m_speed = unpackFXP16_16(new byte[] { data[4], data[5], data[6], data[7] });
+    /**
+     * Bus voltage, output voltage, current and temperature.
+     */
+    private void decodeStatus0(ByteBuffer data, long timestamp) {
+        double busVoltage = data.getShort(0) / 256.0;
+        m_busVoltage = busVoltage;
+        m_outputVoltage = data.getShort(2) / 32767.0 * busVoltage;
+        m_outputCurrent = data.getShort(4) / 256.0;
+        m_temperature = data.getShort(6) / 256.0;
+        m_receivedStatusMessage0 = true;
+    }
 
-            m_receivedStatusMessage1 = true;
-        } catch (CANMessageNotFoundException e) {
-        }
+    /**
+     * Position and speed.
+     */
+    private void decodeStatus1(ByteBuffer data, long timestamp) {
+        m_position = data.getInt(0) / 65536.0;
+        m_speed = data.getInt(4) / 65536.0;
+        m_receivedStatusMessage1 = true;
+    }
 
-        // Check if a new limits/faults message has arrived and do the same
-        try {
-            getMessage(CANJNI.LM_API_PSTAT_DATA_S2, CANJNI.CAN_MSGID_FULL_M, data);
-            m_limits = data[0];
-            m_faults = data[1];
+    /**
+     * Limits and faults.
+     */
+    private void decodeStatus2(ByteBuffer data, long timestamp) {
+        m_limits = data.get(0);
+        m_faults = data.get(1);
+        m_receivedStatusMessage2 = true;
+    }
 
-            m_receivedStatusMessage2 = true;
-        } catch (CANMessageNotFoundException e) {
-        }
+    /**
+     * Get when the status values were last updated. This is the receive time of
+     * the oldest of the three periodic status messages.
+     *
+     * @return the FPGA time in microseconds, or 0 if a status message has not
+     *         been received yet
+     */
+    public long getStatusTime() {
+        long time = Long.MAX_VALUE;
+        for (CANReceiver.Registration r : m_statusFrames)
+            time = Math.min(time, r.getLastTime());
+        return time;
     }
 
     /**
-     * Update all the motors that have pending sets in the syncGroup.
+     * Update all the motors that have pending sets in the syncGroup. The update is
+     * sent on the next {@link CANBus} tick, together with any other groups
+     * updated before then.
      *
      * @param syncGroup A bitmask of groups to generate synchronous output.
+     * @see CANBus#flushSync()
      */
     public static void updateSyncGroup(byte syncGroup) {
-        byte[] data = new byte[8];
-
-        data[0] = syncGroup;
-
-        sendMessageHelper(CANJNI.CAN_MSGID_API_SYNC, data, 1, CANJNI.CAN_SEND_PERIOD_NO_REPEAT);
+        m_bus.requestSync(syncGroup);
     }
 
     /** we are on ARM-LE now, not Freescale so no need to swap */
@@ -2163,6 +2258,22 @@ public final class CANJaguar
         return 2;
     }
 
+    private static final void packPercentage(ByteBuffer buffer, int offset, double value) {
+        if (value < -1.0)
+            value = -1.0;
+        if (value > 1.0)
+            value = 1.0;
+        buffer.putShort(offset, (short) (value * 32767.0));
+    }
+
+    private static final void packFXP8_8(ByteBuffer buffer, int offset, double value) {
+        buffer.putShort(offset, (short) (value * 256.0));
+    }
+
+    private static final void packFXP16_16(ByteBuffer buffer, int offset, double value) {
+        buffer.putInt(offset, (int) (value * 65536.0));
+    }
+
     /*
      * private static final byte packINT32(byte[] buffer, int value) { swap32(value,
      * buffer); return 4; }
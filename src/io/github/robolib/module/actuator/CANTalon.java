@@ -7,6 +7,10 @@
  * ----------------------------------------------------------------------------- */
 package io.github.robolib.module.actuator;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import io.github.robolib.SafetyManager;
 import io.github.robolib.identifier.PIDSink;
 import io.github.robolib.jni.CanTalonJNI;
@@ -14,8 +18,11 @@ import io.github.robolib.jni.CanTalonSRX;
 import io.github.robolib.jni.SWIGTYPE_Adapter;
 import io.github.robolib.module.MotorSafety;
 import io.github.robolib.module.MotorSafetyHelper;
+import io.github.robolib.module.RoboRIO;
 import io.github.robolib.module.controller.ControllerModule;
 import io.github.robolib.module.controller.SpeedController;
+import io.github.robolib.module.iface.CANBus;
+import io.github.robolib.util.LoopScheduler;
 import io.github.robolib.util.Timer;
 
 @SuppressWarnings("unused")
@@ -82,17 +89,53 @@ public final class CANTalon implements ActuatorModule, ControllerModule, MotorSa
     }
 
     private CanTalonSRX m_impl;
-    ControlMode m_controlMode;
+    volatile ControlMode m_controlMode;
     private static double kDelayForSolicitedSignals = 0.004;
     int m_deviceNumber;
-    boolean m_controlEnabled;
+    volatile boolean m_controlEnabled;
     int m_profile;
     double m_setPoint;
     String m_description;
 
-    void _initialize(int deviceNumber) {
+    /* Arbitration ids, used to account for the frames the Talon library repeats. */
+    private static final int kControl1 = 0x02040000;
+    private static final int kStatus1 = 0x02041400;
+    private static final int kStatusStep = 0x40;
+    private static final int kDefaultControlPeriodMs = 10;
+    private static final int[] kDefaultStatusPeriodMs = { 10, 20, 100, 100 };
+
+    private final CANBus m_bus = CANBus.getInstance();
+    private final CANBus.Output m_output = m_bus.createOutput();
+
+    /* Status cache, indexed by StatusFrameRate.value. Guarded by this. */
+    private static final int kGeneral = 0;
+    private static final int kFeedback = 1;
+    private static final int kQuadEncoder = 2;
+    private static final int kAnalogTempVbat = 3;
+    private static final double kPollPeriod = 0.005;
+
+    private final long m_intp = CanTalonJNI.new_intp();
+    private final long m_doublep = CanTalonJNI.new_doublep();
+    private final SWIGTYPE_Adapter m_intAdapter = new SWIGTYPE_Adapter(m_intp, true);
+    private final SWIGTYPE_Adapter m_doubleAdapter = new SWIGTYPE_Adapter(m_doublep, true);
+    private final TalonStatus m_status = new TalonStatus();
+    private final int[] m_statusPeriodMs = kDefaultStatusPeriodMs.clone();
+
+    private static final Object m_pollLock = new Object();
+    private static volatile CANTalon[] m_polled = new CANTalon[0];
+    private static LoopScheduler.Loop m_pollLoop;
+
+    /* Motion profiles streaming to this Talon. Guarded by itself. */
+    private final List<TalonMotionProfile> m_motionProfiles = new ArrayList<TalonMotionProfile>();
+    private boolean m_deleted = false;
+
+    void _initialize(int deviceNumber, int controlPeriodMs) {
         m_description = "CANTalon ID " + deviceNumber;
         m_deviceNumber = deviceNumber;
+        m_bus.recordPeriodic(kControl1 | deviceNumber, 8, controlPeriodMs);
+        for (StatusFrameRate frame : StatusFrameRate.values())
+            m_bus.recordPeriodic(kStatus1 + frame.value * kStatusStep | deviceNumber, 8,
+                    kDefaultStatusPeriodMs[frame.value]);
         m_safetyHelper = SafetyManager.addMotor(this);
         m_controlEnabled = true;
         m_profile = 0;
@@ -102,13 +145,13 @@ public final class CANTalon implements ActuatorModule, ControllerModule, MotorSa
     }
 
     public CANTalon(int deviceNumber) {
-        _initialize(deviceNumber);
         m_impl = new CanTalonSRX(deviceNumber);
+        _initialize(deviceNumber, kDefaultControlPeriodMs);
     }
 
     public CANTalon(int deviceNumber, int controlPeriodMs) {
-        _initialize(deviceNumber);
         m_impl = new CanTalonSRX(deviceNumber, controlPeriodMs); /* bound period to be within [1 ms,95 ms] */
+        _initialize(deviceNumber, Math.max(1, Math.min(95, controlPeriodMs)));
     }
 
     @Override
@@ -121,13 +164,33 @@ public final class CANTalon implements ActuatorModule, ControllerModule, MotorSa
     }
 
     public void delete() {
+        TalonMotionProfile[] profiles;
+        synchronized (m_motionProfiles) {
+            if (m_deleted)
+                return;
+            m_deleted = true;
+            profiles = m_motionProfiles.toArray(new TalonMotionProfile[m_motionProfiles.size()]);
+        }
+        // Feeder threads call into m_impl, so they must be gone before it is freed.
+        for (TalonMotionProfile profile : profiles)
+            profile.free();
+
+        setStatusPolling(false);
         m_impl.delete();
+        synchronized (this) {
+            CanTalonJNI.delete_intp(m_intp);
+            CanTalonJNI.delete_doublep(m_doublep);
+        }
+        m_bus.recordPeriodic(kControl1 | m_deviceNumber, 8, 0);
+        for (StatusFrameRate frame : StatusFrameRate.values())
+            m_bus.recordPeriodic(kStatus1 + frame.value * kStatusStep | m_deviceNumber, 8, 0);
     }
 
     private boolean m_invert;
 
     public void setInverted(boolean invert) {
         m_invert = invert;
+        m_output.invalidate();
     }
 
     public void setSpeed(double speed) {
@@ -151,6 +214,10 @@ public final class CANTalon implements ActuatorModule, ControllerModule, MotorSa
         m_safetyHelper.feed();
         if (m_controlEnabled) {
             m_setPoint = outputValue;
+            // The library repeats the control frame, so an unchanged
+            // setpoint only needs to be passed down again as a keep-alive.
+            if (!m_output.update(m_controlMode.value, outputValue))
+                return;
             switch (m_controlMode) {
                 case PercentVbus:
                     m_impl.Set(m_invert ? -outputValue : outputValue);
@@ -188,6 +255,40 @@ public final class CANTalon implements ActuatorModule, ControllerModule, MotorSa
         set(outputValue);
     }
 
+    void attachProfile(TalonMotionProfile profile) {
+        synchronized (m_motionProfiles) {
+            if (m_deleted)
+                throw new IllegalStateException("CANTalon has been deleted.");
+            m_motionProfiles.add(profile);
+        }
+    }
+
+    void detachProfile(TalonMotionProfile profile) {
+        synchronized (m_motionProfiles) {
+            m_motionProfiles.remove(profile);
+        }
+    }
+
+    /**
+     * Send one streamed motion profile point. Every point is passed down, and
+     * the mode and demand go in one call so the Talon never sees them apart.
+     *
+     * Motor safety is not fed here. The feeder runs on its own thread, so
+     * feeding from it would hide a hung robot loop.
+     *
+     * @return false if control is disabled or the Talon has left the mode
+     * @see TalonMotionProfile
+     */
+    boolean setStreamed(ControlMode mode, double outputValue) {
+        if (!m_controlEnabled || m_controlMode != mode)
+            return false;
+        m_setPoint = outputValue;
+        m_impl.SetModeSelect(mode.value, (int) outputValue);
+        // The next set() must reach the library even if it repeats an old value.
+        m_output.invalidate();
+        return true;
+    }
+
     /**
      * Flips the sign (multiplies by negative one) the sensor values going into the
      * talon.
@@ -221,24 +322,22 @@ public final class CANTalon implements ActuatorModule, ControllerModule, MotorSa
      *
      * @return The current sensor value of the Talon.
      */
-    public double get() {
-        long valuep = CanTalonJNI.new_intp();
-        SWIGTYPE_Adapter swigp = new SWIGTYPE_Adapter(valuep, true);
+    public synchronized double get() {
         switch (m_controlMode) {
             case Voltage:
                 return getOutputVoltage();
             case Current:
                 return getOutputCurrent();
             case Speed:
-                m_impl.GetSensorVelocity(swigp);
-                return (double) CanTalonJNI.intp_value(valuep);
+                refreshStale(kFeedback);
+                return m_status.m_sensorVelocity;
             case Position:
-                m_impl.GetSensorPosition(swigp);
-                return (double) CanTalonJNI.intp_value(valuep);
+                refreshStale(kFeedback);
+                return m_status.m_sensorPosition;
             case PercentVbus:
             default:
-                m_impl.GetAppliedThrottle(swigp);
-                double a = (double) CanTalonJNI.intp_value(valuep) / 1023.0;
+                refreshStale(kGeneral);
+                double a = m_status.m_appliedThrottle / 1023.0;
                 return m_invert ? -a : a;
         }
     }
@@ -249,11 +348,9 @@ public final class CANTalon implements ActuatorModule, ControllerModule, MotorSa
      *
      * @return The current position of the encoder.
      */
-    public int getEncPosition() {
-        long valuep = CanTalonJNI.new_intp();
-        SWIGTYPE_Adapter swigp = new SWIGTYPE_Adapter(valuep, true);
-        m_impl.GetEncPosition(swigp);
-        return CanTalonJNI.intp_value(valuep);
+    public synchronized int getEncPosition() {
+        refreshStale(kQuadEncoder);
+        return m_status.m_encPosition;
     }
 
     /**
@@ -262,11 +359,9 @@ public final class CANTalon implements ActuatorModule, ControllerModule, MotorSa
      *
      * @return The current speed of the encoder.
      */
-    public int getEncVelocity() {
-        long valuep = CanTalonJNI.new_intp();
-        SWIGTYPE_Adapter swigp = new SWIGTYPE_Adapter(valuep, true);
-        m_impl.GetEncVel(swigp);
-        return CanTalonJNI.intp_value(valuep);
+    public synchronized int getEncVelocity() {
+        refreshStale(kQuadEncoder);
+        return m_status.m_encVelocity;
     }
 
     /**
@@ -274,41 +369,33 @@ public final class CANTalon implements ActuatorModule, ControllerModule, MotorSa
      *
      * @return number of rising edges on idx pin.
      */
-    public int getNumberOfQuadIdxRises() {
-        long valuep = CanTalonJNI.new_intp();
-        SWIGTYPE_Adapter swigp = new SWIGTYPE_Adapter(valuep, true);
-        m_impl.GetEncIndexRiseEvents(swigp);
-        return CanTalonJNI.intp_value(valuep);
+    public synchronized int getNumberOfQuadIdxRises() {
+        refreshStale(kQuadEncoder);
+        return m_status.m_encIndexRises;
     }
 
     /**
      * @return IO level of QUADA pin.
      */
-    public int getPinStateQuadA() {
-        long valuep = CanTalonJNI.new_intp();
-        SWIGTYPE_Adapter swigp = new SWIGTYPE_Adapter(valuep, true);
-        m_impl.GetQuadApin(swigp);
-        return CanTalonJNI.intp_value(valuep);
+    public synchronized int getPinStateQuadA() {
+        refreshStale(kQuadEncoder);
+        return m_status.m_pinQuadA;
     }
 
     /**
      * @return IO level of QUADB pin.
      */
-    public int getPinStateQuadB() {
-        long valuep = CanTalonJNI.new_intp();
-        SWIGTYPE_Adapter swigp = new SWIGTYPE_Adapter(valuep, true);
-        m_impl.GetQuadBpin(swigp);
-        return CanTalonJNI.intp_value(valuep);
+    public synchronized int getPinStateQuadB() {
+        refreshStale(kQuadEncoder);
+        return m_status.m_pinQuadB;
     }
 
     /**
      * @return IO level of QUAD Index pin.
      */
-    public int getPinStateQuadIdx() {
-        long valuep = CanTalonJNI.new_intp();
-        SWIGTYPE_Adapter swigp = new SWIGTYPE_Adapter(valuep, true);
-        m_impl.GetQuadIdxpin(swigp);
-        return CanTalonJNI.intp_value(valuep);
+    public synchronized int getPinStateQuadIdx() {
+        refreshStale(kQuadEncoder);
+        return m_status.m_pinQuadIdx;
     }
 
     /**
@@ -319,11 +406,9 @@ public final class CANTalon implements ActuatorModule, ControllerModule, MotorSa
      *         on the analog pin of the Talon. The upper 14 bits tracks the
      *         overflows and underflows (continuous sensor).
      */
-    public int getAnalogInPosition() {
-        long valuep = CanTalonJNI.new_intp();
-        SWIGTYPE_Adapter swigp = new SWIGTYPE_Adapter(valuep, true);
-        m_impl.GetAnalogInWithOv(swigp);
-        return CanTalonJNI.intp_value(valuep);
+    public synchronized int getAnalogInPosition() {
+        refreshStale(kAnalogTempVbat);
+        return m_status.m_analogInPosition;
     }
 
     /**
@@ -342,11 +427,9 @@ public final class CANTalon implements ActuatorModule, ControllerModule, MotorSa
      *
      * @return The current speed of the analog in device.
      */
-    public int getAnalogInVelocity() {
-        long valuep = CanTalonJNI.new_intp();
-        SWIGTYPE_Adapter swigp = new SWIGTYPE_Adapter(valuep, true);
-        m_impl.GetAnalogInVel(swigp);
-        return CanTalonJNI.intp_value(valuep);
+    public synchronized int getAnalogInVelocity() {
+        refreshStale(kAnalogTempVbat);
+        return m_status.m_analogInVelocity;
     }
 
     /**
@@ -354,77 +437,60 @@ public final class CANTalon implements ActuatorModule, ControllerModule, MotorSa
      *
      * @return The error, in whatever units are appropriate.
      */
-    public int getClosedLoopError() {
-        long valuep = CanTalonJNI.new_intp();
-        SWIGTYPE_Adapter swigp = new SWIGTYPE_Adapter(valuep, true);
-        m_impl.GetCloseLoopErr(swigp);
-        return CanTalonJNI.intp_value(valuep);
+    public synchronized int getClosedLoopError() {
+        refreshStale(kGeneral);
+        return m_status.m_closedLoopError;
     }
 
     // Returns true if limit switch is closed. false if open.
-    public boolean isFwdLimitSwitchClosed() {
-        long valuep = CanTalonJNI.new_intp();
-        SWIGTYPE_Adapter swigp = new SWIGTYPE_Adapter(valuep, true);
-        m_impl.GetLimitSwitchClosedFor(swigp);
-        return (CanTalonJNI.intp_value(valuep) == 0) ? true : false;
+    public synchronized boolean isFwdLimitSwitchClosed() {
+        refreshStale(kGeneral);
+        return m_status.m_fwdLimitClosed;
     }
 
     // Returns true if limit switch is closed. false if open.
-    public boolean isRevLimitSwitchClosed() {
-        long valuep = CanTalonJNI.new_intp();
-        SWIGTYPE_Adapter swigp = new SWIGTYPE_Adapter(valuep, true);
-        m_impl.GetLimitSwitchClosedRev(swigp);
-        return (CanTalonJNI.intp_value(valuep) == 0) ? true : false;
+    public synchronized boolean isRevLimitSwitchClosed() {
+        refreshStale(kGeneral);
+        return m_status.m_revLimitClosed;
     }
 
     // Returns true if break is enabled during neutral. false if coast.
-    public boolean getBrakeEnableDuringNeutral() {
-        long valuep = CanTalonJNI.new_intp();
-        SWIGTYPE_Adapter swigp = new SWIGTYPE_Adapter(valuep, true);
-        m_impl.GetBrakeIsEnabled(swigp);
-        return (CanTalonJNI.intp_value(valuep) == 0) ? false : true;
+    public synchronized boolean getBrakeEnableDuringNeutral() {
+        refreshStale(kFeedback);
+        return m_status.m_brakeEnabled;
     }
 
     /**
      * Returns temperature of Talon, in degrees Celsius.
      */
-    public double getTemp() {
-        long tempp = CanTalonJNI.new_doublep(); // Create a new swig pointer.
-        m_impl.GetTemp(new SWIGTYPE_Adapter(tempp, true));
-        return CanTalonJNI.doublep_value(tempp);
+    public synchronized double getTemp() {
+        refreshStale(kAnalogTempVbat);
+        return m_status.m_temperature;
     }
 
     /**
      * Returns the current going through the Talon, in Amperes.
      */
-    public double getOutputCurrent() {
-        long curp = CanTalonJNI.new_doublep(); // Create a new swig pointer.
-        m_impl.GetCurrent(new SWIGTYPE_Adapter(curp, true));
-        return CanTalonJNI.doublep_value(curp);
+    public synchronized double getOutputCurrent() {
+        refreshStale(kFeedback);
+        return m_status.m_outputCurrent;
     }
 
     /**
      * @return The voltage being output by the Talon, in Volts.
      */
-    public double getOutputVoltage() {
-        long throttlep = CanTalonJNI.new_intp();
-        m_impl.GetAppliedThrottle(new SWIGTYPE_Adapter(throttlep, true));
-        double voltage = getBusVoltage() * (double) CanTalonJNI.intp_value(throttlep) / 1023.0;
-        return voltage;
+    public synchronized double getOutputVoltage() {
+        refreshStale(kGeneral);
+        refreshStale(kAnalogTempVbat);
+        return m_status.m_busVoltage * m_status.m_appliedThrottle / 1023.0;
     }
 
     /**
      * @return The voltage at the battery terminals of the Talon, in Volts.
      */
-    public double getBusVoltage() {
-        long voltagep = CanTalonJNI.new_doublep();
-        SWIGTYPE_Adapter status = m_impl.GetBatteryV(new SWIGTYPE_Adapter(voltagep, true));
-        /*
-         * Note: This section needs the JNI bindings regenerated with pointer_functions
-         * for CTR_Code included in order to be able to catch notice and throw errors.
-         * if (CanTalonJNI.CTR_Codep_value(status) != 0) { // TODO throw an error. }
-         */
-        return CanTalonJNI.doublep_value(voltagep);
+    public synchronized double getBusVoltage() {
+        refreshStale(kAnalogTempVbat);
+        return m_status.m_busVoltage;
     }
 
     /**
@@ -436,10 +502,9 @@ public final class CANTalon implements ActuatorModule, ControllerModule, MotorSa
      *         possible) the units are still 3.3V per 1023 units. When using
      *         quadrature, each unit is a quadrature edge (4X) mode.
      */
-    public double getPosition() {
-        long positionp = CanTalonJNI.new_intp();
-        m_impl.GetSensorPosition(new SWIGTYPE_Adapter(positionp, true));
-        return CanTalonJNI.intp_value(positionp);
+    public synchronized double getPosition() {
+        refreshStale(kFeedback);
+        return m_status.m_sensorPosition;
     }
 
     public void setPosition(double pos) {
@@ -461,10 +526,9 @@ public final class CANTalon implements ActuatorModule, ControllerModule, MotorSa
      *         example speed of 200 would then equate to 20% of a rotation per
      *         100ms, or 10 rotations per second.
      */
-    public double getSpeed() {
-        long speedp = CanTalonJNI.new_intp();
-        m_impl.GetSensorVelocity(new SWIGTYPE_Adapter(speedp, true));
-        return CanTalonJNI.intp_value(speedp);
+    public synchronized double getSpeed() {
+        refreshStale(kFeedback);
+        return m_status.m_sensorVelocity;
     }
 
     public ControlMode getControlMode() {
@@ -484,6 +548,7 @@ public final class CANTalon implements ActuatorModule, ControllerModule, MotorSa
             m_controlEnabled = false;
         // Disable until set() is called.
         m_impl.SetModeSelect(ControlMode.Disabled.value);
+        m_output.invalidate();
     }
 
     public void changeControlMode(ControlMode controlMode) {
@@ -498,8 +563,184 @@ public final class CANTalon implements ActuatorModule, ControllerModule, MotorSa
         m_impl.SetFeedbackDeviceSelect(device.value);
     }
 
+    /**
+     * Set how often the Talon sends a status frame. The cached values of that
+     * group are read again from the library at the same rate, so a slower frame
+     * saves bus bandwidth at the cost of older values.
+     *
+     * @param stateFrame the status frame group
+     * @param periodMs   the period in milliseconds
+     */
     public void setStatusFrameRateMs(StatusFrameRate stateFrame, int periodMs) {
         m_impl.SetStatusFrameRate(stateFrame.value, periodMs);
+        m_bus.recordPeriodic(kStatus1 + stateFrame.value * kStatusStep | m_deviceNumber, 8, periodMs);
+        synchronized (this) {
+            m_statusPeriodMs[stateFrame.value] = Math.max(1, periodMs);
+        }
+    }
+
+    public synchronized int getStatusFrameRateMs(StatusFrameRate stateFrame) {
+        return m_statusPeriodMs[stateFrame.value];
+    }
+
+    /**
+     * Read one status group from the library into the cache.
+     */
+    private void refresh(int group, long now) {
+        TalonStatus s = m_status;
+        /*
+         * Note: The status codes returned here need the JNI bindings regenerated
+         * with pointer_functions for CTR_Code included before they can be checked.
+         */
+        switch (group) {
+            case kGeneral:
+                m_impl.GetAppliedThrottle(m_intAdapter);
+                s.m_appliedThrottle = CanTalonJNI.intp_value(m_intp);
+                m_impl.GetCloseLoopErr(m_intAdapter);
+                s.m_closedLoopError = CanTalonJNI.intp_value(m_intp);
+                m_impl.GetLimitSwitchClosedFor(m_intAdapter);
+                s.m_fwdLimitClosed = CanTalonJNI.intp_value(m_intp) == 0;
+                m_impl.GetLimitSwitchClosedRev(m_intAdapter);
+                s.m_revLimitClosed = CanTalonJNI.intp_value(m_intp) == 0;
+                break;
+            case kFeedback:
+                m_impl.GetSensorPosition(m_intAdapter);
+                s.m_sensorPosition = CanTalonJNI.intp_value(m_intp);
+                m_impl.GetSensorVelocity(m_intAdapter);
+                s.m_sensorVelocity = CanTalonJNI.intp_value(m_intp);
+                m_impl.GetCurrent(m_doubleAdapter);
+                s.m_outputCurrent = CanTalonJNI.doublep_value(m_doublep);
+                m_impl.GetBrakeIsEnabled(m_intAdapter);
+                s.m_brakeEnabled = CanTalonJNI.intp_value(m_intp) != 0;
+                break;
+            case kQuadEncoder:
+                m_impl.GetEncPosition(m_intAdapter);
+                s.m_encPosition = CanTalonJNI.intp_value(m_intp);
+                m_impl.GetEncVel(m_intAdapter);
+                s.m_encVelocity = CanTalonJNI.intp_value(m_intp);
+                m_impl.GetEncIndexRiseEvents(m_intAdapter);
+                s.m_encIndexRises = CanTalonJNI.intp_value(m_intp);
+                m_impl.GetQuadApin(m_intAdapter);
+                s.m_pinQuadA = CanTalonJNI.intp_value(m_intp);
+                m_impl.GetQuadBpin(m_intAdapter);
+                s.m_pinQuadB = CanTalonJNI.intp_value(m_intp);
+                m_impl.GetQuadIdxpin(m_intAdapter);
+                s.m_pinQuadIdx = CanTalonJNI.intp_value(m_intp);
+                break;
+            case kAnalogTempVbat:
+                m_impl.GetAnalogInWithOv(m_intAdapter);
+                s.m_analogInPosition = CanTalonJNI.intp_value(m_intp);
+                m_impl.GetAnalogInVel(m_intAdapter);
+                s.m_analogInVelocity = CanTalonJNI.intp_value(m_intp);
+                m_impl.GetTemp(m_doubleAdapter);
+                s.m_temperature = CanTalonJNI.doublep_value(m_doublep);
+                m_impl.GetBatteryV(m_doubleAdapter);
+                s.m_busVoltage = CanTalonJNI.doublep_value(m_doublep);
+                break;
+            default:
+                return;
+        }
+        s.m_times[group] = now;
+    }
+
+    /**
+     * Read a status group again only if its frame period has passed, since the
+     * library cannot have newer values before then.
+     */
+    private void refreshStale(int group) {
+        long now = RoboRIO.getFPGATime();
+        if (now - m_status.m_times[group] >= m_statusPeriodMs[group] * 1000L)
+            refresh(group, now);
+    }
+
+    /**
+     * Read every status group from the library now. Call this once per control
+     * loop to see one consistent set of values in the getters.
+     */
+    public synchronized void refreshStatus() {
+        long now = RoboRIO.getFPGATime();
+        for (int i = 0; i < m_statusPeriodMs.length; i++)
+            refresh(i, now);
+    }
+
+    /**
+     * Copy the status of this Talon. Groups older than their frame period are
+     * read again first.
+     *
+     * @param out the status to fill in
+     * @return out
+     */
+    public synchronized TalonStatus getStatus(TalonStatus out) {
+        for (int i = 0; i < m_statusPeriodMs.length; i++)
+            refreshStale(i);
+        m_status.m_readTime = RoboRIO.getFPGATime();
+        m_status.copyTo(out);
+        return out;
+    }
+
+    /**
+     * Get how long ago a status group was read from the library. The library
+     * itself may be up to one frame period behind the Talon.
+     *
+     * @param group the status frame group
+     * @return the age in milliseconds, or infinity if never read
+     */
+    public synchronized double getStatusAge(StatusFrameRate group) {
+        long time = m_status.m_times[group.value];
+        if (time == 0)
+            return Double.POSITIVE_INFINITY;
+        return (RoboRIO.getFPGATime() - time) / 1000.0;
+    }
+
+    /**
+     * Keep the status cache fresh from a background loop shared by every
+     * polled Talon, so the getters never wait on the library.
+     *
+     * @param enabled true to poll this Talon
+     */
+    public void setStatusPolling(boolean enabled) {
+        synchronized (m_pollLock) {
+            CANTalon[] polled = m_polled;
+            int i = 0;
+            while (i < polled.length && polled[i] != this)
+                i++;
+            if (enabled == (i < polled.length))
+                return;
+
+            if (enabled) {
+                polled = Arrays.copyOf(polled, polled.length + 1);
+                polled[polled.length - 1] = this;
+            } else {
+                CANTalon[] next = new CANTalon[polled.length - 1];
+                System.arraycopy(polled, 0, next, 0, i);
+                System.arraycopy(polled, i + 1, next, i, polled.length - i - 1);
+                polled = next;
+            }
+            m_polled = polled;
+
+            if (m_pollLoop == null && polled.length > 0) {
+                m_pollLoop = LoopScheduler.schedule(CANTalon::pollAll, kPollPeriod);
+            } else if (m_pollLoop != null && polled.length == 0) {
+                m_pollLoop.cancel();
+                m_pollLoop = null;
+            }
+        }
+    }
+
+    public boolean isStatusPolling() {
+        for (CANTalon t : m_polled)
+            if (t == this)
+                return true;
+        return false;
+    }
+
+    private static void pollAll() {
+        for (CANTalon t : m_polled) {
+            synchronized (t) {
+                for (int i = 0; i < t.m_statusPeriodMs.length; i++)
+                    t.refreshStale(i);
+            }
+        }
     }
 
     public void enableControl() {
@@ -509,6 +750,7 @@ public final class CANTalon implements ActuatorModule, ControllerModule, MotorSa
 
     public void disableControl() {
         m_impl.SetModeSelect(ControlMode.Disabled.value);
+        m_output.invalidate();
         m_controlEnabled = false;
     }
 
@@ -881,82 +1123,69 @@ public final class CANTalon implements ActuatorModule, ControllerModule, MotorSa
         m_impl.SetOverrideBrakeType(brake ? 2 : 1);
     }
 
-    public int getFaultOverTemp() {
-        long valuep = CanTalonJNI.new_intp();
-        m_impl.GetFault_OverTemp(new SWIGTYPE_Adapter(valuep, true));
-        return CanTalonJNI.intp_value(valuep);
+    public synchronized int getFaultOverTemp() {
+        m_impl.GetFault_OverTemp(m_intAdapter);
+        return CanTalonJNI.intp_value(m_intp);
     }
 
-    public int getFaultUnderVoltage() {
-        long valuep = CanTalonJNI.new_intp();
-        m_impl.GetFault_UnderVoltage(new SWIGTYPE_Adapter(valuep, true));
-        return CanTalonJNI.intp_value(valuep);
+    public synchronized int getFaultUnderVoltage() {
+        m_impl.GetFault_UnderVoltage(m_intAdapter);
+        return CanTalonJNI.intp_value(m_intp);
     }
 
-    public int getFaultForLim() {
-        long valuep = CanTalonJNI.new_intp();
-        m_impl.GetFault_ForLim(new SWIGTYPE_Adapter(valuep, true));
-        return CanTalonJNI.intp_value(valuep);
+    public synchronized int getFaultForLim() {
+        m_impl.GetFault_ForLim(m_intAdapter);
+        return CanTalonJNI.intp_value(m_intp);
     }
 
-    public int getFaultRevLim() {
-        long valuep = CanTalonJNI.new_intp();
-        m_impl.GetFault_RevLim(new SWIGTYPE_Adapter(valuep, true));
-        return CanTalonJNI.intp_value(valuep);
+    public synchronized int getFaultRevLim() {
+        m_impl.GetFault_RevLim(m_intAdapter);
+        return CanTalonJNI.intp_value(m_intp);
     }
 
-    public int getFaultHardwareFailure() {
-        long valuep = CanTalonJNI.new_intp();
-        m_impl.GetFault_HardwareFailure(new SWIGTYPE_Adapter(valuep, true));
-        return CanTalonJNI.intp_value(valuep);
+    public synchronized int getFaultHardwareFailure() {
+        m_impl.GetFault_HardwareFailure(m_intAdapter);
+        return CanTalonJNI.intp_value(m_intp);
     }
 
-    public int getFaultForSoftLim() {
-        long valuep = CanTalonJNI.new_intp();
-        m_impl.GetFault_ForSoftLim(new SWIGTYPE_Adapter(valuep, true));
-        return CanTalonJNI.intp_value(valuep);
+    public synchronized int getFaultForSoftLim() {
+        m_impl.GetFault_ForSoftLim(m_intAdapter);
+        return CanTalonJNI.intp_value(m_intp);
     }
 
-    public int getFaultRevSoftLim() {
-        long valuep = CanTalonJNI.new_intp();
-        m_impl.GetFault_RevSoftLim(new SWIGTYPE_Adapter(valuep, true));
-        return CanTalonJNI.intp_value(valuep);
+    public synchronized int getFaultRevSoftLim() {
+        m_impl.GetFault_RevSoftLim(m_intAdapter);
+        return CanTalonJNI.intp_value(m_intp);
     }
 
-    public int getStickyFaultOverTemp() {
-        long valuep = CanTalonJNI.new_intp();
-        m_impl.GetStckyFault_OverTemp(new SWIGTYPE_Adapter(valuep, true));
-        return CanTalonJNI.intp_value(valuep);
+    public synchronized int getStickyFaultOverTemp() {
+        m_impl.GetStckyFault_OverTemp(m_intAdapter);
+        return CanTalonJNI.intp_value(m_intp);
     }
 
-    public int getStickyFaultUnderVoltage() {
-        long valuep = CanTalonJNI.new_intp();
-        m_impl.GetStckyFault_UnderVoltage(new SWIGTYPE_Adapter(valuep, true));
-        return CanTalonJNI.intp_value(valuep);
+    public synchronized int getStickyFaultUnderVoltage() {
+        m_impl.GetStckyFault_UnderVoltage(m_intAdapter);
+        return CanTalonJNI.intp_value(m_intp);
     }
 
-    public int getStickyFaultForLim() {
-        long valuep = CanTalonJNI.new_intp();
-        m_impl.GetStckyFault_ForLim(new SWIGTYPE_Adapter(valuep, true));
-        return CanTalonJNI.intp_value(valuep);
+    public synchronized int getStickyFaultForLim() {
+        m_impl.GetStckyFault_ForLim(m_intAdapter);
+        return CanTalonJNI.intp_value(m_intp);
     }
 
-    public int getStickyFaultRevLim() {
-        long valuep = CanTalonJNI.new_intp();
-        m_impl.GetStckyFault_RevLim(new SWIGTYPE_Adapter(valuep, true));
-        return CanTalonJNI.intp_value(valuep);
+    public synchronized int getStickyFaultRevLim() {
+        m_impl.GetStckyFault_RevLim(m_intAdapter);
+        return CanTalonJNI.intp_value(m_intp);
     }
 
-    public int getStickyFaultForSoftLim() {
-        long valuep = CanTalonJNI.new_intp();
-        m_impl.GetStckyFault_ForSoftLim(new SWIGTYPE_Adapter(valuep, true));
-        return CanTalonJNI.intp_value(valuep);
+    public synchronized int getStickyFaultForSoftLim() {
+        m_impl.GetStckyFault_ForSoftLim(m_intAdapter);
+        return CanTalonJNI.intp_value(m_intp);
     }
 
-    public int getStickyFaultRevSoftLim() {
-        long valuep = CanTalonJNI.new_intp();
-        m_impl.GetStckyFault_RevSoftLim(new SWIGTYPE_Adapter(valuep, true));
-        return CanTalonJNI.intp_value(valuep);
+    public synchronized int getStickyFaultRevSoftLim() {
+        m_impl.GetStckyFault_RevSoftLim(m_intAdapter);
+        return CanTalonJNI.intp_value(m_intp);
     }
 
     @Override
@@ -15,7 +15,6 @@
 
 package io.github.robolib.module.actuator;
 
-import java.util.Arrays;
 import java.util.function.BiConsumer;
 
 import io.github.robolib.SafetyManager;
@@ -54,6 +53,9 @@ public class DriveBase implements ActuatorModule, MotorSafety {
     protected byte m_syncGroup = 0;
     protected double[] m_wheelSpeeds;
 
+    /** Scratch space for field-oriented rotation, so driving does not allocate. */
+    private final double[] m_rotated = new double[2];
+
     /**
      *
      * @param left
@@ -303,8 +305,8 @@ public class DriveBase implements ActuatorModule, MotorSafety {
      *                 implement field-oriented controls.
      */
     public void mecanum(double x, double y, double rotation, double gyro) {
-        double[] rotated = rotateVector(x, y, gyro);
-        mecanum(rotated[0], rotated[1], rotation);
+        rotateVector(x, y, gyro, m_rotated);
+        mecanum(m_rotated[0], m_rotated[1], rotation);
     }
 
     /**
@@ -334,8 +336,7 @@ public class DriveBase implements ActuatorModule, MotorSafety {
             y = squareInput(y);
             rotation = squareInput(rotation);
         }
-        double[] rotated = rotateVector(x, y, gyro);
-        mecanum(rotated[0], rotated[1], rotation);
+        mecanum(x, y, rotation, gyro);
     }
 
     private static final double sqrt2 = Math.sqrt(2.0);
@@ -414,10 +415,18 @@ public class DriveBase implements ActuatorModule, MotorSafety {
      * Normalize all wheel speeds if the magnitude of any wheel is greater than 1.0.
      */
     protected void normalize() {
-        double tmp = Arrays.stream(m_wheelSpeeds).reduce(1.0, (double x, double val) -> (Math.abs(val) > x) ? val : x);
+        double max = 1.0;
+        for (int i = 0; i < m_wheelSpeeds.length; i++) {
+            double val = Math.abs(m_wheelSpeeds[i]);
+            if (val > max)
+                max = val;
+        }
 
-        if (tmp > 1.0)
-            m_wheelSpeeds = Arrays.stream(m_wheelSpeeds).map(val -> val / tmp).toArray();
+        if (max > 1.0) {
+            for (int i = 0; i < m_wheelSpeeds.length; i++) {
+                m_wheelSpeeds[i] /= max;
+            }
+        }
     }
 
     /**
@@ -429,10 +438,25 @@ public class DriveBase implements ActuatorModule, MotorSafety {
      * @return an array of doubles [x, y]
      */
     protected static double[] rotateVector(double x, double y, double angle) {
+        double[] out = new double[2];
+        rotateVector(x, y, angle, out);
+        return out;
+    }
+
+    /**
+     * Rotate a vector in Cartesian space without allocating.
+     *
+     * @param x     the x component
+     * @param y     the y component
+     * @param angle the angle of rotation
+     * @param out   an array of at least 2 to store [x, y] in
+     */
+    protected static void rotateVector(double x, double y, double angle, double[] out) {
         double tmp = angle * MathUtils.PI_OVER_180;
         double cosA = Math.cos(tmp);
         double sinA = Math.sin(tmp);
-        return new double[] { x * cosA - y * sinA, x * sinA + y * cosA };
+        out[0] = x * cosA - y * sinA;
+        out[1] = x * sinA + y * cosA;
     }
 
     /**
@@ -15,7 +15,7 @@
 
 package io.github.robolib.module.actuator;
 
-import static io.github.robolib.util.Common.allocateInt;
+import static io.github.robolib.hal.HALBuffers.intBuffer;
 
 import java.nio.ByteBuffer;
 import java.nio.IntBuffer;
@@ -126,7 +126,7 @@ public abstract class SolenoidBase {
      */
     protected synchronized static final ByteBuffer initChannel(SolenoidChannel channel) {
         allocateChannel(channel);
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         byte ch = (byte) (channel.ordinal() / 8);
         ByteBuffer port = SolenoidJNI.getPortWithModule(ch, (byte) channel.ordinal());
         port = SolenoidJNI.initializeSolenoidPort(port, status);
@@ -185,7 +185,7 @@ public abstract class SolenoidBase {
      * @return The solenoid blacklist of all 8 solenoids on the module.
      */
     public final byte getPCMSolenoidBlacklist(int module) {
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         byte value = SolenoidJNI.getPCMSolenoidBlackList(MODULE_PORTS[module], status);
         HALUtil.checkStatus(status);
         return value;
@@ -197,7 +197,7 @@ public abstract class SolenoidBase {
      *         voltage rail is too low, most likely a solenoid channel is shorted.
      */
     public final boolean getPCMSolenoidVoltageStickyFault(int module) {
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         boolean value = SolenoidJNI.getPCMSolenoidVoltageStickyFault(MODULE_PORTS[module], status);
         HALUtil.checkStatus(status);
         return value;
@@ -209,7 +209,7 @@ public abstract class SolenoidBase {
      *         rail is too low, most likely a solenoid channel is shorted.
      */
     public final boolean getPCMSolenoidVoltageFault(int module) {
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         boolean value = SolenoidJNI.getPCMSolenoidVoltageFault(MODULE_PORTS[module], status);
         HALUtil.checkStatus(status);
         return value;
@@ -228,7 +228,7 @@ public abstract class SolenoidBase {
      * @param module
      */
     public final void clearAllPCMStickyFaults(int module) {
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         SolenoidJNI.clearAllPCMStickyFaults(MODULE_PORTS[module], status);
         HALUtil.checkStatus(status);
     }
@@ -240,7 +240,7 @@ public abstract class SolenoidBase {
      * @param value the value
      */
     protected static final void set(ByteBuffer port, byte value) {
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         SolenoidJNI.setSolenoid(port, value, status);
         HALUtil.checkStatus(status);
     }
@@ -251,7 +251,7 @@ public abstract class SolenoidBase {
      * @return the value of the solenoid
      */
     protected static final boolean get(ByteBuffer port) {
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         byte out = SolenoidJNI.getSolenoid(port, status);
         HALUtil.checkStatus(status);
         return out == SOLENOID_ON;
@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) 2015-2020 noriah <vix@noriah.dev>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ */
+
+package io.github.robolib.module.actuator;
+
+import io.github.robolib.SafetyManager;
+import io.github.robolib.identifier.AngleSource;
+import io.github.robolib.module.MotorSafety;
+import io.github.robolib.module.MotorSafetyHelper;
+import io.github.robolib.module.controller.PIDController;
+import io.github.robolib.module.controller.SpeedController;
+import io.github.robolib.util.MathUtils;
+
+/**
+ * A swerve drive with any number of modules.
+ *
+ * Each module has a SpeedController to drive the wheel, a PIDController to
+ * steer it, and an AngleSource that reads the current wheel angle. The
+ * steering PIDControllers should be set up as continuous over -180 to 180
+ * degrees and enabled by the user.
+ *
+ * Directions follow {@link DriveBase}: x is to the right, y is forward, and
+ * angles are in degrees clockwise from forward. Module positions are measured
+ * from the center of rotation, in any unit.
+ *
+ * @author noriah <vix@noriah.dev>
+ */
+public class SwerveDrive implements ActuatorModule, MotorSafety {
+
+    protected MotorSafetyHelper m_safetyHelper;
+
+    private final int m_count;
+    private final double[] m_moduleX;
+    private final double[] m_moduleY;
+    private final SpeedController[] m_drives;
+    private final PIDController[] m_steering;
+    private final AngleSource[] m_steerAngles;
+
+    protected final double[] m_speeds;
+    protected final double[] m_angles;
+    private final double[] m_currentAngles;
+    private final double[] m_rotated = new double[2];
+
+    /**
+     * Create a swerve drive.
+     *
+     * @param moduleX     the x position of each module
+     * @param moduleY     the y position of each module
+     * @param drives      the drive motor of each module
+     * @param steering    the steering controller of each module
+     * @param steerAngles the wheel angle sensor of each module, in degrees
+     */
+    public SwerveDrive(double[] moduleX, double[] moduleY, SpeedController[] drives, PIDController[] steering,
+            AngleSource[] steerAngles) {
+        m_count = moduleX.length;
+        if (moduleY.length != m_count || drives.length != m_count || steering.length != m_count
+                || steerAngles.length != m_count)
+            throw new IllegalArgumentException("Every module needs a position, drive, steering and angle source.");
+
+        m_moduleX = new double[m_count];
+        m_moduleY = new double[m_count];
+
+        double maxRadius = 0.0;
+        for (int i = 0; i < m_count; i++) {
+            maxRadius = Math.max(maxRadius, Math.hypot(moduleX[i], moduleY[i]));
+        }
+        if (maxRadius == 0.0)
+            maxRadius = 1.0;
+
+        // Scale positions so a full rotation command drives the outermost wheel at
+        // full speed.
+        for (int i = 0; i < m_count; i++) {
+            m_moduleX[i] = moduleX[i] / maxRadius;
+            m_moduleY[i] = moduleY[i] / maxRadius;
+        }
+
+        m_drives = drives.clone();
+        m_steering = steering.clone();
+        m_steerAngles = steerAngles.clone();
+
+        m_speeds = new double[m_count];
+        m_angles = new double[m_count];
+        m_currentAngles = new double[m_count];
+
+        m_safetyHelper = SafetyManager.addMotor(this);
+        m_safetyHelper.setSafetyEnabled(true);
+    }
+
+    /**
+     * @return the number of modules
+     */
+    public int getModuleCount() {
+        return m_count;
+    }
+
+    /**
+     * Drive the robot relative to itself. This does not allocate, so it is safe
+     * to call every loop.
+     *
+     * @param x        the speed to the right [-1.0..1.0]
+     * @param y        the speed forward [-1.0..1.0]
+     * @param rotation the rate of clockwise rotation [-1.0..1.0]
+     */
+    public void drive(double x, double y, double rotation) {
+        for (int i = 0; i < m_count; i++) {
+            m_currentAngles[i] = m_steerAngles[i].getAngle();
+        }
+
+        calculate(x, y, rotation, m_currentAngles);
+
+        for (int i = 0; i < m_count; i++) {
+            m_steering[i].setSetpoint(m_angles[i]);
+            m_drives[i].setSpeed(m_speeds[i]);
+        }
+        m_safetyHelper.feed();
+    }
+
+    /**
+     * Drive the robot relative to the field.
+     *
+     * @param x        the speed to the right [-1.0..1.0]
+     * @param y        the speed forward [-1.0..1.0]
+     * @param rotation the rate of clockwise rotation [-1.0..1.0]
+     * @param gyro     the current robot heading in degrees
+     */
+    public void drive(double x, double y, double rotation, double gyro) {
+        DriveBase.rotateVector(x, y, gyro, m_rotated);
+        drive(m_rotated[0], m_rotated[1], rotation);
+    }
+
+    /**
+     * Work out the angle and speed of every module without driving anything. The
+     * results are read with {@link #getModuleAngle(int)} and
+     * {@link #getModuleSpeed(int)}.
+     *
+     * A wheel is never turned more than 90 degrees. If the target is further
+     * away, the wheel turns to the opposite angle and drives backwards instead.
+     * If any wheel would go faster than full speed, all wheels are scaled down
+     * together so the robot still moves in the right direction.
+     *
+     * @param x             the speed to the right [-1.0..1.0]
+     * @param y             the speed forward [-1.0..1.0]
+     * @param rotation      the rate of clockwise rotation [-1.0..1.0]
+     * @param currentAngles the current angle of each module in degrees
+     */
+    public void calculate(double x, double y, double rotation, double[] currentAngles) {
+        double max = 1.0;
+        for (int i = 0; i < m_count; i++) {
+            double vx = x + rotation * m_moduleY[i];
+            double vy = y - rotation * m_moduleX[i];
+            double speed = Math.sqrt(vx * vx + vy * vy);
+            double current = currentAngles[i];
+
+            if (speed < 1e-6) {
+                // Hold the wheel where it is instead of snapping it to zero.
+                m_speeds[i] = 0.0;
+                m_angles[i] = wrapAngle(current);
+                continue;
+            }
+
+            double angle = Math.atan2(vx, vy) * MathUtils.M_180_OVER_PI;
+            double delta = wrapAngle(angle - current);
+            if (delta > 90.0) {
+                angle -= 180.0;
+                speed = -speed;
+            } else if (delta < -90.0) {
+                angle += 180.0;
+                speed = -speed;
+            }
+
+            m_angles[i] = wrapAngle(angle);
+            m_speeds[i] = speed;
+            if (Math.abs(speed) > max)
+                max = Math.abs(speed);
+        }
+
+        if (max > 1.0) {
+            for (int i = 0; i < m_count; i++) {
+                m_speeds[i] /= max;
+            }
+        }
+    }
+
+    /**
+     * Wrap an angle into [-180, 180).
+     */
+    private static double wrapAngle(double angle) {
+        angle %= 360.0;
+        if (angle >= 180.0)
+            angle -= 360.0;
+        else if (angle < -180.0)
+            angle += 360.0;
+        return angle;
+    }
+
+    /**
+     * @param module the module index
+     * @return the last calculated angle of the module in degrees
+     */
+    public double getModuleAngle(int module) {
+        return m_angles[module];
+    }
+
+    /**
+     * @param module the module index
+     * @return the last calculated speed of the module [-1.0..1.0]
+     */
+    public double getModuleSpeed(int module) {
+        return m_speeds[module];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MotorSafetyHelper getSafetyHelper() {
+        return m_safetyHelper;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void stopMotor() {
+        for (int i = 0; i < m_count; i++) {
+            m_drives[i].stopMotor();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getDescription() {
+        return "Robot SwerveDrive";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void enableModule() {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void disableModule() {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void makeSafe() {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean getModuleEnabled() {
+        return true;
+    }
+}
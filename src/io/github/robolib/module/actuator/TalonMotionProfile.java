@@ -0,0 +1,480 @@
+/*
+ * Copyright (c) 2015-2020 noriah <vix@noriah.dev>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ */
+
+package io.github.robolib.module.actuator;
+
+import java.util.concurrent.locks.LockSupport;
+
+import io.github.robolib.module.RoboRIO;
+import io.github.robolib.module.actuator.CANTalon.ControlMode;
+import io.github.robolib.util.Histogram;
+import io.github.robolib.util.log.ILogger;
+import io.github.robolib.util.log.Logger;
+
+/**
+ * Streams a trajectory into a {@link CANTalon} from a background feeder thread.
+ *
+ * Trajectory points are kept in a ring of primitive arrays. The robot code
+ * pushes points ahead of time, and the feeder sends each one to the Talon's
+ * closed loop when it is due, holding it for the point's duration. Point timing
+ * therefore does not depend on the robot loop.
+ *
+ * If the buffer runs dry before the last point, the Talon holds the last point
+ * sent and an underrun is counted. Playback resumes once more points are
+ * pushed.
+ *
+ * The feeder does not feed motor safety. The robot loop must keep feeding the
+ * Talon's {@link CANTalon#getSafetyHelper() safety helper} while a profile
+ * plays. If safety or anything else disables the Talon, or switches it out of
+ * the profile's mode, playback stops and {@link #isAborted()} returns true.
+ *
+ * Call {@link #free()} when done with a profile to end its feeder thread.
+ * Deleting the Talon frees every profile attached to it.
+ *
+ * @author noriah <vix@noriah.dev>
+ */
+public final class TalonMotionProfile {
+
+    /** The default number of points the buffer holds. */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private static final long IDLE_PARK = 1000000;
+
+    private static final ILogger m_log = Logger.get(TalonMotionProfile.class);
+
+    private final CANTalon m_talon;
+    private final int m_capacity;
+    private final int m_mask;
+
+    // Ring of points. Both ends are moved under the object lock and read
+    // without it.
+    private final double[] m_positions;
+    private final double[] m_velocities;
+    private final int[] m_durations;
+    private final boolean[] m_last;
+    private volatile long m_head = 0;
+    private volatile long m_tail = 0;
+
+    private volatile ControlMode m_mode = ControlMode.Position;
+    private volatile boolean m_running = false;
+    private volatile boolean m_finished = false;
+    private volatile boolean m_underrun = false;
+    private volatile boolean m_aborted = false;
+    private volatile boolean m_freed = false;
+    private long m_nextTime = 0;
+
+    private volatile long m_points = 0;
+    private volatile long m_underruns = 0;
+    private volatile int m_minFill = 0;
+    private final Histogram m_timing = new Histogram();
+
+    private Thread m_thread;
+
+    /**
+     * Create a profile stream with the default capacity.
+     *
+     * @param talon the Talon to stream to
+     */
+    public TalonMotionProfile(CANTalon talon) {
+        this(talon, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param talon    the Talon to stream to
+     * @param capacity the number of points the buffer holds, rounded up to a
+     *                 power of two
+     */
+    public TalonMotionProfile(CANTalon talon, int capacity) {
+        if (talon == null)
+            throw new IllegalArgumentException("Talon must not be null.");
+        if (capacity < 2)
+            throw new IllegalArgumentException("Capacity must be at least 2.");
+
+        m_talon = talon;
+        m_capacity = Integer.highestOneBit(capacity - 1) << 1;
+        m_mask = m_capacity - 1;
+        m_positions = new double[m_capacity];
+        m_velocities = new double[m_capacity];
+        m_durations = new int[m_capacity];
+        m_last = new boolean[m_capacity];
+        talon.attachProfile(this);
+    }
+
+    /**
+     * Set which value of each point is sent. In Position mode the Talon follows
+     * the positions, and in Speed mode the velocities, in the units
+     * {@link CANTalon#set(double)} takes in that mode.
+     *
+     * @param mode {@link ControlMode#Position} or {@link ControlMode#Speed}
+     */
+    public void setMode(ControlMode mode) {
+        if (mode != ControlMode.Position && mode != ControlMode.Speed)
+            throw new IllegalArgumentException("Motion profiles run in Position or Speed mode.");
+        if (m_running)
+            throw new IllegalStateException("Cannot change mode while the profile is running.");
+        m_mode = mode;
+    }
+
+    public ControlMode getMode() {
+        return m_mode;
+    }
+
+    /**
+     * Add a point to the end of the buffer.
+     *
+     * @param position   the position setpoint
+     * @param velocity   the velocity setpoint
+     * @param durationMs how long to hold the point, in milliseconds
+     * @param last       true if this is the last point of the trajectory
+     * @return false if the buffer is full
+     */
+    public synchronized boolean pushPoint(double position, double velocity, int durationMs, boolean last) {
+        if (durationMs <= 0)
+            throw new IllegalArgumentException("Duration must be greater than 0.");
+        long tail = m_tail;
+        if (tail - m_head >= m_capacity)
+            return false;
+        int i = (int) (tail & m_mask);
+        m_positions[i] = position;
+        m_velocities[i] = velocity;
+        m_durations[i] = durationMs;
+        m_last[i] = last;
+        m_tail = tail + 1;
+        return true;
+    }
+
+    /**
+     * Add as many points from a generated trajectory as fit in the buffer. The
+     * last point of the arrays is marked as the end of the trajectory.
+     *
+     * @param positions  the position setpoints
+     * @param velocities the velocity setpoints
+     * @param offset     the first point to push
+     * @param count      the number of points in the arrays
+     * @param durationMs how long to hold each point, in milliseconds
+     * @return the number of points pushed, so the caller can resume from
+     *         offset plus this later
+     */
+    public synchronized int pushPoints(double[] positions, double[] velocities, int offset, int count,
+            int durationMs) {
+        if (durationMs <= 0)
+            throw new IllegalArgumentException("Duration must be greater than 0.");
+        if (count > positions.length || count > velocities.length)
+            throw new IllegalArgumentException("Count is larger than the arrays.");
+
+        long tail = m_tail;
+        int n = (int) Math.min(count - offset, m_capacity - (tail - m_head));
+        for (int k = 0; k < n; k++) {
+            int i = (int) (tail & m_mask);
+            int p = offset + k;
+            m_positions[i] = positions[p];
+            m_velocities[i] = velocities[p];
+            m_durations[i] = durationMs;
+            m_last[i] = p == count - 1;
+            tail++;
+        }
+        m_tail = tail;
+        return Math.max(0, n);
+    }
+
+    /**
+     * Start playing the buffer. The Talon is switched to the profile's mode.
+     */
+    public synchronized void start() {
+        if (m_freed)
+            throw new IllegalStateException("Motion profile has been freed.");
+        if (m_running)
+            return;
+        m_talon.changeControlMode(m_mode);
+        m_talon.enableControl();
+        m_finished = false;
+        m_aborted = false;
+        m_underrun = false;
+        m_minFill = getBufferedCount();
+        m_nextTime = 0;
+        m_running = true;
+
+        if (m_thread == null) {
+            m_thread = new Thread(this::run, "Motion Profile " + m_talon.getDeviceID());
+            m_thread.setPriority(Thread.MAX_PRIORITY - 1);
+            m_thread.setDaemon(true);
+            m_thread.start();
+        } else {
+            LockSupport.unpark(m_thread);
+        }
+    }
+
+    /**
+     * Stop playing. The Talon holds the last point sent and the points left in
+     * the buffer are kept.
+     */
+    public void stop() {
+        m_running = false;
+    }
+
+    /**
+     * Stop playing and drop every buffered point.
+     */
+    public synchronized void clear() {
+        m_running = false;
+        m_head = m_tail;
+    }
+
+    /**
+     * Stop playing, drop every buffered point and end the feeder thread. This
+     * waits for the feeder to exit, so no point is sent to the Talon after it
+     * returns. The profile cannot be started again.
+     */
+    public void free() {
+        Thread thread;
+        synchronized (this) {
+            if (m_freed)
+                return;
+            m_freed = true;
+            m_running = false;
+            m_head = m_tail;
+            thread = m_thread;
+            m_thread = null;
+        }
+
+        if (thread != null && thread != Thread.currentThread()) {
+            LockSupport.unpark(thread);
+            // Keep waiting if interrupted, the Talon may be deleted right after.
+            boolean interrupted = false;
+            while (thread.isAlive()) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+        m_talon.detachProfile(this);
+    }
+
+    private void run() {
+        while (!m_freed) {
+            if (!m_running) {
+                LockSupport.park();
+                continue;
+            }
+
+            long head = m_head;
+            if (head == m_tail) {
+                if (!m_underrun) {
+                    m_underrun = true;
+                    m_underruns++;
+                }
+                m_minFill = 0;
+                LockSupport.parkNanos(IDLE_PARK);
+                continue;
+            }
+
+            long now = RoboRIO.getFPGATime();
+            if (m_underrun || m_nextTime == 0) {
+                // Start, or resume after an underrun, from now.
+                m_underrun = false;
+                m_nextTime = now;
+            }
+            if (now < m_nextTime) {
+                LockSupport.parkNanos((m_nextTime - now) * 1000);
+                continue;
+            }
+
+            double value;
+            long duration;
+            boolean last;
+            synchronized (this) {
+                // clear() or stop() may have run since the checks above.
+                if (!m_running || m_head != head)
+                    continue;
+                int i = (int) (head & m_mask);
+                value = m_mode == ControlMode.Speed ? m_velocities[i] : m_positions[i];
+                duration = m_durations[i] * 1000L;
+                last = m_last[i];
+                m_head = head + 1;
+            }
+
+            boolean sent = false;
+            try {
+                sent = m_talon.setStreamed(m_mode, value);
+            } catch (Throwable t) {
+                m_log.error("Error sending motion profile point", t);
+            }
+            if (!sent) {
+                m_running = false;
+                m_aborted = true;
+                m_log.warn("Motion profile on " + m_talon.getDescription()
+                        + " stopped, the Talon is disabled or left " + m_mode + " mode");
+                continue;
+            }
+            m_timing.record(now - m_nextTime);
+            m_points++;
+
+            int fill = (int) (m_tail - m_head);
+            if (fill < m_minFill)
+                m_minFill = fill;
+
+            // A point sent late is still held for its full duration.
+            m_nextTime = now - m_nextTime > duration ? now + duration : m_nextTime + duration;
+
+            if (last) {
+                m_running = false;
+                m_finished = true;
+            }
+        }
+    }
+
+    public boolean isRunning() {
+        return m_running;
+    }
+
+    /**
+     * @return true if playback stopped because the Talon would not take a point
+     */
+    public boolean isAborted() {
+        return m_aborted;
+    }
+
+    /**
+     * @return true once the point marked last has been sent
+     */
+    public boolean isFinished() {
+        return m_finished;
+    }
+
+    /**
+     * @return true while the buffer is empty before the last point
+     */
+    public boolean isUnderrun() {
+        return m_running && m_underrun;
+    }
+
+    /**
+     * @return the number of times the buffer ran dry while playing
+     */
+    public long getUnderrunCount() {
+        return m_underruns;
+    }
+
+    /**
+     * @return the number of points waiting in the buffer
+     */
+    public int getBufferedCount() {
+        return (int) (m_tail - m_head);
+    }
+
+    public int getCapacity() {
+        return m_capacity;
+    }
+
+    /**
+     * @return the fewest points left in the buffer since the profile started
+     */
+    public int getMinBufferedCount() {
+        return m_minFill;
+    }
+
+    /**
+     * @return the number of points sent to the Talon
+     */
+    public long getPointCount() {
+        return m_points;
+    }
+
+    /**
+     * @return how late each point was sent, in microseconds
+     */
+    public Histogram getTiming() {
+        return m_timing;
+    }
+
+    /**
+     * Get the number of points a trapezoidal trajectory needs.
+     *
+     * @param distance        the distance to move
+     * @param maxVelocity     the cruise velocity, in distance per second
+     * @param maxAcceleration the acceleration, in distance per second squared
+     * @param durationMs      the time between points, in milliseconds
+     * @return the number of points, including the end point
+     */
+    public static int trapezoidLength(double distance, double maxVelocity, double maxAcceleration,
+            int durationMs) {
+        double total = trapezoidTime(Math.abs(distance), maxVelocity, maxAcceleration);
+        return (int) Math.ceil(total * 1000.0 / durationMs) + 1;
+    }
+
+    /**
+     * Generate a trapezoidal trajectory from 0 to a distance, accelerating to the
+     * cruise velocity and decelerating to a stop.
+     *
+     * @param distance        the distance to move
+     * @param maxVelocity     the cruise velocity, in distance per second
+     * @param maxAcceleration the acceleration, in distance per second squared
+     * @param durationMs      the time between points, in milliseconds
+     * @param positions       filled with the position of each point
+     * @param velocities      filled with the velocity of each point, in distance
+     *                        per second. Scale these to the Talon's speed units
+     *                        before streaming in Speed mode.
+     * @return the number of points generated
+     * @see #trapezoidLength(double, double, double, int)
+     */
+    public static int generateTrapezoid(double distance, double maxVelocity, double maxAcceleration,
+            int durationMs, double[] positions, double[] velocities) {
+        if (durationMs <= 0)
+            throw new IllegalArgumentException("Duration must be greater than 0.");
+        int n = trapezoidLength(distance, maxVelocity, maxAcceleration, durationMs);
+        if (positions.length < n || velocities.length < n)
+            throw new IllegalArgumentException("Arrays must hold " + n + " points.");
+
+        double sign = Math.signum(distance);
+        double d = Math.abs(distance);
+        double accelTime = Math.min(maxVelocity / maxAcceleration, Math.sqrt(d / maxAcceleration));
+        double peak = maxAcceleration * accelTime;
+        double total = trapezoidTime(d, maxVelocity, maxAcceleration);
+        double decelStart = total - accelTime;
+        double accelDist = 0.5 * peak * accelTime;
+
+        for (int k = 0; k < n; k++) {
+            double t = Math.min(k * durationMs / 1000.0, total);
+            double p, v;
+            if (t < accelTime) {
+                v = maxAcceleration * t;
+                p = 0.5 * v * t;
+            } else if (t < decelStart) {
+                v = peak;
+                p = accelDist + peak * (t - accelTime);
+            } else {
+                double r = total - t;
+                v = maxAcceleration * r;
+                p = d - 0.5 * v * r;
+            }
+            positions[k] = sign * p;
+            velocities[k] = sign * v;
+        }
+        return n;
+    }
+
+    private static double trapezoidTime(double distance, double maxVelocity, double maxAcceleration) {
+        if (maxVelocity <= 0 || maxAcceleration <= 0)
+            throw new IllegalArgumentException("Velocity and acceleration must be greater than 0.");
+        double accelTime = maxVelocity / maxAcceleration;
+        if (maxVelocity * accelTime >= distance)
+            return 2 * Math.sqrt(distance / maxAcceleration);
+        return 2 * accelTime + (distance - maxVelocity * accelTime) / maxVelocity;
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2015-2020 noriah <vix@noriah.dev>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ */
+
+package io.github.robolib.module.actuator;
+
+import io.github.robolib.module.actuator.CANTalon.StatusFrameRate;
+
+/**
+ * The status of one Talon SRX, grouped by the status frame each value comes
+ * in.
+ *
+ * A {@link CANTalon} keeps one of these up to date and copies it out with
+ * {@link CANTalon#getStatus(TalonStatus)}. Each group records when it was last
+ * read, so the age of every value is known.
+ *
+ * @author noriah <vix@noriah.dev>
+ */
+public final class TalonStatus {
+
+    private static final StatusFrameRate[] GROUPS = StatusFrameRate.values();
+
+    // General
+    int m_appliedThrottle;
+    int m_closedLoopError;
+    boolean m_fwdLimitClosed;
+    boolean m_revLimitClosed;
+
+    // Feedback
+    int m_sensorPosition;
+    int m_sensorVelocity;
+    double m_outputCurrent;
+    boolean m_brakeEnabled;
+
+    // QuadEncoder
+    int m_encPosition;
+    int m_encVelocity;
+    int m_encIndexRises;
+    int m_pinQuadA;
+    int m_pinQuadB;
+    int m_pinQuadIdx;
+
+    // AnalogTempVbat
+    int m_analogInPosition;
+    int m_analogInVelocity;
+    double m_temperature;
+    double m_busVoltage;
+
+    final long[] m_times = new long[GROUPS.length];
+    long m_readTime;
+
+    void copyTo(TalonStatus out) {
+        out.m_appliedThrottle = m_appliedThrottle;
+        out.m_closedLoopError = m_closedLoopError;
+        out.m_fwdLimitClosed = m_fwdLimitClosed;
+        out.m_revLimitClosed = m_revLimitClosed;
+        out.m_sensorPosition = m_sensorPosition;
+        out.m_sensorVelocity = m_sensorVelocity;
+        out.m_outputCurrent = m_outputCurrent;
+        out.m_brakeEnabled = m_brakeEnabled;
+        out.m_encPosition = m_encPosition;
+        out.m_encVelocity = m_encVelocity;
+        out.m_encIndexRises = m_encIndexRises;
+        out.m_pinQuadA = m_pinQuadA;
+        out.m_pinQuadB = m_pinQuadB;
+        out.m_pinQuadIdx = m_pinQuadIdx;
+        out.m_analogInPosition = m_analogInPosition;
+        out.m_analogInVelocity = m_analogInVelocity;
+        out.m_temperature = m_temperature;
+        out.m_busVoltage = m_busVoltage;
+        System.arraycopy(m_times, 0, out.m_times, 0, m_times.length);
+        out.m_readTime = m_readTime;
+    }
+
+    /**
+     * Get how old a group of values was when this status was read.
+     *
+     * @param group the status frame group
+     * @return the age in milliseconds, or infinity if the group has never been
+     *         read
+     */
+    public double getAge(StatusFrameRate group) {
+        long time = m_times[group.value];
+        if (time == 0)
+            return Double.POSITIVE_INFINITY;
+        return (m_readTime - time) / 1000.0;
+    }
+
+    /**
+     * @return the FPGA time this status was read, in microseconds
+     */
+    public long getReadTime() {
+        return m_readTime;
+    }
+
+    /**
+     * @return the applied throttle, from -1023 to 1023
+     */
+    public int getAppliedThrottle() {
+        return m_appliedThrottle;
+    }
+
+    public int getClosedLoopError() {
+        return m_closedLoopError;
+    }
+
+    public boolean isFwdLimitSwitchClosed() {
+        return m_fwdLimitClosed;
+    }
+
+    public boolean isRevLimitSwitchClosed() {
+        return m_revLimitClosed;
+    }
+
+    /**
+     * @return the position of the selected feedback sensor
+     */
+    public int getSensorPosition() {
+        return m_sensorPosition;
+    }
+
+    /**
+     * @return the velocity of the selected feedback sensor
+     */
+    public int getSensorVelocity() {
+        return m_sensorVelocity;
+    }
+
+    /**
+     * @return the output current in Amperes
+     */
+    public double getOutputCurrent() {
+        return m_outputCurrent;
+    }
+
+    public boolean getBrakeEnableDuringNeutral() {
+        return m_brakeEnabled;
+    }
+
+    public int getEncPosition() {
+        return m_encPosition;
+    }
+
+    public int getEncVelocity() {
+        return m_encVelocity;
+    }
+
+    public int getNumberOfQuadIdxRises() {
+        return m_encIndexRises;
+    }
+
+    public int getPinStateQuadA() {
+        return m_pinQuadA;
+    }
+
+    public int getPinStateQuadB() {
+        return m_pinQuadB;
+    }
+
+    public int getPinStateQuadIdx() {
+        return m_pinQuadIdx;
+    }
+
+    public int getAnalogInPosition() {
+        return m_analogInPosition;
+    }
+
+    public int getAnalogInVelocity() {
+        return m_analogInVelocity;
+    }
+
+    /**
+     * @return the temperature in degrees Celsius
+     */
+    public double getTemp() {
+        return m_temperature;
+    }
+
+    /**
+     * @return the voltage at the battery terminals in Volts
+     */
+    public double getBusVoltage() {
+        return m_busVoltage;
+    }
+
+    /**
+     * @return the output voltage in Volts
+     */
+    public double getOutputVoltage() {
+        return m_busVoltage * m_appliedThrottle / 1023.0;
+    }
+}
@@ -0,0 +1,411 @@
+/*
+ * Copyright (c) 2015-2020 noriah <vix@noriah.dev>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ */
+
+package io.github.robolib.module.controller;
+
+import io.github.robolib.identifier.PIDSink;
+import io.github.robolib.identifier.PIDSource;
+import io.github.robolib.jni.UsageReporting;
+import io.github.robolib.module.RoboRIO;
+import io.github.robolib.util.LoopScheduler;
+
+/**
+ * A fixed size group of PID controllers that are all run in one pass.
+ *
+ * Gains, setpoints, limits and loop state are kept in primitive arrays, one
+ * slot per controller. Each pass reads every source, then runs the math for
+ * every controller in a single loop under one lock, then writes every sink.
+ * Use this instead of many {@link PIDController}s when a robot runs a lot of
+ * loops at the same rate.
+ *
+ * Controllers are referred to by the index returned from
+ * {@link #add(PIDSource, PIDSink, double, double, double, double)}.
+ *
+ * @author noriah <vix@noriah.dev>
+ */
+public class PIDBank {
+
+    private final int m_capacity;
+    private final long m_period;
+    private int m_size = 0;
+
+    private final PIDSource[] m_sources;
+    private final PIDSink[] m_sinks;
+
+    private final double[] m_P;
+    private final double[] m_I;
+    private final double[] m_D;
+    private final double[] m_F;
+    private final double[] m_setpoint;
+    private final double[] m_minInput;
+    private final double[] m_maxInput;
+    private final double[] m_minOutput;
+    private final double[] m_maxOutput;
+    private final boolean[] m_continuous;
+    private final boolean[] m_enabled;
+
+    private final double[] m_input;
+    private final double[] m_error;
+    private final double[] m_prevError;
+    private final double[] m_totalError;
+    private final double[] m_result;
+    private final boolean[] m_write;
+    private final boolean[] m_stopped;
+
+    private long m_lastTime = 0;
+    private LoopScheduler.Loop m_controlLoop;
+
+    /**
+     * Create a PIDBank that runs on the {@link LoopScheduler}.
+     *
+     * @param capacity the most controllers this bank can hold
+     * @param period   the loop time in seconds
+     */
+    public PIDBank(int capacity, double period) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Capacity must be greater than 0.");
+        m_capacity = capacity;
+        m_period = (long) (period * 1e6);
+
+        m_sources = new PIDSource[capacity];
+        m_sinks = new PIDSink[capacity];
+        m_P = new double[capacity];
+        m_I = new double[capacity];
+        m_D = new double[capacity];
+        m_F = new double[capacity];
+        m_setpoint = new double[capacity];
+        m_minInput = new double[capacity];
+        m_maxInput = new double[capacity];
+        m_minOutput = new double[capacity];
+        m_maxOutput = new double[capacity];
+        m_continuous = new boolean[capacity];
+        m_enabled = new boolean[capacity];
+        m_input = new double[capacity];
+        m_error = new double[capacity];
+        m_prevError = new double[capacity];
+        m_totalError = new double[capacity];
+        m_result = new double[capacity];
+        m_write = new boolean[capacity];
+        m_stopped = new boolean[capacity];
+
+        m_controlLoop = LoopScheduler.schedule(this::calculate, period);
+        UsageReporting.report(UsageReporting.ResourceType_PIDController, capacity);
+    }
+
+    /**
+     * Add a controller to the bank. It starts out disabled.
+     *
+     * @param source the PIDSource to read
+     * @param sink   the PIDSink to write
+     * @param p      the proportional coefficient
+     * @param i      the integral coefficient
+     * @param d      the derivative coefficient
+     * @param f      the feed forward coefficient
+     * @return the index of the new controller
+     */
+    public synchronized int add(PIDSource source, PIDSink sink, double p, double i, double d, double f) {
+        if (m_size >= m_capacity)
+            throw new IllegalStateException("PIDBank is full.");
+        int n = m_size;
+        m_sources[n] = source;
+        m_sinks[n] = sink;
+        m_P[n] = p;
+        m_I[n] = i;
+        m_D[n] = d;
+        m_F[n] = f;
+        m_minOutput[n] = -1.0;
+        m_maxOutput[n] = 1.0;
+        m_size = n + 1;
+        return n;
+    }
+
+    /**
+     * Add a controller to the bank. It starts out disabled.
+     *
+     * @param source the PIDSource to read
+     * @param sink   the PIDSink to write
+     * @param p      the proportional coefficient
+     * @param i      the integral coefficient
+     * @param d      the derivative coefficient
+     * @return the index of the new controller
+     */
+    public int add(PIDSource source, PIDSink sink, double p, double i, double d) {
+        return add(source, sink, p, i, d, 0.0);
+    }
+
+    /**
+     * @return the number of controllers in the bank
+     */
+    public synchronized int size() {
+        return m_size;
+    }
+
+    /**
+     * Stop running the bank.
+     */
+    public void free() {
+        LoopScheduler.Loop loop = m_controlLoop;
+        if (loop != null)
+            loop.cancel();
+        m_controlLoop = null;
+    }
+
+    /**
+     * Get the control loop this bank runs on, for its timing statistics.
+     *
+     * @return the {@link LoopScheduler.Loop} running this bank
+     */
+    public LoopScheduler.Loop getControlLoop() {
+        return m_controlLoop;
+    }
+
+    /**
+     * Run every enabled controller once.
+     */
+    private void calculate() {
+        int n;
+        synchronized (this) {
+            n = m_size;
+            for (int k = 0; k < n; k++) {
+                m_write[k] = m_enabled[k];
+            }
+        }
+
+        for (int k = 0; k < n; k++) {
+            if (m_write[k])
+                m_input[k] = m_sources[k].pidGet();
+        }
+
+        long now = RoboRIO.getFPGATime();
+        double scale = 1.0;
+        if (m_lastTime != 0 && now > m_lastTime)
+            scale = (double) (now - m_lastTime) / m_period;
+        m_lastTime = now;
+
+        synchronized (this) {
+            for (int k = 0; k < n; k++) {
+                if (!m_write[k])
+                    continue;
+
+                double error = m_setpoint[k] - m_input[k];
+                if (m_continuous[k]) {
+                    double range = m_maxInput[k] - m_minInput[k];
+                    if (Math.abs(error) > range / 2)
+                        error = error > 0 ? error - range : error + range;
+                }
+
+                double i = m_I[k];
+                if (i != 0) {
+                    double total = m_totalError[k] + error * scale;
+                    double potentialIGain = total * i;
+                    if (potentialIGain >= m_maxOutput[k])
+                        total = m_maxOutput[k] / i;
+                    else if (potentialIGain <= m_minOutput[k])
+                        total = m_minOutput[k] / i;
+                    m_totalError[k] = total;
+                }
+
+                double result = m_P[k] * error + i * m_totalError[k] + m_D[k] * (error - m_prevError[k]) / scale
+                        + m_setpoint[k] * m_F[k];
+                m_prevError[k] = error;
+                m_error[k] = error;
+
+                if (result > m_maxOutput[k])
+                    result = m_maxOutput[k];
+                else if (result < m_minOutput[k])
+                    result = m_minOutput[k];
+                m_result[k] = result;
+            }
+        }
+
+        for (int k = 0; k < n; k++) {
+            if (m_write[k])
+                m_sinks[k].pidWrite(m_result[k]);
+        }
+
+        // A controller disabled during this pass may have had its zero
+        // overwritten above, so write it again after our own write.
+        synchronized (this) {
+            for (int k = 0; k < n; k++) {
+                m_write[k] = m_write[k] && m_stopped[k];
+                m_stopped[k] = false;
+            }
+        }
+        for (int k = 0; k < n; k++) {
+            if (m_write[k])
+                m_sinks[k].pidWrite(0);
+        }
+    }
+
+    /**
+     * Set the gains for a controller.
+     *
+     * @param index the controller index
+     * @param p     the proportional coefficient
+     * @param i     the integral coefficient
+     * @param d     the derivative coefficient
+     * @param f     the feed forward coefficient
+     */
+    public synchronized void setPID(int index, double p, double i, double d, double f) {
+        checkIndex(index);
+        m_P[index] = p;
+        m_I[index] = i;
+        m_D[index] = d;
+        m_F[index] = f;
+    }
+
+    /**
+     * Set the setpoint for a controller. If an input range is set, the setpoint
+     * is clamped to it.
+     *
+     * @param index the controller index
+     * @param point the desired setpoint
+     */
+    public synchronized void setSetpoint(int index, double point) {
+        checkIndex(index);
+        if (m_maxInput[index] > m_minInput[index]) {
+            if (point > m_maxInput[index])
+                point = m_maxInput[index];
+            else if (point < m_minInput[index])
+                point = m_minInput[index];
+        }
+        m_setpoint[index] = point;
+    }
+
+    /**
+     * @param index the controller index
+     * @return the setpoint of the controller
+     */
+    public synchronized double getSetpoint(int index) {
+        checkIndex(index);
+        return m_setpoint[index];
+    }
+
+    /**
+     * Set the input range of a controller.
+     *
+     * @param index the controller index
+     * @param min   the minimum value expected from the input
+     * @param max   the maximum value expected from the input
+     */
+    public synchronized void setInputRange(int index, double min, double max) {
+        checkIndex(index);
+        if (min > max)
+            throw new IllegalArgumentException("Min cannot be larger than Max");
+        m_minInput[index] = min;
+        m_maxInput[index] = max;
+        setSetpoint(index, m_setpoint[index]);
+    }
+
+    /**
+     * Set the output range of a controller.
+     *
+     * @param index the controller index
+     * @param min   the minimum value to write
+     * @param max   the maximum value to write
+     */
+    public synchronized void setOutputRange(int index, double min, double max) {
+        checkIndex(index);
+        if (min > max)
+            throw new IllegalArgumentException("Min cannot be larger than Max");
+        m_minOutput[index] = min;
+        m_maxOutput[index] = max;
+    }
+
+    /**
+     * Treat the input range of a controller as continuous.
+     *
+     * @param index      the controller index
+     * @param continuous true to wrap around the input range
+     */
+    public synchronized void setContinuous(int index, boolean continuous) {
+        checkIndex(index);
+        m_continuous[index] = continuous;
+    }
+
+    /**
+     * Start running a controller.
+     *
+     * @param index the controller index
+     */
+    public synchronized void enable(int index) {
+        checkIndex(index);
+        m_enabled[index] = true;
+        m_stopped[index] = false;
+    }
+
+    /**
+     * Stop running a controller and write zero to its sink.
+     *
+     * @param index the controller index
+     */
+    public void disable(int index) {
+        PIDSink sink;
+        synchronized (this) {
+            checkIndex(index);
+            m_enabled[index] = false;
+            m_stopped[index] = true;
+            sink = m_sinks[index];
+        }
+        sink.pidWrite(0);
+    }
+
+    /**
+     * @param index the controller index
+     * @return true if the controller is enabled
+     */
+    public synchronized boolean isEnabled(int index) {
+        checkIndex(index);
+        return m_enabled[index];
+    }
+
+    /**
+     * Disable a controller and clear its integral and derivative state.
+     *
+     * @param index the controller index
+     */
+    public void reset(int index) {
+        disable(index);
+        synchronized (this) {
+            m_prevError[index] = 0;
+            m_totalError[index] = 0;
+            m_result[index] = 0;
+            m_error[index] = 0;
+        }
+    }
+
+    /**
+     * @param index the controller index
+     * @return the latest output of the controller
+     */
+    public synchronized double get(int index) {
+        checkIndex(index);
+        return m_result[index];
+    }
+
+    /**
+     * @param index the controller index
+     * @return the error from the last time the controller ran
+     */
+    public synchronized double getError(int index) {
+        checkIndex(index);
+        return m_error[index];
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= m_size)
+            throw new IndexOutOfBoundsException("No PID controller at index " + index + ".");
+    }
+}
@@ -15,17 +15,21 @@
 
 package io.github.robolib.module.controller;
 
-import java.util.Timer;
-import java.util.TimerTask;
-
 import io.github.robolib.identifier.LiveWindowSendable;
 import io.github.robolib.identifier.PIDSink;
 import io.github.robolib.identifier.PIDSource;
 import io.github.robolib.jni.UsageReporting;
+import io.github.robolib.module.RoboRIO;
 import io.github.robolib.nettable.ITable;
 import io.github.robolib.nettable.ITableListener;
+import io.github.robolib.util.LoopScheduler;
 
 /**
+ * A PID control loop that runs on the {@link LoopScheduler}.
+ *
+ * Only the control loop thread writes the loop state. Settings can be changed
+ * from any thread, and reading the output, error or settings never blocks the
+ * control loop.
  *
  * @author noriah <vix@noriah.dev>
  */
@@ -41,47 +45,63 @@ public class PIDController implements LiveWindowSendable {
     }
 
     /**
-     * The task each PIDController runs
-     *
-     * @author noriah <vix@noriah.dev>
+     * The settings for a PIDController. A Config is never changed once it has
+     * been published, setters publish a modified copy instead.
      */
-    private class PIDTask extends TimerTask {
-        private PIDController m_controller;
-
-        public PIDTask(PIDController controller) {
-            m_controller = controller;
+    private static final class Config {
+        double p;
+        double i;
+        double d;
+        double f;
+        double maxOutput = 1.0;
+        double minOutput = -1.0;
+        double maxInput = 0;
+        double minInput = 0;
+        boolean continuous = false;
+        boolean enabled = false;
 
+        Config() {
         }
 
-        @Override
-        public void run() {
-            m_controller.calculate();
+        Config(Config o) {
+            p = o.p;
+            i = o.i;
+            d = o.d;
+            f = o.f;
+            maxOutput = o.maxOutput;
+            minOutput = o.minOutput;
+            maxInput = o.maxInput;
+            minInput = o.minInput;
+            continuous = o.continuous;
+            enabled = o.enabled;
         }
     }
 
     public static final double DEFAULT_PERIOD = 0.05;
     private static int m_instances = 0;
 
-    private double m_P;
-    private double m_I;
-    private double m_D;
-    private double m_F;
-    private double m_maxOutput = 1.0;
-    private double m_minOutput = -1.0;
-    private double m_maxInput = 0;
-    private double m_minInput = 0;
-    private boolean m_continuous = false;
-    private boolean m_enabled = false;
+    /** Settings, written under the object lock and read without it. */
+    private volatile Config m_config;
+
+    /**
+     * The setpoint, kept out of the Config since it changes every loop. Written
+     * under the object lock, already clamped to the input range.
+     */
+    private volatile double m_setpoint = 0.0;
+
+    /** Loop state, only touched by the control loop thread. */
     private double m_prevError = 0.0;
     private double m_totalError = 0.0;
-    private Tolerance m_tolerance;
-    private double m_setpoint = 0.0;
-    private double m_error = 0.0;
-    private double m_result = 0.0;
-    // private double m_period = kDefaultPeriod;
-    PIDSource m_source;
-    PIDSink m_sink;
-    Timer m_controlLoop;
+    private long m_lastTime = 0;
+    private volatile boolean m_resetRequested = false;
+
+    private volatile Tolerance m_tolerance;
+    private volatile double m_error = 0.0;
+    private volatile double m_result = 0.0;
+    private final long m_period;
+    volatile PIDSource m_source;
+    volatile PIDSink m_sink;
+    volatile LoopScheduler.Loop m_controlLoop;
     // private boolean m_freed = false;
     // private boolean m_usingPercentTolerance;
 
@@ -99,18 +119,18 @@ public class PIDController implements LiveWindowSendable {
      *               default is 50ms.
      */
     public PIDController(double p, double i, double d, double f, PIDSource source, PIDSink sink, double period) {
-        m_controlLoop = new java.util.Timer();
-
-        m_P = p;
-        m_I = i;
-        m_D = d;
-        m_F = f;
+        Config c = new Config();
+        c.p = p;
+        c.i = i;
+        c.d = d;
+        c.f = f;
+        m_config = c;
 
         m_source = source;
         m_sink = sink;
-        // m_period = period;
+        m_period = (long) (period * 1e6);
 
-        m_controlLoop.schedule(new PIDTask(this), 0L, (long) (period * 1000));
+        m_controlLoop = LoopScheduler.schedule(this::calculate, period);
 
         UsageReporting.report(UsageReporting.ResourceType_PIDController, ++m_instances);
         m_tolerance = () -> {
@@ -163,84 +183,111 @@ public class PIDController implements LiveWindowSendable {
         this(p, i, d, f, source, sink, DEFAULT_PERIOD);
     }
 
+    /**
+     * Get the control loop this controller runs on, for its timing statistics.
+     *
+     * @return the {@link LoopScheduler.Loop} running this controller
+     */
+    public LoopScheduler.Loop getControlLoop() {
+        return m_controlLoop;
+    }
+
     public void free() {
         m_controlLoop.cancel();
-        synchronized (this) {
-            // m_freed = true;
-            m_sink = null;
-            m_source = null;
-            m_controlLoop = null;
-        }
+        // m_freed = true;
+        m_sink = null;
+        m_source = null;
+        m_controlLoop = null;
         if (m_source != null)
             m_table.removeTableListener(m_listener);
     }
 
     /**
      * Read the input, calculate the output accordingly, and write to the output.
-     * This should only be called by the PIDTask and is created during
+     * This should only be called by the control loop, which is created during
      * initialization.
+     *
+     * The integral and derivative terms are scaled by the measured time since the
+     * last run, relative to the nominal period, so the gains mean the same thing
+     * when the loop runs late.
      */
     private void calculate() {
-        boolean enabled;
-        PIDSource pidInput;
+        PIDSource pidInput = m_source;
+        PIDSink pidOutput = m_sink;
+        if (pidInput == null || pidOutput == null)
+            return;
+
+        Config c = m_config;
+        double setpoint = m_setpoint;
+        // setInputRange publishes the range before it clamps the setpoint, so
+        // clamp against the range this pass uses.
+        if (c.maxInput > c.minInput) {
+            if (setpoint > c.maxInput)
+                setpoint = c.maxInput;
+            else if (setpoint < c.minInput)
+                setpoint = c.minInput;
+        }
+        long now = RoboRIO.getFPGATime();
 
-        synchronized (this) {
-            if (m_source == null) {
-                return;
-            }
-            if (m_sink == null) {
-                return;
-            }
-            enabled = m_enabled; // take snapshot of these values...
-            pidInput = m_source;
+        if (m_resetRequested) {
+            m_resetRequested = false;
+            m_prevError = 0;
+            m_totalError = 0;
+            m_lastTime = 0;
         }
 
-        if (enabled) {
-            double input;
-            double result;
-            PIDSink pidOutput = null;
-            synchronized (this) {
-                input = pidInput.pidGet();
-            }
-            synchronized (this) {
-                m_error = m_setpoint - input;
-                if (m_continuous) {
-                    if (Math.abs(m_error) > (m_maxInput - m_minInput) / 2) {
-                        if (m_error > 0) {
-                            m_error = m_error - m_maxInput + m_minInput;
-                        } else {
-                            m_error = m_error + m_maxInput - m_minInput;
-                        }
-                    }
-                }
+        if (!c.enabled) {
+            m_lastTime = 0;
+            return;
+        }
 
-                if (m_I != 0) {
-                    double potentialIGain = (m_totalError + m_error) * m_I;
-                    if (potentialIGain < m_maxOutput) {
-                        if (potentialIGain > m_minOutput) {
-                            m_totalError += m_error;
-                        } else {
-                            m_totalError = m_minOutput / m_I;
-                        }
-                    } else {
-                        m_totalError = m_maxOutput / m_I;
-                    }
+        double scale = 1.0;
+        if (m_lastTime != 0 && now > m_lastTime)
+            scale = (double) (now - m_lastTime) / m_period;
+        m_lastTime = now;
+
+        double input = pidInput.pidGet();
+        double error = setpoint - input;
+        if (c.continuous) {
+            if (Math.abs(error) > (c.maxInput - c.minInput) / 2) {
+                if (error > 0) {
+                    error = error - c.maxInput + c.minInput;
+                } else {
+                    error = error + c.maxInput - c.minInput;
                 }
+            }
+        }
 
-                m_result = m_P * m_error + m_I * m_totalError + m_D * (m_error - m_prevError) + m_setpoint * m_F;
-                m_prevError = m_error;
-
-                if (m_result > m_maxOutput) {
-                    m_result = m_maxOutput;
-                } else if (m_result < m_minOutput) {
-                    m_result = m_minOutput;
+        if (c.i != 0) {
+            double potentialIGain = (m_totalError + error * scale) * c.i;
+            if (potentialIGain < c.maxOutput) {
+                if (potentialIGain > c.minOutput) {
+                    m_totalError += error * scale;
+                } else {
+                    m_totalError = c.minOutput / c.i;
                 }
-                pidOutput = m_sink;
-                result = m_result;
+            } else {
+                m_totalError = c.maxOutput / c.i;
             }
+        }
+
+        double result = c.p * error + c.i * m_totalError + c.d * (error - m_prevError) / scale + setpoint * c.f;
+        m_prevError = error;
 
-            pidOutput.pidWrite(result);
+        if (result > c.maxOutput) {
+            result = c.maxOutput;
+        } else if (result < c.minOutput) {
+            result = c.minOutput;
         }
+
+        m_error = error;
+        m_result = result;
+        pidOutput.pidWrite(result);
+
+        // disable() may have written its zero while this pass was running.
+        // Later passes return early, so write it again after our own write.
+        if (!m_config.enabled)
+            pidOutput.pidWrite(0);
     }
 
     /**
@@ -252,9 +299,11 @@ public class PIDController implements LiveWindowSendable {
      * @param d Differential coefficient
      */
     public synchronized void setPID(double p, double i, double d) {
-        m_P = p;
-        m_I = i;
-        m_D = d;
+        Config c = new Config(m_config);
+        c.p = p;
+        c.i = i;
+        c.d = d;
+        m_config = c;
 
         if (m_table != null) {
             m_table.putNumber("P", p);
@@ -273,10 +322,12 @@ public class PIDController implements LiveWindowSendable {
      * @param f Feed forward coefficient
      */
     public synchronized void setPID(double p, double i, double d, double f) {
-        m_P = p;
-        m_I = i;
-        m_D = d;
-        m_F = f;
+        Config c = new Config(m_config);
+        c.p = p;
+        c.i = i;
+        c.d = d;
+        c.f = f;
+        m_config = c;
 
         if (m_table != null) {
             m_table.putNumber("P", p);
@@ -291,8 +342,8 @@ public class PIDController implements LiveWindowSendable {
      *
      * @return proportional coefficient
      */
-    public synchronized double getP() {
-        return m_P;
+    public double getP() {
+        return m_config.p;
     }
 
     /**
@@ -300,8 +351,8 @@ public class PIDController implements LiveWindowSendable {
      *
      * @return integral coefficient
      */
-    public synchronized double getI() {
-        return m_I;
+    public double getI() {
+        return m_config.i;
     }
 
     /**
@@ -309,8 +360,8 @@ public class PIDController implements LiveWindowSendable {
      *
      * @return differential coefficient
      */
-    public synchronized double getD() {
-        return m_D;
+    public double getD() {
+        return m_config.d;
     }
 
     /**
@@ -318,8 +369,8 @@ public class PIDController implements LiveWindowSendable {
      *
      * @return feed forward coefficient
      */
-    public synchronized double getF() {
-        return m_F;
+    public double getF() {
+        return m_config.f;
     }
 
     /**
@@ -328,7 +379,7 @@ public class PIDController implements LiveWindowSendable {
      *
      * @return the latest calculated output
      */
-    public synchronized double get() {
+    public double get() {
         return m_result;
     }
 
@@ -340,7 +391,9 @@ public class PIDController implements LiveWindowSendable {
      * @param continuous Set to true turns on continuous, false turns off continuous
      */
     public synchronized void setContinuous(boolean continuous) {
-        m_continuous = continuous;
+        Config c = new Config(m_config);
+        c.continuous = continuous;
+        m_config = c;
     }
 
     /**
@@ -348,7 +401,7 @@ public class PIDController implements LiveWindowSendable {
      * using the max and min in as constraints, it considers them to be the same
      * point and automatically calculates the shortest route to the setpoint.
      */
-    public synchronized void setContinuous() {
+    public void setContinuous() {
         setContinuous(true);
     }
 
@@ -361,8 +414,10 @@ public class PIDController implements LiveWindowSendable {
     public synchronized void setInputRange(double min, double max) {
         if (min > max)
             throw new IllegalArgumentException("Min cannot be larger than Max");
-        m_minInput = min;
-        m_maxInput = max;
+        Config c = new Config(m_config);
+        c.minInput = min;
+        c.maxInput = max;
+        m_config = c;
         setSetpoint(m_setpoint);
     }
 
@@ -375,8 +430,10 @@ public class PIDController implements LiveWindowSendable {
     public synchronized void setOutputRange(double min, double max) {
         if (min > max)
             throw new IllegalArgumentException("Min cannot be larger than Max");
-        m_minOutput = min;
-        m_maxOutput = max;
+        Config c = new Config(m_config);
+        c.minOutput = min;
+        c.maxOutput = max;
+        m_config = c;
     }
 
     /**
@@ -385,20 +442,19 @@ public class PIDController implements LiveWindowSendable {
      * @param point the desired setpoint
      */
     public synchronized void setSetpoint(double point) {
-        if (m_maxInput > m_minInput) {
-            if (point > m_maxInput)
-                m_setpoint = m_maxInput;
-            else if (point < m_minInput)
-                m_setpoint = m_minInput;
-            else
-                m_setpoint = point;
-
-        } else {
-            m_setpoint = point;
+        Config c = m_config;
+        if (c.maxInput > c.minInput) {
+            if (point > c.maxInput)
+                point = c.maxInput;
+            else if (point < c.minInput)
+                point = c.minInput;
         }
+        if (point == m_setpoint)
+            return;
+        m_setpoint = point;
 
         if (m_table != null)
-            m_table.putNumber("setpoint", m_setpoint);
+            m_table.putNumber("setpoint", point);
     }
 
     /**
@@ -406,7 +462,7 @@ public class PIDController implements LiveWindowSendable {
      *
      * @return the current setpoint
      */
-    public synchronized double getSetpoint() {
+    public double getSetpoint() {
         return m_setpoint;
     }
 
@@ -415,10 +471,20 @@ public class PIDController implements LiveWindowSendable {
      *
      * @return the current error
      */
-    public synchronized double getError() {
+    public double getError() {
         return getSetpoint() - m_source.pidGet();
     }
 
+    /**
+     * Returns the error from the last time the controller ran. Unlike
+     * {@link #getError()} this does not read the input.
+     *
+     * @return the last calculated error
+     */
+    public double getLastError() {
+        return m_error;
+    }
+
     /**
      * Set the PID tolerance using a Tolerance object. Tolerance can be specified as
      * a percentage of the range or as an absolute value. The Tolerance object
@@ -429,7 +495,7 @@ public class PIDController implements LiveWindowSendable {
      * @param tolerance a tolerance object of the right type, e.g. PercentTolerance
      *                  or AbsoluteTolerance
      */
-    public synchronized void setTolerance(Tolerance tolerance) {
+    public void setTolerance(Tolerance tolerance) {
         m_tolerance = tolerance;
     }
 
@@ -439,8 +505,11 @@ public class PIDController implements LiveWindowSendable {
      *
      * @param percentage percent error which is tolerable
      */
-    public synchronized void setPercentTolerance(final double percentage) {
-        m_tolerance = () -> (Math.abs(getError()) < percentage / 100 * (m_maxInput - m_minInput));
+    public void setPercentTolerance(final double percentage) {
+        m_tolerance = () -> {
+            Config c = m_config;
+            return Math.abs(getError()) < percentage / 100 * (c.maxInput - c.minInput);
+        };
     }
 
     /**
@@ -449,7 +518,7 @@ public class PIDController implements LiveWindowSendable {
      * @param absValue absolute error which is tolerable in the units of the input
      *                 object
      */
-    public synchronized void setAbsoluteTolerance(final double absValue) {
+    public void setAbsoluteTolerance(final double absValue) {
         m_tolerance = () -> (Math.abs(getError()) < absValue);
     }
 
@@ -460,7 +529,7 @@ public class PIDController implements LiveWindowSendable {
      *
      * @return true if the error is less than the tolerance
      */
-    public synchronized boolean onTarget() {
+    public boolean onTarget() {
         return m_tolerance.onTarget();
     }
 
@@ -468,7 +537,9 @@ public class PIDController implements LiveWindowSendable {
      * Begin running the PIDController
      */
     public synchronized void enable() {
-        m_enabled = true;
+        Config c = new Config(m_config);
+        c.enabled = true;
+        m_config = c;
         if (m_table != null)
             m_table.putBoolean("enabled", true);
     }
@@ -477,8 +548,10 @@ public class PIDController implements LiveWindowSendable {
      * Stop running the PIDController, this sets the output to zero before stopping.
      */
     public synchronized void disable() {
+        Config c = new Config(m_config);
+        c.enabled = false;
+        m_config = c;
         m_sink.pidWrite(0);
-        m_enabled = false;
 
         if (m_table != null) {
             m_table.putBoolean("enabled", false);
@@ -488,8 +561,8 @@ public class PIDController implements LiveWindowSendable {
     /**
      * Return true if PIDController is enabled.
      */
-    public synchronized boolean isEnabled() {
-        return m_enabled;
+    public boolean isEnabled() {
+        return m_config.enabled;
     }
 
     /**
@@ -497,8 +570,7 @@ public class PIDController implements LiveWindowSendable {
      */
     public synchronized void reset() {
         disable();
-        m_prevError = 0;
-        m_totalError = 0;
+        m_resetRequested = true;
         m_result = 0;
     }
 
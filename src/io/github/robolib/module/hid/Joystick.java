@@ -16,7 +16,8 @@
 package io.github.robolib.module.hid;
 
 import io.github.robolib.DriverStation;
-import io.github.robolib.jni.NetworkCommunications;
+import io.github.robolib.JoystickSnapshot;
+import io.github.robolib.hal.HAL;
 import io.github.robolib.jni.UsageReporting;
 import io.github.robolib.util.MathUtils;
 import io.github.robolib.util.log.Logger;
@@ -258,6 +259,16 @@ public class Joystick extends GenericHID {
         return m_port;
     }
 
+    /**
+     * Get the state of this Joystick from the latest packet. Use this to read
+     * several values that must come from the same packet.
+     *
+     * @return the latest snapshot for this stick
+     */
+    public final JoystickSnapshot getSnapshot() {
+        return DriverStation.getJoystickSnapshot(m_port);
+    }
+
     /**
      * Rumble control enum
      *
@@ -288,13 +299,13 @@ public class Joystick extends GenericHID {
                 m_rightRumble = rVal;
                 break;
         }
-        NetworkCommunications.HALSetJoystickOutputs(m_portByte, m_outputs, m_leftRumble, m_rightRumble);
+        HAL.NET.setJoystickOutputs(m_portByte, m_outputs, m_leftRumble, m_rightRumble);
     }
 
     public final void setOutput(int outputNumber, boolean value) {
         if (MathUtils.inBounds(outputNumber, 0, 31)) {
             m_outputs = (m_outputs & ~(1 << outputNumber)) | ((value ? 1 : 0) << outputNumber);
-            NetworkCommunications.HALSetJoystickOutputs(m_portByte, m_outputs, m_leftRumble, m_rightRumble);
+            HAL.NET.setJoystickOutputs(m_portByte, m_outputs, m_leftRumble, m_rightRumble);
         } else {
             Logger.get(Joystick.class).warn("No such Output number '" + outputNumber + "' on joysticks.");
         }
@@ -303,7 +314,7 @@ public class Joystick extends GenericHID {
 
     public final void setOutputs(int value) {
         m_outputs = value;
-        NetworkCommunications.HALSetJoystickOutputs(m_portByte, m_outputs, m_leftRumble, m_rightRumble);
+        HAL.NET.setJoystickOutputs(m_portByte, m_outputs, m_leftRumble, m_rightRumble);
     }
 
     /**
@@ -15,12 +15,12 @@
 
 package io.github.robolib.module.iface;
 
-import static io.github.robolib.util.Common.allocateInt;
+import static io.github.robolib.hal.HALBuffers.intBuffer;
 
 import java.nio.ByteBuffer;
 import java.nio.IntBuffer;
 
-import io.github.robolib.jni.AnalogJNI;
+import io.github.robolib.hal.HAL;
 import io.github.robolib.jni.HALUtil;
 import io.github.robolib.jni.UsageReporting;
 import io.github.robolib.lang.ResourceAllocationException;
@@ -97,8 +97,8 @@ public class AnalogIO extends Interface {
     protected AnalogIO(AnalogChannel channel, Direction dir) {
         super(InterfaceType.ANALOG);
 
-        m_portPointer = AnalogJNI.getPort((byte) channel.ordinal());
-        IntBuffer status = allocateInt();
+        m_portPointer = HAL.ANALOG.getPort((byte) channel.ordinal());
+        IntBuffer status = intBuffer();
 
         switch (dir) {
             case IN:
@@ -108,7 +108,7 @@ public class AnalogIO extends Interface {
                             "AnalogIO Input channel '" + channel.name() + "' already in use.");
 
                 USED_IN_CHANNELS[channel.ordinal()] = true;
-                m_port = AnalogJNI.initializeAnalogInputPort(m_portPointer, status);
+                m_port = HAL.ANALOG.initializeAnalogInputPort(m_portPointer, status);
                 break;
             case OUT:
                 checkAnalogOutputChannel(channel.ordinal());
@@ -117,7 +117,7 @@ public class AnalogIO extends Interface {
                             "AnalogIO Output channel '" + channel.name() + "' already in use.");
 
                 USED_OUT_CHANNELS[channel.ordinal()] = true;
-                m_port = AnalogJNI.initializeAnalogOutputPort(m_portPointer, status);
+                m_port = HAL.ANALOG.initializeAnalogOutputPort(m_portPointer, status);
 
                 break;
             default:
@@ -15,15 +15,16 @@
 
 package io.github.robolib.module.iface;
 
-import static io.github.robolib.util.Common.allocateInt;
+import static io.github.robolib.hal.HALBuffers.intBuffer;
+import static io.github.robolib.hal.HALBuffers.longBuffer;
 
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.nio.IntBuffer;
+import java.nio.LongBuffer;
 
+import io.github.robolib.hal.HAL;
 import io.github.robolib.identifier.LiveWindowSendable;
 import io.github.robolib.identifier.NumberSource;
-import io.github.robolib.jni.AnalogJNI;
 import io.github.robolib.jni.HALUtil;
 import io.github.robolib.jni.UsageReporting;
 import io.github.robolib.lang.ResourceAllocationException;
@@ -81,8 +82,8 @@ public class AnalogInput extends AnalogIO implements LiveWindowSendable, NumberS
     @Override
     public final void free() {
         if (m_triggerPort != null) {
-            IntBuffer status = allocateInt();
-            AnalogJNI.cleanAnalogTrigger(m_triggerPort, status);
+            IntBuffer status = intBuffer();
+            HAL.ANALOG.cleanAnalogTrigger(m_triggerPort, status);
             HALUtil.checkStatus(status);
         }
         super.free();
@@ -98,8 +99,8 @@ public class AnalogInput extends AnalogIO implements LiveWindowSendable, NumberS
      * @return A sample straight from this channel.
      */
     public int getValue() {
-        IntBuffer status = allocateInt();
-        int value = AnalogJNI.getAnalogValue(m_port, status);
+        IntBuffer status = intBuffer();
+        int value = HAL.ANALOG.getAnalogValue(m_port, status);
         HALUtil.checkStatus(status);
         return value;
     }
@@ -116,8 +117,8 @@ public class AnalogInput extends AnalogIO implements LiveWindowSendable, NumberS
      * @return A sample from the oversample and average engine for this channel.
      */
     public int getAverageValue() {
-        IntBuffer status = allocateInt();
-        int value = AnalogJNI.getAnalogAverageValue(m_port, status);
+        IntBuffer status = intBuffer();
+        int value = HAL.ANALOG.getAnalogAverageValue(m_port, status);
         HALUtil.checkStatus(status);
         return value;
     }
@@ -130,8 +131,8 @@ public class AnalogInput extends AnalogIO implements LiveWindowSendable, NumberS
      * @return A scaled sample straight from this channel.
      */
     public double getVoltage() {
-        IntBuffer status = allocateInt();
-        double value = AnalogJNI.getAnalogVoltage(m_port, status);
+        IntBuffer status = intBuffer();
+        double value = HAL.ANALOG.getAnalogVoltage(m_port, status);
         HALUtil.checkStatus(status);
         return value;
     }
@@ -148,8 +149,8 @@ public class AnalogInput extends AnalogIO implements LiveWindowSendable, NumberS
      *         for this channel.
      */
     public double getAverageVoltage() {
-        IntBuffer status = allocateInt();
-        double value = AnalogJNI.getAnalogAverageVoltage(m_port, status);
+        IntBuffer status = intBuffer();
+        double value = HAL.ANALOG.getAnalogAverageVoltage(m_port, status);
         HALUtil.checkStatus(status);
         return value;
     }
@@ -171,8 +172,8 @@ public class AnalogInput extends AnalogIO implements LiveWindowSendable, NumberS
      * @return Least significant bit weight.
      */
     public long getLSBWeight() {
-        IntBuffer status = allocateInt();
-        long value = AnalogJNI.getAnalogLSBWeight(m_port, status);
+        IntBuffer status = intBuffer();
+        long value = HAL.ANALOG.getAnalogLSBWeight(m_port, status);
         HALUtil.checkStatus(status);
         return value;
     }
@@ -186,8 +187,8 @@ public class AnalogInput extends AnalogIO implements LiveWindowSendable, NumberS
      * @return Offset constant.
      */
     public int getOffset() {
-        IntBuffer status = allocateInt();
-        int value = AnalogJNI.getAnalogOffset(m_port, status);
+        IntBuffer status = intBuffer();
+        int value = HAL.ANALOG.getAnalogOffset(m_port, status);
         HALUtil.checkStatus(status);
         return value;
     }
@@ -200,8 +201,8 @@ public class AnalogInput extends AnalogIO implements LiveWindowSendable, NumberS
      * @param bits The number of averaging bits.
      */
     public void setAverageBits(final int bits) {
-        IntBuffer status = allocateInt();
-        AnalogJNI.setAnalogAverageBits(m_port, bits, status);
+        IntBuffer status = intBuffer();
+        HAL.ANALOG.setAnalogAverageBits(m_port, bits, status);
         HALUtil.checkStatus(status);
     }
 
@@ -213,8 +214,8 @@ public class AnalogInput extends AnalogIO implements LiveWindowSendable, NumberS
      * @return The number of averaging bits.
      */
     public int getAverageBits() {
-        IntBuffer status = allocateInt();
-        int value = AnalogJNI.getAnalogAverageBits(m_port, status);
+        IntBuffer status = intBuffer();
+        int value = HAL.ANALOG.getAnalogAverageBits(m_port, status);
         HALUtil.checkStatus(status);
         return value;
     }
@@ -227,8 +228,8 @@ public class AnalogInput extends AnalogIO implements LiveWindowSendable, NumberS
      * @param bits The number of oversample bits.
      */
     public void setOversampleBits(final int bits) {
-        IntBuffer status = allocateInt();
-        AnalogJNI.setAnalogOversampleBits(m_port, bits, status);
+        IntBuffer status = intBuffer();
+        HAL.ANALOG.setAnalogOversampleBits(m_port, bits, status);
         HALUtil.checkStatus(status);
     }
 
@@ -240,8 +241,8 @@ public class AnalogInput extends AnalogIO implements LiveWindowSendable, NumberS
      * @return The number of oversample bits.
      */
     public int getOversampleBits() {
-        IntBuffer status = allocateInt();
-        int value = AnalogJNI.getAnalogOversampleBits(m_port, status);
+        IntBuffer status = intBuffer();
+        int value = HAL.ANALOG.getAnalogOversampleBits(m_port, status);
         HALUtil.checkStatus(status);
         return value;
     }
@@ -255,8 +256,8 @@ public class AnalogInput extends AnalogIO implements LiveWindowSendable, NumberS
                     + " on channels " + ACCUMULATOR_CHANNELS[0] + "," + ACCUMULATOR_CHANNELS[1]);
         }
         m_accumulatorOffset = 0;
-        IntBuffer status = allocateInt();
-        AnalogJNI.initAccumulator(m_port, status);
+        IntBuffer status = intBuffer();
+        HAL.ANALOG.initAccumulator(m_port, status);
         HALUtil.checkStatus(status);
     }
 
@@ -276,8 +277,8 @@ public class AnalogInput extends AnalogIO implements LiveWindowSendable, NumberS
      * Resets the accumulator to the initial value.
      */
     public void resetAccumulator() {
-        IntBuffer status = allocateInt();
-        AnalogJNI.resetAccumulator(m_port, status);
+        IntBuffer status = intBuffer();
+        HAL.ANALOG.resetAccumulator(m_port, status);
         HALUtil.checkStatus(status);
         final double sampleTime = 1.0 / getGlobalSampleRate();
         final double overSamples = 1 << getOversampleBits();
@@ -299,8 +300,8 @@ public class AnalogInput extends AnalogIO implements LiveWindowSendable, NumberS
      * @param center the center of the accumulator
      */
     public void setAccumulatorCenter(int center) {
-        IntBuffer status = allocateInt();
-        AnalogJNI.setAccumulatorCenter(m_port, center, status);
+        IntBuffer status = intBuffer();
+        HAL.ANALOG.setAccumulatorCenter(m_port, center, status);
         HALUtil.checkStatus(status);
     }
 
@@ -310,8 +311,8 @@ public class AnalogInput extends AnalogIO implements LiveWindowSendable, NumberS
      * @param deadband The deadband size in ADC codes (12-bit value)
      */
     public void setAccumulatorDeadband(int deadband) {
-        IntBuffer status = allocateInt();
-        AnalogJNI.setAccumulatorDeadband(m_port, deadband, status);
+        IntBuffer status = intBuffer();
+        HAL.ANALOG.setAccumulatorDeadband(m_port, deadband, status);
         HALUtil.checkStatus(status);
     }
 
@@ -324,8 +325,8 @@ public class AnalogInput extends AnalogIO implements LiveWindowSendable, NumberS
      * @return The 64-bit value accumulated since the last Reset().
      */
     public long getAccumulatorValue() {
-        IntBuffer status = allocateInt();
-        long value = AnalogJNI.getAccumulatorValue(m_port, status);
+        IntBuffer status = intBuffer();
+        long value = HAL.ANALOG.getAccumulatorValue(m_port, status);
         HALUtil.checkStatus(status);
         return value;
     }
@@ -339,8 +340,8 @@ public class AnalogInput extends AnalogIO implements LiveWindowSendable, NumberS
      * @return The number of times samples from the channel were accumulated.
      */
     public long getAccumulatorCount() {
-        IntBuffer status = allocateInt();
-        long value = AnalogJNI.getAccumulatorCount(m_port, status);
+        IntBuffer status = intBuffer();
+        long value = HAL.ANALOG.getAccumulatorCount(m_port, status);
         HALUtil.checkStatus(status);
         return value;
     }
@@ -359,12 +360,11 @@ public class AnalogInput extends AnalogIO implements LiveWindowSendable, NumberS
         if (!isAccumulatorChannel())
             throw new IllegalArgumentException(m_channel.name() + " is not an accumulator channel.");
 
-        ByteBuffer value = ByteBuffer.allocateDirect(8);
-        value.order(ByteOrder.LITTLE_ENDIAN);
-        IntBuffer count = allocateInt();
-        IntBuffer status = allocateInt();
-        AnalogJNI.getAccumulatorOutput(m_port, value.asLongBuffer(), count, status);
-        result.value = value.asLongBuffer().get(0) + m_accumulatorOffset;
+        LongBuffer value = longBuffer();
+        IntBuffer count = intBuffer();
+        IntBuffer status = intBuffer();
+        HAL.ANALOG.getAccumulatorOutput(m_port, value, count, status);
+        result.value = value.get(0) + m_accumulatorOffset;
         result.count = count.get(0);
         HALUtil.checkStatus(status);
     }
@@ -391,8 +391,8 @@ public class AnalogInput extends AnalogIO implements LiveWindowSendable, NumberS
      * @param samples The number of samples per second.
      */
     public static void setGlobalSampleRate(final double samples) {
-        IntBuffer status = allocateInt();
-        AnalogJNI.setAnalogSampleRate((float) samples, status);
+        IntBuffer status = intBuffer();
+        HAL.ANALOG.setAnalogSampleRate((float) samples, status);
         HALUtil.checkStatus(status);
     }
 
@@ -405,16 +405,16 @@ public class AnalogInput extends AnalogIO implements LiveWindowSendable, NumberS
      * @return Sample rate.
      */
     public static double getGlobalSampleRate() {
-        IntBuffer status = allocateInt();
-        double value = AnalogJNI.getAnalogSampleRate(status);
+        IntBuffer status = intBuffer();
+        double value = HAL.ANALOG.getAnalogSampleRate(status);
         HALUtil.checkStatus(status);
         return value;
     }
 
     public void initTrigger() {
-        IntBuffer status = allocateInt();
-        IntBuffer index = allocateInt();
-        m_triggerPort = AnalogJNI.initializeAnalogTrigger(m_portPointer, index, status);
+        IntBuffer status = intBuffer();
+        IntBuffer index = intBuffer();
+        m_triggerPort = HAL.ANALOG.initializeAnalogTrigger(m_portPointer, index, status);
         HALUtil.checkStatus(status);
         m_triggerIndex = index.get(0);
         UsageReporting.report(UsageReporting.ResourceType_AnalogTrigger, m_channel.ordinal());
@@ -432,8 +432,8 @@ public class AnalogInput extends AnalogIO implements LiveWindowSendable, NumberS
         if (lower > upper)
             throw new IllegalArgumentException("Lower bound is greater than upper");
 
-        IntBuffer status = allocateInt();
-        AnalogJNI.setAnalogTriggerLimitsRaw(m_triggerPort, lower, upper, status);
+        IntBuffer status = intBuffer();
+        HAL.ANALOG.setAnalogTriggerLimitsRaw(m_triggerPort, lower, upper, status);
         HALUtil.checkStatus(status);
     }
 
@@ -449,8 +449,8 @@ public class AnalogInput extends AnalogIO implements LiveWindowSendable, NumberS
         if (lower > upper)
             throw new IllegalArgumentException("Lower bound is greater than upper");
 
-        IntBuffer status = allocateInt();
-        AnalogJNI.setAnalogTriggerLimitsVoltage(m_triggerPort, lower, upper, status);
+        IntBuffer status = intBuffer();
+        HAL.ANALOG.setAnalogTriggerLimitsVoltage(m_triggerPort, lower, upper, status);
         HALUtil.checkStatus(status);
     }
 
@@ -463,8 +463,8 @@ public class AnalogInput extends AnalogIO implements LiveWindowSendable, NumberS
      */
     public void setAveraged(boolean useAveraged) {
         validateTrigger();
-        IntBuffer status = allocateInt();
-        AnalogJNI.setAnalogTriggerAveraged(m_triggerPort, (byte) (useAveraged ? 1 : 0), status);
+        IntBuffer status = intBuffer();
+        HAL.ANALOG.setAnalogTriggerAveraged(m_triggerPort, (byte) (useAveraged ? 1 : 0), status);
         HALUtil.checkStatus(status);
     }
 
@@ -478,8 +478,8 @@ public class AnalogInput extends AnalogIO implements LiveWindowSendable, NumberS
      */
     public void setFiltered(boolean useFiltered) {
         validateTrigger();
-        IntBuffer status = allocateInt();
-        AnalogJNI.setAnalogTriggerFiltered(m_triggerPort, (byte) (useFiltered ? 1 : 0), status);
+        IntBuffer status = intBuffer();
+        HAL.ANALOG.setAnalogTriggerFiltered(m_triggerPort, (byte) (useFiltered ? 1 : 0), status);
         HALUtil.checkStatus(status);
     }
 
@@ -502,8 +502,8 @@ public class AnalogInput extends AnalogIO implements LiveWindowSendable, NumberS
      */
     public boolean getInWindow() {
         validateTrigger();
-        IntBuffer status = allocateInt();
-        byte value = AnalogJNI.getAnalogTriggerInWindow(m_triggerPort, status);
+        IntBuffer status = intBuffer();
+        byte value = HAL.ANALOG.getAnalogTriggerInWindow(m_triggerPort, status);
         HALUtil.checkStatus(status);
         return value != 0;
     }
@@ -515,8 +515,8 @@ public class AnalogInput extends AnalogIO implements LiveWindowSendable, NumberS
      * @return The TriggerState output of the analog trigger.
      */
     public boolean getTriggerState() {
-        IntBuffer status = allocateInt();
-        byte value = AnalogJNI.getAnalogTriggerTriggerState(m_triggerPort, status);
+        IntBuffer status = intBuffer();
+        byte value = HAL.ANALOG.getAnalogTriggerTriggerState(m_triggerPort, status);
         HALUtil.checkStatus(status);
         return value != 0;
     }
@@ -541,8 +541,8 @@ public class AnalogInput extends AnalogIO implements LiveWindowSendable, NumberS
 
             @Override
             public boolean getState() {
-                IntBuffer status = allocateInt();
-                byte value = AnalogJNI.getAnalogTriggerOutput(m_triggerPort, type.ordinal(), status);
+                IntBuffer status = intBuffer();
+                byte value = HAL.ANALOG.getAnalogTriggerOutput(m_triggerPort, type.ordinal(), status);
                 HALUtil.checkStatus(status);
                 return value != 0;
             }
@@ -15,13 +15,13 @@
 
 package io.github.robolib.module.iface;
 
-import static io.github.robolib.util.Common.allocateInt;
+import static io.github.robolib.hal.HALBuffers.intBuffer;
 
 import java.nio.IntBuffer;
 
+import io.github.robolib.hal.HAL;
 import io.github.robolib.identifier.LiveWindowSendable;
 import io.github.robolib.identifier.NumberSink;
-import io.github.robolib.jni.AnalogJNI;
 import io.github.robolib.jni.HALUtil;
 import io.github.robolib.module.Module;
 import io.github.robolib.nettable.ITable;
@@ -58,8 +58,8 @@ public class AnalogOutput extends AnalogIO implements Module, LiveWindowSendable
     public void setVoltage(double voltage) {
         if (m_disabled)
             return;
-        IntBuffer status = allocateInt();
-        AnalogJNI.setAnalogOutput(m_port, voltage, status);
+        IntBuffer status = intBuffer();
+        HAL.ANALOG.setAnalogOutput(m_port, voltage, status);
         HALUtil.checkStatus(status);
     }
 
@@ -70,8 +70,8 @@ public class AnalogOutput extends AnalogIO implements Module, LiveWindowSendable
     public double getVoltage() {
         if (m_disabled)
             return 0.0D;
-        IntBuffer status = allocateInt();
-        double value = AnalogJNI.getAnalogOutput(m_port, status);
+        IntBuffer status = intBuffer();
+        double value = HAL.ANALOG.getAnalogOutput(m_port, status);
         HALUtil.checkStatus(status);
         return value;
     }
@@ -0,0 +1,406 @@
+/*
+ * Copyright (c) 2015-2020 noriah <vix@noriah.dev>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ */
+
+package io.github.robolib.module.iface;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.LockSupport;
+
+import io.github.robolib.util.Histogram;
+import io.github.robolib.util.log.ILogger;
+import io.github.robolib.util.log.Logger;
+
+/**
+ * Arbitrates one physical I2C or SPI bus between the devices on it.
+ *
+ * Every transaction on the bus first takes the bus. When several devices are
+ * waiting, the one with the highest {@link Priority} goes next, so a sensor poll
+ * is not stuck behind a long display write.
+ *
+ * The manager also owns a thread that runs bus work handed to it. Periodic
+ * sensor polls are added with {@link #schedule(Priority, Runnable, double)} and
+ * one-off work, such as display updates, with
+ * {@link #submit(Priority, Runnable)}. Work that is due runs in priority order.
+ *
+ * @author noriah <vix@noriah.dev>
+ */
+public final class BusManager {
+
+    /**
+     * How urgent a device's bus access is.
+     *
+     * @author noriah <vix@noriah.dev>
+     */
+    public static enum Priority {
+        /** Time sensitive sensor reads. */
+        HIGH,
+        /** Ordinary access. */
+        NORMAL,
+        /** Large or slow writes that can wait. */
+        BULK;
+    }
+
+    /**
+     * One device on a bus. Holds the device's priority and timing.
+     *
+     * @author noriah <vix@noriah.dev>
+     */
+    public static final class Client {
+
+        private final BusManager m_bus;
+        private final String m_name;
+        private volatile Priority m_priority = Priority.NORMAL;
+
+        private final Histogram m_wait = new Histogram();
+        private final Histogram m_hold = new Histogram();
+        private long m_acquired;
+
+        private Client(BusManager bus, String name) {
+            m_bus = bus;
+            m_name = name;
+        }
+
+        /**
+         * Take the bus, waiting behind any higher priority device.
+         */
+        public void acquire() {
+            long start = System.nanoTime();
+            m_bus.acquire(m_priority.ordinal());
+            m_acquired = System.nanoTime();
+            m_wait.record((m_acquired - start) / 1000);
+        }
+
+        /**
+         * Give the bus back.
+         */
+        public void release() {
+            long held = System.nanoTime() - m_acquired;
+            m_hold.record(held / 1000);
+            m_bus.release(held);
+        }
+
+        public void setPriority(Priority priority) {
+            m_priority = priority;
+        }
+
+        public Priority getPriority() {
+            return m_priority;
+        }
+
+        public String getName() {
+            return m_name;
+        }
+
+        public BusManager getBus() {
+            return m_bus;
+        }
+
+        /**
+         * @return how long this device waited for the bus, in microseconds
+         */
+        public Histogram getWaitTime() {
+            return m_wait;
+        }
+
+        /**
+         * @return how long this device held the bus, in microseconds
+         */
+        public Histogram getHoldTime() {
+            return m_hold;
+        }
+    }
+
+    /**
+     * Work run on the bus thread.
+     *
+     * @author noriah <vix@noriah.dev>
+     */
+    public final class Task {
+
+        private final Runnable m_task;
+        private final Priority m_priority;
+        private final long m_period;
+        private long m_deadline;
+        private long m_sequence;
+        private volatile boolean m_cancelled = false;
+
+        private final Histogram m_latency = new Histogram();
+
+        private Task(Runnable task, Priority priority, long period, long deadline) {
+            m_task = task;
+            m_priority = priority;
+            m_period = period;
+            m_deadline = deadline;
+        }
+
+        /**
+         * Stop this task. A one-off task that has not run yet never runs. If the
+         * task is running on the bus thread, this waits for it to finish, so the
+         * task never touches the bus after this returns.
+         */
+        public void cancel() {
+            m_cancelled = true;
+            // Runs hold the task's lock. The lock is reentrant, so a task may
+            // cancel itself.
+            synchronized (this) {
+            }
+        }
+
+        public boolean isCancelled() {
+            return m_cancelled;
+        }
+
+        /**
+         * @return the time from when the task was due until it finished, in
+         *         microseconds
+         */
+        public Histogram getLatency() {
+            return m_latency;
+        }
+    }
+
+    private static final BusManager[] I2C_BUSES = new BusManager[I2C.Port.values().length];
+    private static final BusManager SPI_ONBOARD = new BusManager("SPI Onboard");
+    private static final BusManager SPI_MXP = new BusManager("SPI MXP");
+
+    private static final ILogger m_log = Logger.get(BusManager.class);
+
+    static {
+        for (I2C.Port p : I2C.Port.values())
+            I2C_BUSES[p.ordinal()] = new BusManager("I2C " + p.name());
+    }
+
+    /**
+     * @param port an I2C port
+     * @return the manager for that bus
+     */
+    public static BusManager get(I2C.Port port) {
+        return I2C_BUSES[port.ordinal()];
+    }
+
+    /**
+     * The four onboard chip selects share one bus.
+     *
+     * @param port an SPI port
+     * @return the manager for that bus
+     */
+    public static BusManager get(SPI.Port port) {
+        return port == SPI.Port.MXP ? SPI_MXP : SPI_ONBOARD;
+    }
+
+    private final String m_name;
+    private final List<Client> m_clients = Collections.synchronizedList(new ArrayList<Client>());
+
+    // Bus arbitration, guarded by m_lock
+    private final Object m_lock = new Object();
+    private final int[] m_waiting = new int[Priority.values().length];
+    private boolean m_busy = false;
+    private long m_busyNanos = 0;
+    private long m_windowStart = System.nanoTime();
+    private long m_transactions = 0;
+
+    // Bus thread, guarded by m_queue
+    private final PriorityQueue<Task> m_timed = new PriorityQueue<>(
+            (a, b) -> Long.compare(a.m_deadline, b.m_deadline));
+    private final PriorityQueue<Task> m_queue = new PriorityQueue<>((a, b) -> {
+        int c = a.m_priority.compareTo(b.m_priority);
+        return c != 0 ? c : Long.compare(a.m_sequence, b.m_sequence);
+    });
+    private long m_sequence = 0;
+    private Thread m_thread;
+
+    private BusManager(String name) {
+        m_name = name;
+    }
+
+    /**
+     * Add a device to this bus.
+     *
+     * @param name a name for the device
+     * @return the device's client
+     */
+    public Client register(String name) {
+        Client c = new Client(this, name);
+        m_clients.add(c);
+        return c;
+    }
+
+    /**
+     * @return every device registered on this bus
+     */
+    public List<Client> getClients() {
+        synchronized (m_clients) {
+            return new ArrayList<Client>(m_clients);
+        }
+    }
+
+    public String getName() {
+        return m_name;
+    }
+
+    private void acquire(int priority) {
+        synchronized (m_lock) {
+            m_waiting[priority]++;
+            boolean interrupted = false;
+            while (m_busy || higherWaiting(priority)) {
+                try {
+                    m_lock.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            m_waiting[priority]--;
+            m_busy = true;
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean higherWaiting(int priority) {
+        for (int i = 0; i < priority; i++) {
+            if (m_waiting[i] > 0)
+                return true;
+        }
+        return false;
+    }
+
+    private void release(long heldNanos) {
+        synchronized (m_lock) {
+            m_busy = false;
+            m_busyNanos += heldNanos;
+            m_transactions++;
+            m_lock.notifyAll();
+        }
+    }
+
+    /**
+     * Get the share of time the bus was in use since the statistics were last
+     * reset.
+     *
+     * @return the utilization from 0 to 1
+     */
+    public double getUtilization() {
+        synchronized (m_lock) {
+            long elapsed = System.nanoTime() - m_windowStart;
+            return elapsed <= 0 ? 0.0 : (double) m_busyNanos / elapsed;
+        }
+    }
+
+    /**
+     * @return the number of transactions since the statistics were last reset
+     */
+    public long getTransactionCount() {
+        synchronized (m_lock) {
+            return m_transactions;
+        }
+    }
+
+    /**
+     * Reset the utilization and transaction count.
+     */
+    public void resetStatistics() {
+        synchronized (m_lock) {
+            m_busyNanos = 0;
+            m_transactions = 0;
+            m_windowStart = System.nanoTime();
+        }
+    }
+
+    /**
+     * Run work on the bus thread as soon as possible.
+     *
+     * @param priority the priority of the work
+     * @param task     the work
+     * @return the queued task
+     */
+    public Task submit(Priority priority, Runnable task) {
+        return add(new Task(task, priority, 0, System.nanoTime()));
+    }
+
+    /**
+     * Run work on the bus thread periodically.
+     *
+     * @param priority the priority of the work
+     * @param task     the work
+     * @param period   the time between runs in seconds
+     * @return the scheduled task
+     */
+    public Task schedule(Priority priority, Runnable task, double period) {
+        long p = (long) (period * 1e9);
+        if (p <= 0)
+            throw new IllegalArgumentException("Period must be greater than 0.");
+        return add(new Task(task, priority, p, System.nanoTime() + p));
+    }
+
+    private Task add(Task task) {
+        synchronized (m_queue) {
+            m_timed.add(task);
+            if (m_thread == null) {
+                m_thread = new Thread(this::run, m_name + " Bus Thread");
+                m_thread.setPriority(Thread.MAX_PRIORITY - 1);
+                m_thread.setDaemon(true);
+                m_thread.start();
+            }
+        }
+        LockSupport.unpark(m_thread);
+        return task;
+    }
+
+    private void run() {
+        Task task;
+        long now, wait;
+        while (true) {
+            synchronized (m_queue) {
+                now = System.nanoTime();
+                while (!m_timed.isEmpty() && m_timed.peek().m_deadline - now <= 0) {
+                    Task t = m_timed.poll();
+                    t.m_sequence = m_sequence++;
+                    m_queue.add(t);
+                }
+                task = m_queue.poll();
+                wait = m_timed.isEmpty() ? Long.MAX_VALUE : m_timed.peek().m_deadline - now;
+            }
+
+            if (task == null) {
+                LockSupport.parkNanos(wait);
+                continue;
+            }
+
+            synchronized (task) {
+                if (task.m_cancelled)
+                    continue;
+                try {
+                    task.m_task.run();
+                } catch (Throwable t) {
+                    m_log.error("Error in bus task", t);
+                }
+            }
+            now = System.nanoTime();
+            task.m_latency.record((now - task.m_deadline) / 1000);
+
+            if (task.m_period > 0 && !task.m_cancelled) {
+                task.m_deadline += task.m_period;
+                if (task.m_deadline - now <= 0)
+                    task.m_deadline += ((now - task.m_deadline) / task.m_period + 1) * task.m_period;
+                synchronized (m_queue) {
+                    m_timed.add(task);
+                }
+            }
+        }
+    }
+}
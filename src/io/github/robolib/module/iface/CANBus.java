@@ -0,0 +1,386 @@
+/*
+ * Copyright (c) 2015-2020 noriah <vix@noriah.dev>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ */
+
+package io.github.robolib.module.iface;
+
+import static io.github.robolib.hal.HALBuffers.intBuffer;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.github.robolib.hal.HAL;
+import io.github.robolib.identifier.UpdatingSendable;
+import io.github.robolib.jni.CANJNI;
+import io.github.robolib.jni.CANUtil;
+import io.github.robolib.module.RoboRIO;
+import io.github.robolib.nettable.ITable;
+import io.github.robolib.util.LoopScheduler;
+
+/**
+ * Governs output traffic on the CAN bus and measures how busy it is.
+ *
+ * Motor controllers ask an {@link Output} before sending a setpoint. A setpoint
+ * that has not changed is only sent again once the keep-alive interval has
+ * passed, so a loop that sets the same value every cycle does not fill the
+ * bus. Sync group updates are collected and sent as one frame per tick.
+ *
+ * Every frame the robot sends or receives is counted, and frames the HAL
+ * repeats on its own are counted from their period, to estimate the frame rate
+ * and the bus load.
+ *
+ * @author noriah <vix@noriah.dev>
+ */
+public final class CANBus implements UpdatingSendable {
+
+    /**
+     * The last setpoint sent by one device.
+     *
+     * @author noriah <vix@noriah.dev>
+     */
+    public final class Output {
+
+        private int m_key;
+        private long m_value;
+        private long m_lastSent;
+        private boolean m_valid = false;
+        private volatile long m_suppressed = 0;
+
+        private Output() {
+        }
+
+        /**
+         * Check if a setpoint should be sent. Returns true and records the
+         * setpoint if it differs from the last one sent, or if the last one was
+         * sent more than the keep-alive interval ago.
+         *
+         * @param key   anything else that changes the frame, such as the mode
+         * @param value the setpoint
+         * @return true if the frame should be sent
+         */
+        public synchronized boolean update(int key, double value) {
+            long bits = Double.doubleToLongBits(value);
+            long now = RoboRIO.getFPGATime();
+            if (m_coalesce && m_valid && key == m_key && bits == m_value && now - m_lastSent < m_keepAlive) {
+                m_suppressed++;
+                m_totalSuppressed.incrementAndGet();
+                return false;
+            }
+            m_key = key;
+            m_value = bits;
+            m_lastSent = now;
+            m_valid = true;
+            return true;
+        }
+
+        /**
+         * Forget the last setpoint, so the next one is always sent.
+         */
+        public synchronized void invalidate() {
+            m_valid = false;
+        }
+
+        /**
+         * @return the number of setpoints not sent because they had not changed
+         */
+        public long getSuppressedCount() {
+            return m_suppressed;
+        }
+    }
+
+    /** The default keep-alive interval, in seconds. */
+    public static final double DEFAULT_KEEP_ALIVE = 0.1;
+
+    /** The time between sync group flushes, in seconds. */
+    public static final double TICK_PERIOD = 0.005;
+
+    /** The bus bit rate. */
+    public static final int BIT_RATE = 1000000;
+
+    private static final long METRIC_WINDOW = 500000;
+    private static final int MAX_PERIODIC = 256;
+
+    private static CANBus m_instance;
+
+    /**
+     * @return the CAN bus
+     */
+    public static synchronized CANBus getInstance() {
+        if (m_instance == null)
+            m_instance = new CANBus();
+        return m_instance;
+    }
+
+    private volatile boolean m_coalesce = true;
+    private volatile long m_keepAlive = (long) (DEFAULT_KEEP_ALIVE * 1e6);
+
+    // Sync groups waiting for the next tick, guarded by m_syncFrame
+    private final ByteBuffer m_syncFrame = ByteBuffer.allocateDirect(1);
+    private byte m_pendingSync = 0;
+
+    // Frame counts, guarded by this
+    private long m_frames = 0;
+    private long m_windowFrames = 0;
+    private long m_windowBits = 0;
+    private long m_windowStart = 0;
+
+    // Frames the HAL repeats, guarded by this
+    private final int[] m_periodicIDs = new int[MAX_PERIODIC];
+    private final double[] m_periodicRates = new double[MAX_PERIODIC];
+    private final double[] m_periodicBits = new double[MAX_PERIODIC];
+    private int m_periodicCount = 0;
+    private double m_periodicFrameRate = 0;
+    private double m_periodicBitRate = 0;
+
+    private volatile double m_frameRate = 0;
+    private volatile double m_busLoad = 0;
+    private final AtomicLong m_totalSuppressed = new AtomicLong();
+
+    private LoopScheduler.Loop m_loop;
+    private ITable m_table;
+
+    private CANBus() {
+    }
+
+    /**
+     * Create the setpoint tracker for one device.
+     *
+     * @return a new output
+     */
+    public Output createOutput() {
+        start();
+        return new Output();
+    }
+
+    private synchronized void start() {
+        if (m_loop == null) {
+            m_windowStart = RoboRIO.getFPGATime();
+            m_loop = LoopScheduler.schedule(this::tick, TICK_PERIOD);
+        }
+    }
+
+    /**
+     * Turn suppression of unchanged setpoints on or off.
+     *
+     * @param enabled false to send every setpoint
+     */
+    public void setCoalescing(boolean enabled) {
+        m_coalesce = enabled;
+    }
+
+    public boolean isCoalescing() {
+        return m_coalesce;
+    }
+
+    /**
+     * Set how often an unchanged setpoint is sent again.
+     *
+     * @param seconds the keep-alive interval in seconds
+     */
+    public void setKeepAlive(double seconds) {
+        if (seconds < 0)
+            throw new IllegalArgumentException("Keep-alive must not be negative.");
+        m_keepAlive = (long) (seconds * 1e6);
+    }
+
+    public double getKeepAlive() {
+        return m_keepAlive / 1e6;
+    }
+
+    /**
+     * Worst case length of an extended frame in bits, with bit stuffing.
+     */
+    private static int frameBits(int dataSize) {
+        return 67 + 8 * dataSize + (54 + 8 * dataSize - 1) / 4;
+    }
+
+    /**
+     * Count a frame. A frame with a positive period is counted as repeating at
+     * that rate until it is sent again with
+     * {@link CANJNI#CAN_SEND_PERIOD_STOP_REPEATING}.
+     *
+     * @param messageID the arbitration id
+     * @param dataSize  the payload size in bytes
+     * @param periodMs  the repeat period, or one of the CAN_SEND_PERIOD constants
+     */
+    public synchronized void recordFrame(int messageID, int dataSize, int periodMs) {
+        int bits = frameBits(dataSize);
+        if (periodMs != CANJNI.CAN_SEND_PERIOD_STOP_REPEATING) {
+            m_frames++;
+            m_windowFrames++;
+            m_windowBits += bits;
+        }
+        if (periodMs != CANJNI.CAN_SEND_PERIOD_NO_REPEAT)
+            setPeriodic(messageID & CANJNI.CAN_MSGID_FULL_M, bits, periodMs);
+    }
+
+    /**
+     * Count a frame the device sends on its own at a fixed rate, such as a
+     * status frame.
+     *
+     * @param messageID the arbitration id
+     * @param dataSize  the payload size in bytes
+     * @param periodMs  the period, or 0 or less if it is no longer sent
+     */
+    public synchronized void recordPeriodic(int messageID, int dataSize, int periodMs) {
+        setPeriodic(messageID & CANJNI.CAN_MSGID_FULL_M, frameBits(dataSize),
+                periodMs > 0 ? periodMs : CANJNI.CAN_SEND_PERIOD_STOP_REPEATING);
+    }
+
+    private void setPeriodic(int id, int bits, int periodMs) {
+        int i = 0;
+        while (i < m_periodicCount && m_periodicIDs[i] != id)
+            i++;
+
+        if (periodMs <= 0) {
+            if (i < m_periodicCount) {
+                m_periodicCount--;
+                m_periodicIDs[i] = m_periodicIDs[m_periodicCount];
+                m_periodicRates[i] = m_periodicRates[m_periodicCount];
+                m_periodicBits[i] = m_periodicBits[m_periodicCount];
+            }
+        } else if (i < m_periodicCount || m_periodicCount < MAX_PERIODIC) {
+            if (i == m_periodicCount)
+                m_periodicCount++;
+            m_periodicIDs[i] = id;
+            m_periodicRates[i] = 1000.0 / periodMs;
+            m_periodicBits[i] = bits;
+        } else {
+            return;
+        }
+
+        m_periodicFrameRate = 0;
+        m_periodicBitRate = 0;
+        for (int j = 0; j < m_periodicCount; j++) {
+            m_periodicFrameRate += m_periodicRates[j];
+            m_periodicBitRate += m_periodicRates[j] * m_periodicBits[j];
+        }
+    }
+
+    /**
+     * Add sync groups to the sync frame sent on the next tick. Several
+     * requests in one tick are sent as one frame.
+     *
+     * @param syncGroup a bitmask of groups
+     */
+    public void requestSync(byte syncGroup) {
+        start();
+        synchronized (m_syncFrame) {
+            m_pendingSync |= syncGroup;
+        }
+    }
+
+    /**
+     * Send any pending sync groups now.
+     */
+    public void flushSync() {
+        synchronized (m_syncFrame) {
+            if (m_pendingSync == 0)
+                return;
+            m_syncFrame.put(0, m_pendingSync);
+            m_pendingSync = 0;
+
+            IntBuffer status = intBuffer();
+            HAL.CAN.sendMessage(CANJNI.CAN_MSGID_API_SYNC, m_syncFrame, CANJNI.CAN_SEND_PERIOD_NO_REPEAT, status);
+            int code = status.get(0);
+            if (code < 0)
+                CANUtil.checkStatus(code, CANJNI.CAN_MSGID_API_SYNC);
+        }
+        recordFrame(CANJNI.CAN_MSGID_API_SYNC, 1, CANJNI.CAN_SEND_PERIOD_NO_REPEAT);
+    }
+
+    private void tick() {
+        flushSync();
+
+        long now = RoboRIO.getFPGATime();
+        synchronized (this) {
+            long elapsed = now - m_windowStart;
+            if (elapsed < METRIC_WINDOW)
+                return;
+            double seconds = elapsed / 1e6;
+            m_frameRate = m_windowFrames / seconds + m_periodicFrameRate;
+            m_busLoad = (m_windowBits / seconds + m_periodicBitRate) / BIT_RATE;
+            m_windowFrames = 0;
+            m_windowBits = 0;
+            m_windowStart = now;
+        }
+    }
+
+    /**
+     * @return the number of frames sent or received, not counting repeats
+     *         made by the HAL
+     */
+    public synchronized long getFrameCount() {
+        return m_frames;
+    }
+
+    /**
+     * @return the estimated frames per second, including repeating frames
+     */
+    public double getFrameRate() {
+        return m_frameRate;
+    }
+
+    /**
+     * @return the estimated share of the bus bandwidth in use, from 0 to 1
+     */
+    public double getBusLoad() {
+        return m_busLoad;
+    }
+
+    /**
+     * @return the number of setpoints not sent because they had not changed
+     */
+    public long getSuppressedCount() {
+        return m_totalSuppressed.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void initTable(ITable subtable) {
+        m_table = subtable;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ITable getTable() {
+        return m_table;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getSmartDashboardType() {
+        return "CANBus";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void updateTable() {
+        if (m_table == null)
+            return;
+        m_table.putNumber("Frame Rate", m_frameRate);
+        m_table.putNumber("Bus Load", m_busLoad);
+        m_table.putNumber("Frames", getFrameCount());
+        m_table.putNumber("Suppressed", m_totalSuppressed.get());
+    }
+}
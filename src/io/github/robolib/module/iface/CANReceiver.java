@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2015-2020 noriah <vix@noriah.dev>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ */
+
+package io.github.robolib.module.iface;
+
+import static io.github.robolib.hal.HALBuffers.byteBuffer;
+import static io.github.robolib.hal.HALBuffers.intBuffer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+import io.github.robolib.hal.HAL;
+import io.github.robolib.jni.CANJNI;
+import io.github.robolib.jni.CANUtil;
+import io.github.robolib.module.RoboRIO;
+import io.github.robolib.util.LoopScheduler;
+import io.github.robolib.util.log.ILogger;
+import io.github.robolib.util.log.Logger;
+
+/**
+ * Receives CAN frames for every registered arbitration id on one loop.
+ *
+ * Devices register the ids of the status frames they want and decode each
+ * frame in a {@link Listener} into their own fields. Readers then get the last
+ * decoded value without touching the bus.
+ *
+ * @author noriah <vix@noriah.dev>
+ */
+public final class CANReceiver {
+
+    /**
+     * Decodes a received frame. Runs on the receive loop.
+     *
+     * @author noriah <vix@noriah.dev>
+     */
+    @FunctionalInterface
+    public static interface Listener {
+
+        /**
+         * @param data      the payload, little endian, valid only during this
+         *                  call
+         * @param timestamp the FPGA time the frame was received, in microseconds
+         */
+        void frameReceived(ByteBuffer data, long timestamp);
+    }
+
+    /**
+     * One arbitration id being received.
+     *
+     * @author noriah <vix@noriah.dev>
+     */
+    public static final class Registration {
+
+        private final int m_id;
+        private final Listener m_listener;
+
+        private volatile long m_lastTime = 0;
+        private volatile long m_frames = 0;
+        private volatile long m_errors = 0;
+        private long m_lastWarning = 0;
+
+        private Registration(int id, Listener listener) {
+            m_id = id;
+            m_listener = listener;
+        }
+
+        /**
+         * Stop receiving this id.
+         */
+        public void cancel() {
+            remove(this);
+        }
+
+        /**
+         * Check for a new frame now, on the calling thread.
+         *
+         * @return true if a frame was received
+         */
+        public boolean poll() {
+            return receive(this, intBuffer(), byteBuffer(), intBuffer());
+        }
+
+        public int getMessageID() {
+            return m_id;
+        }
+
+        /**
+         * @return the FPGA time of the last frame in microseconds, or 0 if none
+         *         has been received
+         */
+        public long getLastTime() {
+            return m_lastTime;
+        }
+
+        /**
+         * @return the number of frames received
+         */
+        public long getFrameCount() {
+            return m_frames;
+        }
+
+        /**
+         * @return the number of receive errors other than no new frame
+         */
+        public long getErrorCount() {
+            return m_errors;
+        }
+    }
+
+    /** The default time between receives, in seconds. */
+    public static final double DEFAULT_PERIOD = 0.01;
+
+    private static final long WARN_INTERVAL = 5000000;
+
+    private static final ILogger m_log = Logger.get(CANReceiver.class);
+
+    private static final Object m_lock = new Object();
+    private static volatile Registration[] m_registrations = new Registration[0];
+    private static LoopScheduler.Loop m_loop;
+    private static double m_period = DEFAULT_PERIOD;
+
+    private CANReceiver() {
+    }
+
+    /**
+     * Start receiving an arbitration id.
+     *
+     * @param messageID the full arbitration id, including the device number
+     * @param listener  decodes each frame
+     * @return the registration
+     */
+    public static Registration register(int messageID, Listener listener) {
+        if (listener == null)
+            throw new IllegalArgumentException("Listener must not be null.");
+
+        Registration r = new Registration(messageID & CANJNI.CAN_MSGID_FULL_M, listener);
+        synchronized (m_lock) {
+            Registration[] regs = Arrays.copyOf(m_registrations, m_registrations.length + 1);
+            regs[regs.length - 1] = r;
+            m_registrations = regs;
+            if (m_loop == null)
+                m_loop = LoopScheduler.schedule(CANReceiver::run, m_period);
+        }
+        return r;
+    }
+
+    private static void remove(Registration r) {
+        synchronized (m_lock) {
+            Registration[] regs = m_registrations;
+            for (int i = 0; i < regs.length; i++) {
+                if (regs[i] == r) {
+                    Registration[] next = new Registration[regs.length - 1];
+                    System.arraycopy(regs, 0, next, 0, i);
+                    System.arraycopy(regs, i + 1, next, i, regs.length - i - 1);
+                    m_registrations = next;
+                    break;
+                }
+            }
+            if (m_registrations.length == 0 && m_loop != null) {
+                m_loop.cancel();
+                m_loop = null;
+            }
+        }
+    }
+
+    /**
+     * Set the time between receives.
+     *
+     * @param seconds the period in seconds
+     */
+    public static void setPeriod(double seconds) {
+        if (seconds <= 0)
+            throw new IllegalArgumentException("Period must be greater than 0.");
+        synchronized (m_lock) {
+            m_period = seconds;
+            if (m_loop != null) {
+                m_loop.cancel();
+                m_loop = LoopScheduler.schedule(CANReceiver::run, m_period);
+            }
+        }
+    }
+
+    public static double getPeriod() {
+        return m_period;
+    }
+
+    /**
+     * @return the receive loop, for its timing, or null if nothing is registered
+     */
+    public static LoopScheduler.Loop getLoop() {
+        return m_loop;
+    }
+
+    private static void run() {
+        IntBuffer id = intBuffer();
+        ByteBuffer timeStamp = byteBuffer();
+        IntBuffer status = intBuffer();
+        for (Registration r : m_registrations) {
+            receive(r, id, timeStamp, status);
+        }
+    }
+
+    /**
+     * Receive one id. Each frame is stamped with the FPGA time it was read, so
+     * frames later in a pass are not given an earlier frame's time.
+     */
+    private static boolean receive(Registration r, IntBuffer id, ByteBuffer timeStamp, IntBuffer status) {
+        id.put(0, r.m_id);
+        status.put(0, 0);
+        ByteBuffer data = HAL.CAN.receiveMessage(id, CANJNI.CAN_MSGID_FULL_M, timeStamp, status);
+        int code = status.get(0);
+        if (CANUtil.isMessageNotFound(code))
+            return false;
+
+        long now = RoboRIO.getFPGATime();
+        if (code < 0) {
+            r.m_errors++;
+            if (now - r.m_lastWarning > WARN_INTERVAL) {
+                r.m_lastWarning = now;
+                m_log.warn("CAN receive failed for 0x" + Integer.toHexString(r.m_id) + " with status " + code);
+            }
+            return false;
+        }
+
+        data.order(ByteOrder.LITTLE_ENDIAN);
+        r.m_lastTime = now;
+        r.m_frames++;
+        try {
+            r.m_listener.frameReceived(data, now);
+        } catch (Throwable t) {
+            m_log.error("Error decoding CAN frame 0x" + Integer.toHexString(r.m_id), t);
+        }
+        return true;
+    }
+}
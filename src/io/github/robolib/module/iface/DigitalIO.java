@@ -15,12 +15,12 @@
 
 package io.github.robolib.module.iface;
 
-import static io.github.robolib.util.Common.allocateInt;
+import static io.github.robolib.hal.HALBuffers.intBuffer;
 
 import java.nio.ByteBuffer;
 import java.nio.IntBuffer;
 
-import io.github.robolib.jni.DIOJNI;
+import io.github.robolib.hal.HAL;
 import io.github.robolib.jni.HALUtil;
 import io.github.robolib.jni.UsageReporting;
 import io.github.robolib.lang.ResourceAllocationException;
@@ -178,11 +178,11 @@ public abstract class DigitalIO extends InterruptBase {
 
         byte isIn = (byte) (dir.equals(Direction.IN) ? 1 : 0);
 
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
 
-        m_port = DIOJNI.initializeDigitalPort(DIOJNI.getPort((byte) channel.ordinal()), status);
+        m_port = HAL.DIO.initializeDigitalPort(HAL.DIO.getPort((byte) channel.ordinal()), status);
         HALUtil.checkStatus(status);
-        DIOJNI.allocateDIO(m_port, isIn, status);
+        HAL.DIO.allocateDIO(m_port, isIn, status);
         HALUtil.checkStatus(status);
 
         UsageReporting.report((byte) (UsageReporting.ResourceType_DigitalOutput - isIn), channel.ordinal());
@@ -205,8 +205,8 @@ public abstract class DigitalIO extends InterruptBase {
 
         freeChannel(getChannel());
 
-        IntBuffer status = allocateInt();
-        DIOJNI.freeDIO(m_port, status);
+        IntBuffer status = intBuffer();
+        HAL.DIO.freeDIO(m_port, status);
         HALUtil.checkStatus(status);
 
         m_channel = null;
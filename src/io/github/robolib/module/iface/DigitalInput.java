@@ -15,13 +15,13 @@
 
 package io.github.robolib.module.iface;
 
-import static io.github.robolib.util.Common.allocateInt;
+import static io.github.robolib.hal.HALBuffers.intBuffer;
 
 import java.nio.IntBuffer;
 
+import io.github.robolib.hal.HAL;
 import io.github.robolib.identifier.BooleanSource;
 import io.github.robolib.identifier.Trigger;
-import io.github.robolib.jni.DIOJNI;
 import io.github.robolib.jni.HALUtil;
 
 /**
@@ -39,8 +39,8 @@ public class DigitalInput extends DigitalIO implements Trigger, BooleanSource {
      */
     @Override
     public boolean getState() {
-        IntBuffer status = allocateInt();
-        boolean value = DIOJNI.getDIO(m_port, status) == 0;
+        IntBuffer status = intBuffer();
+        boolean value = HAL.DIO.getDIO(m_port, status) == 0;
         HALUtil.checkStatus(status);
         return value;
     }
@@ -15,15 +15,14 @@
 
 package io.github.robolib.module.iface;
 
-import static io.github.robolib.util.Common.allocateInt;
+import static io.github.robolib.hal.HALBuffers.intBuffer;
 
 import java.nio.ByteBuffer;
 import java.nio.IntBuffer;
 
+import io.github.robolib.hal.HAL;
 import io.github.robolib.identifier.BooleanSink;
-import io.github.robolib.jni.DIOJNI;
 import io.github.robolib.jni.HALUtil;
-import io.github.robolib.jni.PWMJNI;
 
 /**
  *
@@ -44,8 +43,8 @@ public class DigitalOutput extends DigitalIO implements BooleanSink {
      */
     @Override
     public void setState(boolean value) {
-        IntBuffer status = allocateInt();
-        DIOJNI.setDIO(m_port, (short) (value ? 1 : 0), status);
+        IntBuffer status = intBuffer();
+        HAL.DIO.setDIO(m_port, (short) (value ? 1 : 0), status);
         HALUtil.checkStatus(status);
     }
 
@@ -56,8 +55,8 @@ public class DigitalOutput extends DigitalIO implements BooleanSink {
      * @param pulseLength The length of the pulse.
      */
     public final void pulse(double pulseLength) {
-        IntBuffer status = allocateInt();
-        DIOJNI.pulse(m_port, pulseLength, status);
+        IntBuffer status = intBuffer();
+        HAL.DIO.pulse(m_port, pulseLength, status);
         HALUtil.checkStatus(status);
     }
 
@@ -68,8 +67,8 @@ public class DigitalOutput extends DigitalIO implements BooleanSink {
      * @return true if pulsing
      */
     public final boolean isPulsing() {
-        IntBuffer status = allocateInt();
-        boolean value = DIOJNI.isPulsing(m_port, status) != 0;
+        IntBuffer status = intBuffer();
+        boolean value = HAL.DIO.isPulsing(m_port, status) != 0;
         HALUtil.checkStatus(status);
         return value;
     }
@@ -85,8 +84,8 @@ public class DigitalOutput extends DigitalIO implements BooleanSink {
      * @param rate The frequency to output all digital output PWM signals.
      */
     public static final void setPWMRate(double rate) {
-        IntBuffer status = allocateInt();
-        PWMJNI.setPWMRate(rate, status);
+        IntBuffer status = intBuffer();
+        HAL.PWM.setPWMRate(rate, status);
         HALUtil.checkStatus(status);
     }
 
@@ -107,12 +106,12 @@ public class DigitalOutput extends DigitalIO implements BooleanSink {
         if (m_pwmGenerator != null)
             return;
 
-        IntBuffer status = allocateInt();
-        m_pwmGenerator = PWMJNI.allocatePWM(status);
+        IntBuffer status = intBuffer();
+        m_pwmGenerator = HAL.PWM.allocatePWM(status);
         HALUtil.checkStatus(status);
-        PWMJNI.setPWMDutyCycle(m_pwmGenerator, initialDutyCycle, status);
+        HAL.PWM.setPWMDutyCycle(m_pwmGenerator, initialDutyCycle, status);
         HALUtil.checkStatus(status);
-        PWMJNI.setPWMOutputChannel(m_pwmGenerator, m_channel.ordinal(), status);
+        HAL.PWM.setPWMOutputChannel(m_pwmGenerator, m_channel.ordinal(), status);
     }
 
     /**
@@ -124,10 +123,10 @@ public class DigitalOutput extends DigitalIO implements BooleanSink {
         if (m_pwmGenerator == null)
             return;
 
-        IntBuffer status = allocateInt();
-        PWMJNI.setPWMOutputChannel(m_pwmGenerator, 26, status);
+        IntBuffer status = intBuffer();
+        HAL.PWM.setPWMOutputChannel(m_pwmGenerator, 26, status);
         HALUtil.checkStatus(status);
-        PWMJNI.freePWM(m_pwmGenerator, status);
+        HAL.PWM.freePWM(m_pwmGenerator, status);
         m_pwmGenerator = null;
     }
 
@@ -143,8 +142,8 @@ public class DigitalOutput extends DigitalIO implements BooleanSink {
         if (m_pwmGenerator == null)
             return;
 
-        IntBuffer status = allocateInt();
-        PWMJNI.setPWMDutyCycle(m_pwmGenerator, dutyCycle, status);
+        IntBuffer status = intBuffer();
+        HAL.PWM.setPWMDutyCycle(m_pwmGenerator, dutyCycle, status);
         HALUtil.checkStatus(status);
     }
 
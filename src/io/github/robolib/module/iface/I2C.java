@@ -15,23 +15,139 @@
 
 package io.github.robolib.module.iface;
 
-import static io.github.robolib.util.Common.allocateInt;
+import static io.github.robolib.hal.HALBuffers.intBuffer;
 
 import java.nio.ByteBuffer;
 import java.nio.IntBuffer;
+import java.util.Arrays;
 
 import io.github.robolib.jni.HALUtil;
 import io.github.robolib.jni.I2CJNI;
 import io.github.robolib.jni.UsageReporting;
+import io.github.robolib.util.Histogram;
 import io.github.robolib.util.MathUtils;
 
 /**
  * I2C bus interface class.
  *
+ * Each device owns one pair of direct buffers that every transaction reuses, so
+ * reads and writes do not allocate. Transactions on one device are serialized
+ * on the device.
+ *
  * @author noriah <vix@noriah.dev>
  */
 public class I2C extends Interface {
 
+    /** The most bytes one transaction can send or receive. */
+    public static final int MAX_TRANSFER = 255;
+
+    /**
+     * A fixed set of registers read together.
+     *
+     * Registers that are adjacent, or only a few apart, are read in a single
+     * transaction. Create a batch once with {@link I2C#createBatch(int...)} and
+     * call {@link #read()} each cycle.
+     *
+     * @author noriah <vix@noriah.dev>
+     */
+    public final class RegisterBatch {
+
+        /** Registers this close together are read in the same transaction. */
+        private static final int MAX_GAP = 3;
+
+        private final int[] m_runStart;
+        private final int[] m_runLength;
+        private final int[] m_runOffset;
+        private final byte[] m_data;
+
+        private RegisterBatch(int[] registers) {
+            int[] regs = registers.clone();
+            Arrays.sort(regs);
+
+            int[] start = new int[regs.length];
+            int[] length = new int[regs.length];
+            int runs = 0;
+            for (int reg : regs) {
+                if (runs > 0 && reg - (start[runs - 1] + length[runs - 1] - 1) <= MAX_GAP
+                        && reg - start[runs - 1] < MAX_TRANSFER) {
+                    length[runs - 1] = Math.max(length[runs - 1], reg - start[runs - 1] + 1);
+                } else {
+                    start[runs] = reg;
+                    length[runs] = 1;
+                    runs++;
+                }
+            }
+
+            m_runStart = Arrays.copyOf(start, runs);
+            m_runLength = Arrays.copyOf(length, runs);
+            m_runOffset = new int[runs];
+            int size = 0;
+            for (int i = 0; i < runs; i++) {
+                m_runOffset[i] = size;
+                size += m_runLength[i];
+            }
+            m_data = new byte[size];
+        }
+
+        /**
+         * Read every register in the batch.
+         *
+         * @return true if every transaction succeeded
+         */
+        public boolean read() {
+            boolean success = true;
+            synchronized (I2C.this) {
+                for (int i = 0; i < m_runStart.length; i++) {
+                    m_sendBuffer.put(0, (byte) m_runStart[i]);
+                    if (transfer(1, m_runLength[i])) {
+                        m_receiveBuffer.position(0);
+                        m_receiveBuffer.get(m_data, m_runOffset[i], m_runLength[i]);
+                    } else {
+                        success = false;
+                    }
+                }
+            }
+            return success;
+        }
+
+        /**
+         * @return the number of transactions one {@link #read()} makes
+         */
+        public int getTransactionCount() {
+            return m_runStart.length;
+        }
+
+        private int indexOf(int reg) {
+            for (int i = 0; i < m_runStart.length; i++) {
+                int offset = reg - m_runStart[i];
+                if (offset >= 0 && offset < m_runLength[i])
+                    return m_runOffset[i] + offset;
+            }
+            throw new IllegalArgumentException("Register " + reg + " is not in this batch.");
+        }
+
+        /**
+         * Get a register value from the last read.
+         *
+         * @param reg the register
+         * @return the value read
+         */
+        public byte get(int reg) {
+            return m_data[indexOf(reg)];
+        }
+
+        /**
+         * Get a big endian word from the last read.
+         *
+         * @param reg the register holding the high byte; reg + 1 holds the low byte
+         *            and must also be in the batch
+         * @return the word read
+         */
+        public short getWord(int reg) {
+            return (short) ((m_data[indexOf(reg)] << 8) | (m_data[indexOf(reg + 1)] & 0xFF));
+        }
+    }
+
     /**
      * Enum representation of I2C ports on the RIO
      *
@@ -49,6 +165,15 @@ public class I2C extends Interface {
     protected final byte m_address;
     private static final boolean INITIALIZED_PORTS[] = new boolean[2];
 
+    private final ByteBuffer m_sendBuffer = ByteBuffer.allocateDirect(MAX_TRANSFER);
+    private final ByteBuffer m_receiveBuffer = ByteBuffer.allocateDirect(MAX_TRANSFER);
+
+    private final BusManager.Client m_busClient;
+
+    private final Histogram m_latency = new Histogram();
+    private long m_transactions = 0;
+    private long m_failures = 0;
+
     /**
      * Constructor.
      *
@@ -66,12 +191,14 @@ public class I2C extends Interface {
         m_address = (byte) address;
 
         if (!INITIALIZED_PORTS[port.ordinal()]) {
-            IntBuffer status = allocateInt();
+            IntBuffer status = intBuffer();
             I2CJNI.i2CInitialize(m_port, status);
             HALUtil.checkStatus(status);
             INITIALIZED_PORTS[port.ordinal()] = true;
         }
 
+        m_busClient = BusManager.get(port).register(String.format("I2C 0x%02x", address));
+
         UsageReporting.report(UsageReporting.ResourceType_I2C, address);
 
     }
@@ -97,19 +224,64 @@ public class I2C extends Interface {
      */
     public synchronized final boolean transaction(byte[] dataToSend, int sendSize, byte[] dataReceived,
             int receiveSize) {
-        boolean success = false;
-        ByteBuffer dataSendBuffer = ByteBuffer.allocateDirect(sendSize);
-        dataSendBuffer.put(dataToSend);
-        ByteBuffer dataReceiveBuffer = ByteBuffer.allocateDirect(receiveSize);
+        if (sendSize > 0) {
+            m_sendBuffer.position(0);
+            m_sendBuffer.put(dataToSend, 0, sendSize);
+        }
 
-        success = I2CJNI.i2CTransaction(m_port, m_address, dataSendBuffer, (byte) sendSize, dataReceiveBuffer,
-                (byte) receiveSize) > 0;
+        boolean success = transfer(sendSize, receiveSize);
 
-        if (receiveSize > 0 && dataReceived != null)
-            dataReceiveBuffer.get(dataReceived, 0, receiveSize);
+        if (receiveSize > 0 && dataReceived != null) {
+            m_receiveBuffer.position(0);
+            m_receiveBuffer.get(dataReceived, 0, receiveSize);
+        }
 
         return success;
+    }
 
+    /**
+     * Run a transaction with whatever is in the send buffer. The caller must hold
+     * the lock on this device.
+     */
+    private boolean transfer(int sendSize, int receiveSize) {
+        checkSize(sendSize);
+        checkSize(receiveSize);
+        m_busClient.acquire();
+        try {
+            long start = System.nanoTime();
+            return record(start, I2CJNI.i2CTransaction(m_port, m_address, m_sendBuffer, (byte) sendSize,
+                    m_receiveBuffer, (byte) receiveSize) > 0);
+        } finally {
+            m_busClient.release();
+        }
+    }
+
+    /**
+     * Write whatever is in the send buffer. The caller must hold the lock on this
+     * device.
+     */
+    private boolean send(int sendSize) {
+        checkSize(sendSize);
+        m_busClient.acquire();
+        try {
+            long start = System.nanoTime();
+            return record(start, I2CJNI.i2CWrite(m_port, m_address, m_sendBuffer, (byte) sendSize) > 0);
+        } finally {
+            m_busClient.release();
+        }
+    }
+
+    private static void checkSize(int size) {
+        if (size > MAX_TRANSFER)
+            throw new IllegalArgumentException("I2C transfers are limited to " + MAX_TRANSFER + " bytes.");
+    }
+
+    private boolean record(long start, boolean success) {
+        m_latency.record((System.nanoTime() - start) / 1000);
+        m_transactions++;
+        if (!success)
+            m_failures++;
+        return success;
     }
 
     /**
@@ -135,10 +307,9 @@ public class I2C extends Interface {
      * @return Status of operation (true = success)
      */
     public synchronized final boolean write(int reg, int data) {
-        ByteBuffer dataToSendBuffer = ByteBuffer.allocateDirect(2);
-        dataToSendBuffer.put(new byte[] { (byte) reg, (byte) data });
-
-        return I2CJNI.i2CWrite(m_port, m_address, dataToSendBuffer, (byte) 2) > 0;
+        m_sendBuffer.put(0, (byte) reg);
+        m_sendBuffer.put(1, (byte) data);
+        return send(2);
     }
 
     /**
@@ -151,9 +322,9 @@ public class I2C extends Interface {
      * @return Status of operation (true = success)
      */
     public synchronized final boolean writeBulk(byte[] data) {
-        ByteBuffer b = ByteBuffer.allocateDirect(data.length);
-        b.put(data);
-        return I2CJNI.i2CWrite(m_port, m_address, b, (byte) data.length) > 0;
+        m_sendBuffer.position(0);
+        m_sendBuffer.put(data);
+        return send(data.length);
     }
 
     /**
@@ -177,10 +348,11 @@ public class I2C extends Interface {
      * @return Status of operation (true = success)
      */
     public synchronized final boolean writeBit(int reg, int bit, boolean value) {
-        byte[] b = new byte[1];
-        readByte(reg, b);
-        b[0] = (byte) (value ? (b[0] | (1 << bit)) : (b[0] & ~(1 << bit)));
-        return writeByte(reg, b[0]);
+        m_sendBuffer.put(0, (byte) reg);
+        transfer(1, 1);
+        byte b = m_receiveBuffer.get(0);
+        b = (byte) (value ? (b | (1 << bit)) : (b & ~(1 << bit)));
+        return write(reg, b);
     }
 
     /**
@@ -193,14 +365,15 @@ public class I2C extends Interface {
      * @return Status of operation (true = success)
      */
     public synchronized final boolean writeBits(int reg, int bitStart, int length, byte data) {
-        byte[] b = new byte[1];
-        if (readByte(reg, b)) {
+        m_sendBuffer.put(0, (byte) reg);
+        if (transfer(1, 1)) {
+            byte b = m_receiveBuffer.get(0);
             byte mask = (byte) (((1 << length) - 1) << (bitStart - length + 1));
             data <<= (bitStart - length + 1);
             data &= mask;
-            b[0] &= ~(mask);
-            b[0] |= data;
-            return writeByte(reg, b[0]);
+            b &= ~(mask);
+            b |= data;
+            return write(reg, b);
         }
         return false;
     }
@@ -224,7 +397,10 @@ public class I2C extends Interface {
      * @return Status of operation (true = success)
      */
     public synchronized final boolean writeWord(int reg, short data) {
-        return writeWords(reg, new short[] { data }, 1);
+        m_sendBuffer.put(0, (byte) reg);
+        m_sendBuffer.put(1, (byte) (data >> 8));
+        m_sendBuffer.put(2, (byte) data);
+        return send(3);
     }
 
     /**
@@ -236,10 +412,10 @@ public class I2C extends Interface {
      * @return Status of operation (true = success)
      */
     public synchronized final boolean writeBytes(int reg, byte[] data, int length) {
-        ByteBuffer b = ByteBuffer.allocateDirect(data.length + 1);
-        b.put((byte) reg);
-        b.put(data);
-        return I2CJNI.i2CWrite(m_port, m_address, b, (byte) (data.length + 1)) > 0;
+        m_sendBuffer.position(0);
+        m_sendBuffer.put((byte) reg);
+        m_sendBuffer.put(data, 0, length);
+        return send(length + 1);
     }
 
     /**
@@ -251,12 +427,12 @@ public class I2C extends Interface {
      * @return Status of operation (true = success)
      */
     public synchronized final boolean writeWords(int reg, short[] data, int length) {
-        byte[] out = new byte[length * 2];
+        m_sendBuffer.put(0, (byte) reg);
         for (int i = 0; i < length; i++) {
-            out[i * 2] = (byte) (data[i] >> 8);
-            out[i * 2 + 1] = (byte) data[i];
+            m_sendBuffer.put(1 + i * 2, (byte) (data[i] >> 8));
+            m_sendBuffer.put(2 + i * 2, (byte) data[i]);
         }
-        return writeBytes(reg, out, length * 2);
+        return send(length * 2 + 1);
     }
 
     /**
@@ -281,9 +457,9 @@ public class I2C extends Interface {
      * @return the value of the bit as a boolean
      */
     public synchronized final boolean readBit(int reg, int bit) {
-        byte[] a = new byte[1];
-        readBit(reg, bit, a);
-        return (a[0] & 0x01) != 0;
+        m_sendBuffer.put(0, (byte) reg);
+        transfer(1, 1);
+        return (m_receiveBuffer.get(0) & (1 << bit)) != 0;
     }
 
     /**
@@ -297,12 +473,13 @@ public class I2C extends Interface {
      * @return Status of read operation (true = success)
      */
     public synchronized final boolean readBits(int reg, int bitStart, int length, byte[] data) {
-        byte[] b = new byte[1];
-        if (readByte(reg, b)) {
+        m_sendBuffer.put(0, (byte) reg);
+        if (transfer(1, 1)) {
+            byte b = m_receiveBuffer.get(0);
             byte mask = (byte) (((1 << length) - 1) << (bitStart - length + 1));
-            b[0] &= mask;
-            b[0] >>= (byte) (bitStart - length + 1);
-            data[0] = b[0];
+            b &= mask;
+            b >>= (byte) (bitStart - length + 1);
+            data[0] = b;
             return true;
         }
         return false;
@@ -351,11 +528,10 @@ public class I2C extends Interface {
      * @return Status of read operation (true = success)
      */
     public synchronized final boolean readWords(int reg, short[] data, int length) {
-
-        byte[] intermediate = new byte[length * 2];
-        if (read(reg, intermediate, length * 2)) {
+        m_sendBuffer.put(0, (byte) reg);
+        if (transfer(1, length * 2)) {
             for (int i = 0; i < length; i++) {
-                data[i] = (short) ((intermediate[i * 2] << 8) | intermediate[i * 2 + 1]);
+                data[i] = (short) ((m_receiveBuffer.get(i * 2) << 8) | (m_receiveBuffer.get(i * 2 + 1) & 0xFF));
             }
             return true;
         }
@@ -375,13 +551,17 @@ public class I2C extends Interface {
      * @param count  The number of bytes to read in the transaction.
      * @return Status of operation (true = success)
      */
-    public final boolean read(int reg, byte[] buffer, int count) {
+    public synchronized final boolean read(int reg, byte[] buffer, int count) {
         /*
          * if(!MathUtils.inBounds(count, 1, 7)) throw new
          * IllegalArgumentException("Count must be between 1 and 7");
          */
 
-        return transaction(new byte[] { (byte) reg }, 1, buffer, count);
+        m_sendBuffer.put(0, (byte) reg);
+        boolean success = transfer(1, count);
+        m_receiveBuffer.position(0);
+        m_receiveBuffer.get(buffer, 0, count);
+        return success;
     }
 
     /**
@@ -395,15 +575,72 @@ public class I2C extends Interface {
      * @param count  The number of bytes to read in the transaction.
      * @return Status of operation (true = success)
      */
-    public final boolean readOnly(byte[] buffer, int count) {
+    public synchronized final boolean readOnly(byte[] buffer, int count) {
         if (!MathUtils.inBounds(count, 1, 7))
             throw new IllegalArgumentException("Count must be between 1 and 7");
 
-        ByteBuffer b = ByteBuffer.allocateDirect(count);
+        boolean success;
+        m_busClient.acquire();
+        try {
+            long start = System.nanoTime();
+            success = record(start, I2CJNI.i2CRead(m_port, m_address, m_receiveBuffer, (byte) count) > 0);
+        } finally {
+            m_busClient.release();
+        }
+        m_receiveBuffer.position(0);
+        m_receiveBuffer.get(buffer, 0, count);
+        return success;
+    }
+
+    /**
+     * Create a batch that reads a set of registers in as few transactions as
+     * possible.
+     *
+     * @param registers the registers to read
+     * @return the batch
+     */
+    public final RegisterBatch createBatch(int... registers) {
+        if (registers.length == 0)
+            throw new IllegalArgumentException("A batch needs at least one register.");
+        return new RegisterBatch(registers);
+    }
+
+    /**
+     * Set how urgently this device needs the bus when other devices on the same
+     * port are waiting.
+     *
+     * @param priority the bus priority
+     */
+    public final void setBusPriority(BusManager.Priority priority) {
+        m_busClient.setPriority(priority);
+    }
+
+    /**
+     * @return this device's client on its {@link BusManager}
+     */
+    public final BusManager.Client getBusClient() {
+        return m_busClient;
+    }
+
+    /**
+     * @return the number of transactions made with this device
+     */
+    public synchronized final long getTransactionCount() {
+        return m_transactions;
+    }
+
+    /**
+     * @return the number of transactions with this device that failed
+     */
+    public synchronized final long getFailureCount() {
+        return m_failures;
+    }
 
-        int value = I2CJNI.i2CRead(m_port, m_address, b, (byte) count);
-        b.get(buffer);
-        return value > 0;
+    /**
+     * @return the time each transaction with this device took, in microseconds
+     */
+    public final Histogram getLatency() {
+        return m_latency;
     }
 
     /**
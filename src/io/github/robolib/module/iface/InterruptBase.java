@@ -15,7 +15,7 @@
 
 package io.github.robolib.module.iface;
 
-import static io.github.robolib.util.Common.allocateInt;
+import static io.github.robolib.hal.HALBuffers.intBuffer;
 
 import java.nio.ByteBuffer;
 import java.nio.IntBuffer;
@@ -38,10 +38,13 @@ public abstract class InterruptBase extends Interface {
 
     protected int m_interruptIndex;
 
-    private static byte m_allocated = 0;
+    private InterruptDispatcher.Source m_dispatchSource = null;
+
+    /** One bit per hardware interrupt in use. */
+    private static int m_allocated = 0;
 
     static {
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         InterruptJNI.initializeInterruptJVM(status);
         HALUtil.checkStatus(status);
     }
@@ -97,11 +100,39 @@ public abstract class InterruptBase extends Interface {
         allocateInterrupt(false);
         assert (m_interrupt != null);
 
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         InterruptJNI.attachInterruptHandler(m_interrupt, handler, handler.getParameter(), status);
         HALUtil.checkStatus(status);
     }
 
+    /**
+     * Request one of the 8 interrupts asynchronously and have its handler run on
+     * the {@link InterruptDispatcher} thread instead of the HAL thread. The
+     * default is interrupt on rising edges only.
+     *
+     * @param handler called with the mask and the FPGA time of each edge
+     * @return the dispatcher source, with event counts and latency
+     */
+    public final InterruptDispatcher.Source requestDispatchedInterrupt(InterruptDispatcher.Handler handler) {
+        if (m_interrupt != null)
+            throw new ResourceAllocationException("Interrupt already allocated");
+
+        InterruptDispatcher.Source source = InterruptDispatcher.register(this, handler);
+        try {
+            allocateInterrupt(false);
+        } catch (RuntimeException e) {
+            InterruptDispatcher.unregister(source);
+            throw e;
+        }
+        assert (m_interrupt != null);
+
+        IntBuffer status = intBuffer();
+        InterruptJNI.attachInterruptHandler(m_interrupt, InterruptDispatcher.HAL_HANDLER, source, status);
+        HALUtil.checkStatus(status);
+        m_dispatchSource = source;
+        return source;
+    }
+
     /**
      * Request one of the 8 interrupts synchronously on this digital input. Request
      * interrupts in synchronous mode where the user program will have to explicitly
@@ -125,19 +156,35 @@ public abstract class InterruptBase extends Interface {
      *                occur.
      */
     protected final void allocateInterrupt(boolean watcher) {
-        if (m_allocated >= 8)
-            throw new ResourceAllocationException("No more interrupts available");
+        synchronized (InterruptBase.class) {
+            if (m_allocated == 0xFF)
+                throw new ResourceAllocationException("No more interrupts available");
+            m_interruptIndex = Integer.numberOfTrailingZeros(~m_allocated);
+            m_allocated |= 1 << m_interruptIndex;
+        }
 
         m_isSyncInterrupt = watcher;
-        IntBuffer status = allocateInt();
-        m_interrupt = InterruptJNI.initializeInterrupts(m_allocated++, (byte) (watcher ? 1 : 0), status);
-        HALUtil.checkStatus(status);
-
-        InterruptJNI.requestInterrupts(m_interrupt, getModuleNumber(), getChannelNumber(),
-                (byte) (isAnalogTrigger() ? 1 : 0), status);
-        HALUtil.checkStatus(status);
-        InterruptJNI.setInterruptUpSourceEdge(m_interrupt, (byte) 1, (byte) 0, status);
-        HALUtil.checkStatus(status);
+        IntBuffer status = intBuffer();
+        try {
+            m_interrupt = InterruptJNI.initializeInterrupts(m_interruptIndex, (byte) (watcher ? 1 : 0), status);
+            HALUtil.checkStatus(status);
+
+            InterruptJNI.requestInterrupts(m_interrupt, getModuleNumber(), getChannelNumber(),
+                    (byte) (isAnalogTrigger() ? 1 : 0), status);
+            HALUtil.checkStatus(status);
+            InterruptJNI.setInterruptUpSourceEdge(m_interrupt, (byte) 1, (byte) 0, status);
+            HALUtil.checkStatus(status);
+        } catch (RuntimeException e) {
+            // Give the index back so a failed request does not leak one of the 8.
+            if (m_interrupt != null) {
+                InterruptJNI.cleanInterrupts(m_interrupt, intBuffer());
+                m_interrupt = null;
+            }
+            synchronized (InterruptBase.class) {
+                m_allocated &= ~(1 << m_interruptIndex);
+            }
+            throw e;
+        }
     }
 
     /**
@@ -146,11 +193,17 @@ public abstract class InterruptBase extends Interface {
      */
     public final void cancelInterrupt() {
         validateInterrupt();
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         InterruptJNI.cleanInterrupts(m_interrupt, status);
         HALUtil.checkStatus(status);
         m_interrupt = null;
-        m_allocated--;
+        if (m_dispatchSource != null) {
+            InterruptDispatcher.unregister(m_dispatchSource);
+            m_dispatchSource = null;
+        }
+        synchronized (InterruptBase.class) {
+            m_allocated &= ~(1 << m_interruptIndex);
+        }
     }
 
     /**
@@ -171,7 +224,7 @@ public abstract class InterruptBase extends Interface {
      */
     public final void waitForInterrupt(double timeout, boolean ignorePrevious) {
         validateInterrupt();
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         InterruptJNI.waitForInterrupt(m_interrupt, timeout, ignorePrevious, status);
         HALUtil.checkStatus(status);
     }
@@ -186,7 +239,7 @@ public abstract class InterruptBase extends Interface {
         if (m_isSyncInterrupt)
             return;
 
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         InterruptJNI.enableInterrupts(m_interrupt, status);
         HALUtil.checkStatus(status);
     }
@@ -199,7 +252,7 @@ public abstract class InterruptBase extends Interface {
         if (m_isSyncInterrupt)
             throw new IllegalStateException("You can not disable synchronous interrupts");
 
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         InterruptJNI.disableInterrupts(m_interrupt, status);
         HALUtil.checkStatus(status);
     }
@@ -213,7 +266,7 @@ public abstract class InterruptBase extends Interface {
      */
     public final double readRisingTimestamp() {
         validateInterrupt();
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         double timestamp = InterruptJNI.readRisingTimestamp(m_interrupt, status);
         HALUtil.checkStatus(status);
         return timestamp;
@@ -228,7 +281,7 @@ public abstract class InterruptBase extends Interface {
      */
     public final double readFallingTimestamp() {
         validateInterrupt();
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         double timestamp = InterruptJNI.readFallingTimestamp(m_interrupt, status);
         HALUtil.checkStatus(status);
         return timestamp;
@@ -242,7 +295,7 @@ public abstract class InterruptBase extends Interface {
      */
     public final void setUpSourceEdge(boolean risingEdge, boolean fallingEdge) {
         validateInterrupt();
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         InterruptJNI.setInterruptUpSourceEdge(m_interrupt, (byte) (risingEdge ? 1 : 0), (byte) (fallingEdge ? 1 : 0),
                 status);
         HALUtil.checkStatus(status);
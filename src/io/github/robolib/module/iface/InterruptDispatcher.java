@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2015-2020 noriah <vix@noriah.dev>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ */
+
+package io.github.robolib.module.iface;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import io.github.robolib.jni.InterruptJNI.InterruptJNIHandlerFunction;
+import io.github.robolib.module.RoboRIO;
+import io.github.robolib.util.Histogram;
+import io.github.robolib.util.log.ILogger;
+import io.github.robolib.util.log.Logger;
+
+/**
+ * Runs interrupt handlers for every interrupt on one thread.
+ *
+ * The HAL callback only stamps the edge with the FPGA time and puts it in a
+ * lock-free queue, so it returns at once. The dispatcher thread takes events
+ * off the queue in order and calls the handlers. A slow handler delays later
+ * events, but never the HAL, and every edge keeps the time it was seen.
+ *
+ * Interrupts are sent here with
+ * {@link InterruptBase#requestDispatchedInterrupt(Handler)}.
+ *
+ * @author noriah <vix@noriah.dev>
+ */
+public final class InterruptDispatcher {
+
+    /**
+     * Called on the dispatcher thread for each interrupt.
+     *
+     * @author noriah <vix@noriah.dev>
+     */
+    @FunctionalInterface
+    public static interface Handler {
+
+        /**
+         * @param mask      the asserted mask from the HAL
+         * @param timestamp the FPGA time the edge was seen, in microseconds
+         */
+        void interruptFired(int mask, long timestamp);
+    }
+
+    /**
+     * One interrupt sent to the dispatcher.
+     *
+     * @author noriah <vix@noriah.dev>
+     */
+    public static final class Source {
+
+        private final InterruptBase m_input;
+        private final Handler m_handler;
+        private volatile boolean m_detached = false;
+
+        private volatile long m_events = 0;
+        private final AtomicLong m_dropped = new AtomicLong();
+        private final Histogram m_latency = new Histogram();
+
+        private Source(InterruptBase input, Handler handler) {
+            m_input = input;
+            m_handler = handler;
+        }
+
+        /**
+         * Cancel the interrupt. Events still queued for it are dropped.
+         */
+        public void detach() {
+            m_input.cancelInterrupt();
+        }
+
+        public boolean isDetached() {
+            return m_detached;
+        }
+
+        public InterruptBase getInput() {
+            return m_input;
+        }
+
+        /**
+         * @return the number of events handled
+         */
+        public long getEventCount() {
+            return m_events;
+        }
+
+        /**
+         * @return the number of events lost because the queue was full
+         */
+        public long getDroppedCount() {
+            return m_dropped.get();
+        }
+
+        /**
+         * @return the time from the edge until its handler was called, in
+         *         microseconds
+         */
+        public Histogram getLatency() {
+            return m_latency;
+        }
+    }
+
+    /** The number of events the queue holds. Must be a power of two. */
+    public static final int QUEUE_SIZE = 1024;
+
+    private static final int MASK = QUEUE_SIZE - 1;
+
+    /** Given to the HAL for every dispatched interrupt, with the Source as the parameter. */
+    static final InterruptJNIHandlerFunction HAL_HANDLER = (mask, param) -> post((Source) param, mask);
+
+    private static final ILogger m_log = Logger.get(InterruptDispatcher.class);
+
+    // Bounded queue. A slot's sequence tells whether it is free to write
+    // (sequence == position) or ready to read (sequence == position + 1).
+    private static final AtomicLongArray m_slots = new AtomicLongArray(QUEUE_SIZE);
+    private static final Source[] m_sources = new Source[QUEUE_SIZE];
+    private static final int[] m_masks = new int[QUEUE_SIZE];
+    private static final long[] m_times = new long[QUEUE_SIZE];
+    private static final AtomicLong m_tail = new AtomicLong();
+    private static long m_head = 0;
+
+    private static Thread m_thread;
+    private static volatile boolean m_parked = false;
+
+    static {
+        for (int i = 0; i < QUEUE_SIZE; i++)
+            m_slots.set(i, i);
+    }
+
+    private InterruptDispatcher() {
+    }
+
+    static synchronized Source register(InterruptBase input, Handler handler) {
+        if (handler == null)
+            throw new IllegalArgumentException("Handler must not be null.");
+
+        if (m_thread == null) {
+            m_thread = new Thread(InterruptDispatcher::run, "Interrupt Dispatcher");
+            m_thread.setPriority(Thread.MAX_PRIORITY - 1);
+            m_thread.setDaemon(true);
+            m_thread.start();
+        }
+        return new Source(input, handler);
+    }
+
+    static void unregister(Source source) {
+        source.m_detached = true;
+    }
+
+    /**
+     * Queue an event. Called on the HAL thread.
+     */
+    private static void post(Source source, int mask) {
+        long time = RoboRIO.getFPGATime();
+        long pos = m_tail.get();
+        int i;
+        while (true) {
+            i = (int) (pos & MASK);
+            long diff = m_slots.get(i) - pos;
+            if (diff == 0) {
+                if (m_tail.compareAndSet(pos, pos + 1))
+                    break;
+                pos = m_tail.get();
+            } else if (diff < 0) {
+                source.m_dropped.incrementAndGet();
+                return;
+            } else {
+                pos = m_tail.get();
+            }
+        }
+
+        m_sources[i] = source;
+        m_masks[i] = mask;
+        m_times[i] = time;
+        m_slots.set(i, pos + 1);
+
+        if (m_parked)
+            LockSupport.unpark(m_thread);
+    }
+
+    /**
+     * @return the number of events waiting to be handled
+     */
+    public static int getBacklog() {
+        return (int) Math.max(0, m_tail.get() - m_head);
+    }
+
+    private static void run() {
+        while (true) {
+            int i = (int) (m_head & MASK);
+            if (m_slots.get(i) != m_head + 1) {
+                m_parked = true;
+                if (m_slots.get(i) != m_head + 1)
+                    LockSupport.park();
+                m_parked = false;
+                continue;
+            }
+
+            Source source = m_sources[i];
+            int mask = m_masks[i];
+            long time = m_times[i];
+            m_sources[i] = null;
+            m_slots.set(i, m_head + QUEUE_SIZE);
+            m_head++;
+
+            if (source.m_detached)
+                continue;
+
+            source.m_latency.record(RoboRIO.getFPGATime() - time);
+            source.m_events++;
+            try {
+                source.m_handler.interruptFired(mask, time);
+            } catch (Throwable t) {
+                m_log.error("Error in interrupt handler", t);
+            }
+        }
+    }
+}
@@ -15,16 +15,15 @@
 
 package io.github.robolib.module.iface;
 
-import static io.github.robolib.util.Common.allocateInt;
+import static io.github.robolib.hal.HALBuffers.intBuffer;
 
 import java.nio.ByteBuffer;
 import java.nio.IntBuffer;
 
+import io.github.robolib.hal.HAL;
 import io.github.robolib.identifier.LiveWindowSendable;
 import io.github.robolib.identifier.NumberSink;
-import io.github.robolib.jni.DIOJNI;
 import io.github.robolib.jni.HALUtil;
-import io.github.robolib.jni.PWMJNI;
 import io.github.robolib.jni.UsageReporting;
 import io.github.robolib.lang.ResourceAllocationException;
 import io.github.robolib.module.Module;
@@ -239,18 +238,18 @@ public class PWM extends Interface implements Module, LiveWindowSendable, Number
 
         m_channel = channel;
 
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
 
-        m_port = DIOJNI.initializeDigitalPort(DIOJNI.getPort((byte) getChannelNumber()), status);
+        m_port = HAL.DIO.initializeDigitalPort(HAL.DIO.getPort((byte) getChannelNumber()), status);
         HALUtil.checkStatus(status);
 
-        if (!PWMJNI.allocatePWMChannel(m_port, status)) {
+        if (!HAL.PWM.allocatePWMChannel(m_port, status)) {
             throw new ResourceAllocationException(
                     "Cannot create '" + desc + "', PWM channel '" + getChannelName() + "' already in use.");
         }
         HALUtil.checkStatus(status);
 
-        PWMJNI.setPWM(m_port, (short) 0, status);
+        HAL.PWM.setPWM(m_port, (short) 0, status);
         HALUtil.checkStatus(status);
 
         m_eliminateDeadband = false;
@@ -273,15 +272,15 @@ public class PWM extends Interface implements Module, LiveWindowSendable, Number
      */
     public void free() {
         if (freeChannel(getChannel())) {
-            IntBuffer status = allocateInt();
+            IntBuffer status = intBuffer();
 
-            PWMJNI.setPWM(m_port, (short) 0, status);
+            HAL.PWM.setPWM(m_port, (short) 0, status);
             HALUtil.checkStatus(status);
 
-            PWMJNI.freePWMChannel(m_port, status);
+            HAL.PWM.freePWMChannel(m_port, status);
             HALUtil.checkStatus(status);
 
-            PWMJNI.freeDIO(m_port, status);
+            HAL.DIO.freeDIO(m_port, status);
             HALUtil.checkStatus(status);
 
             m_channel = null;
@@ -363,7 +362,7 @@ public class PWM extends Interface implements Module, LiveWindowSendable, Number
      * @param min     The minimum PWM pulse in ms
      */
     public final void setBounds(double max, double deadMax, double center, double deadMin, double min) {
-        double loopTime = DIOJNI.getLoopTiming(allocateInt()) / (SYSTEM_CLOCK_TICKS_PER_MICROSEC * 1e3);
+        double loopTime = HAL.DIO.getLoopTiming(intBuffer()) / (SYSTEM_CLOCK_TICKS_PER_MICROSEC * 1e3);
         m_boundsPositiveMax = (int) ((max - PWM_DEFAULT_CENTER) / loopTime + PWM_DEFAULT_STEPS_DOWN - 1);
         m_boundsNegativeMin = (int) ((min - PWM_DEFAULT_CENTER) / loopTime + PWM_DEFAULT_STEPS_DOWN - 1);
         m_boundsCenter = (int) ((center - PWM_DEFAULT_CENTER) / loopTime + PWM_DEFAULT_STEPS_DOWN - 1);
@@ -473,8 +472,8 @@ public class PWM extends Interface implements Module, LiveWindowSendable, Number
      * @param value Raw PWM value. Range 0 - 255.
      */
     protected final void setRaw(int value) {
-        IntBuffer status = allocateInt();
-        PWMJNI.setPWM(m_port, (short) value, status);
+        IntBuffer status = intBuffer();
+        HAL.PWM.setPWM(m_port, (short) value, status);
         HALUtil.checkStatus(status);
     }
 
@@ -487,8 +486,8 @@ public class PWM extends Interface implements Module, LiveWindowSendable, Number
      */
     public final int getRaw() {
         // if(m_disabled) return m_boundsCenter;
-        IntBuffer status = allocateInt();
-        int value = PWMJNI.getPWM(m_port, status);
+        IntBuffer status = intBuffer();
+        int value = HAL.PWM.getPWM(m_port, status);
         HALUtil.checkStatus(status);
         return value;
     }
@@ -527,8 +526,8 @@ public class PWM extends Interface implements Module, LiveWindowSendable, Number
      * @param multi The PeriodMultiplier enum
      */
     public final void setPeriodMultiplier(PeriodMultiplier multi) {
-        IntBuffer status = allocateInt();
-        PWMJNI.setPWMPeriodScale(m_port, multi.value, status);
+        IntBuffer status = intBuffer();
+        HAL.PWM.setPWMPeriodScale(m_port, multi.value, status);
         HALUtil.checkStatus(status);
     }
 
@@ -536,8 +535,8 @@ public class PWM extends Interface implements Module, LiveWindowSendable, Number
      * Sets the zero latch.
      */
     protected final void setZeroLatch() {
-        IntBuffer status = allocateInt();
-        PWMJNI.latchPWMZero(m_port, status);
+        IntBuffer status = intBuffer();
+        HAL.PWM.latchPWMZero(m_port, status);
         HALUtil.checkStatus(status);
     }
 
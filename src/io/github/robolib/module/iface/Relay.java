@@ -15,12 +15,12 @@
 
 package io.github.robolib.module.iface;
 
-import static io.github.robolib.util.Common.allocateInt;
+import static io.github.robolib.hal.HALBuffers.intBuffer;
 
 import java.nio.ByteBuffer;
 import java.nio.IntBuffer;
 
-import io.github.robolib.jni.DIOJNI;
+import io.github.robolib.hal.HAL;
 import io.github.robolib.jni.HALUtil;
 import io.github.robolib.jni.RelayJNI;
 import io.github.robolib.jni.UsageReporting;
@@ -134,8 +134,8 @@ public final class Relay extends Interface implements Module {
                     "Cannot create '" + desc + "', Relay channel '" + channel.name() + "' already in use.");
         }
 
-        IntBuffer status = allocateInt();
-        m_port = DIOJNI.initializeDigitalPort(DIOJNI.getPort((byte) channel.ordinal()), status);
+        IntBuffer status = intBuffer();
+        m_port = HAL.DIO.initializeDigitalPort(HAL.DIO.getPort((byte) channel.ordinal()), status);
         HALUtil.checkStatus(status);
         set(RelayValue.OFF);
 
@@ -154,9 +154,9 @@ public final class Relay extends Interface implements Module {
                     .error("Relay Channel '" + getChannelName() + "' was not allocated. How did you get here?");
         }
 
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         set(RelayValue.OFF);
-        DIOJNI.freeDIO(m_port, status);
+        HAL.DIO.freeDIO(m_port, status);
         HALUtil.checkStatus(status);
     }
 
@@ -186,7 +186,7 @@ public final class Relay extends Interface implements Module {
     public void set(RelayValue value) {
         if (m_disabled)
             return;
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         switch (value) {
             case OFF:
                 RelayJNI.setRelayForward(m_port, RELAY_OFF, status);
@@ -231,7 +231,7 @@ public final class Relay extends Interface implements Module {
     public RelayValue get() {
         if (m_disabled)
             return RelayValue.OFF;
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         int forward = RelayJNI.getRelayForward(m_port, status);
         int reverse = RelayJNI.getRelayReverse(m_port, status) << 1;
         return RelayValue.values()[(forward | reverse)];
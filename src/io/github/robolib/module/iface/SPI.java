@@ -15,7 +15,7 @@
 
 package io.github.robolib.module.iface;
 
-import static io.github.robolib.util.Common.allocateInt;
+import static io.github.robolib.hal.HALBuffers.intBuffer;
 
 import java.nio.ByteBuffer;
 import java.nio.IntBuffer;
@@ -48,6 +48,8 @@ public class SPI extends Interface {
 
     private static final boolean[] ALLOCATED_PORTS = new boolean[5];
 
+    private final BusManager.Client m_busClient;
+
     /**
      * Constructor
      *
@@ -68,7 +70,7 @@ public class SPI extends Interface {
 
         ALLOCATED_PORTS[port.ordinal()] = true;
 
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
 
         m_port = (byte) port.ordinal();
         // m_devices++;
@@ -76,9 +78,28 @@ public class SPI extends Interface {
         SPIJNI.spiInitialize(m_port, status);
         HALUtil.checkStatus(status);
 
+        m_busClient = BusManager.get(port).register("SPI " + port.name());
+
         UsageReporting.report(UsageReporting.ResourceType_SPI, port.ordinal());
     }
 
+    /**
+     * Set how urgently this device needs the bus when other devices on the same
+     * bus are waiting.
+     *
+     * @param priority the bus priority
+     */
+    public final void setBusPriority(BusManager.Priority priority) {
+        m_busClient.setPriority(priority);
+    }
+
+    /**
+     * @return this device's client on its {@link BusManager}
+     */
+    public final BusManager.Client getBusClient() {
+        return m_busClient;
+    }
+
     /**
      * Free the resources used by this object
      */
@@ -154,7 +175,7 @@ public class SPI extends Interface {
      * Configure the chip select line to be active high.
      */
     public final void setChipSelectActiveHigh() {
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         SPIJNI.spiSetChipSelectActiveHigh(m_port, status);
         HALUtil.checkStatus(status);
     }
@@ -163,7 +184,7 @@ public class SPI extends Interface {
      * Configure the chip select line to be active low.
      */
     public final void setChipSelectActiveLow() {
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         SPIJNI.spiSetChipSelectActiveLow(m_port, status);
         HALUtil.checkStatus(status);
     }
@@ -178,11 +199,16 @@ public class SPI extends Interface {
      * @param data the data to write
      * @param size the number of bytes to send
      */
-    public final int write(byte[] data, int size) {
+    public synchronized final int write(byte[] data, int size) {
         int retVal = 0;
         ByteBuffer dB = ByteBuffer.allocateDirect(size);
         dB.put(data);
-        retVal = SPIJNI.spiWrite(m_port, dB, (byte) size);
+        m_busClient.acquire();
+        try {
+            retVal = SPIJNI.spiWrite(m_port, dB, (byte) size);
+        } finally {
+            m_busClient.release();
+        }
         return retVal;
     }
 
@@ -201,15 +227,20 @@ public class SPI extends Interface {
      * @param data     the buffer to read into
      * @param size     the number of bytes to read
      */
-    public final int read(Boolean initiate, byte[] data, int size) {
+    public synchronized final int read(Boolean initiate, byte[] data, int size) {
         int retVal = 0;
         ByteBuffer dRB = ByteBuffer.allocateDirect(size);
 
-        if (initiate) {
-            ByteBuffer dSB = ByteBuffer.allocateDirect(size);
-            retVal = SPIJNI.spiTransaction(m_port, dSB, dRB, (byte) size);
-        } else {
-            retVal = SPIJNI.spiRead(m_port, dRB, (byte) size);
+        m_busClient.acquire();
+        try {
+            if (initiate) {
+                ByteBuffer dSB = ByteBuffer.allocateDirect(size);
+                retVal = SPIJNI.spiTransaction(m_port, dSB, dRB, (byte) size);
+            } else {
+                retVal = SPIJNI.spiRead(m_port, dRB, (byte) size);
+            }
+        } finally {
+            m_busClient.release();
         }
         dRB.get(data);
         return retVal;
@@ -222,12 +253,17 @@ public class SPI extends Interface {
      * @param dataGet  Buffer to receive data from the device
      * @param size     The length of the transaction, in bytes
      */
-    public final int transaction(byte[] dataSend, byte[] dataGet, int size) {
+    public synchronized final int transaction(byte[] dataSend, byte[] dataGet, int size) {
         int retVal = 0;
         ByteBuffer dSB = ByteBuffer.allocateDirect(size);
         dSB.put(dataSend);
         ByteBuffer dRB = ByteBuffer.allocateDirect(size);
-        retVal = SPIJNI.spiTransaction(m_port, dSB, dRB, (byte) size);
+        m_busClient.acquire();
+        try {
+            retVal = SPIJNI.spiTransaction(m_port, dSB, dRB, (byte) size);
+        } finally {
+            m_busClient.release();
+        }
         dRB.get(dataGet);
         return retVal;
     }
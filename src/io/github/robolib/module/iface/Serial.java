@@ -15,7 +15,7 @@
 
 package io.github.robolib.module.iface;
 
-import static io.github.robolib.util.Common.allocateInt;
+import static io.github.robolib.hal.HALBuffers.intBuffer;
 
 import java.io.UnsupportedEncodingException;
 import java.nio.ByteBuffer;
@@ -135,7 +135,7 @@ public final class Serial extends Interface {
 
         m_port = (byte) port.ordinal();
 
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         SerialPortJNI.serialInitializePort(m_port, status);
         HALUtil.checkStatus(status);
         SerialPortJNI.serialSetBaudRate(m_port, baudRate, status);
@@ -173,7 +173,7 @@ public final class Serial extends Interface {
      * @param flowControl the FlowControl value to use
      */
     public void setFlowControl(FlowControl flowControl) {
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         SerialPortJNI.serialSetFlowControl(m_port, flowControl.value, status);
         HALUtil.checkStatus(status);
     }
@@ -188,7 +188,7 @@ public final class Serial extends Interface {
      * @param terminator The character to use for termination.
      */
     public void enableTermination(char terminator) {
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         SerialPortJNI.serialEnableTermination(m_port, terminator, status);
         HALUtil.checkStatus(status);
     }
@@ -210,7 +210,7 @@ public final class Serial extends Interface {
      * Disable termination behavior.
      */
     public void disableTermination() {
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         SerialPortJNI.serialDisableTermination(m_port, status);
         HALUtil.checkStatus(status);
     }
@@ -222,7 +222,7 @@ public final class Serial extends Interface {
      */
     public int getBytesReceived() {
         int retVal = 0;
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         retVal = SerialPortJNI.serialGetBytesRecieved(m_port, status);
         HALUtil.checkStatus(status);
         return retVal;
@@ -260,7 +260,7 @@ public final class Serial extends Interface {
      * @return An array of the read bytes
      */
     public byte[] read(final int count) {
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         ByteBuffer data = ByteBuffer.allocateDirect(count);
         int got = SerialPortJNI.serialRead(m_port, data, count, status);
         HALUtil.checkStatus(status);
@@ -277,7 +277,7 @@ public final class Serial extends Interface {
      * @return The number of bytes actually written into the port.
      */
     public int write(byte[] buffer, int count) {
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         ByteBuffer data = ByteBuffer.allocateDirect(count);
         data.put(buffer);
         int retVal = SerialPortJNI.serialWrite(m_port, data, count, status);
@@ -305,7 +305,7 @@ public final class Serial extends Interface {
      * @param timeout The number of seconds to to wait for I/O.
      */
     public void setTimeout(double timeout) {
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         SerialPortJNI.serialSetTimeout(m_port, (float) timeout, status);
         HALUtil.checkStatus(status);
     }
@@ -323,7 +323,7 @@ public final class Serial extends Interface {
      * @param size The read buffer size.
      */
     public void setReadBufferSize(int size) {
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         SerialPortJNI.serialSetReadBufferSize(m_port, size, status);
         HALUtil.checkStatus(status);
     }
@@ -337,7 +337,7 @@ public final class Serial extends Interface {
      * @param size The write buffer size.
      */
     public void setWriteBufferSize(int size) {
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         SerialPortJNI.serialSetWriteBufferSize(m_port, size, status);
         HALUtil.checkStatus(status);
     }
@@ -354,7 +354,7 @@ public final class Serial extends Interface {
      * @param mode The write buffer mode.
      */
     public void setBufferMode(BufferMode mode) {
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         SerialPortJNI.serialSetWriteMode(m_port, mode.value, status);
         HALUtil.checkStatus(status);
     }
@@ -366,7 +366,7 @@ public final class Serial extends Interface {
      * flush before the buffer is full.
      */
     public void flush() {
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         SerialPortJNI.serialFlush(m_port, status);
         HALUtil.checkStatus(status);
     }
@@ -377,7 +377,7 @@ public final class Serial extends Interface {
      * Empty the transmit and receive buffers in the device and formatted I/O.
      */
     public void reset() {
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         SerialPortJNI.serialClear(m_port, status);
         HALUtil.checkStatus(status);
     }
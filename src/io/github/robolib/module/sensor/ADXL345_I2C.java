@@ -15,6 +15,7 @@
 
 package io.github.robolib.module.sensor;
 
+import io.github.robolib.module.iface.BusManager;
 import io.github.robolib.module.iface.I2C;
 import io.github.robolib.nettable.ITable;
 
@@ -33,6 +34,7 @@ public class ADXL345_I2C extends I2C implements ADXL345, SensorModule {
      */
     public ADXL345_I2C(Port port, int address) {
         super(port, address);
+        setBusPriority(BusManager.Priority.HIGH);
     }
 
     /**
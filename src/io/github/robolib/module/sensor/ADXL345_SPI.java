@@ -19,6 +19,7 @@ import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
 import io.github.robolib.jni.UsageReporting;
+import io.github.robolib.module.iface.BusManager;
 import io.github.robolib.module.iface.SPI;
 import io.github.robolib.nettable.ITable;
 
@@ -38,6 +39,7 @@ public class ADXL345_SPI extends SPI implements ADXL345, SensorModule {
      */
     public ADXL345_SPI(Port port, AccelRange range) {
         super(port);
+        setBusPriority(BusManager.Priority.HIGH);
         setClockRate(500000);
         setMSBFirst();
         setSampleDataOnFalling();
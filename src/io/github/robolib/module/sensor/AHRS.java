@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2015-2020 noriah <vix@noriah.dev>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ */
+
+package io.github.robolib.module.sensor;
+
+import io.github.robolib.identifier.AngleSource;
+import io.github.robolib.identifier.RateSource;
+import io.github.robolib.module.RoboRIO;
+import io.github.robolib.module.iface.BusManager;
+import io.github.robolib.module.sensor.mpu6050.MPU6050;
+import io.github.robolib.util.Histogram;
+import io.github.robolib.util.log.Logger;
+
+/**
+ * Attitude and heading reference from an MPU6050 and an optional HMC5883L.
+ *
+ * A high priority task on the MPU6050's {@link BusManager} thread burst reads
+ * both sensors at a fixed rate and feeds them through a {@link MadgwickFilter}.
+ * Results are published as an immutable {@link Orientation}, so readers never
+ * block the task or touch the bus. The
+ * gyro bias is measured over the first second, during which the robot should
+ * stay still. The sensors must be mounted with their axes aligned.
+ *
+ * As an {@link AngleSource} and {@link RateSource} this reports yaw.
+ *
+ * @author noriah <vix@noriah.dev>
+ */
+public class AHRS implements AngleSource, RateSource {
+
+    /**
+     * One published orientation.
+     *
+     * @author noriah <vix@noriah.dev>
+     */
+    public static final class Orientation {
+
+        static final Orientation ZERO = new Orientation(0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0);
+
+        private final double m_yaw, m_pitch, m_roll;
+        private final double m_yawRate, m_pitchRate, m_rollRate;
+        private final long m_time;
+
+        Orientation(double yaw, double pitch, double roll, double yawRate, double pitchRate, double rollRate,
+                long time) {
+            m_yaw = yaw;
+            m_pitch = pitch;
+            m_roll = roll;
+            m_yawRate = yawRate;
+            m_pitchRate = pitchRate;
+            m_rollRate = rollRate;
+            m_time = time;
+        }
+
+        /** @return rotation about Z in degrees, -180 to 180 */
+        public double getYaw() {
+            return m_yaw;
+        }
+
+        /** @return rotation about Y in degrees, -90 to 90 */
+        public double getPitch() {
+            return m_pitch;
+        }
+
+        /** @return rotation about X in degrees, -180 to 180 */
+        public double getRoll() {
+            return m_roll;
+        }
+
+        /** @return rate about Z in degrees per second */
+        public double getYawRate() {
+            return m_yawRate;
+        }
+
+        /** @return rate about Y in degrees per second */
+        public double getPitchRate() {
+            return m_pitchRate;
+        }
+
+        /** @return rate about X in degrees per second */
+        public double getRollRate() {
+            return m_rollRate;
+        }
+
+        /** @return the FPGA time of the readings in microseconds */
+        public long getTime() {
+            return m_time;
+        }
+    }
+
+    /** The HMC5883L updates at 75 Hz at most. */
+    private static final int COMPASS_RATE = 75;
+
+    private final MPU6050 m_mpu;
+    private final HMC5883L m_compass;
+    private final MadgwickFilter m_filter;
+    private final long m_period;
+    private final int m_compassDivider;
+    private final int m_calibrationSamples;
+
+    private final short[] m_motion = new short[6];
+    private final double[] m_mag = new double[3];
+    private final double[] m_bias = new double[3];
+    private double m_gyroScale;
+
+    private final Histogram m_updateTime = new Histogram();
+
+    private volatile Orientation m_orientation = Orientation.ZERO;
+    private volatile boolean m_ready = false;
+    private volatile boolean m_resetRequested = false;
+    private BusManager.Task m_task;
+
+    // Update state, only touched by the task
+    private final double[] m_biasSum = new double[3];
+    private int m_samples;
+    private int m_cycle;
+    private long m_last;
+
+    /**
+     * @param mpu     the gyro and accelerometer
+     * @param compass the magnetometer, or null to fuse only the MPU6050
+     * @param rate    the update rate in Hz
+     */
+    public AHRS(MPU6050 mpu, HMC5883L compass, int rate) {
+        this(mpu, compass, rate, MadgwickFilter.DEFAULT_BETA);
+    }
+
+    /**
+     * @param mpu     the gyro and accelerometer
+     * @param compass the magnetometer, or null to fuse only the MPU6050
+     * @param rate    the update rate in Hz
+     * @param beta    the filter gain
+     */
+    public AHRS(MPU6050 mpu, HMC5883L compass, int rate, double beta) {
+        if (rate < 1 || rate > 1000)
+            throw new IllegalArgumentException("Rate must be between 1 and 1000 Hz.");
+        m_mpu = mpu;
+        m_compass = compass;
+        m_filter = new MadgwickFilter(beta);
+        m_period = 1000000L / rate;
+        m_compassDivider = Math.max(1, rate / COMPASS_RATE);
+        m_calibrationSamples = rate;
+    }
+
+    /**
+     * Start the fusion task.
+     */
+    public synchronized void start() {
+        if (m_task != null)
+            return;
+        m_gyroScale = (1 << m_mpu.getFullScaleGyroRange().ordinal()) / 131.0;
+        m_biasSum[0] = m_biasSum[1] = m_biasSum[2] = 0.0;
+        m_samples = 0;
+        m_cycle = 0;
+        m_last = RoboRIO.getFPGATime();
+        m_task = m_mpu.getBusClient().getBus().schedule(BusManager.Priority.HIGH, this::update, m_period * 1e-6);
+    }
+
+    /**
+     * Stop the fusion task. The last orientation stays published.
+     */
+    public synchronized void stop() {
+        if (m_task == null)
+            return;
+        m_task.cancel();
+        m_task = null;
+    }
+
+    /**
+     * Reset the orientation to level with zero heading.
+     */
+    public void reset() {
+        m_resetRequested = true;
+    }
+
+    private void update() {
+        long now = RoboRIO.getFPGATime();
+        try {
+            m_mpu.getMotion6(m_motion);
+            if (m_compass != null && m_cycle++ % m_compassDivider == 0)
+                m_compass.getAllMagnitudes(m_mag);
+        } catch (RuntimeException e) {
+            Logger.get(AHRS.class).error("AHRS sensor read failed", e);
+            return;
+        }
+
+        double gx = m_motion[3] * m_gyroScale;
+        double gy = m_motion[4] * m_gyroScale;
+        double gz = m_motion[5] * m_gyroScale;
+
+        if (m_samples < m_calibrationSamples) {
+            m_biasSum[0] += gx;
+            m_biasSum[1] += gy;
+            m_biasSum[2] += gz;
+            if (++m_samples == m_calibrationSamples) {
+                m_bias[0] = m_biasSum[0] / m_samples;
+                m_bias[1] = m_biasSum[1] / m_samples;
+                m_bias[2] = m_biasSum[2] / m_samples;
+                m_ready = true;
+            }
+            m_last = now;
+            return;
+        }
+
+        if (m_resetRequested) {
+            m_resetRequested = false;
+            m_filter.reset();
+        }
+
+        gx -= m_bias[0];
+        gy -= m_bias[1];
+        gz -= m_bias[2];
+        double dt = (now - m_last) * 1e-6;
+        m_last = now;
+
+        m_filter.update(Math.toRadians(gx), Math.toRadians(gy), Math.toRadians(gz), m_motion[0], m_motion[1],
+                m_motion[2], m_mag[0], m_mag[1], m_mag[2], dt);
+
+        m_orientation = new Orientation(m_filter.getYaw(), m_filter.getPitch(), m_filter.getRoll(), gz, gy, gx,
+                now);
+        m_updateTime.record(RoboRIO.getFPGATime() - now);
+    }
+
+    /**
+     * Get the latest orientation. All values in it come from the same update.
+     *
+     * @return the latest orientation
+     */
+    public Orientation getOrientation() {
+        return m_orientation;
+    }
+
+    /**
+     * @return true once the gyro bias has been measured
+     */
+    public boolean isReady() {
+        return m_ready;
+    }
+
+    /**
+     * @return the heading in degrees, -180 to 180
+     */
+    @Override
+    public double getAngle() {
+        return m_orientation.getYaw();
+    }
+
+    /**
+     * @return the yaw rate in degrees per second
+     */
+    @Override
+    public double getRate() {
+        return m_orientation.getYawRate();
+    }
+
+    public AngleSource getPitchSource() {
+        return () -> m_orientation.getPitch();
+    }
+
+    public AngleSource getRollSource() {
+        return () -> m_orientation.getRoll();
+    }
+
+    public RateSource getPitchRateSource() {
+        return () -> m_orientation.getPitchRate();
+    }
+
+    public RateSource getRollRateSource() {
+        return () -> m_orientation.getRollRate();
+    }
+
+    /**
+     * @return the time taken by each read and filter update, in microseconds
+     */
+    public Histogram getUpdateTime() {
+        return m_updateTime;
+    }
+}
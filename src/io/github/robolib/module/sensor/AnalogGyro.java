@@ -15,6 +15,13 @@
 
 package io.github.robolib.module.sensor;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Properties;
+
+import io.github.robolib.RobotState;
 import io.github.robolib.identifier.AngleSource;
 import io.github.robolib.identifier.LiveWindowSendable;
 import io.github.robolib.identifier.PIDSource;
@@ -22,6 +29,7 @@ import io.github.robolib.identifier.RateSource;
 import io.github.robolib.jni.UsageReporting;
 import io.github.robolib.module.iface.AnalogInput;
 import io.github.robolib.util.Timer;
+import io.github.robolib.util.log.Logger;
 
 /**
  *
@@ -43,14 +51,47 @@ public class AnalogGyro extends AnalogInput
 
     public static final double DEF_VOLTAGE_PER_DEGREE = 0.0072;
 
-    private double m_VperDperS;
-    private double m_offset;
-    private double m_co;
+    /** The default file calibrations are kept in. */
+    public static final String DEF_CALIBRATION_FILE = "/home/lvuser/gyro_calibration.properties";
+
+    private static String m_calibrationFile = DEF_CALIBRATION_FILE;
+
+    private volatile double m_VperDperS;
+    private volatile double m_offset;
+    private volatile double m_co;
+    // Bias already taken out of the samples counted before the last refine,
+    // so a new offset only applies to later samples. Guarded by this.
+    private double m_adjust;
     private int m_center;
-    private AccumulatorResult m_results;
+    private final AccumulatorResult m_results;
     private PIDSourceType m_sType;
 
+    private volatile boolean m_ready = false;
+    private volatile boolean m_calibrating = false;
+
+    /**
+     * Create a gyro and calibrate it. This blocks for
+     * {@link #CALIBRATE_SAMPLE_TIME} seconds while the robot must stay still.
+     *
+     * @param channel the analog channel the gyro is on
+     */
     public AnalogGyro(AnalogChannel channel) {
+        this(channel, false);
+    }
+
+    /**
+     * Create a gyro.
+     *
+     * In background mode the constructor returns at once. If a calibration for
+     * this channel was saved on an earlier boot it is used right away and the
+     * gyro is ready; it is then refined in the background while the robot is
+     * disabled. Otherwise a full calibration runs in the background and the gyro
+     * reads zero until {@link #isReady()} returns true.
+     *
+     * @param channel    the analog channel the gyro is on
+     * @param background true to calibrate without blocking
+     */
+    public AnalogGyro(AnalogChannel channel, boolean background) {
         super(channel);
         m_results = new AccumulatorResult();
         m_VperDperS = DEF_VOLTAGE_PER_DEGREE;
@@ -60,28 +101,161 @@ public class AnalogGyro extends AnalogInput
 
         setGlobalSampleRate(SAMPLE_RATE);
 
-        Timer.delay(0.1);
-
         initAccumulator();
+        setDeadband(0.0);
+
+        setPIDSourceType(PIDSourceType.ANGLE);
+
+        UsageReporting.report(UsageReporting.ResourceType_Gyro, channel.ordinal());
+
+        if (!background) {
+            calibrate(new AccumulatorResult());
+            return;
+        }
+
+        m_calibrating = true;
+        double cached = loadCalibration(channel);
+        if (!Double.isNaN(cached))
+            applyCalibration(cached);
+
+        Thread t = new Thread(() -> {
+            AccumulatorResult result = new AccumulatorResult();
+            if (m_ready)
+                refine(result);
+            else
+                calibrate(result);
+            m_calibrating = false;
+        }, "AnalogGyro Calibration " + channel.name());
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /**
+     * Run a full calibration. The accumulator is reset.
+     */
+    private void calibrate(AccumulatorResult result) {
+        Timer.delay(0.1);
         resetAccumulator();
 
         Timer.delay(CALIBRATE_SAMPLE_TIME);
 
-        getAccumulatorOutput(m_results);
+        getAccumulatorOutput(result);
+        if (result.count <= 0) {
+            Logger.get(AnalogGyro.class).warn("Gyro on " + m_channel.name() + " collected no calibration samples.");
+            return;
+        }
+        applyCalibration((double) result.value / (double) result.count);
+        saveCalibration(m_channel, m_co);
+    }
 
-        m_center = (int) ((double) m_results.value / (double) m_results.count + 0.5);
-        m_offset = ((double) m_results.value / (double) m_results.count) - m_center;
+    /**
+     * Measure the bias again without resetting the accumulator. The result is
+     * only kept if the robot stayed disabled for the whole sample time.
+     */
+    private void refine(AccumulatorResult result) {
+        if (!RobotState.isDisabled())
+            return;
+
+        getAccumulatorOutput(result);
+        long value = result.value;
+        long count = result.count;
+
+        Timer.delay(CALIBRATE_SAMPLE_TIME);
+
+        if (!RobotState.isDisabled())
+            return;
+
+        getAccumulatorOutput(result);
+        if (result.count <= count)
+            return;
+
+        // The accumulator already subtracts m_center, so this is the bias left
+        // over after centering.
+        double average = (double) (result.value - value) / (double) (result.count - count);
+        synchronized (this) {
+            getAccumulatorOutput(result);
+            m_adjust += result.count * (m_offset - average);
+            m_offset = average;
+            m_co = m_center + average;
+        }
+        saveCalibration(m_channel, m_co);
+    }
+
+    /**
+     * Set the accumulator up for a measured bias and mark the gyro ready.
+     */
+    private void applyCalibration(double average) {
+        m_center = (int) (average + 0.5);
+        m_offset = average - m_center;
 
         m_co = m_center + m_offset;
 
         setAccumulatorCenter(m_center);
-        resetAccumulator();
+        synchronized (this) {
+            resetAccumulator();
+            m_adjust = 0;
+        }
+        m_ready = true;
+    }
 
-        setDeadband(0.0);
+    /**
+     * Set the file calibrations are saved to and loaded from.
+     *
+     * @param file the path of the calibration file
+     */
+    public static void setCalibrationFile(String file) {
+        m_calibrationFile = file;
+    }
 
-        setPIDSourceType(PIDSourceType.ANGLE);
+    private static synchronized double loadCalibration(AnalogChannel channel) {
+        File f = new File(m_calibrationFile);
+        if (!f.exists())
+            return Double.NaN;
+        Properties props = new Properties();
+        try (FileInputStream in = new FileInputStream(f)) {
+            props.load(in);
+            String value = props.getProperty(channel.name());
+            return value == null ? Double.NaN : Double.parseDouble(value);
+        } catch (IOException | NumberFormatException e) {
+            Logger.get(AnalogGyro.class).warn("Could not read gyro calibration from " + m_calibrationFile);
+            return Double.NaN;
+        }
+    }
 
-        UsageReporting.report(UsageReporting.ResourceType_Gyro, channel.ordinal());
+    private static synchronized void saveCalibration(AnalogChannel channel, double average) {
+        File f = new File(m_calibrationFile);
+        Properties props = new Properties();
+        try {
+            if (f.exists()) {
+                try (FileInputStream in = new FileInputStream(f)) {
+                    props.load(in);
+                }
+            }
+            props.setProperty(channel.name(), Double.toString(average));
+            try (FileOutputStream out = new FileOutputStream(f)) {
+                props.store(out, "RoboLibJ gyro calibration");
+            }
+        } catch (IOException e) {
+            Logger.get(AnalogGyro.class).warn("Could not save gyro calibration to " + m_calibrationFile);
+        }
+    }
+
+    /**
+     * Check if the gyro has a calibration and can be read.
+     *
+     * @return true once the gyro is calibrated
+     */
+    public boolean isReady() {
+        return m_ready;
+    }
+
+    /**
+     * Check if a background calibration is still running.
+     *
+     * @return true while calibrating or refining
+     */
+    public boolean isCalibrating() {
+        return m_calibrating;
     }
 
     /**
@@ -89,8 +263,9 @@ public class AnalogGyro extends AnalogInput
      * there is significant drift in the gyro and it needs to be recalibrated after
      * it has been running.case DISTANCE:
      */
-    public void reset() {
+    public synchronized void reset() {
         resetAccumulator();
+        m_adjust = 0;
     }
 
     /**
@@ -103,11 +278,14 @@ public class AnalogGyro extends AnalogInput
      * sweeps past from 360 to 0 on the second time around.
      *
      * @return the current heading of the robot in degrees. This heading is based on
-     *         integration of the returned rate from the gyro.
+     *         integration of the returned rate from the gyro. Zero until the gyro
+     *         is ready.
      */
-    public double getAngle() {
+    public synchronized double getAngle() {
+        if (!m_ready)
+            return 0.0;
         getAccumulatorOutput(m_results);
-        return (m_results.value - (long) (m_results.count * m_offset)) * 1e-9 * getLSBWeight() * (1 << getAverageBits())
+        return (m_results.value - (long) (m_results.count * m_offset + m_adjust)) * 1e-9 * getLSBWeight() * (1 << getAverageBits())
                 / (getGlobalSampleRate() * m_VperDperS);
     }
 
@@ -123,6 +301,8 @@ public class AnalogGyro extends AnalogInput
      * @return the current rate in degrees per second
      */
     public double getRate() {
+        if (!m_ready)
+            return 0.0;
         return (getAverageValue() - m_co) * 1e-9 * getLSBWeight() / ((1 << getOversampleBits()) * m_VperDperS);
     }
 
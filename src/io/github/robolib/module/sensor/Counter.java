@@ -15,7 +15,7 @@
 
 package io.github.robolib.module.sensor;
 
-import static io.github.robolib.util.Common.allocateInt;
+import static io.github.robolib.hal.HALBuffers.intBuffer;
 
 import java.nio.ByteBuffer;
 import java.nio.IntBuffer;
@@ -71,8 +71,8 @@ public class Counter extends CounterBase implements SensorModule, PIDSource {
      */
     public Counter() {
 
-        IntBuffer status = allocateInt();
-        IntBuffer index = allocateInt();
+        IntBuffer status = intBuffer();
+        IntBuffer index = intBuffer();
         m_counter = CounterJNI.initializeCounter(0, index, status);
         HALUtil.checkStatus(status);
         m_index = index.get(0);
@@ -143,7 +143,7 @@ public class Counter extends CounterBase implements SensorModule, PIDSource {
         if (eType == EncodingType.k4X)
             throw new IllegalArgumentException("Counters only support 1X and 2X quadreature decoding!");
 
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         boolean upEdgeA = eType == EncodingType.k1X;
         setSourceEdge(SourceType.UP, true, upEdgeA);
         CounterJNI.setCounterAverageSize(m_counter, eType.ordinal() + 1, status);
@@ -158,7 +158,7 @@ public class Counter extends CounterBase implements SensorModule, PIDSource {
         clearSource(SourceType.UP);
         clearSource(SourceType.DOWN);
 
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         CounterJNI.freeCounter(m_counter, status);
         HALUtil.checkStatus(status);
 
@@ -193,7 +193,7 @@ public class Counter extends CounterBase implements SensorModule, PIDSource {
      * @param source the digital source to count
      */
     public void setSource(SourceType sType, DigitalIO source) {
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         switch (sType) {
             case UP:
                 if (m_upSource != null && m_allocatedUpSource) {
@@ -226,7 +226,7 @@ public class Counter extends CounterBase implements SensorModule, PIDSource {
      * @param fallingEdge true to count the falling edge
      */
     public void setSourceEdge(SourceType sType, boolean risingEdge, boolean fallingEdge) {
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         switch (sType) {
             case UP:
                 CounterJNI.setCounterUpSourceEdge(m_counter, (byte) (risingEdge ? 1 : 0), (byte) (fallingEdge ? 1 : 0),
@@ -244,7 +244,7 @@ public class Counter extends CounterBase implements SensorModule, PIDSource {
      * @param sType the Source type Up or Down.
      */
     public void clearSource(SourceType sType) {
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         switch (sType) {
             case UP:
                 if (m_upSource != null && m_allocatedUpSource) {
@@ -267,7 +267,7 @@ public class Counter extends CounterBase implements SensorModule, PIDSource {
     }
 
     private void setMode(CounterMode mode, Object... args) {
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         switch (mode) {
             case kTwoPulse:
                 CounterJNI.setCounterUpDownMode(m_counter, status);
@@ -325,7 +325,7 @@ public class Counter extends CounterBase implements SensorModule, PIDSource {
      */
     @Override
     public int getCount() {
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         int value = CounterJNI.getCounter(m_counter, status);
         HALUtil.checkStatus(status);
         return value;
@@ -347,7 +347,7 @@ public class Counter extends CounterBase implements SensorModule, PIDSource {
      */
     @Override
     public void reset() {
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         CounterJNI.resetCounter(m_counter, status);
         HALUtil.checkStatus(status);
     }
@@ -362,7 +362,7 @@ public class Counter extends CounterBase implements SensorModule, PIDSource {
      */
     @Override
     public void setMaxPeriod(double maxPeriod) {
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         CounterJNI.setCounterMaxPeriod(m_counter, maxPeriod, status);
         HALUtil.checkStatus(status);
     }
@@ -383,7 +383,7 @@ public class Counter extends CounterBase implements SensorModule, PIDSource {
      * @param enabled true to continue updating
      */
     public void setUpdateWhenEmpty(boolean enabled) {
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         CounterJNI.setCounterUpdateWhenEmpty(m_counter, (byte) (enabled ? 1 : 0), status);
         HALUtil.checkStatus(status);
     }
@@ -399,7 +399,7 @@ public class Counter extends CounterBase implements SensorModule, PIDSource {
      */
     @Override
     public boolean getStopped() {
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         boolean value = CounterJNI.getCounterStopped(m_counter, status) != 0;
         HALUtil.checkStatus(status);
         return value;
@@ -412,7 +412,7 @@ public class Counter extends CounterBase implements SensorModule, PIDSource {
      */
     @Override
     public boolean getDirection() {
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         boolean value = CounterJNI.getCounterDirection(m_counter, status) != 0;
         HALUtil.checkStatus(status);
         return value;
@@ -426,7 +426,7 @@ public class Counter extends CounterBase implements SensorModule, PIDSource {
      * @param reverse true if the value counted should be negated.
      */
     public void setReverseDirection(boolean reverse) {
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         CounterJNI.setCounterReverseDirection(m_counter, (byte) (reverse ? 1 : 0), status);
         HALUtil.checkStatus(status);
     }
@@ -440,7 +440,7 @@ public class Counter extends CounterBase implements SensorModule, PIDSource {
      */
     @Override
     public double getPeriod() {
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         double value = CounterJNI.getCounterPeriod(m_counter, status);
         HALUtil.checkStatus(status);
         return value;
@@ -466,7 +466,7 @@ public class Counter extends CounterBase implements SensorModule, PIDSource {
      */
     public void setSamplesPerAverage(int samples) {
         samples = MathUtils.clamp(samples, 1, 127);
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         CounterJNI.setCounterSamplesToAverage(m_counter, samples, status);
         HALUtil.checkStatus(status);
     }
@@ -479,7 +479,7 @@ public class Counter extends CounterBase implements SensorModule, PIDSource {
      * @return SamplesToAverage The number of samples being averaged (from 1 to 127)
      */
     public int getSamplesPerAverage() {
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
         int value = CounterJNI.getCounterSamplesToAverage(m_counter, status);
         HALUtil.checkStatus(status);
         return value;
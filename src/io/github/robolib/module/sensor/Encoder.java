@@ -15,11 +15,12 @@
 
 package io.github.robolib.module.sensor;
 
-import static io.github.robolib.util.Common.allocateInt;
+import static io.github.robolib.hal.HALBuffers.intBuffer;
 
 import java.nio.ByteBuffer;
 import java.nio.IntBuffer;
 
+import io.github.robolib.identifier.DistanceSource;
 import io.github.robolib.identifier.PIDSource;
 import io.github.robolib.identifier.RateSource;
 import io.github.robolib.jni.EncoderJNI;
@@ -46,7 +47,7 @@ import io.github.robolib.util.log.Logger;
  *
  * @author noriah <vix@noriah.dev>
  */
-public class Encoder extends CounterBase implements SensorModule, PIDSource, RateSource {
+public class Encoder extends CounterBase implements SensorModule, PIDSource, RateSource, DistanceSource {
 
     /**
      * The different types of indexing available
@@ -303,8 +304,8 @@ public class Encoder extends CounterBase implements SensorModule, PIDSource, Rat
                 break;
             case k4X:
                 m_encodingScale = 4;
-                IntBuffer status = allocateInt();
-                IntBuffer index = allocateInt();
+                IntBuffer status = intBuffer();
+                IntBuffer index = intBuffer();
                 m_encoder = EncoderJNI.initializeEncoder(m_aSource.getModuleNumber(), m_aSource.getChannelNumber(),
                         (byte) (m_aSource.isAnalogTrigger() ? 1 : 0), m_bSource.getModuleNumber(),
                         m_bSource.getChannelNumber(), (byte) (m_bSource.isAnalogTrigger() ? 1 : 0),
@@ -355,7 +356,7 @@ public class Encoder extends CounterBase implements SensorModule, PIDSource, Rat
             m_counter.free();
             m_counter = null;
         } else {
-            IntBuffer status = allocateInt();
+            IntBuffer status = intBuffer();
             EncoderJNI.freeEncoder(m_encoder, status);
             HALUtil.checkStatus(status);
         }
@@ -371,7 +372,7 @@ public class Encoder extends CounterBase implements SensorModule, PIDSource, Rat
         if (m_counter != null) {
             return m_counter.get();
         } else {
-            IntBuffer status = allocateInt();
+            IntBuffer status = intBuffer();
             int value = EncoderJNI.getEncoder(m_encoder, status);
             HALUtil.checkStatus(status);
             return value;
@@ -411,7 +412,7 @@ public class Encoder extends CounterBase implements SensorModule, PIDSource, Rat
         if (m_counter != null) {
             m_counter.reset();
         } else {
-            IntBuffer status = allocateInt();
+            IntBuffer status = intBuffer();
             EncoderJNI.resetEncoder(m_encoder, status);
             HALUtil.checkStatus(status);
         }
@@ -430,7 +431,7 @@ public class Encoder extends CounterBase implements SensorModule, PIDSource, Rat
         if (m_counter != null) {
             measuredPeriod = m_counter.getPeriod() / decodingScaleFactor();
         } else {
-            IntBuffer status = allocateInt();
+            IntBuffer status = intBuffer();
             measuredPeriod = EncoderJNI.getEncoderPeriod(m_encoder, status);
             HALUtil.checkStatus(status);
         }
@@ -454,7 +455,7 @@ public class Encoder extends CounterBase implements SensorModule, PIDSource, Rat
         if (m_counter != null) {
             m_counter.setMaxPeriod(maxPeriod * decodingScaleFactor());
         } else {
-            IntBuffer status = allocateInt();
+            IntBuffer status = intBuffer();
             EncoderJNI.setEncoderMaxPeriod(m_encoder, maxPeriod, status);
             HALUtil.checkStatus(status);
         }
@@ -473,7 +474,7 @@ public class Encoder extends CounterBase implements SensorModule, PIDSource, Rat
         if (m_counter != null) {
             return m_counter.getStopped();
         } else {
-            IntBuffer status = allocateInt();
+            IntBuffer status = intBuffer();
             boolean value = EncoderJNI.getEncoderStopped(m_encoder, status) != 0;
             HALUtil.checkStatus(status);
             return value;
@@ -490,7 +491,7 @@ public class Encoder extends CounterBase implements SensorModule, PIDSource, Rat
         if (m_counter != null) {
             return m_counter.getDirection();
         } else {
-            IntBuffer status = allocateInt();
+            IntBuffer status = intBuffer();
             boolean value = EncoderJNI.getEncoderDirection(m_encoder, status) != 0;
             HALUtil.checkStatus(status);
             return value;
@@ -519,6 +520,7 @@ public class Encoder extends CounterBase implements SensorModule, PIDSource, Rat
      * @return The distance driven since the last reset as scaled by the value from
      *         setDistancePerPulse().
      */
+    @Override
     public double getDistance() {
         return getRaw() * decodingScaleFactor() * m_distancePerPulse;
     }
@@ -587,7 +589,7 @@ public class Encoder extends CounterBase implements SensorModule, PIDSource, Rat
                 m_counter.setSamplesPerAverage(samples);
                 break;
             case k4X:
-                IntBuffer status = allocateInt();
+                IntBuffer status = intBuffer();
                 EncoderJNI.setEncoderSamplesToAverage(m_encoder, MathUtils.clamp(samples, 1, 127), status);
                 HALUtil.checkStatus(status);
         }
@@ -606,7 +608,7 @@ public class Encoder extends CounterBase implements SensorModule, PIDSource, Rat
             case k2X:
                 return m_counter.getSamplesPerAverage();
             case k4X:
-                IntBuffer status = allocateInt();
+                IntBuffer status = intBuffer();
                 int value = EncoderJNI.getEncoderSamplesToAverage(m_encoder, status);
                 HALUtil.checkStatus(status);
                 return value;
@@ -662,7 +664,7 @@ public class Encoder extends CounterBase implements SensorModule, PIDSource, Rat
      * @param iType  The state that will cause the encoder to reset
      */
     public void setIndexSource(DigitalIO source, IndexingType iType) {
-        IntBuffer status = allocateInt();
+        IntBuffer status = intBuffer();
 
         boolean activeHigh = false, edgeSensitive = false;
         if (iType.ordinal() % 2 == 0)
@@ -16,6 +16,7 @@
 package io.github.robolib.module.sensor;
 
 import io.github.robolib.identifier.LiveWindowSendable;
+import io.github.robolib.module.iface.BusManager;
 import io.github.robolib.module.iface.I2C;
 import io.github.robolib.nettable.ITable;
 import io.github.robolib.util.Timer;
@@ -295,6 +296,8 @@ public class HMC5883L extends I2C implements SensorModule, LiveWindowSendable {
 
     private ITable m_table;
 
+    private final byte[] m_regs = new byte[6];
+
     /**
      * Create a new HMC5883L compass on I2C Port.
      *
@@ -302,6 +305,7 @@ public class HMC5883L extends I2C implements SensorModule, LiveWindowSendable {
      */
     public HMC5883L(Port port) {
         super(port, HMC_I2C_ADDR);
+        setBusPriority(BusManager.Priority.HIGH);
         writeRegisterA();
         writeRegisterB();
         writeModeRegister();
@@ -427,6 +431,19 @@ public class HMC5883L extends I2C implements SensorModule, LiveWindowSendable {
                 magnitudeFromBytes(regs[2], regs[3]) };
     }
 
+    /**
+     * Get all magnitude values in one burst read without allocating. Values are in
+     * the order of X, Y, Z.
+     *
+     * @param data filled with the X, Y and Z magnitudes
+     */
+    public synchronized void getAllMagnitudes(double[] data) {
+        read(HMC_REG_X_MSB, m_regs, 6);
+        data[0] = magnitudeFromBytes(m_regs[0], m_regs[1]);
+        data[1] = magnitudeFromBytes(m_regs[4], m_regs[5]);
+        data[2] = magnitudeFromBytes(m_regs[2], m_regs[3]);
+    }
+
     /**
      * Data output register lock bit status.
      * <p>
@@ -476,7 +493,7 @@ public class HMC5883L extends I2C implements SensorModule, LiveWindowSendable {
      * @return magnitude from bytes
      */
     private double magnitudeFromBytes(byte first, byte second) {
-        return ((first << 8) | second);
+        return (short) ((first << 8) | (second & 0xFF));
     }
 
     /**
@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2015-2020 noriah <vix@noriah.dev>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ */
+
+package io.github.robolib.module.sensor;
+
+import io.github.robolib.module.sensor.mpu6050.Quaternion;
+
+/**
+ * Madgwick's gradient descent orientation filter.
+ *
+ * Fuses gyro, accelerometer and optionally magnetometer readings into an
+ * orientation Quaternion. The filter does no I/O and never allocates, so it can
+ * be run at sensor rates or fed recorded samples.
+ *
+ * @author noriah <vix@noriah.dev>
+ */
+public class MadgwickFilter {
+
+    /** The default gain, a balance between gyro drift and sensor noise. */
+    public static final double DEFAULT_BETA = 0.1;
+
+    private final Quaternion m_q = new Quaternion();
+    private double m_beta;
+
+    public MadgwickFilter() {
+        this(DEFAULT_BETA);
+    }
+
+    /**
+     * @param beta how strongly the accelerometer and magnetometer correct the
+     *             gyro
+     */
+    public MadgwickFilter(double beta) {
+        m_beta = beta;
+    }
+
+    public void setBeta(double beta) {
+        m_beta = beta;
+    }
+
+    public double getBeta() {
+        return m_beta;
+    }
+
+    /**
+     * Reset to the identity orientation.
+     */
+    public void reset() {
+        m_q.set(1.0, 0.0, 0.0, 0.0);
+    }
+
+    /**
+     * Get the orientation. The returned Quaternion is updated in place by the
+     * filter.
+     *
+     * @return the current orientation
+     */
+    public Quaternion getQuaternion() {
+        return m_q;
+    }
+
+    /**
+     * Step the filter with gyro, accelerometer and magnetometer readings. If the
+     * magnetometer reading is all zero only the gyro and accelerometer are used.
+     *
+     * @param gx gyro X in radians per second
+     * @param gy gyro Y in radians per second
+     * @param gz gyro Z in radians per second
+     * @param ax accelerometer X, any unit
+     * @param ay accelerometer Y
+     * @param az accelerometer Z
+     * @param mx magnetometer X, any unit
+     * @param my magnetometer Y
+     * @param mz magnetometer Z
+     * @param dt the time since the last update in seconds
+     */
+    public void update(double gx, double gy, double gz, double ax, double ay, double az, double mx, double my,
+            double mz, double dt) {
+        if (mx == 0.0 && my == 0.0 && mz == 0.0) {
+            update(gx, gy, gz, ax, ay, az, dt);
+            return;
+        }
+
+        double q0 = m_q.w, q1 = m_q.x, q2 = m_q.y, q3 = m_q.z;
+
+        // Rate of change of the quaternion from the gyro
+        double qDot0 = 0.5 * (-q1 * gx - q2 * gy - q3 * gz);
+        double qDot1 = 0.5 * (q0 * gx + q2 * gz - q3 * gy);
+        double qDot2 = 0.5 * (q0 * gy - q1 * gz + q3 * gx);
+        double qDot3 = 0.5 * (q0 * gz + q1 * gy - q2 * gx);
+
+        if (!(ax == 0.0 && ay == 0.0 && az == 0.0)) {
+            double norm = 1.0 / Math.sqrt(ax * ax + ay * ay + az * az);
+            ax *= norm;
+            ay *= norm;
+            az *= norm;
+
+            norm = 1.0 / Math.sqrt(mx * mx + my * my + mz * mz);
+            mx *= norm;
+            my *= norm;
+            mz *= norm;
+
+            double _2q0mx = 2.0 * q0 * mx;
+            double _2q0my = 2.0 * q0 * my;
+            double _2q0mz = 2.0 * q0 * mz;
+            double _2q1mx = 2.0 * q1 * mx;
+            double _2q0 = 2.0 * q0;
+            double _2q1 = 2.0 * q1;
+            double _2q2 = 2.0 * q2;
+            double _2q3 = 2.0 * q3;
+            double _2q0q2 = 2.0 * q0 * q2;
+            double _2q2q3 = 2.0 * q2 * q3;
+            double q0q0 = q0 * q0;
+            double q0q1 = q0 * q1;
+            double q0q2 = q0 * q2;
+            double q0q3 = q0 * q3;
+            double q1q1 = q1 * q1;
+            double q1q2 = q1 * q2;
+            double q1q3 = q1 * q3;
+            double q2q2 = q2 * q2;
+            double q2q3 = q2 * q3;
+            double q3q3 = q3 * q3;
+
+            // Reference direction of the Earth's magnetic field
+            double hx = mx * q0q0 - _2q0my * q3 + _2q0mz * q2 + mx * q1q1 + _2q1 * my * q2 + _2q1 * mz * q3
+                    - mx * q2q2 - mx * q3q3;
+            double hy = _2q0mx * q3 + my * q0q0 - _2q0mz * q1 + _2q1mx * q2 - my * q1q1 + my * q2q2
+                    + _2q2 * mz * q3 - my * q3q3;
+            double _2bx = Math.sqrt(hx * hx + hy * hy);
+            double _2bz = -_2q0mx * q2 + _2q0my * q1 + mz * q0q0 + _2q1mx * q3 - mz * q1q1 + _2q2 * my * q3
+                    - mz * q2q2 + mz * q3q3;
+            double _4bx = 2.0 * _2bx;
+            double _4bz = 2.0 * _2bz;
+
+            // Objective function errors
+            double fax = 2.0 * q1q3 - _2q0q2 - ax;
+            double fay = 2.0 * q0q1 + _2q2q3 - ay;
+            double faz = 1.0 - 2.0 * q1q1 - 2.0 * q2q2 - az;
+            double fmx = _2bx * (0.5 - q2q2 - q3q3) + _2bz * (q1q3 - q0q2) - mx;
+            double fmy = _2bx * (q1q2 - q0q3) + _2bz * (q0q1 + q2q3) - my;
+            double fmz = _2bx * (q0q2 + q1q3) + _2bz * (0.5 - q1q1 - q2q2) - mz;
+
+            // Gradient descent step
+            double s0 = -_2q2 * fax + _2q1 * fay - _2bz * q2 * fmx + (-_2bx * q3 + _2bz * q1) * fmy
+                    + _2bx * q2 * fmz;
+            double s1 = _2q3 * fax + _2q0 * fay - 4.0 * q1 * faz + _2bz * q3 * fmx + (_2bx * q2 + _2bz * q0) * fmy
+                    + (_2bx * q3 - _4bz * q1) * fmz;
+            double s2 = -_2q0 * fax + _2q3 * fay - 4.0 * q2 * faz + (-_4bx * q2 - _2bz * q0) * fmx
+                    + (_2bx * q1 + _2bz * q3) * fmy + (_2bx * q0 - _4bz * q2) * fmz;
+            double s3 = _2q1 * fax + _2q2 * fay + (-_4bx * q3 + _2bz * q1) * fmx + (-_2bx * q0 + _2bz * q2) * fmy
+                    + _2bx * q1 * fmz;
+
+            norm = Math.sqrt(s0 * s0 + s1 * s1 + s2 * s2 + s3 * s3);
+            if (norm > 0.0) {
+                norm = m_beta / norm;
+                qDot0 -= norm * s0;
+                qDot1 -= norm * s1;
+                qDot2 -= norm * s2;
+                qDot3 -= norm * s3;
+            }
+        }
+
+        integrate(q0, q1, q2, q3, qDot0, qDot1, qDot2, qDot3, dt);
+    }
+
+    /**
+     * Step the filter with gyro and accelerometer readings only. Heading will
+     * drift with the gyro.
+     *
+     * @param gx gyro X in radians per second
+     * @param gy gyro Y in radians per second
+     * @param gz gyro Z in radians per second
+     * @param ax accelerometer X, any unit
+     * @param ay accelerometer Y
+     * @param az accelerometer Z
+     * @param dt the time since the last update in seconds
+     */
+    public void update(double gx, double gy, double gz, double ax, double ay, double az, double dt) {
+        double q0 = m_q.w, q1 = m_q.x, q2 = m_q.y, q3 = m_q.z;
+
+        double qDot0 = 0.5 * (-q1 * gx - q2 * gy - q3 * gz);
+        double qDot1 = 0.5 * (q0 * gx + q2 * gz - q3 * gy);
+        double qDot2 = 0.5 * (q0 * gy - q1 * gz + q3 * gx);
+        double qDot3 = 0.5 * (q0 * gz + q1 * gy - q2 * gx);
+
+        if (!(ax == 0.0 && ay == 0.0 && az == 0.0)) {
+            double norm = 1.0 / Math.sqrt(ax * ax + ay * ay + az * az);
+            ax *= norm;
+            ay *= norm;
+            az *= norm;
+
+            double _2q0 = 2.0 * q0;
+            double _2q1 = 2.0 * q1;
+            double _2q2 = 2.0 * q2;
+            double _2q3 = 2.0 * q3;
+            double _4q0 = 4.0 * q0;
+            double _4q1 = 4.0 * q1;
+            double _4q2 = 4.0 * q2;
+            double _8q1 = 8.0 * q1;
+            double _8q2 = 8.0 * q2;
+            double q0q0 = q0 * q0;
+            double q1q1 = q1 * q1;
+            double q2q2 = q2 * q2;
+            double q3q3 = q3 * q3;
+
+            double s0 = _4q0 * q2q2 + _2q2 * ax + _4q0 * q1q1 - _2q1 * ay;
+            double s1 = _4q1 * q3q3 - _2q3 * ax + 4.0 * q0q0 * q1 - _2q0 * ay - _4q1 + _8q1 * q1q1 + _8q1 * q2q2
+                    + _4q1 * az;
+            double s2 = 4.0 * q0q0 * q2 + _2q0 * ax + _4q2 * q3q3 - _2q3 * ay - _4q2 + _8q2 * q1q1 + _8q2 * q2q2
+                    + _4q2 * az;
+            double s3 = 4.0 * q1q1 * q3 - _2q1 * ax + 4.0 * q2q2 * q3 - _2q2 * ay;
+
+            norm = Math.sqrt(s0 * s0 + s1 * s1 + s2 * s2 + s3 * s3);
+            if (norm > 0.0) {
+                norm = m_beta / norm;
+                qDot0 -= norm * s0;
+                qDot1 -= norm * s1;
+                qDot2 -= norm * s2;
+                qDot3 -= norm * s3;
+            }
+        }
+
+        integrate(q0, q1, q2, q3, qDot0, qDot1, qDot2, qDot3, dt);
+    }
+
+    private void integrate(double q0, double q1, double q2, double q3, double qDot0, double qDot1, double qDot2,
+            double qDot3, double dt) {
+        m_q.set(q0 + qDot0 * dt, q1 + qDot1 * dt, q2 + qDot2 * dt, q3 + qDot3 * dt);
+        m_q.normalize();
+    }
+
+    /**
+     * @return the heading about the Z axis in degrees, from -180 to 180
+     */
+    public double getYaw() {
+        Quaternion q = m_q;
+        return Math.toDegrees(Math.atan2(2.0 * (q.w * q.z + q.x * q.y), 1.0 - 2.0 * (q.y * q.y + q.z * q.z)));
+    }
+
+    /**
+     * @return the rotation about the Y axis in degrees, from -90 to 90
+     */
+    public double getPitch() {
+        Quaternion q = m_q;
+        double sin = 2.0 * (q.w * q.y - q.z * q.x);
+        return Math.toDegrees(Math.asin(Math.max(-1.0, Math.min(1.0, sin))));
+    }
+
+    /**
+     * @return the rotation about the X axis in degrees, from -180 to 180
+     */
+    public double getRoll() {
+        Quaternion q = m_q;
+        return Math.toDegrees(Math.atan2(2.0 * (q.w * q.x + q.y * q.z), 1.0 - 2.0 * (q.x * q.x + q.y * q.y)));
+    }
+}
@@ -0,0 +1,333 @@
+/*
+ * Copyright (c) 2015-2020 noriah <vix@noriah.dev>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ */
+
+package io.github.robolib.module.sensor;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.github.robolib.identifier.AngleSource;
+import io.github.robolib.identifier.DistanceSource;
+import io.github.robolib.identifier.PositionSource;
+import io.github.robolib.module.RoboRIO;
+import io.github.robolib.util.LoopScheduler;
+import io.github.robolib.util.MathUtils;
+
+/**
+ * Tracks the position of the robot on the field from wheel distances and a
+ * heading sensor.
+ *
+ * The sensors are sampled on the {@link LoopScheduler} at a fixed rate, and
+ * the latest {@link Pose} is published so it can be read from any thread
+ * without locking. A short history of poses is kept so that a measurement
+ * taken in the past, such as a camera frame, can be matched with where the
+ * robot was at that time.
+ *
+ * Directions follow {@link io.github.robolib.module.actuator.DriveBase}: x
+ * is to the right, y is forward, and headings are in degrees clockwise.
+ *
+ * @author noriah <vix@noriah.dev>
+ */
+public class PoseEstimator implements AngleSource {
+
+    /**
+     * The position and heading of the robot at one point in time.
+     *
+     * @author noriah <vix@noriah.dev>
+     */
+    public static final class Pose {
+        private final double m_x;
+        private final double m_y;
+        private final double m_heading;
+        private final double m_time;
+
+        public Pose(double x, double y, double heading, double time) {
+            m_x = x;
+            m_y = y;
+            m_heading = heading;
+            m_time = time;
+        }
+
+        /**
+         * @return the x position, in the units of the distance sources
+         */
+        public double getX() {
+            return m_x;
+        }
+
+        /**
+         * @return the y position, in the units of the distance sources
+         */
+        public double getY() {
+            return m_y;
+        }
+
+        /**
+         * @return the heading in degrees
+         */
+        public double getHeading() {
+            return m_heading;
+        }
+
+        /**
+         * @return the FPGA time of this pose in seconds
+         */
+        public double getTime() {
+            return m_time;
+        }
+
+        @Override
+        public String toString() {
+            return "Pose[x=" + m_x + ", y=" + m_y + ", heading=" + m_heading + ", time=" + m_time + "]";
+        }
+    }
+
+    private static enum DriveType {
+        DIFFERENTIAL, MECANUM;
+    }
+
+    /** The default number of poses kept in the history. */
+    public static final int DEFAULT_HISTORY = 128;
+
+    private final DriveType m_type;
+    private final DistanceSource[] m_wheels;
+    private final AngleSource m_gyro;
+
+    private final double[] m_lastDistance;
+    private double m_lastHeading;
+    private double m_x;
+    private double m_y;
+    private double m_headingOffset;
+    private boolean m_started = false;
+
+    private final AtomicReference<Pose> m_pending = new AtomicReference<>();
+    private volatile Pose m_pose = new Pose(0, 0, 0, 0);
+
+    private final Pose[] m_history;
+    private int m_historyHead = 0;
+    private int m_historySize = 0;
+
+    private LoopScheduler.Loop m_loop;
+
+    private PoseEstimator(DriveType type, DistanceSource[] wheels, AngleSource gyro, double period, int history) {
+        if (history < 2)
+            throw new IllegalArgumentException("History must hold at least 2 poses.");
+        m_type = type;
+        m_wheels = wheels;
+        m_gyro = gyro;
+        m_lastDistance = new double[wheels.length];
+        m_history = new Pose[history];
+        m_loop = LoopScheduler.schedule(this::update, period);
+    }
+
+    /**
+     * Track a robot with a left and right side, such as a tank or arcade drive.
+     *
+     * @param left   distance driven by the left side
+     * @param right  distance driven by the right side
+     * @param gyro   the robot heading in degrees
+     * @param period the time between samples in seconds
+     * @return a running PoseEstimator
+     */
+    public static PoseEstimator differential(DistanceSource left, DistanceSource right, AngleSource gyro,
+            double period) {
+        return new PoseEstimator(DriveType.DIFFERENTIAL, new DistanceSource[] { left, right }, gyro, period,
+                DEFAULT_HISTORY);
+    }
+
+    /**
+     * Track a mecanum drive robot. The wheels are in the same order as
+     * {@link io.github.robolib.module.actuator.DriveBase.MotorType}.
+     *
+     * @param frontLeft  distance driven by the front left wheel
+     * @param frontRight distance driven by the front right wheel
+     * @param rearLeft   distance driven by the rear left wheel
+     * @param rearRight  distance driven by the rear right wheel
+     * @param gyro       the robot heading in degrees
+     * @param period     the time between samples in seconds
+     * @return a running PoseEstimator
+     */
+    public static PoseEstimator mecanum(DistanceSource frontLeft, DistanceSource frontRight,
+            DistanceSource rearLeft, DistanceSource rearRight, AngleSource gyro, double period) {
+        return new PoseEstimator(DriveType.MECANUM,
+                new DistanceSource[] { frontLeft, frontRight, rearLeft, rearRight }, gyro, period, DEFAULT_HISTORY);
+    }
+
+    /**
+     * Take one sample. Only called by the control loop thread.
+     */
+    private void update() {
+        double time = RoboRIO.getFPGATimestamp();
+        double heading = m_gyro.getAngle();
+
+        Pose reset = m_pending.getAndSet(null);
+        if (reset != null || !m_started) {
+            if (reset == null)
+                reset = m_pose;
+            for (int i = 0; i < m_wheels.length; i++) {
+                m_lastDistance[i] = m_wheels[i].getDistance();
+            }
+            m_x = reset.getX();
+            m_y = reset.getY();
+            m_headingOffset = reset.getHeading() - heading;
+            m_lastHeading = heading;
+            m_started = true;
+            publish(new Pose(m_x, m_y, reset.getHeading(), time));
+            return;
+        }
+
+        double forward, strafe;
+        if (m_type == DriveType.DIFFERENTIAL) {
+            double l = m_wheels[0].getDistance();
+            double r = m_wheels[1].getDistance();
+            forward = ((l - m_lastDistance[0]) + (r - m_lastDistance[1])) / 2.0;
+            strafe = 0.0;
+            m_lastDistance[0] = l;
+            m_lastDistance[1] = r;
+        } else {
+            double fl = m_wheels[0].getDistance();
+            double fr = m_wheels[1].getDistance();
+            double rl = m_wheels[2].getDistance();
+            double rr = m_wheels[3].getDistance();
+            double dfl = fl - m_lastDistance[0];
+            double dfr = fr - m_lastDistance[1];
+            double drl = rl - m_lastDistance[2];
+            double drr = rr - m_lastDistance[3];
+            forward = (dfl + dfr + drl + drr) / 4.0;
+            strafe = (dfl - dfr - drl + drr) / 4.0;
+            m_lastDistance[0] = fl;
+            m_lastDistance[1] = fr;
+            m_lastDistance[2] = rl;
+            m_lastDistance[3] = rr;
+        }
+
+        // Use the heading halfway through the step.
+        double mid = (m_lastHeading + (heading - m_lastHeading) / 2.0 + m_headingOffset) * MathUtils.PI_OVER_180;
+        double cos = Math.cos(mid);
+        double sin = Math.sin(mid);
+        m_x += strafe * cos + forward * sin;
+        m_y += forward * cos - strafe * sin;
+        m_lastHeading = heading;
+
+        publish(new Pose(m_x, m_y, heading + m_headingOffset, time));
+    }
+
+    private void publish(Pose pose) {
+        m_pose = pose;
+        synchronized (m_history) {
+            m_history[m_historyHead] = pose;
+            m_historyHead = (m_historyHead + 1) % m_history.length;
+            if (m_historySize < m_history.length)
+                m_historySize++;
+        }
+    }
+
+    /**
+     * @return the latest pose
+     */
+    public Pose getPose() {
+        return m_pose;
+    }
+
+    /**
+     * Get where the robot was at a time in the past. The pose is interpolated
+     * between the two nearest samples. Times older than the history are clamped
+     * to the oldest pose.
+     *
+     * @param time the FPGA time in seconds
+     * @return the pose at that time
+     */
+    public Pose getPoseAt(double time) {
+        synchronized (m_history) {
+            if (m_historySize == 0)
+                return m_pose;
+            int newest = (m_historyHead - 1 + m_history.length) % m_history.length;
+            Pose after = m_history[newest];
+            if (time >= after.getTime())
+                return after;
+            for (int n = 1; n < m_historySize; n++) {
+                Pose before = m_history[(newest - n + m_history.length) % m_history.length];
+                if (before.getTime() <= time) {
+                    double f = (time - before.getTime()) / (after.getTime() - before.getTime());
+                    return new Pose(before.getX() + (after.getX() - before.getX()) * f,
+                            before.getY() + (after.getY() - before.getY()) * f,
+                            before.getHeading() + (after.getHeading() - before.getHeading()) * f, time);
+                }
+                after = before;
+            }
+            return after;
+        }
+    }
+
+    /**
+     * Set the current pose. This takes effect on the next sample.
+     *
+     * @param x       the x position
+     * @param y       the y position
+     * @param heading the heading in degrees
+     */
+    public void reset(double x, double y, double heading) {
+        m_pending.set(new Pose(x, y, heading, 0));
+    }
+
+    /**
+     * Set the current position to zero and the heading to zero.
+     */
+    public void reset() {
+        reset(0, 0, 0);
+    }
+
+    /**
+     * Stop sampling.
+     */
+    public void free() {
+        LoopScheduler.Loop loop = m_loop;
+        if (loop != null)
+            loop.cancel();
+        m_loop = null;
+    }
+
+    /**
+     * Get the control loop this estimator samples on, for its timing statistics.
+     *
+     * @return the {@link LoopScheduler.Loop} sampling this estimator
+     */
+    public LoopScheduler.Loop getControlLoop() {
+        return m_loop;
+    }
+
+    /**
+     * Get the heading of the robot from the latest pose.
+     *
+     * @return the heading in degrees
+     */
+    @Override
+    public double getAngle() {
+        return m_pose.getHeading();
+    }
+
+    /**
+     * @return a PositionSource for the latest x position
+     */
+    public PositionSource getXSource() {
+        return () -> m_pose.getX();
+    }
+
+    /**
+     * @return a PositionSource for the latest y position
+     */
+    public PositionSource getYSource() {
+        return () -> m_pose.getY();
+    }
+}
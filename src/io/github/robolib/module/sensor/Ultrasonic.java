@@ -15,20 +15,293 @@
 
 package io.github.robolib.module.sensor;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import io.github.robolib.identifier.DistanceSource;
+import io.github.robolib.identifier.PIDSource;
+import io.github.robolib.identifier.SampleBuffer;
+import io.github.robolib.jni.UsageReporting;
+import io.github.robolib.module.RoboRIO;
+import io.github.robolib.module.iface.DigitalIO.DigitalChannel;
+import io.github.robolib.module.iface.DigitalInput;
+import io.github.robolib.module.iface.DigitalOutput;
+import io.github.robolib.util.LoopScheduler;
+
 /**
+ * Ping/echo ultrasonic rangefinder, such as the Maxbotix or Devantech SRF04.
+ *
+ * A short pulse on the ping line starts a measurement and the sensor holds the
+ * echo line high for the time the sound took to return. The echo is timed by a
+ * {@link Counter} in semi-period mode.
  *
+ * All enabled sensors share one scheduler that pings them one at a time, so
+ * they never hear each other's echoes. Each slot first reads the echo of the
+ * sensor pinged in the previous slot, then pings the next sensor. Ranges are
+ * kept with their FPGA time and can be median filtered.
  *
  * @author noriah <vix@noriah.dev>
  */
-public class Ultrasonic implements SensorModule {
+public class Ultrasonic implements SensorModule, DistanceSource, PIDSource {
+
+    /**
+     * Units returned by {@link #getDistance()} and {@link #pidGet()}.
+     *
+     * @author noriah <vix@noriah.dev>
+     */
+    public static enum Unit {
+        INCHES, MILLIMETERS;
+    }
+
+    /** Length of the ping pulse in seconds. */
+    public static final double PING_TIME = 10e-6;
+
+    /** The default time given to each sensor to hear its echo, in seconds. */
+    public static final double DEFAULT_SLOT_TIME = 0.05;
+
+    private static final double SPEED_OF_SOUND_INCHES_PER_SEC = 1130.0 * 12.0;
+
+    private static final int MAX_MEDIAN_WINDOW = 15;
+
+    private static final List<Ultrasonic> m_sensors = new ArrayList<Ultrasonic>();
+    private static LoopScheduler.Loop m_loop;
+    private static volatile double m_slotTime = DEFAULT_SLOT_TIME;
+    private static int m_next = 0;
+    private static Ultrasonic m_pinged;
+
+    private final DigitalOutput m_ping;
+    private final DigitalInput m_echo;
+    private final Counter m_counter;
+
+    private final SampleBuffer m_ranges;
+    private final double[] m_window = new double[MAX_MEDIAN_WINDOW];
+    private final double[] m_sorted = new double[MAX_MEDIAN_WINDOW];
+    private int m_windowSize = 1;
+    private int m_windowCount = 0;
+    private int m_windowNext = 0;
+
+    private volatile boolean m_enabled = true;
+    private volatile Unit m_unit = Unit.INCHES;
+
+    /**
+     * Create an ultrasonic sensor and add it to the ping schedule.
+     *
+     * @param pingChannel the DIO channel the ping line is on
+     * @param echoChannel the DIO channel the echo line is on
+     */
+    public Ultrasonic(DigitalChannel pingChannel, DigitalChannel echoChannel) {
+        this(pingChannel, echoChannel, 64);
+    }
+
+    /**
+     * Create an ultrasonic sensor and add it to the ping schedule.
+     *
+     * @param pingChannel the DIO channel the ping line is on
+     * @param echoChannel the DIO channel the echo line is on
+     * @param history     the number of ranges to keep
+     */
+    public Ultrasonic(DigitalChannel pingChannel, DigitalChannel echoChannel, int history) {
+        m_ping = new DigitalOutput(pingChannel);
+        m_echo = new DigitalInput(echoChannel);
+        m_counter = new Counter(m_echo);
+        m_counter.setMaxPeriod(1.0);
+        m_counter.setSemiPeriodMode(true);
+        m_counter.reset();
+        m_ranges = new SampleBuffer(history);
+
+        synchronized (m_sensors) {
+            m_sensors.add(this);
+            if (m_loop == null)
+                m_loop = LoopScheduler.schedule(Ultrasonic::pingNext, m_slotTime);
+        }
+
+        UsageReporting.report(UsageReporting.ResourceType_Ultrasonic, m_sensors.size());
+    }
+
+    /**
+     * Remove this sensor from the schedule and release its channels.
+     */
+    public void free() {
+        synchronized (m_sensors) {
+            m_sensors.remove(this);
+            if (m_pinged == this)
+                m_pinged = null;
+            if (m_sensors.isEmpty() && m_loop != null) {
+                m_loop.cancel();
+                m_loop = null;
+            }
+        }
+        m_counter.free();
+        m_ping.free();
+        m_echo.free();
+    }
+
+    /**
+     * Set the time each sensor gets to hear its echo. A full round takes this
+     * times the number of sensors.
+     *
+     * @param seconds the slot time in seconds, greater than zero
+     */
+    public static void setSlotTime(double seconds) {
+        if (!(seconds > 0))
+            throw new IllegalArgumentException("Slot time must be greater than zero.");
+        synchronized (m_sensors) {
+            m_slotTime = seconds;
+            if (m_loop != null) {
+                m_loop.cancel();
+                m_loop = LoopScheduler.schedule(Ultrasonic::pingNext, m_slotTime);
+            }
+        }
+    }
+
+    /**
+     * @return the time each sensor gets to hear its echo, in seconds
+     */
+    public static double getSlotTime() {
+        return m_slotTime;
+    }
+
+    private static void pingNext() {
+        synchronized (m_sensors) {
+            if (m_pinged != null)
+                m_pinged.readEcho();
+            m_pinged = null;
+
+            int count = m_sensors.size();
+            for (int i = 0; i < count; i++) {
+                Ultrasonic u = m_sensors.get(m_next++ % count);
+                if (u.m_enabled) {
+                    u.ping();
+                    m_pinged = u;
+                    break;
+                }
+            }
+            m_next %= Math.max(count, 1);
+        }
+    }
+
+    private void ping() {
+        m_counter.reset();
+        m_ping.pulse(PING_TIME);
+    }
+
+    private void readEcho() {
+        // Two edges mean the echo went high and came back low.
+        if (m_counter.get() < 2)
+            return;
+        double range = m_counter.getPeriod() * SPEED_OF_SOUND_INCHES_PER_SEC / 2.0;
+        m_ranges.add(RoboRIO.getFPGATime(), filter(range));
+    }
+
+    private synchronized double filter(double range) {
+        if (m_windowSize <= 1)
+            return range;
+        m_window[m_windowNext] = range;
+        m_windowNext = (m_windowNext + 1) % m_windowSize;
+        if (m_windowCount < m_windowSize)
+            m_windowCount++;
+
+        System.arraycopy(m_window, 0, m_sorted, 0, m_windowCount);
+        for (int i = 1; i < m_windowCount; i++) {
+            double v = m_sorted[i];
+            int j = i - 1;
+            while (j >= 0 && m_sorted[j] > v) {
+                m_sorted[j + 1] = m_sorted[j];
+                j--;
+            }
+            m_sorted[j + 1] = v;
+        }
+        int mid = m_windowCount / 2;
+        if (m_windowCount % 2 == 1)
+            return m_sorted[mid];
+        return (m_sorted[mid - 1] + m_sorted[mid]) / 2.0;
+    }
+
+    /**
+     * Set how many readings the median filter looks at. 1 turns filtering off.
+     *
+     * @param size the window size, from 1 to 15
+     */
+    public synchronized void setMedianWindow(int size) {
+        if (size < 1 || size > MAX_MEDIAN_WINDOW)
+            throw new IllegalArgumentException("Median window must be between 1 and " + MAX_MEDIAN_WINDOW + ".");
+        m_windowSize = size;
+        m_windowCount = 0;
+        m_windowNext = 0;
+    }
+
+    /**
+     * Check if a range has been measured in the last two rounds of the schedule.
+     *
+     * @return true if the latest range is current
+     */
+    public boolean isRangeValid() {
+        int sensors;
+        synchronized (m_sensors) {
+            sensors = m_sensors.size();
+        }
+        long maxAge = (long) (m_slotTime * 1e6) * sensors * 2;
+        return m_ranges.getAge(RoboRIO.getFPGATime()) <= maxAge;
+    }
+
+    /**
+     * @return the latest range in inches, or 0 if none has been measured
+     */
+    public double getRangeInches() {
+        return m_ranges.getLatestValue();
+    }
+
+    /**
+     * @return the latest range in millimeters, or 0 if none has been measured
+     */
+    public double getRangeMM() {
+        return getRangeInches() * 25.4;
+    }
+
+    /**
+     * @return the FPGA time of the latest range in microseconds
+     */
+    public long getRangeTime() {
+        return m_ranges.getLatestTime();
+    }
+
+    /**
+     * @return the recorded ranges in inches
+     */
+    public SampleBuffer getRangeBuffer() {
+        return m_ranges;
+    }
+
+    public void setDistanceUnits(Unit unit) {
+        m_unit = unit;
+    }
+
+    public Unit getDistanceUnits() {
+        return m_unit;
+    }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public void enableModule() {
-        // TODO Auto-generated method stub
+    public double getDistance() {
+        return m_unit == Unit.MILLIMETERS ? getRangeMM() : getRangeInches();
+    }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double pidGet() {
+        return getDistance();
+    }
+
+    /**
+     * {@inheritDoc} Disabled sensors are skipped by the ping schedule.
+     */
+    @Override
+    public void enableModule() {
+        m_enabled = true;
     }
 
     /**
@@ -36,8 +309,7 @@ public class Ultrasonic implements SensorModule {
      */
     @Override
     public void disableModule() {
-        // TODO Auto-generated method stub
-
+        m_enabled = false;
     }
 
     /**
@@ -45,8 +317,7 @@ public class Ultrasonic implements SensorModule {
      */
     @Override
     public boolean getModuleEnabled() {
-        // TODO Auto-generated method stub
-        return true;
+        return m_enabled;
     }
 
 }
@@ -19,6 +19,7 @@ package io.github.robolib.module.sensor.mpu6050;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
 
+import io.github.robolib.module.iface.BusManager;
 import io.github.robolib.module.iface.I2C;
 import io.github.robolib.module.sensor.IAccelerometer;
 import io.github.robolib.util.Timer;
@@ -148,9 +149,9 @@ public class MPU6050 extends I2C implements IAccelerometer {
     private static final byte MPU6050_RA_MEM_R_W = 0x6F;
     private static final byte MPU6050_RA_DMP_CFG_1 = 0x70;
     private static final byte MPU6050_RA_DMP_CFG_2 = 0x71;
-    private static final byte MPU6050_RA_FIFO_COUNTH = 0x72;
+    static final byte MPU6050_RA_FIFO_COUNTH = 0x72;
     private static final byte MPU6050_RA_FIFO_COUNTL = 0x73;
-    private static final byte MPU6050_RA_FIFO_R_W = 0x74;
+    static final byte MPU6050_RA_FIFO_R_W = 0x74;
     private static final byte MPU6050_RA_WHO_AM_I = 0x75;
 
     private static final int MPU6050_TC_PWR_MODE_BIT = 7;
@@ -617,6 +618,8 @@ public class MPU6050 extends I2C implements IAccelerometer {
     private static final int MPU6050_DMP_MEMORY_BANK_SIZE = 256;
     private static final int MPU6050_DMP_MEMORY_CHUNK_SIZE = 16;
 
+    private final byte[] m_motionBuffer = new byte[14];
+
     /**
      * Default constructor, uses default I2C address.
      *
@@ -639,6 +642,7 @@ public class MPU6050 extends I2C implements IAccelerometer {
 
     public MPU6050(Port port, byte addr) {
         super(port, addr);
+        setBusPriority(BusManager.Priority.HIGH);
         Logger.get(this, String.format("MPU6050 @ 0x%02x, %s", addr, port.name()));
         initialize();
     }
@@ -2696,6 +2700,20 @@ public class MPU6050 extends I2C implements IAccelerometer {
         return new short[] { buffer[0], buffer[1], buffer[2], buffer[4], buffer[5], buffer[6] };
     }
 
+    /**
+     * Get raw 6-axis motion sensor readings in one burst read without allocating.
+     *
+     * @param data filled with accel X, Y, Z then gyro X, Y, Z
+     * @see #getMotion6()
+     */
+    public synchronized void getMotion6(short[] data) {
+        readBytes(MPU6050_RA_ACCEL_XOUT_H, m_motionBuffer, 14);
+        for (int i = 0; i < 3; i++) {
+            data[i] = (short) ((m_motionBuffer[i * 2] << 8) | (m_motionBuffer[i * 2 + 1] & 0xFF));
+            data[i + 3] = (short) ((m_motionBuffer[i * 2 + 8] << 8) | (m_motionBuffer[i * 2 + 9] & 0xFF));
+        }
+    }
+
     /**
      * Get 3-axis accelerometer readings. These registers store the most recent
      * accelerometer measurements. Accelerometer measurements are written to these
@@ -2842,7 +2860,7 @@ public class MPU6050 extends I2C implements IAccelerometer {
     public short getRotationX() {
         byte[] buffer = new byte[2];
         readBytes(MPU6050_RA_GYRO_XOUT_H, buffer, 2);
-        return (short) ((buffer[0] << 8) | buffer[1]);
+        return (short) ((buffer[0] << 8) | (buffer[1] & 0xFF));
     }
 
     /**
@@ -2855,7 +2873,7 @@ public class MPU6050 extends I2C implements IAccelerometer {
     public short getRotationY() {
         byte[] buffer = new byte[2];
         readBytes(MPU6050_RA_GYRO_YOUT_H, buffer, 2);
-        return (short) ((buffer[0] << 8) | buffer[1]);
+        return (short) ((buffer[0] << 8) | (buffer[1] & 0xFF));
     }
 
     /**
@@ -2868,7 +2886,7 @@ public class MPU6050 extends I2C implements IAccelerometer {
     public short getRotationZ() {
         byte[] buffer = new byte[2];
         readBytes(MPU6050_RA_GYRO_ZOUT_H, buffer, 2);
-        return (short) ((buffer[0] << 8) | buffer[1]);
+        return (short) ((buffer[0] << 8) | (buffer[1] & 0xFF));
     }
 
     // EXT_SENS_DATA_* registers
@@ -2962,7 +2980,7 @@ public class MPU6050 extends I2C implements IAccelerometer {
     public short getExternalSensorWord(int position) {
         byte[] buffer = new byte[2];
         readBytes(MPU6050_RA_EXT_SENS_DATA_00 + position, buffer, 2);
-        return (short) ((buffer[0] << 8) | buffer[1]);
+        return (short) ((buffer[0] << 8) | (buffer[1] & 0xFF));
     }
 
     /**
@@ -2975,7 +2993,7 @@ public class MPU6050 extends I2C implements IAccelerometer {
     public int getExternalSensorDWord(int position) {
         byte[] buffer = new byte[4];
         readBytes(MPU6050_RA_EXT_SENS_DATA_00 + position, buffer, 4);
-        return ((buffer[0]) << 24) | ((buffer[1]) << 16) | ((buffer[2]) << 8) | buffer[3];
+        return (buffer[0] << 24) | ((buffer[1] & 0xFF) << 16) | ((buffer[2] & 0xFF) << 8) | (buffer[3] & 0xFF);
     }
 
     // MOT_DETECT_STATUS register
@@ -3777,7 +3795,7 @@ public class MPU6050 extends I2C implements IAccelerometer {
     public short getFIFOCount() {
         byte[] buffer = new byte[2];
         readBytes(MPU6050_RA_FIFO_COUNTH, buffer, 2);
-        return (short) ((buffer[0] << 8) | buffer[1]);
+        return (short) ((buffer[0] << 8) | (buffer[1] & 0xFF));
     }
 
     // FIFO_R_W register
@@ -3947,7 +3965,7 @@ public class MPU6050 extends I2C implements IAccelerometer {
     public short getXAccelOffset() {
         byte[] buffer = new byte[2];
         readBytes(MPU6050_RA_XA_OFFS_H, buffer, 2);
-        return (short) ((buffer[0] << 8) | buffer[1]);
+        return (short) ((buffer[0] << 8) | (buffer[1] & 0xFF));
     }
 
     public void setXAccelOffset(int offset) {
@@ -3959,7 +3977,7 @@ public class MPU6050 extends I2C implements IAccelerometer {
     public short getYAccelOffset() {
         byte[] buffer = new byte[2];
         readBytes(MPU6050_RA_YA_OFFS_H, buffer, 2);
-        return (short) ((buffer[0] << 8) | buffer[1]);
+        return (short) ((buffer[0] << 8) | (buffer[1] & 0xFF));
     }
 
     public void setYAccelOffset(int offset) {
@@ -3971,7 +3989,7 @@ public class MPU6050 extends I2C implements IAccelerometer {
     public short getZAccelOffset() {
         byte[] buffer = new byte[2];
         readBytes(MPU6050_RA_ZA_OFFS_H, buffer, 2);
-        return (short) ((buffer[0] << 8) | buffer[1]);
+        return (short) ((buffer[0] << 8) | (buffer[1] & 0xFF));
     }
 
     public void setZAccelOffset(int offset) {
@@ -3983,7 +4001,7 @@ public class MPU6050 extends I2C implements IAccelerometer {
     public short getXGyroOffset() {
         byte[] buffer = new byte[2];
         readBytes(MPU6050_RA_XG_OFFS_USRH, buffer, 2);
-        return (short) ((buffer[0] << 8) | buffer[1]);
+        return (short) ((buffer[0] << 8) | (buffer[1] & 0xFF));
     }
 
     public void setXGyroOffset(int offset) {
@@ -3995,7 +4013,7 @@ public class MPU6050 extends I2C implements IAccelerometer {
     public short getYGyroOffset() {
         byte[] buffer = new byte[2];
         readBytes(MPU6050_RA_YG_OFFS_USRH, buffer, 2);
-        return (short) ((buffer[0] << 8) | buffer[1]);
+        return (short) ((buffer[0] << 8) | (buffer[1] & 0xFF));
     }
 
     public void setYGyroOffset(int offset) {
@@ -4007,7 +4025,7 @@ public class MPU6050 extends I2C implements IAccelerometer {
     public short getZGyroOffset() {
         byte[] buffer = new byte[2];
         readBytes(MPU6050_RA_ZG_OFFS_USRH, buffer, 2);
-        return (short) ((buffer[0] << 8) | buffer[1]);
+        return (short) ((buffer[0] << 8) | (buffer[1] & 0xFF));
     }
 
     public void setZGyroOffset(int offset) {
@@ -4874,9 +4892,9 @@ public class MPU6050 extends I2C implements IAccelerometer {
         // now)
         if (packet.length == 0)
             packet = dmpPacketBuffer;
-        data[0] = ((packet[28] << 24) + (packet[29] << 16) + (packet[30] << 8) + packet[31]);
-        data[1] = ((packet[32] << 24) + (packet[33] << 16) + (packet[34] << 8) + packet[35]);
-        data[2] = ((packet[36] << 24) + (packet[37] << 16) + (packet[38] << 8) + packet[39]);
+        data[0] = ((packet[28] << 24) | ((packet[29] & 0xFF) << 16) | ((packet[30] & 0xFF) << 8) | (packet[31] & 0xFF));
+        data[1] = ((packet[32] << 24) | ((packet[33] & 0xFF) << 16) | ((packet[34] & 0xFF) << 8) | (packet[35] & 0xFF));
+        data[2] = ((packet[36] << 24) | ((packet[37] & 0xFF) << 16) | ((packet[38] & 0xFF) << 8) | (packet[39] & 0xFF));
         return 0;
     }
 
@@ -4885,9 +4903,9 @@ public class MPU6050 extends I2C implements IAccelerometer {
         // now)
         if (packet.length == 0)
             packet = dmpPacketBuffer;
-        data[0] = (short) ((packet[28] << 8) + packet[29]);
-        data[1] = (short) ((packet[32] << 8) + packet[33]);
-        data[2] = (short) ((packet[36] << 8) + packet[37]);
+        data[0] = (short) ((packet[28] << 8) | (packet[29] & 0xFF));
+        data[1] = (short) ((packet[32] << 8) | (packet[33] & 0xFF));
+        data[2] = (short) ((packet[36] << 8) | (packet[37] & 0xFF));
         return 0;
     }
 
@@ -4896,9 +4914,9 @@ public class MPU6050 extends I2C implements IAccelerometer {
         // now)
         if (packet.length == 0)
             packet = dmpPacketBuffer;
-        v.x = (short) ((packet[28] << 8) + packet[29]);
-        v.y = (short) ((packet[32] << 8) + packet[33]);
-        v.z = (short) ((packet[36] << 8) + packet[37]);
+        v.x = (short) ((packet[28] << 8) | (packet[29] & 0xFF));
+        v.y = (short) ((packet[32] << 8) | (packet[33] & 0xFF));
+        v.z = (short) ((packet[36] << 8) | (packet[37] & 0xFF));
         return 0;
     }
 
@@ -4907,10 +4925,10 @@ public class MPU6050 extends I2C implements IAccelerometer {
         // now)
         if (packet.length == 0)
             packet = dmpPacketBuffer;
-        data[0] = ((packet[0] << 24) + (packet[1] << 16) + (packet[2] << 8) + packet[3]);
-        data[1] = ((packet[4] << 24) + (packet[5] << 16) + (packet[6] << 8) + packet[7]);
-        data[2] = ((packet[8] << 24) + (packet[9] << 16) + (packet[10] << 8) + packet[11]);
-        data[3] = ((packet[12] << 24) + (packet[13] << 16) + (packet[14] << 8) + packet[15]);
+        data[0] = ((packet[0] << 24) | ((packet[1] & 0xFF) << 16) | ((packet[2] & 0xFF) << 8) | (packet[3] & 0xFF));
+        data[1] = ((packet[4] << 24) | ((packet[5] & 0xFF) << 16) | ((packet[6] & 0xFF) << 8) | (packet[7] & 0xFF));
+        data[2] = ((packet[8] << 24) | ((packet[9] & 0xFF) << 16) | ((packet[10] & 0xFF) << 8) | (packet[11] & 0xFF));
+        data[3] = ((packet[12] << 24) | ((packet[13] & 0xFF) << 16) | ((packet[14] & 0xFF) << 8) | (packet[15] & 0xFF));
         return 0;
     }
 
@@ -4919,26 +4937,22 @@ public class MPU6050 extends I2C implements IAccelerometer {
         // now)
         if (packet.length == 0)
             packet = dmpPacketBuffer;
-        data[0] = (short) ((packet[0] << 8) + packet[1]);
-        data[1] = (short) ((packet[4] << 8) + packet[5]);
-        data[2] = (short) ((packet[8] << 8) + packet[9]);
-        data[3] = (short) ((packet[12] << 8) + packet[13]);
+        data[0] = (short) ((packet[0] << 8) | (packet[1] & 0xFF));
+        data[1] = (short) ((packet[4] << 8) | (packet[5] & 0xFF));
+        data[2] = (short) ((packet[8] << 8) | (packet[9] & 0xFF));
+        data[3] = (short) ((packet[12] << 8) | (packet[13] & 0xFF));
         return 0;
     }
 
     public byte dmpGetQuaternion(Quaternion q, final byte[] packet) {
         // TODO: accommodate different arrangements of sent data (ONLY default supported
         // now)
-        short[] qI = new short[4];
-        byte status = dmpGetQuaternion(qI, packet);
-        if (status == 0) {
-            q.w = qI[0] / 16384.00;
-            q.x = qI[1] / 16384.00;
-            q.y = qI[2] / 16384.00;
-            q.z = qI[3] / 16384.00;
-            return 0;
-        }
-        return status; // int16 return value, indicates error if this line is reached
+        byte[] p = packet.length == 0 ? dmpPacketBuffer : packet;
+        q.set((short) ((p[0] << 8) | (p[1] & 0xFF)) / 16384.00,
+                (short) ((p[4] << 8) | (p[5] & 0xFF)) / 16384.00,
+                (short) ((p[8] << 8) | (p[9] & 0xFF)) / 16384.00,
+                (short) ((p[12] << 8) | (p[13] & 0xFF)) / 16384.00);
+        return 0;
     }
 
     // public byte dmpGet6AxisQuaternion(long *data, const uint8_t* packet);
@@ -4948,9 +4962,9 @@ public class MPU6050 extends I2C implements IAccelerometer {
         // now)
         if (packet.length == 0)
             packet = dmpPacketBuffer;
-        data[0] = ((packet[16] << 24) + (packet[17] << 16) + (packet[18] << 8) + packet[19]);
-        data[1] = ((packet[20] << 24) + (packet[21] << 16) + (packet[22] << 8) + packet[23]);
-        data[2] = ((packet[24] << 24) + (packet[25] << 16) + (packet[26] << 8) + packet[27]);
+        data[0] = ((packet[16] << 24) | ((packet[17] & 0xFF) << 16) | ((packet[18] & 0xFF) << 8) | (packet[19] & 0xFF));
+        data[1] = ((packet[20] << 24) | ((packet[21] & 0xFF) << 16) | ((packet[22] & 0xFF) << 8) | (packet[23] & 0xFF));
+        data[2] = ((packet[24] << 24) | ((packet[25] & 0xFF) << 16) | ((packet[26] & 0xFF) << 8) | (packet[27] & 0xFF));
         return 0;
     }
 
@@ -4959,9 +4973,9 @@ public class MPU6050 extends I2C implements IAccelerometer {
         // now)
         if (packet.length == 0)
             packet = dmpPacketBuffer;
-        data[0] = (short) ((packet[16] << 8) + packet[17]);
-        data[1] = (short) ((packet[20] << 8) + packet[21]);
-        data[2] = (short) ((packet[24] << 8) + packet[25]);
+        data[0] = (short) ((packet[16] << 8) | (packet[17] & 0xFF));
+        data[1] = (short) ((packet[20] << 8) | (packet[21] & 0xFF));
+        data[2] = (short) ((packet[24] << 8) | (packet[25] & 0xFF));
         return 0;
     }
 
@@ -4970,9 +4984,9 @@ public class MPU6050 extends I2C implements IAccelerometer {
         // now)
         if (packet.length == 0)
             packet = dmpPacketBuffer;
-        v.x = (short) ((packet[16] << 8) + packet[17]);
-        v.y = (short) ((packet[20] << 8) + packet[21]);
-        v.z = (short) ((packet[24] << 8) + packet[25]);
+        v.x = (short) ((packet[16] << 8) | (packet[17] & 0xFF));
+        v.y = (short) ((packet[20] << 8) | (packet[21] & 0xFF));
+        v.z = (short) ((packet[24] << 8) | (packet[25] & 0xFF));
         return 0;
     }
 
@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2015-2020 noriah <vix@noriah.dev>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ */
+
+package io.github.robolib.module.sensor.mpu6050;
+
+import io.github.robolib.identifier.AngleSource;
+import io.github.robolib.identifier.RateSource;
+import io.github.robolib.identifier.SampleBuffer;
+import io.github.robolib.module.RoboRIO;
+import io.github.robolib.module.iface.BusManager;
+import io.github.robolib.module.sensor.mpu6050.MPU6050.DLPFilterMode;
+import io.github.robolib.util.log.Logger;
+
+/**
+ * Streams accelerometer and gyro data out of an MPU6050 FIFO.
+ *
+ * The FIFO is set up to hold accel and gyro packets at a fixed sample rate. A
+ * high priority task on the sensor's {@link BusManager} thread drains it with
+ * burst reads, decodes each packet into
+ * {@link SampleBuffer}s, and integrates the gyro into angles. Everything read
+ * from this class comes from those buffers, so callers never touch the bus.
+ *
+ * @author noriah <vix@noriah.dev>
+ */
+public class MPU6050Stream {
+
+    /**
+     * Sensor axes.
+     *
+     * @author noriah <vix@noriah.dev>
+     */
+    public static enum Axis {
+        X, Y, Z;
+    }
+
+    /** Bytes in one FIFO packet: three accel words and three gyro words. */
+    public static final int PACKET_SIZE = 12;
+
+    /** The size of the MPU6050 FIFO in bytes. */
+    public static final int FIFO_SIZE = 1024;
+
+    /** The most packets read in one burst. */
+    private static final int BURST_PACKETS = 20;
+
+    private static final long WARN_INTERVAL = 5000000;
+
+    private final MPU6050 m_mpu;
+    private final int m_divider;
+    private final long m_samplePeriod;
+
+    private final SampleBuffer[] m_accel = new SampleBuffer[3];
+    private final SampleBuffer[] m_gyro = new SampleBuffer[3];
+    private final double[] m_angle = new double[3];
+
+    private final byte[] m_countBuffer = new byte[2];
+    private final byte[] m_burst = new byte[BURST_PACKETS * PACKET_SIZE];
+
+    private double m_accelScale;
+    private double m_gyroScale;
+
+    private volatile boolean m_running = false;
+    private BusManager.Task m_task;
+
+    private volatile long m_packetCount = 0;
+    private volatile long m_overflowCount = 0;
+    private long m_lastWarning = 0;
+
+    /**
+     * Create a stream for an MPU6050. Call {@link #start()} to begin streaming.
+     *
+     * @param mpu      the sensor to read
+     * @param rate     the sample rate in Hz, from 4 to 1000. The chip divides a
+     *                 1 kHz clock, so this is rounded up to the nearest 1000 / n
+     *                 Hz. See {@link #getSampleRate()}.
+     * @param capacity the number of samples kept per axis
+     */
+    public MPU6050Stream(MPU6050 mpu, int rate, int capacity) {
+        if (rate < 4 || rate > 1000)
+            throw new IllegalArgumentException("Rate must be between 4 and 1000 Hz.");
+        m_mpu = mpu;
+        // The chip samples at 1000 / (1 + divider) Hz.
+        m_divider = 1000 / rate - 1;
+        m_samplePeriod = (m_divider + 1) * 1000L;
+        for (int i = 0; i < 3; i++) {
+            m_accel[i] = new SampleBuffer(capacity);
+            m_gyro[i] = new SampleBuffer(capacity);
+        }
+    }
+
+    /**
+     * Configure the FIFO and start the reader task.
+     */
+    public synchronized void start() {
+        if (m_running)
+            return;
+
+        m_mpu.setFIFOEnabled(false);
+        m_mpu.setDLPFMode(DLPFilterMode.BW_188Hz);
+        m_mpu.setRate((byte) m_divider);
+        m_mpu.setTempFIFOEnabled(false);
+        m_mpu.setAccelFIFOEnabled(true);
+        m_mpu.setXGyroFIFOEnabled(true);
+        m_mpu.setYGyroFIFOEnabled(true);
+        m_mpu.setZGyroFIFOEnabled(true);
+
+        m_accelScale = 1.0 / (16384 >> m_mpu.getFullScaleAccelRange().ordinal());
+        m_gyroScale = 1.0 / (131.0 / (1 << m_mpu.getFullScaleGyroRange().ordinal()));
+
+        m_mpu.resetFIFO();
+        m_mpu.setFIFOEnabled(true);
+
+        m_running = true;
+        // Poll at about four packets per pass so bursts stay large.
+        m_task = m_mpu.getBusClient().getBus().schedule(BusManager.Priority.HIGH, this::drain,
+                m_samplePeriod * 4e-6);
+    }
+
+    /**
+     * Stop the reader task and turn the FIFO off. Recorded samples are kept.
+     */
+    public synchronized void stop() {
+        if (!m_running)
+            return;
+        m_running = false;
+        m_task.cancel();
+        m_task = null;
+        m_mpu.setFIFOEnabled(false);
+    }
+
+    /**
+     * Read every complete packet in the FIFO.
+     */
+    private void drain() {
+        m_mpu.readBytes(MPU6050.MPU6050_RA_FIFO_COUNTH, m_countBuffer, 2);
+        int count = ((m_countBuffer[0] & 0xFF) << 8) | (m_countBuffer[1] & 0xFF);
+
+        if (count >= FIFO_SIZE) {
+            m_overflowCount++;
+            m_mpu.setFIFOEnabled(false);
+            m_mpu.resetFIFO();
+            m_mpu.setFIFOEnabled(true);
+            long now = RoboRIO.getFPGATime();
+            if (now - m_lastWarning > WARN_INTERVAL) {
+                m_lastWarning = now;
+                Logger.get(MPU6050Stream.class).warn("MPU6050 FIFO overflowed, samples were lost.");
+            }
+            return;
+        }
+
+        int packets = count / PACKET_SIZE;
+        if (packets == 0)
+            return;
+
+        // The newest packet in the FIFO was sampled about now.
+        long newest = RoboRIO.getFPGATime();
+        int remaining = packets;
+        while (remaining > 0) {
+            int n = Math.min(remaining, BURST_PACKETS);
+            if (!m_mpu.readBytes(MPU6050.MPU6050_RA_FIFO_R_W, m_burst, n * PACKET_SIZE))
+                return;
+            remaining -= n;
+            for (int p = 0; p < n; p++)
+                decode(p * PACKET_SIZE, newest - (remaining + n - 1 - p) * m_samplePeriod);
+        }
+    }
+
+    private void decode(int offset, long time) {
+        double dt = m_samplePeriod * 1e-6;
+        for (int i = 0; i < 3; i++) {
+            int a = offset + i * 2;
+            int g = offset + 6 + i * 2;
+            double accel = (short) ((m_burst[a] << 8) | (m_burst[a + 1] & 0xFF)) * m_accelScale;
+            double rate = (short) ((m_burst[g] << 8) | (m_burst[g + 1] & 0xFF)) * m_gyroScale;
+            m_accel[i].add(time, accel);
+            m_gyro[i].add(time, rate);
+            synchronized (m_angle) {
+                m_angle[i] += rate * dt;
+            }
+        }
+        m_packetCount++;
+    }
+
+    /**
+     * @return the rate the chip actually samples at, in Hz
+     */
+    public double getSampleRate() {
+        return 1e6 / m_samplePeriod;
+    }
+
+    /**
+     * @param axis the axis
+     * @return the buffer of acceleration samples in g for that axis
+     */
+    public SampleBuffer getAccelBuffer(Axis axis) {
+        return m_accel[axis.ordinal()];
+    }
+
+    /**
+     * @param axis the axis
+     * @return the buffer of rotation rate samples in degrees per second
+     */
+    public SampleBuffer getGyroBuffer(Axis axis) {
+        return m_gyro[axis.ordinal()];
+    }
+
+    /**
+     * @param axis the axis
+     * @return the latest acceleration in g
+     */
+    public double getAcceleration(Axis axis) {
+        return m_accel[axis.ordinal()].getLatestValue();
+    }
+
+    /**
+     * @param axis the axis
+     * @return the latest rotation rate in degrees per second
+     */
+    public double getRate(Axis axis) {
+        return m_gyro[axis.ordinal()].getLatestValue();
+    }
+
+    /**
+     * @param axis the axis
+     * @return the integrated angle in degrees since the last reset
+     */
+    public double getAngle(Axis axis) {
+        synchronized (m_angle) {
+            return m_angle[axis.ordinal()];
+        }
+    }
+
+    /**
+     * Zero the integrated angles.
+     */
+    public void resetAngles() {
+        synchronized (m_angle) {
+            m_angle[0] = 0.0;
+            m_angle[1] = 0.0;
+            m_angle[2] = 0.0;
+        }
+    }
+
+    /**
+     * @param axis the axis
+     * @return a RateSource reading the latest rate on that axis
+     */
+    public RateSource getRateSource(Axis axis) {
+        return () -> getRate(axis);
+    }
+
+    /**
+     * @param axis the axis
+     * @return an AngleSource reading the integrated angle on that axis
+     */
+    public AngleSource getAngleSource(Axis axis) {
+        return () -> getAngle(axis);
+    }
+
+    /**
+     * @return the number of packets decoded
+     */
+    public long getPacketCount() {
+        return m_packetCount;
+    }
+
+    /**
+     * @return the number of times the FIFO overflowed and was reset
+     */
+    public long getOverflowCount() {
+        return m_overflowCount;
+    }
+
+    /**
+     * @return true while the reader task is running
+     */
+    public boolean isRunning() {
+        return m_running;
+    }
+}
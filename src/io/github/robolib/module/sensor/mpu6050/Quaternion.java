@@ -26,20 +26,86 @@ public class Quaternion {
         z = nz;
     }
 
+    private static final int SCRATCH_SIZE = 8;
+
+    private static final ThreadLocal<Scratch> m_scratch = ThreadLocal.withInitial(Scratch::new);
+
+    /**
+     * A per-thread ring of reusable Quaternions.
+     *
+     * @author noriah <vix@noriah.dev>
+     */
+    private static final class Scratch {
+        private final Quaternion[] m_ring = new Quaternion[SCRATCH_SIZE];
+        private int m_next = 0;
+
+        private Scratch() {
+            for (int i = 0; i < SCRATCH_SIZE; i++)
+                m_ring[i] = new Quaternion();
+        }
+    }
+
+    /**
+     * Get a temporary Quaternion owned by the calling thread. The same instance is
+     * handed out again after {@value #SCRATCH_SIZE} more calls on this thread, so
+     * it must not be kept.
+     *
+     * @return a scratch Quaternion set to identity
+     */
+    public static Quaternion scratch() {
+        Scratch s = m_scratch.get();
+        Quaternion q = s.m_ring[s.m_next];
+        s.m_next = (s.m_next + 1) % SCRATCH_SIZE;
+        return q.set(1.0, 0.0, 0.0, 0.0);
+    }
+
+    public Quaternion set(double nw, double nx, double ny, double nz) {
+        w = nw;
+        x = nx;
+        y = ny;
+        z = nz;
+        return this;
+    }
+
+    public Quaternion set(Quaternion q) {
+        return set(q.w, q.x, q.y, q.z);
+    }
+
     public Quaternion getProduct(Quaternion q) {
+        return multiplyInto(q, new Quaternion());
+    }
+
+    /**
+     * Multiply this by q and store the result in dest. dest may be this or q.
+     *
+     * @param q    the right hand side
+     * @param dest where to store the product
+     * @return dest
+     */
+    public Quaternion multiplyInto(Quaternion q, Quaternion dest) {
         // Quaternion multiplication is defined by:
         // (Q1 * Q2).w = (w1w2 - x1x2 - y1y2 - z1z2)
         // (Q1 * Q2).x = (w1x2 + x1w2 + y1z2 - z1y2)
         // (Q1 * Q2).y = (w1y2 - x1z2 + y1w2 + z1x2)
         // (Q1 * Q2).z = (w1z2 + x1y2 - y1x2 + z1w2
-        return new Quaternion(w * q.w - x * q.x - y * q.y - z * q.z, // new w
+        return dest.set(w * q.w - x * q.x - y * q.y - z * q.z, // new w
                 w * q.x + x * q.w + y * q.z - z * q.y, // new x
                 w * q.y - x * q.z + y * q.w + z * q.x, // new y
                 w * q.z + x * q.y - y * q.x + z * q.w); // new z
     }
 
     public Quaternion getConjugate() {
-        return new Quaternion(w, -x, -y, -z);
+        return conjugateInto(new Quaternion());
+    }
+
+    /**
+     * Store the conjugate of this in dest. dest may be this.
+     *
+     * @param dest where to store the conjugate
+     * @return dest
+     */
+    public Quaternion conjugateInto(Quaternion dest) {
+        return dest.set(w, -x, -y, -z);
     }
 
     public double getMagnitude() {
@@ -47,16 +113,58 @@ public class Quaternion {
     }
 
     public void normalize() {
+        normalizeInto(this);
+    }
+
+    /**
+     * Store this scaled to unit length in dest. dest may be this.
+     *
+     * @param dest where to store the result
+     * @return dest
+     */
+    public Quaternion normalizeInto(Quaternion dest) {
         double m = getMagnitude();
-        w /= m;
-        x /= m;
-        y /= m;
-        z /= m;
+        return dest.set(w / m, x / m, y / m, z / m);
     }
 
     public Quaternion getNormalized() {
-        Quaternion r = new Quaternion(w, x, y, z);
-        r.normalize();
-        return r;
+        return normalizeInto(new Quaternion());
+    }
+
+    /**
+     * Spherical linear interpolation between two unit Quaternions, taking the
+     * shorter path. dest may be a or b.
+     *
+     * @param a    the start, returned for t = 0
+     * @param b    the end, returned for t = 1
+     * @param t    how far from a to b
+     * @param dest where to store the result
+     * @return dest
+     */
+    public static Quaternion slerp(Quaternion a, Quaternion b, double t, Quaternion dest) {
+        double bw = b.w, bx = b.x, by = b.y, bz = b.z;
+        double cos = a.w * bw + a.x * bx + a.y * by + a.z * bz;
+        if (cos < 0) {
+            cos = -cos;
+            bw = -bw;
+            bx = -bx;
+            by = -by;
+            bz = -bz;
+        }
+
+        double sa, sb;
+        if (cos > 0.9995) {
+            // Nearly the same rotation, a straight blend is accurate enough.
+            sa = 1.0 - t;
+            sb = t;
+        } else {
+            double theta = Math.acos(cos);
+            double sin = Math.sin(theta);
+            sa = Math.sin((1.0 - t) * theta) / sin;
+            sb = Math.sin(t * theta) / sin;
+        }
+
+        dest.set(sa * a.w + sb * bw, sa * a.x + sb * bx, sa * a.y + sb * by, sa * a.z + sb * bz);
+        return dest.normalizeInto(dest);
     }
 }
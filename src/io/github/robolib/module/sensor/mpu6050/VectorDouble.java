@@ -23,41 +23,99 @@ public class VectorDouble {
         z = nz;
     }
 
+    private static final int SCRATCH_SIZE = 8;
+
+    private static final ThreadLocal<Scratch> m_scratch = ThreadLocal.withInitial(Scratch::new);
+
+    /**
+     * A per-thread ring of reusable vectors.
+     *
+     * @author noriah <vix@noriah.dev>
+     */
+    private static final class Scratch {
+        private final VectorDouble[] m_ring = new VectorDouble[SCRATCH_SIZE];
+        private int m_next = 0;
+
+        private Scratch() {
+            for (int i = 0; i < SCRATCH_SIZE; i++)
+                m_ring[i] = new VectorDouble();
+        }
+    }
+
+    /**
+     * Get a temporary vector owned by the calling thread. The same instance is
+     * handed out again after {@value #SCRATCH_SIZE} more calls on this thread, so
+     * it must not be kept.
+     *
+     * @return a scratch vector set to zero
+     */
+    public static VectorDouble scratch() {
+        Scratch s = m_scratch.get();
+        VectorDouble v = s.m_ring[s.m_next];
+        s.m_next = (s.m_next + 1) % SCRATCH_SIZE;
+        return v.set(0.0, 0.0, 0.0);
+    }
+
+    public VectorDouble set(double nx, double ny, double nz) {
+        x = nx;
+        y = ny;
+        z = nz;
+        return this;
+    }
+
+    public VectorDouble set(VectorDouble v) {
+        return set(v.x, v.y, v.z);
+    }
+
     public double getMagnitude() {
         return Math.sqrt(x * x + y * y + z * z);
     }
 
     public void normalize() {
+        normalizeInto(this);
+    }
+
+    /**
+     * Store this scaled to unit length in dest. dest may be this.
+     *
+     * @param dest where to store the result
+     * @return dest
+     */
+    public VectorDouble normalizeInto(VectorDouble dest) {
         double m = getMagnitude();
-        x /= m;
-        y /= m;
-        z /= m;
+        return dest.set(x / m, y / m, z / m);
     }
 
     public VectorDouble getNormalized() {
-        VectorDouble r = new VectorDouble(x, y, z);
-        r.normalize();
-        return r;
+        return normalizeInto(new VectorDouble());
     }
 
     public void rotate(Quaternion q) {
-        Quaternion p = new Quaternion(0, x, y, z);
-
-        // quaternion multiplication: q * p, stored back in p
-        p = q.getProduct(p);
+        rotateInto(q, this);
+    }
 
-        // quaternion multiplication: p * conj(q), stored back in p
-        p = p.getProduct(q.getConjugate());
+    /**
+     * Rotate this by q and store the result in dest. dest may be this.
+     *
+     * @param q    the rotation, a unit Quaternion
+     * @param dest where to store the rotated vector
+     * @return dest
+     */
+    public VectorDouble rotateInto(Quaternion q, VectorDouble dest) {
+        // P_out = q * [0, v] * conj(q), expanded so no Quaternions are needed.
+        // t = q * [0, v]
+        double tw = -q.x * x - q.y * y - q.z * z;
+        double tx = q.w * x + q.y * z - q.z * y;
+        double ty = q.w * y - q.x * z + q.z * x;
+        double tz = q.w * z + q.x * y - q.y * x;
 
-        // p quaternion is now [0, x', y', z']
-        x = p.x;
-        y = p.y;
-        z = p.z;
+        // t * conj(q); the w part is zero
+        return dest.set(-tw * q.x + tx * q.w - ty * q.z + tz * q.y,
+                -tw * q.y + tx * q.z + ty * q.w - tz * q.x,
+                -tw * q.z - tx * q.y + ty * q.x + tz * q.w);
     }
 
     public VectorDouble getRotated(Quaternion q) {
-        VectorDouble r = new VectorDouble(x, y, z);
-        r.rotate(q);
-        return r;
+        return rotateInto(q, new VectorDouble());
     }
 }
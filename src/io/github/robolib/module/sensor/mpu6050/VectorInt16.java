@@ -53,18 +53,18 @@ public class VectorInt16 {
         // - P_in is the input vector (a*aReal)
         // - conj(q) is the conjugate of the orientation quaternion (q=[w,x,y,z],
         // q*=[w,-x,-y,-z])
-        Quaternion p = new Quaternion(0, x, y, z);
 
-        // quaternion multiplication: q * p, stored back in p
-        p = q.getProduct(p);
+        // Expanded so no Quaternions are needed.
+        // t = q * [0, v]
+        double tw = -q.x * x - q.y * y - q.z * z;
+        double tx = q.w * x + q.y * z - q.z * y;
+        double ty = q.w * y - q.x * z + q.z * x;
+        double tz = q.w * z + q.x * y - q.y * x;
 
-        // quaternion multiplication: p * conj(q), stored back in p
-        p = p.getProduct(q.getConjugate());
-
-        // p quaternion is now [0, x', y', z']
-        x = (short) p.x;
-        y = (short) p.y;
-        z = (short) p.z;
+        // t * conj(q) is now [0, x', y', z']
+        x = (short) (-tw * q.x + tx * q.w - ty * q.z + tz * q.y);
+        y = (short) (-tw * q.y + tx * q.z + ty * q.w - tz * q.x);
+        z = (short) (-tw * q.z - tx * q.y + ty * q.x + tz * q.w);
     }
 
     public VectorInt16 getRotated(Quaternion q) {
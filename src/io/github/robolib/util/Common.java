@@ -67,6 +67,9 @@ public class Common {
     /**
      * Get an IntBuffer of size 4 with Little Endian Byte Order
      *
+     * This allocates a new direct buffer on every call. For HAL status codes use
+     * {@link io.github.robolib.hal.HALBuffers#intBuffer()} instead.
+     *
      * @return an IntBuffer of size 4 with Little Endian byte order
      */
     public static IntBuffer allocateInt() {
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2015-2020 noriah <vix@noriah.dev>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ */
+
+package io.github.robolib.util;
+
+/**
+ * A histogram of durations in microseconds.
+ *
+ * Values are counted in power of two buckets, so recording a value never
+ * allocates and takes constant time. Percentiles are estimated from the upper
+ * bound of the bucket they fall in.
+ *
+ * This class is not synchronized. Values read from another thread while one is
+ * being recorded may be slightly out of date.
+ *
+ * @author noriah <vix@noriah.dev>
+ */
+public class Histogram {
+
+    private static final int BUCKETS = 64;
+
+    private final long[] m_buckets = new long[BUCKETS];
+    private long m_count;
+    private long m_total;
+    private long m_min;
+    private long m_max;
+    private long m_last;
+
+    public Histogram() {
+        reset();
+    }
+
+    /**
+     * Record a value.
+     *
+     * @param micros the duration in microseconds
+     */
+    public void record(long micros) {
+        if (micros < 0)
+            micros = 0;
+        m_buckets[BUCKETS - Long.numberOfLeadingZeros(micros)]++;
+        m_count++;
+        m_total += micros;
+        m_last = micros;
+        if (micros < m_min)
+            m_min = micros;
+        if (micros > m_max)
+            m_max = micros;
+    }
+
+    /**
+     * Clear all recorded values.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            m_buckets[i] = 0;
+        }
+        m_count = 0;
+        m_total = 0;
+        m_min = Long.MAX_VALUE;
+        m_max = 0;
+        m_last = 0;
+    }
+
+    /**
+     * @return the number of values recorded
+     */
+    public long getCount() {
+        return m_count;
+    }
+
+    /**
+     * @return the smallest value recorded, or 0 if there are none
+     */
+    public long getMin() {
+        return m_count == 0 ? 0 : m_min;
+    }
+
+    /**
+     * @return the largest value recorded
+     */
+    public long getMax() {
+        return m_max;
+    }
+
+    /**
+     * @return the most recent value recorded
+     */
+    public long getLast() {
+        return m_last;
+    }
+
+    /**
+     * @return the mean of all values recorded, or 0 if there are none
+     */
+    public double getMean() {
+        return m_count == 0 ? 0.0 : (double) m_total / m_count;
+    }
+
+    /**
+     * Estimate a percentile.
+     *
+     * @param percentile the percentile, from 0.0 to 1.0
+     * @return a value that at least that fraction of the recorded values are
+     *         less than or equal to
+     */
+    public long getPercentile(double percentile) {
+        if (m_count == 0)
+            return 0;
+        long target = (long) Math.ceil(MathUtils.clamp(percentile, 0.0, 1.0) * m_count);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += m_buckets[i];
+            if (seen >= target && seen > 0)
+                return Math.min(m_max, i == 0 ? 0 : (1L << i) - 1);
+        }
+        return m_max;
+    }
+}
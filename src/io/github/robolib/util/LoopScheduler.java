@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2015-2020 noriah <vix@noriah.dev>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ */
+
+package io.github.robolib.util;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.LockSupport;
+
+import io.github.robolib.module.RoboRIO;
+import io.github.robolib.util.log.ILogger;
+import io.github.robolib.util.log.Logger;
+
+/**
+ * Runs periodic control loops on one shared, high priority thread.
+ *
+ * Loops are kept in a queue ordered by their next deadline on the FPGA clock.
+ * Each loop runs at a fixed phase within its period, so loops with the same
+ * period can be spread out instead of all firing at once. Missed cycles are
+ * skipped rather than run back to back, and each loop keeps its own jitter,
+ * run time and overrun statistics.
+ *
+ * @author noriah <vix@noriah.dev>
+ */
+public final class LoopScheduler {
+
+    /**
+     * A periodic task run by the {@link LoopScheduler}.
+     *
+     * @author noriah <vix@noriah.dev>
+     */
+    public static final class Loop implements Comparable<Loop> {
+
+        private final Runnable m_task;
+        private final long m_period;
+        private final long m_phase;
+        private long m_deadline;
+        private volatile boolean m_cancelled = false;
+
+        private final Histogram m_jitter = new Histogram();
+        private final Histogram m_runTime = new Histogram();
+        private volatile long m_runs = 0;
+        private volatile long m_overruns = 0;
+
+        private Loop(Runnable task, long period, long phase) {
+            m_task = task;
+            m_period = period;
+            m_phase = phase;
+        }
+
+        /**
+         * Stop running this loop. A run already in progress is allowed to finish.
+         */
+        public void cancel() {
+            m_cancelled = true;
+            synchronized (m_queue) {
+                m_queue.remove(this);
+            }
+        }
+
+        /**
+         * @return true if this loop has been cancelled
+         */
+        public boolean isCancelled() {
+            return m_cancelled;
+        }
+
+        /**
+         * @return the period of this loop in seconds
+         */
+        public double getPeriod() {
+            return m_period / 1e6;
+        }
+
+        /**
+         * @return the phase of this loop within its period in seconds
+         */
+        public double getPhase() {
+            return m_phase / 1e6;
+        }
+
+        /**
+         * @return how late each run started, in microseconds
+         */
+        public Histogram getJitter() {
+            return m_jitter;
+        }
+
+        /**
+         * @return how long each run took, in microseconds
+         */
+        public Histogram getRunTime() {
+            return m_runTime;
+        }
+
+        /**
+         * @return the number of times this loop has run
+         */
+        public long getRunCount() {
+            return m_runs;
+        }
+
+        /**
+         * @return the number of runs that finished after the next one was due
+         */
+        public long getOverrunCount() {
+            return m_overruns;
+        }
+
+        @Override
+        public int compareTo(Loop o) {
+            return Long.compare(m_deadline, o.m_deadline);
+        }
+    }
+
+    /** Microseconds between the default phases of loops added one after another. */
+    private static final long PHASE_STEP = 1000;
+
+    private static final ILogger m_log = Logger.get(LoopScheduler.class);
+
+    private static final PriorityQueue<Loop> m_queue = new PriorityQueue<Loop>();
+
+    private static Thread m_thread = null;
+    private static long m_nextPhase = 0;
+
+    private LoopScheduler() {
+    }
+
+    /**
+     * Run a task periodically. Loops added one after another are given phases 1ms
+     * apart, so they do not all start at the same time.
+     *
+     * @param task   the task to run
+     * @param period the time between runs in seconds
+     * @return the {@link Loop} for the task
+     */
+    public static Loop schedule(Runnable task, double period) {
+        long p = toMicros(period);
+        long phase;
+        synchronized (m_queue) {
+            phase = m_nextPhase % p;
+            m_nextPhase += PHASE_STEP;
+        }
+        return add(task, p, phase);
+    }
+
+    /**
+     * Run a task periodically at a given phase. The task runs whenever the FPGA
+     * clock is at {@code phase} past a multiple of {@code period}.
+     *
+     * @param task   the task to run
+     * @param period the time between runs in seconds
+     * @param phase  the offset into each period to run at, in seconds
+     * @return the {@link Loop} for the task
+     */
+    public static Loop schedule(Runnable task, double period, double phase) {
+        long p = toMicros(period);
+        long ph = (long) (phase * 1e6);
+        if (ph < 0 || ph >= p)
+            throw new IllegalArgumentException("Phase must be at least 0 and less than the period.");
+        return add(task, p, ph);
+    }
+
+    private static long toMicros(double period) {
+        long p = (long) (period * 1e6);
+        if (p <= 0)
+            throw new IllegalArgumentException("Period must be greater than 0.");
+        return p;
+    }
+
+    private static Loop add(Runnable task, long period, long phase) {
+        Loop loop = new Loop(task, period, phase);
+        long now = RoboRIO.getFPGATime();
+        loop.m_deadline = (now - phase) / period * period + period + phase;
+        synchronized (m_queue) {
+            m_queue.add(loop);
+            if (m_thread == null) {
+                m_thread = new Thread(LoopScheduler::runLoops, "Control Loop Thread");
+                m_thread.setPriority(Thread.MAX_PRIORITY);
+                m_thread.setDaemon(true);
+                m_thread.start();
+            }
+        }
+        LockSupport.unpark(m_thread);
+        return loop;
+    }
+
+    private static void runLoops() {
+        Loop loop;
+        long now, start, end;
+        while (true) {
+            synchronized (m_queue) {
+                loop = m_queue.peek();
+                now = RoboRIO.getFPGATime();
+                if (loop == null || loop.m_deadline > now) {
+                    loop = null;
+                } else {
+                    m_queue.poll();
+                }
+            }
+
+            if (loop == null) {
+                waitForNext(now);
+                continue;
+            }
+
+            start = now;
+            loop.m_jitter.record(start - loop.m_deadline);
+            try {
+                loop.m_task.run();
+            } catch (Throwable t) {
+                m_log.error("Error in control loop", t);
+            }
+            end = RoboRIO.getFPGATime();
+            loop.m_runTime.record(end - start);
+            loop.m_runs++;
+
+            loop.m_deadline += loop.m_period;
+            if (loop.m_deadline <= end) {
+                loop.m_overruns++;
+                // Skip missed cycles but stay on the same phase.
+                loop.m_deadline += (end - loop.m_deadline) / loop.m_period * loop.m_period + loop.m_period;
+            }
+
+            synchronized (m_queue) {
+                if (!loop.m_cancelled)
+                    m_queue.add(loop);
+            }
+        }
+    }
+
+    /**
+     * Park the loop thread until the next deadline. Adding a loop unparks it
+     * early, so the new loop is not missed.
+     */
+    private static void waitForNext(long now) {
+        Loop next;
+        synchronized (m_queue) {
+            next = m_queue.peek();
+        }
+        if (next == null)
+            LockSupport.park();
+        else if (next.m_deadline > now)
+            LockSupport.parkNanos((next.m_deadline - now) * 1000L);
+    }
+}